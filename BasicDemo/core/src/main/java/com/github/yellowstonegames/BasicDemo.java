@@ -11,8 +11,6 @@ import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.utils.viewport.StretchViewport;
 import squidpony.ArrayTools;
 import squidpony.squidai.DijkstraMap;
-import squidpony.squidai.graph.DefaultGraph;
-import squidpony.squidai.graph.Heuristic;
 import squidpony.squidgrid.Direction;
 import squidpony.squidgrid.FOV;
 import squidpony.squidgrid.Measurement;
@@ -115,7 +113,7 @@ public class BasicDemo extends ApplicationAdapter {
     private Color bgColor;
     private Stage stage;
     private DijkstraMap playerToCursor;
-    private DefaultGraph graph;
+    private SectorGraph graph;
     private Coord cursor, player;
     private ArrayList<Coord> toCursor;
     private List<Coord> awaitedMoves;
@@ -330,7 +328,9 @@ public class BasicDemo extends ApplicationAdapter {
         // which is 13 here. It also won't try to find distances through an impassable cell, which here is the blockage
         // GreasedRegion that contains the cells just past the edge of the player's FOV area.
         playerToCursor.partialScan(null, 13, blockage, false);
-        graph = new DefaultGraph(bareDungeon, true);
+        // SectorGraph finds paths much like DefaultGraph's A*, but splits the map into 16x16 sectors and works out how
+        // to cross each one ahead of time, so finding a path on every mouse movement stays cheap even on huge maps.
+        graph = new SectorGraph(bareDungeon, 16);
 
         //The next three lines set the background color for anything we don't draw on, but also create 2D arrays of the
         //same size as decoDungeon that store the colors for the foregrounds and backgrounds of each cell as packed
@@ -453,7 +453,7 @@ public class BasicDemo extends ApplicationAdapter {
 //                                toCursor.clear();
 //                                playerToCursor.findPathPreScanned(toCursor, cursor);
                                 if(graph.contains(cursor) && currentlySeen.contains(cursor))
-                                    graph.findShortestPath(cursor, player, toCursor, Heuristic.EUCLIDEAN);
+                                    graph.findShortestPath(cursor, player, toCursor);
                                 else
                                     return false;
                                 //findPathPreScanned includes the current cell (goal) by default, which is helpful when
@@ -500,7 +500,7 @@ public class BasicDemo extends ApplicationAdapter {
 //                        toCursor.clear();
 //                        playerToCursor.findPathPreScanned(toCursor, cursor);
                         if(graph.contains(cursor) && currentlySeen.contains(cursor))
-                            graph.findShortestPath(cursor, player, toCursor, Heuristic.EUCLIDEAN);
+                            graph.findShortestPath(cursor, player, toCursor);
                         else
                             return false;
                         //findPathPreScanned includes the current cell (goal) by default, which is helpful when
@@ -0,0 +1,452 @@
+package com.github.yellowstonegames;
+
+import squidpony.squidmath.Coord;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A hierarchical pathfinder (HPA*) for grids where every walkable cell can step to any of its 8 neighbors at a cost of
+ * 1, the same kind of grid a {@code DefaultGraph} built with {@code eightWay} set to true holds.
+ * <br>
+ * The grid is cut into square sectors. Where a sector borders another, a few cells on each side of every opening are
+ * picked as entrances, and the distances between the entrances of each sector are found ahead of time. A query only
+ * needs a small search over those entrances, plus a search inside the sectors of the start and the target; then only
+ * the sectors the abstract path goes through are searched cell-by-cell to turn it into steps. That makes a query cost
+ * roughly the same on a 1024x1024 map as on an 80x40 one, where a plain A* over every cell gets much slower.
+ * <br>
+ * Paths are always valid and are found whenever one exists, but aren't always the shortest; they can take a few more
+ * steps than needed because they go through entrances. When a door opens or a wall is dug, call
+ * {@link #setPassable(int, int, boolean)}; only the sectors that cell can affect are rebuilt, right before the next
+ * query.
+ */
+public class SectorGraph {
+    /** Straight openings at least this long get an entrance at both ends instead of one in the middle. */
+    private static final int LONG_OPENING = 6;
+    /** How far ahead along a path {@link #shortcut(List)} looks for a cell next to the current one. */
+    private static final int SHORTCUT_WINDOW = 12;
+
+    public final int width, height, sectorSize, sectorsX, sectorsY;
+
+    // cells are numbered x * height + y, the same order as a char[x][y] map.
+    private final boolean[] passable;
+    // for each sector, the cells that are its entrances, and the distances between them (n * n, -1 if unreachable).
+    private final int[][] nodes, distances;
+    // for each cell, its index in its sector's nodes, or -1.
+    private final int[] nodeOf;
+    private final boolean[] dirty;
+    private boolean anyDirty;
+    private long rebuilt;
+
+    // search state, reused between queries; a cell's entry only counts if its stamp is the current query's.
+    private int query, localQuery;
+    private final int[] gScore, parent, openStamp, closedStamp;
+    private final int[] localDist, localParent, localStamp, queue;
+    private long[] heap = new long[64];
+    private int heapSize;
+    private int[] startDist = new int[16], goalDist = new int[16], chain = new int[64], scratch = new int[64];
+
+    /**
+     * Builds every sector of the given map, treating '#' as a wall and anything else as walkable.
+     * @param map a char[x][y] map, such as {@code DungeonGenerator.getBareDungeon()}
+     * @param sectorSize the width and height of each sector; 16 is a good choice for most maps
+     */
+    public SectorGraph(char[][] map, int sectorSize) {
+        width = map.length;
+        height = map[0].length;
+        this.sectorSize = Math.max(sectorSize, 2);
+        sectorsX = (width + this.sectorSize - 1) / this.sectorSize;
+        sectorsY = (height + this.sectorSize - 1) / this.sectorSize;
+        passable = new boolean[width * height];
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                passable[x * height + y] = map[x][y] != '#';
+            }
+        }
+        nodes = new int[sectorsX * sectorsY][];
+        distances = new int[sectorsX * sectorsY][];
+        nodeOf = new int[width * height];
+        Arrays.fill(nodeOf, -1);
+        dirty = new boolean[sectorsX * sectorsY];
+        gScore = new int[width * height];
+        parent = new int[width * height];
+        openStamp = new int[width * height];
+        closedStamp = new int[width * height];
+        localDist = new int[width * height];
+        localParent = new int[width * height];
+        localStamp = new int[width * height];
+        queue = new int[this.sectorSize * this.sectorSize];
+        for (int s = 0; s < nodes.length; s++) {
+            nodes[s] = new int[0];
+        }
+        for (int s = 0; s < nodes.length; s++) {
+            findEntrances(s);
+        }
+        for (int s = 0; s < nodes.length; s++) {
+            findDistances(s);
+        }
+    }
+
+    public boolean contains(Coord c) {
+        return isPassable(c.x, c.y);
+    }
+
+    public boolean isPassable(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height && passable[x * height + y];
+    }
+
+    /**
+     * Opens or closes a cell, such as a door. The sector the cell is in, and any neighboring sector whose border it's
+     * on, are rebuilt before the next query; the rest of the graph is left alone.
+     */
+    public void setPassable(int x, int y, boolean walkable) {
+        int c = x * height + y;
+        if (passable[c] == walkable)
+            return;
+        passable[c] = walkable;
+        int sx = x / sectorSize, sy = y / sectorSize;
+        int dxLow = (x == sx * sectorSize && sx > 0) ? -1 : 0, dxHigh = (x == Math.min(width, (sx + 1) * sectorSize) - 1 && sx < sectorsX - 1) ? 1 : 0;
+        int dyLow = (y == sy * sectorSize && sy > 0) ? -1 : 0, dyHigh = (y == Math.min(height, (sy + 1) * sectorSize) - 1 && sy < sectorsY - 1) ? 1 : 0;
+        for (int dx = dxLow; dx <= dxHigh; dx++) {
+            for (int dy = dyLow; dy <= dyHigh; dy++) {
+                dirty[(sy + dy) * sectorsX + sx + dx] = true;
+            }
+        }
+        anyDirty = true;
+    }
+
+    /**
+     * @return how many times a sector has been built or rebuilt, including when this was constructed
+     */
+    public long getSectorsBuilt() {
+        return rebuilt;
+    }
+
+    private void rebuildDirty() {
+        if (!anyDirty)
+            return;
+        // entrances first, since a sector's distances depend on its neighbors' entrances being settled.
+        for (int s = 0; s < dirty.length; s++) {
+            if (dirty[s]) findEntrances(s);
+        }
+        for (int s = 0; s < dirty.length; s++) {
+            if (dirty[s]) {
+                findDistances(s);
+                dirty[s] = false;
+            }
+        }
+        anyDirty = false;
+    }
+
+    private int sectorOf(int cell) {
+        return (cell % height) / sectorSize * sectorsX + (cell / height) / sectorSize;
+    }
+
+    private boolean open(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height && passable[x * height + y];
+    }
+
+    // Entrances ----------------------------------------------------------------------------------------------------
+
+    private int entranceCount;
+
+    private void findEntrances(int s) {
+        for (int c : nodes[s]) {
+            nodeOf[c] = -1;
+        }
+        entranceCount = 0;
+        int sx = s % sectorsX, sy = s / sectorsX;
+        int x0 = sx * sectorSize, x1 = Math.min(width, x0 + sectorSize), y0 = sy * sectorSize, y1 = Math.min(height, y0 + sectorSize);
+        if (x0 > 0) scanBorder(x0, x0 - 1, y0, y1, true);
+        if (x1 < width) scanBorder(x1 - 1, x1, y0, y1, true);
+        if (y0 > 0) scanBorder(y0, y0 - 1, x0, x1, false);
+        if (y1 < height) scanBorder(y1 - 1, y1, x0, x1, false);
+        // a diagonal step through a corner is the only way between two sectors that only touch at that corner.
+        corner(x0, y0, -1, -1);
+        corner(x1 - 1, y0, 1, -1);
+        corner(x0, y1 - 1, -1, 1);
+        corner(x1 - 1, y1 - 1, 1, 1);
+        int[] ns = new int[entranceCount];
+        System.arraycopy(scratch, 0, ns, 0, entranceCount);
+        nodes[s] = ns;
+        for (int i = 0; i < ns.length; i++) {
+            nodeOf[ns[i]] = i;
+        }
+    }
+
+    private void corner(int x, int y, int dx, int dy) {
+        if (open(x, y) && open(x + dx, y + dy))
+            addEntrance(x * height + y);
+    }
+
+    /**
+     * Scans one side of a sector, where {@code own} is the sector's outermost row or column and {@code other} is the
+     * neighboring sector's. Both sectors pick the same openings this way, each adding the cells on its own side.
+     */
+    private void scanBorder(int own, int other, int from, int to, boolean vertical) {
+        int runStart = -1;
+        for (int i = from; i <= to; i++) {
+            boolean straight = i < to && crossing(own, other, i, vertical);
+            if (straight && runStart < 0) {
+                runStart = i;
+            } else if (!straight && runStart >= 0) {
+                int runEnd = i - 1;
+                if (runEnd - runStart + 1 >= LONG_OPENING) {
+                    addEntrance(cell(own, runStart, vertical));
+                    addEntrance(cell(own, runEnd, vertical));
+                } else {
+                    addEntrance(cell(own, (runStart + runEnd) >>> 1, vertical));
+                }
+                runStart = -1;
+            }
+        }
+        // an opening that can only be crossed diagonally, and isn't next to a straight opening, needs its own entrance.
+        for (int i = from; i < to; i++) {
+            if (!openAt(own, i, vertical) || crossing(own, other, i, vertical))
+                continue;
+            if ((i > from && openAt(other, i - 1, vertical) && !crossing(own, other, i - 1, vertical))
+                    || (i + 1 < to && openAt(other, i + 1, vertical) && !crossing(own, other, i + 1, vertical)))
+                addEntrance(cell(own, i, vertical));
+        }
+    }
+
+    private boolean crossing(int own, int other, int i, boolean vertical) {
+        return openAt(own, i, vertical) && openAt(other, i, vertical);
+    }
+
+    private boolean openAt(int line, int i, boolean vertical) {
+        return vertical ? open(line, i) : open(i, line);
+    }
+
+    private int cell(int line, int i, boolean vertical) {
+        return vertical ? line * height + i : i * height + line;
+    }
+
+    private void addEntrance(int c) {
+        for (int i = 0; i < entranceCount; i++) {
+            if (scratch[i] == c) return;
+        }
+        if (entranceCount == scratch.length)
+            scratch = Arrays.copyOf(scratch, entranceCount << 1);
+        scratch[entranceCount++] = c;
+    }
+
+    private void findDistances(int s) {
+        int[] ns = nodes[s];
+        int n = ns.length;
+        int[] d = new int[n * n];
+        if (startDist.length < n)
+            startDist = new int[n];
+        for (int i = 0; i < n; i++) {
+            sectorSearch(ns[i], s, startDist, -1, false);
+            System.arraycopy(startDist, 0, d, i * n, n);
+        }
+        distances[s] = d;
+        rebuilt++;
+    }
+
+    // Searching ----------------------------------------------------------------------------------------------------
+
+    /**
+     * Breadth-first search from {@code from}, staying inside sector {@code s}. Fills {@code toNodes} with the distance to
+     * each of the sector's entrances (-1 if unreachable) and returns the distance to {@code target}, or -1. If
+     * {@code stopAtTarget} is true, it stops as soon as the target is found, leaving localParent pointing toward
+     * {@code from} along a shortest path.
+     */
+    private int sectorSearch(int from, int s, int[] toNodes, int target, boolean stopAtTarget) {
+        int sx = s % sectorsX, sy = s / sectorsX;
+        int x0 = sx * sectorSize, x1 = Math.min(width, x0 + sectorSize), y0 = sy * sectorSize, y1 = Math.min(height, y0 + sectorSize);
+        if (toNodes != null)
+            Arrays.fill(toNodes, 0, nodes[s].length, -1);
+        int found = -1;
+        if (++localQuery == 0) {
+            Arrays.fill(localStamp, 0);
+            localQuery = 1;
+        }
+        int head = 0, tail = 0;
+        queue[tail++] = from;
+        localStamp[from] = localQuery;
+        localDist[from] = 0;
+        localParent[from] = -1;
+        while (head < tail) {
+            int c = queue[head++], dist = localDist[c];
+            if (c == target) {
+                found = dist;
+                if (stopAtTarget) return found;
+            }
+            if (toNodes != null && nodeOf[c] >= 0 && sectorOf(c) == s)
+                toNodes[nodeOf[c]] = dist;
+            int cx = c / height, cy = c % height;
+            for (int nx = Math.max(cx - 1, x0); nx <= cx + 1 && nx < x1; nx++) {
+                for (int ny = Math.max(cy - 1, y0); ny <= cy + 1 && ny < y1; ny++) {
+                    int nc = nx * height + ny;
+                    if (passable[nc] && localStamp[nc] != localQuery) {
+                        localStamp[nc] = localQuery;
+                        localDist[nc] = dist + 1;
+                        localParent[nc] = c;
+                        queue[tail++] = nc;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Finds a path from start to target, using the same order {@code DefaultGraph.findShortestPath()} does: the path
+     * starts with start and ends with target. The path is cleared first, and left empty if there is no way there.
+     * @param start where the path begins
+     * @param target where the path ends
+     * @param path a List that will be cleared and filled with the path
+     * @return true if a path was found
+     */
+    public boolean findShortestPath(Coord start, Coord target, List<Coord> path) {
+        path.clear();
+        if (!contains(start) || !contains(target))
+            return false;
+        rebuildDirty();
+        int from = start.x * height + start.y, goal = target.x * height + target.y;
+        if (from == goal) {
+            path.add(start);
+            return true;
+        }
+        int ss = sectorOf(from), gs = sectorOf(goal);
+        int maxNodes = Math.max(nodes[ss].length, nodes[gs].length);
+        if (startDist.length < maxNodes)
+            startDist = new int[maxNodes];
+        if (goalDist.length < maxNodes)
+            goalDist = new int[maxNodes];
+        int direct = sectorSearch(from, ss, startDist, ss == gs ? goal : -1, false);
+        sectorSearch(goal, gs, goalDist, -1, false);
+
+        if (++query == 0) {
+            Arrays.fill(openStamp, 0);
+            Arrays.fill(closedStamp, 0);
+            query = 1;
+        }
+        heapSize = 0;
+        if (direct >= 0)
+            relax(goal, direct, from, goal);
+        int[] ns = nodes[ss];
+        for (int j = 0; j < ns.length; j++) {
+            if (startDist[j] >= 0) relax(ns[j], startDist[j], from, goal);
+        }
+        while (heapSize > 0) {
+            int c = (int) pop();
+            if (closedStamp[c] == query)
+                continue;
+            closedStamp[c] = query;
+            if (c == goal) {
+                refine(from, goal, path);
+                shortcut(path);
+                return true;
+            }
+            int g = gScore[c], s = sectorOf(c), i = nodeOf[c];
+            int[] sn = nodes[s], d = distances[s];
+            int n = sn.length;
+            for (int j = 0; j < n; j++) {
+                if (j != i && d[i * n + j] >= 0) relax(sn[j], g + d[i * n + j], c, goal);
+            }
+            if (s == gs && goalDist[i] >= 0)
+                relax(goal, g + goalDist[i], c, goal);
+            int cx = c / height, cy = c % height;
+            for (int nx = Math.max(cx - 1, 0); nx <= cx + 1 && nx < width; nx++) {
+                for (int ny = Math.max(cy - 1, 0); ny <= cy + 1 && ny < height; ny++) {
+                    int nc = nx * height + ny;
+                    if (passable[nc] && nodeOf[nc] >= 0 && sectorOf(nc) != s) relax(nc, g + 1, c, goal);
+                }
+            }
+        }
+        return false;
+    }
+
+    private void relax(int c, int g, int from, int goal) {
+        if (openStamp[c] == query && g >= gScore[c])
+            return;
+        if (closedStamp[c] == query)
+            return;
+        openStamp[c] = query;
+        gScore[c] = g;
+        parent[c] = from;
+        // the Chebyshev distance never overestimates when diagonal steps cost the same as straight ones.
+        int h = Math.max(Math.abs(c / height - goal / height), Math.abs(c % height - goal % height));
+        push((long) (g + h) << 32 | c);
+    }
+
+    /**
+     * Turns the chain of entrances the abstract search found into single steps, searching only the sectors it uses.
+     */
+    private void refine(int from, int goal, List<Coord> path) {
+        int len = 0;
+        for (int c = goal; ; c = parent[c]) {
+            if (len == chain.length)
+                chain = Arrays.copyOf(chain, len << 1);
+            chain[len++] = c;
+            if (c == from) break;
+        }
+        path.add(Coord.get(from / height, from % height));
+        for (int k = len - 1; k > 0; k--) {
+            int a = chain[k], b = chain[k - 1], s = sectorOf(a);
+            if (s != sectorOf(b)) {
+                path.add(Coord.get(b / height, b % height));
+                continue;
+            }
+            // searching from b leaves localParent leading from a back toward b, in the order the steps are taken.
+            sectorSearch(b, s, null, a, true);
+            for (int c = localParent[a]; c != -1; c = localParent[c]) {
+                path.add(Coord.get(c / height, c % height));
+            }
+        }
+    }
+
+    /**
+     * Going through entrances tends to leave small detours near sector borders; this removes the steps between any two
+     * cells of the path that are close together on the path and next to each other on the grid.
+     */
+    private static void shortcut(List<Coord> path) {
+        int n = path.size(), kept = 0;
+        for (int i = 0; i < n; ) {
+            Coord a = path.get(i);
+            path.set(kept++, a);
+            int next = i + 1;
+            for (int j = Math.min(n - 1, i + SHORTCUT_WINDOW); j > i + 1; j--) {
+                Coord b = path.get(j);
+                if (Math.abs(a.x - b.x) <= 1 && Math.abs(a.y - b.y) <= 1) {
+                    next = j;
+                    break;
+                }
+            }
+            i = next;
+        }
+        for (int i = n - 1; i >= kept; i--) {
+            path.remove(i);
+        }
+    }
+
+    private void push(long item) {
+        if (heapSize == heap.length)
+            heap = Arrays.copyOf(heap, heapSize << 1);
+        int i = heapSize++;
+        while (i > 0) {
+            int p = (i - 1) >>> 1;
+            if (heap[p] <= item) break;
+            heap[i] = heap[p];
+            i = p;
+        }
+        heap[i] = item;
+    }
+
+    private long pop() {
+        long top = heap[0], last = heap[--heapSize];
+        int i = 0, half = heapSize >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < heapSize && heap[child + 1] < heap[child]) child++;
+            if (last <= heap[child]) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        return top & 0xFFFFFFFFL;
+    }
+}
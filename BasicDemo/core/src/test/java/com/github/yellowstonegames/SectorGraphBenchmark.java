@@ -0,0 +1,86 @@
+package com.github.yellowstonegames;
+
+import squidpony.squidai.graph.DefaultGraph;
+import squidpony.squidai.graph.Heuristic;
+import squidpony.squidmath.Coord;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Measures how long one path query takes with the full A* BasicDemo used to run on every pointer event
+ * ({@code DefaultGraph.findShortestPath()} with {@link Heuristic#EUCLIDEAN}), and with {@link SectorGraph}, on
+ * generated dungeons from 80x40 up to 1024x1024. Two kinds of queries are timed: "screen" ones, where the target is
+ * within a screen's width of the start, like hovering the cursor, and "anywhere" ones across the whole map.
+ * <br>
+ * This is a plain main() so it can be run without any test framework. The first argument, if present, is the sector
+ * size (default 16).
+ */
+public class SectorGraphBenchmark {
+    public static void main(String[] args) {
+        int sectorSize = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int[][] sizes = {{80, 40}, {256, 256}, {512, 512}, {1024, 1024}};
+        Coord.expandPoolTo(1024, 1024);
+        System.out.printf("%-14s %-15s %10s %10s %10s %10s%n", "map", "queries", "A* mean", "A* p99", "HPA* mean", "HPA* p99");
+        for (int[] size : sizes) {
+            int width = size[0], height = size[1];
+            char[][] map = SectorGraphTest.makeMap(width, height, 777L + width);
+            long start = System.nanoTime();
+            DefaultGraph full = new DefaultGraph(map, true);
+            double fullBuild = (System.nanoTime() - start) / 1e6;
+            start = System.nanoTime();
+            SectorGraph sectors = new SectorGraph(map, sectorSize);
+            double sectorBuild = (System.nanoTime() - start) / 1e6;
+            System.out.printf("%4dx%-9d built in %.1f ms for A*, %.1f ms for HPA*%n", width, height, fullBuild, sectorBuild);
+            for (boolean screen : new boolean[]{true, false}) {
+                // fewer full A* queries on the big maps, where each can take a long time.
+                int queries = Math.max(20, 4000000 / (width * height) * 10);
+                Coord[] starts = new Coord[queries], targets = new Coord[queries];
+                Random random = new Random(width * 31L + (screen ? 1 : 0));
+                for (int i = 0; i < queries; i++) {
+                    starts[i] = SectorGraphTest.randomCell(map, random, true);
+                    targets[i] = screen ? nearbyCell(map, random, starts[i], 40, 20) : SectorGraphTest.randomCell(map, random, true);
+                }
+                ArrayList<Coord> path = new ArrayList<>();
+                // a warmup round for each, so the JIT has compiled both before anything is timed.
+                for (int i = 0; i < Math.min(queries, 500); i++) {
+                    full.findShortestPath(starts[i], targets[i], path, Heuristic.EUCLIDEAN);
+                    sectors.findShortestPath(starts[i], targets[i], path);
+                }
+                long[] fullTimes = new long[queries], sectorTimes = new long[queries];
+                for (int i = 0; i < queries; i++) {
+                    long t = System.nanoTime();
+                    full.findShortestPath(starts[i], targets[i], path, Heuristic.EUCLIDEAN);
+                    fullTimes[i] = System.nanoTime() - t;
+                    t = System.nanoTime();
+                    sectors.findShortestPath(starts[i], targets[i], path);
+                    sectorTimes[i] = System.nanoTime() - t;
+                }
+                System.out.printf("%-14s %-15s %8.1fus %8.1fus %8.1fus %8.1fus%n", "", (screen ? "screen " : "anywhere ") + queries,
+                        mean(fullTimes) / 1e3, percentile(fullTimes, 0.99) / 1e3, mean(sectorTimes) / 1e3, percentile(sectorTimes, 0.99) / 1e3);
+            }
+        }
+    }
+
+    private static Coord nearbyCell(char[][] map, Random random, Coord center, int rangeX, int rangeY) {
+        while (true) {
+            int x = center.x + random.nextInt(rangeX * 2 + 1) - rangeX, y = center.y + random.nextInt(rangeY * 2 + 1) - rangeY;
+            if (x >= 0 && y >= 0 && x < map.length && y < map[0].length && map[x][y] != '#') return Coord.get(x, y);
+        }
+    }
+
+    private static double mean(long[] times) {
+        double sum = 0.0;
+        for (long t : times) {
+            sum += t;
+        }
+        return sum / times.length;
+    }
+
+    private static long percentile(long[] times, double p) {
+        long[] sorted = times.clone();
+        Arrays.sort(sorted);
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))];
+    }
+}
@@ -0,0 +1,186 @@
+package com.github.yellowstonegames;
+
+import squidpony.squidmath.Coord;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Checks {@link SectorGraph} against an exact breadth-first search on generated dungeons of several sizes: every path
+ * it finds must be walkable and go from start to target, it must find a path exactly when one exists, and the extra
+ * steps it takes compared to a shortest path (the optimality gap) are reported and must stay small. Then walls are
+ * opened and closed like doors, and after each change the incrementally rebuilt graph must give exactly the same paths
+ * as a graph built from scratch, while rebuilding only a few sectors.
+ * <br>
+ * This is a plain main() so it can be run without any test framework; it throws at the first problem.
+ */
+public class SectorGraphTest {
+    public static void main(String[] args) {
+        int[][] sizes = {{80, 40}, {160, 96}, {257, 131}};
+        for (int[] size : sizes) {
+            for (int sectorSize : new int[]{8, 16}) {
+                checkPaths(size[0], size[1], sectorSize, 12345L + size[0]);
+            }
+        }
+        checkDoors(120, 80, 16, 99L);
+        System.out.println("All checks passed.");
+    }
+
+    private static void checkPaths(int width, int height, int sectorSize, long seed) {
+        char[][] map = makeMap(width, height, seed);
+        SectorGraph graph = new SectorGraph(map, sectorSize);
+        Random random = new Random(seed);
+        ArrayList<Coord> path = new ArrayList<>();
+        int[] exact = new int[width * height];
+        long queries = 0, found = 0, extraSteps = 0, optimalSteps = 0, exactHits = 0;
+        int worst = 0;
+        for (int t = 0; t < 40; t++) {
+            Coord target = randomCell(map, random, true);
+            bfs(map, target, exact);
+            for (int q = 0; q < 50; q++) {
+                // some starts are walls, to check that those never get a path.
+                Coord start = randomCell(map, random, q % 10 != 0);
+                int best = map[start.x][start.y] == '#' ? -1 : exact[start.x * height + start.y];
+                boolean ok = graph.findShortestPath(start, target, path);
+                queries++;
+                if (ok != (best >= 0))
+                    throw new IllegalStateException("From " + start + " to " + target + ", found " + ok + " but the exact search found " + best);
+                if (!ok) {
+                    if (!path.isEmpty()) throw new IllegalStateException("A failed search left a path behind.");
+                    continue;
+                }
+                checkWalkable(map, path, start, target);
+                int steps = path.size() - 1, extra = steps - best;
+                if (extra < 0) throw new IllegalStateException("A path shorter than the shortest? " + start + " to " + target);
+                found++;
+                extraSteps += extra;
+                optimalSteps += best;
+                worst = Math.max(worst, extra);
+                if (extra == 0) exactHits++;
+            }
+        }
+        double gap = optimalSteps == 0 ? 0.0 : 100.0 * extraSteps / optimalSteps;
+        System.out.printf("%4dx%-4d sectors of %2d: %5d queries, %5d paths, %5.1f%% optimal, %5.2f%% more steps in total, worst +%d%n",
+                width, height, sectorSize, queries, found, 100.0 * exactHits / Math.max(found, 1), gap, worst);
+        if (gap > 10.0)
+            throw new IllegalStateException("The optimality gap is much larger than expected: " + gap + "%");
+    }
+
+    private static void checkDoors(int width, int height, int sectorSize, long seed) {
+        char[][] map = makeMap(width, height, seed);
+        SectorGraph graph = new SectorGraph(map, sectorSize);
+        Random random = new Random(seed);
+        ArrayList<Coord> incremental = new ArrayList<>(), fresh = new ArrayList<>();
+        int[] exact = new int[width * height];
+        int sectors = graph.sectorsX * graph.sectorsY;
+        for (int change = 0; change < 200; change++) {
+            // opens a wall next to a floor or closes a floor, on the map and in the graph.
+            Coord c = randomCell(map, random, change % 3 == 0);
+            if (c.x == 0 || c.y == 0 || c.x == width - 1 || c.y == height - 1) continue;
+            boolean open = map[c.x][c.y] == '#';
+            map[c.x][c.y] = open ? '.' : '#';
+            long before = graph.getSectorsBuilt();
+            graph.setPassable(c.x, c.y, open);
+            SectorGraph rebuilt = new SectorGraph(map, sectorSize);
+            Coord target = randomCell(map, random, true);
+            bfs(map, target, exact);
+            for (int q = 0; q < 20; q++) {
+                Coord start = randomCell(map, random, true);
+                boolean a = graph.findShortestPath(start, target, incremental);
+                boolean b = rebuilt.findShortestPath(start, target, fresh);
+                if (a != b || !incremental.equals(fresh))
+                    throw new IllegalStateException("After changing " + c + ", the incremental graph's path differs from a fresh one's.");
+                if (a != exact[start.x * height + start.y] >= 0)
+                    throw new IllegalStateException("After changing " + c + ", a path was " + (a ? "found where none exists." : "missed."));
+                if (a) checkWalkable(map, incremental, start, target);
+            }
+            long built = graph.getSectorsBuilt() - before;
+            if (built > 4)
+                throw new IllegalStateException("Changing one cell rebuilt " + built + " of " + sectors + " sectors.");
+        }
+        System.out.println("Doors: 200 changes, incremental rebuilds matched fresh graphs on every query.");
+    }
+
+    private static void checkWalkable(char[][] map, ArrayList<Coord> path, Coord start, Coord target) {
+        if (!path.get(0).equals(start) || !path.get(path.size() - 1).equals(target))
+            throw new IllegalStateException("The path from " + start + " to " + target + " runs from " + path.get(0) + " to " + path.get(path.size() - 1));
+        for (int i = 0; i < path.size(); i++) {
+            Coord c = path.get(i);
+            if (map[c.x][c.y] == '#')
+                throw new IllegalStateException("The path from " + start + " to " + target + " goes through a wall at " + c);
+            if (i > 0) {
+                Coord p = path.get(i - 1);
+                if (Math.max(Math.abs(c.x - p.x), Math.abs(c.y - p.y)) != 1)
+                    throw new IllegalStateException("The path from " + start + " to " + target + " jumps from " + p + " to " + c);
+            }
+        }
+    }
+
+    /**
+     * Distances from target to every cell with 8-way steps that all cost 1, or -1 where it can't be reached.
+     */
+    static void bfs(char[][] map, Coord target, int[] dist) {
+        int width = map.length, height = map[0].length;
+        Arrays.fill(dist, -1);
+        int[] queue = new int[width * height];
+        int head = 0, tail = 0;
+        queue[tail++] = target.x * height + target.y;
+        dist[queue[0]] = 0;
+        while (head < tail) {
+            int c = queue[head++], x = c / height, y = c % height;
+            for (int nx = Math.max(x - 1, 0); nx <= x + 1 && nx < width; nx++) {
+                for (int ny = Math.max(y - 1, 0); ny <= y + 1 && ny < height; ny++) {
+                    int n = nx * height + ny;
+                    if (map[nx][ny] != '#' && dist[n] < 0) {
+                        dist[n] = dist[c] + 1;
+                        queue[tail++] = n;
+                    }
+                }
+            }
+        }
+    }
+
+    static Coord randomCell(char[][] map, Random random, boolean floor) {
+        while (true) {
+            int x = random.nextInt(map.length), y = random.nextInt(map[0].length);
+            if ((map[x][y] != '#') == floor) return Coord.get(x, y);
+        }
+    }
+
+    /**
+     * Makes a dungeon of rooms joined by corridors, with a few pillars and some rooms left unconnected, using '#' for
+     * walls and '.' for floors, like {@code DungeonGenerator.getBareDungeon()} does.
+     */
+    static char[][] makeMap(int width, int height, long seed) {
+        Random random = new Random(seed);
+        char[][] map = new char[width][height];
+        for (char[] column : map) {
+            Arrays.fill(column, '#');
+        }
+        int rooms = Math.max(4, width * height / 160);
+        int lastX = -1, lastY = -1;
+        for (int r = 0; r < rooms; r++) {
+            int w = 3 + random.nextInt(10), h = 3 + random.nextInt(7);
+            int x = 1 + random.nextInt(Math.max(1, width - w - 2)), y = 1 + random.nextInt(Math.max(1, height - h - 2));
+            for (int i = x; i < Math.min(x + w, width - 1); i++) {
+                for (int j = y; j < Math.min(y + h, height - 1); j++) {
+                    map[i][j] = (random.nextInt(40) == 0) ? '#' : '.';
+                }
+            }
+            int cx = x + w / 2, cy = y + h / 2;
+            // most rooms connect to the one before, so the map is mostly one piece with a few islands.
+            if (lastX >= 0 && random.nextInt(12) != 0) {
+                for (int i = Math.min(lastX, cx); i <= Math.max(lastX, cx); i++) {
+                    if (i > 0 && i < width - 1 && lastY > 0 && lastY < height - 1) map[i][lastY] = '.';
+                }
+                for (int j = Math.min(lastY, cy); j <= Math.max(lastY, cy); j++) {
+                    if (j > 0 && j < height - 1 && cx > 0 && cx < width - 1) map[cx][j] = '.';
+                }
+            }
+            lastX = Math.min(cx, width - 2);
+            lastY = Math.min(cy, height - 2);
+        }
+        return map;
+    }
+}
@@ -0,0 +1,106 @@
+package com.github.tommyettinger.bench.gwt;
+
+import squidpony.FakeLanguageGen;
+import squidpony.NaturalLanguageCipher;
+import squidpony.squidmath.GWTRNG;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures the same work {@link GwtLauncher} times in the browser, but on the JVM and for every language: words and
+ * sentences from each {@link FakeLanguageGen} in {@link TextCases}, and ciphering {@link TextCases#TEXT} with a new
+ * {@link NaturalLanguageCipher} for that language (with caching off, as in GwtLauncher). Each case is warmed up, then
+ * measured in several timed iterations; the result is operations per second, as mean and standard error, plus the
+ * bytes allocated per operation as counted by HotSpot's per-thread allocation counter.
+ * <br>
+ * This is a plain main() so it can be run without any test framework or graphics. The first argument, if present,
+ * only runs cases whose label contains it (such as "ENGLISH" or "cipher"); the second sets the milliseconds per
+ * measured iteration.
+ */
+public class TextBenchmark {
+    private static final int WARMUP_ITERATIONS = 3, MEASURED_ITERATIONS = 5;
+    private static final String[] KINDS = {"word", "sentence", "cipher"};
+
+    private static com.sun.management.ThreadMXBean threads;
+    private static long sink;
+
+    public static void main(String[] args) {
+        final String filter = args.length > 0 ? args[0] : "";
+        final long millis = args.length > 1 ? Long.parseLong(args[1]) : 500L;
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final TextCases cases = new TextCases();
+        System.out.printf("%-40s %-9s %14s %10s %14s%n", "language", "kind", "ops/s", "+/-", "bytes/op");
+        for (int c = 0; c < cases.languages.size(); c++) {
+            final String name = cases.names.get(c);
+            final FakeLanguageGen language = cases.languages.get(c);
+            for (int k = 0; k < KINDS.length; k++) {
+                if (!(name + ' ' + KINDS[k]).contains(filter))
+                    continue;
+                final double[] rates = new double[MEASURED_ITERATIONS];
+                final GWTRNG rng = new GWTRNG(123L);
+                long ops = 0, bytes = 0;
+                for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                    run(k, language, rng, millis * 2 / 5, null);
+                }
+                final long[] measured = new long[3];
+                for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+                    run(k, language, rng, millis, measured);
+                    rates[i] = measured[0] * 1e9 / measured[1];
+                    ops += measured[0];
+                    bytes += measured[2];
+                }
+                double mean = 0.0, variance = 0.0;
+                for (double r : rates) {
+                    mean += r;
+                }
+                mean /= MEASURED_ITERATIONS;
+                for (double r : rates) {
+                    variance += (r - mean) * (r - mean);
+                }
+                variance /= MEASURED_ITERATIONS - 1;
+                System.out.printf("%-40s %-9s %14.1f %10.1f %14.1f%n", name, KINDS[k], mean,
+                        Math.sqrt(variance / MEASURED_ITERATIONS), bytes / (double) ops);
+            }
+        }
+        System.out.println("[" + (sink & 1) + "]");
+    }
+
+    /**
+     * Repeats one kind of operation until at least {@code millis} milliseconds have passed, checking the clock every
+     * few operations. If {@code results} is non-null, it receives the count of operations, the nanoseconds taken, and
+     * the bytes allocated, in that order.
+     */
+    private static void run(int kind, FakeLanguageGen language, GWTRNG rng, long millis, long[] results) {
+        final long id = Thread.currentThread().getId();
+        final long end = System.nanoTime() + millis * 1000000L;
+        final long bytes = threads.getThreadAllocatedBytes(id), start = System.nanoTime();
+        long ops = 0, now;
+        do {
+            switch (kind) {
+                case 0:
+                    for (int i = 0; i < 64; i++) {
+                        sink += language.word(rng, true).length();
+                    }
+                    ops += 64;
+                    break;
+                case 1:
+                    for (int i = 0; i < 16; i++) {
+                        sink += language.sentence(rng, 3, 6).length();
+                    }
+                    ops += 16;
+                    break;
+                default:
+                    final NaturalLanguageCipher cipher = new NaturalLanguageCipher(language);
+                    cipher.setCacheLevel(0);
+                    sink += cipher.cipher(TextCases.TEXT).length();
+                    ops++;
+                    break;
+            }
+        } while ((now = System.nanoTime()) < end);
+        if (results != null) {
+            results[0] = ops;
+            results[1] = now - start;
+            results[2] = threads.getThreadAllocatedBytes(id) - bytes;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.github.tommyettinger.bench.gwt;
+
+import squidpony.FakeLanguageGen;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The languages that {@link TextBenchmark} and {@link TextOutputsTest} run: every entry in
+ * {@link FakeLanguageGen#registered}, named by the constant it is stored in, followed by a few mixed languages like
+ * the ones used to name places at world creation. Also holds the English text that ciphers are run on.
+ */
+final class TextCases {
+    /**
+     * About 60 words of ordinary English, with punctuation and capitals, for NaturalLanguageCipher to translate.
+     */
+    static final String TEXT = "The old road north of the river was closed for the winter, so the merchants waited in "
+            + "town. Some of them traded stories at the inn; others sold what they could at the market, and a few "
+            + "hired guards to take the long way around the mountains. By spring, the price of salt had doubled, "
+            + "and nobody remembered why the road was closed at all.";
+
+    final List<String> names = new ArrayList<>();
+    final List<FakeLanguageGen> languages = new ArrayList<>();
+
+    TextCases() {
+        for (FakeLanguageGen language : FakeLanguageGen.registered) {
+            add(nameOf(language), language);
+        }
+        add("ENGLISH+JAPANESE_ROMANIZED", FakeLanguageGen.ENGLISH.mix(FakeLanguageGen.JAPANESE_ROMANIZED, 0.5));
+        add("FRENCH+GREEK_ROMANIZED", FakeLanguageGen.FRENCH.mix(FakeLanguageGen.GREEK_ROMANIZED, 0.35));
+        add("SWAHILI+JAPANESE+FRENCH+RUSSIAN", FakeLanguageGen.mixAll(FakeLanguageGen.SWAHILI, 1.0,
+                FakeLanguageGen.JAPANESE_ROMANIZED, 1.0, FakeLanguageGen.FRENCH, 1.0,
+                FakeLanguageGen.RUSSIAN_ROMANIZED, 1.0));
+    }
+
+    private void add(String name, FakeLanguageGen language) {
+        names.add(name);
+        languages.add(language);
+    }
+
+    /**
+     * Finds the name of the public constant in FakeLanguageGen that holds language, so results can be labeled no
+     * matter which version of SquidLib is used; falls back to its position in registered.
+     */
+    private static String nameOf(FakeLanguageGen language) {
+        for (Field field : FakeLanguageGen.class.getFields()) {
+            if (Modifier.isStatic(field.getModifiers()) && field.getType() == FakeLanguageGen.class) {
+                try {
+                    if (field.get(null) == language)
+                        return field.getName();
+                } catch (IllegalAccessException ignored) {
+                }
+            }
+        }
+        for (int i = 0; i < FakeLanguageGen.registered.length; i++) {
+            if (FakeLanguageGen.registered[i] == language)
+                return "registered[" + i + "]";
+        }
+        return "unknown";
+    }
+}
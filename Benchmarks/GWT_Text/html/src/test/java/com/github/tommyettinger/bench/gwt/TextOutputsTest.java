@@ -0,0 +1,79 @@
+package com.github.tommyettinger.bench.gwt;
+
+import squidpony.FakeLanguageGen;
+import squidpony.NaturalLanguageCipher;
+import squidpony.squidmath.GWTRNG;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Guards against changes to what the languages in {@link TextCases} produce, so that work meant to make
+ * {@link FakeLanguageGen} or {@link NaturalLanguageCipher} faster can't quietly change their output. For each case and
+ * a few fixed seeds, this generates some words, two sentences, and the cipher of {@link TextCases#TEXT}, then compares
+ * every line with a file recorded earlier, in the form {@code label|kind|seed|text}.
+ * <br>
+ * This is a plain main() so it can be run without any test framework; run it from the html folder. With the argument
+ * "record", it writes the file instead of checking it; do that once on a known-good SquidLib version, and again only
+ * when a change in output is intended. The file is recorded with the squidlib-util version in gradle.properties, so
+ * record it again whenever that changes. Otherwise it throws at the first line that differs.
+ */
+public class TextOutputsTest {
+    private static final Path FILE = Paths.get("src/test/resources/text-outputs.txt");
+    private static final long[] SEEDS = {1L, 12345L};
+
+    public static void main(String[] args) throws IOException {
+        final List<String> lines = generate(new TextCases());
+        if (args.length > 0 && "record".equals(args[0])) {
+            Files.createDirectories(FILE.getParent());
+            Files.write(FILE, lines, StandardCharsets.UTF_8);
+            System.out.println("Recorded " + lines.size() + " lines to " + FILE.toAbsolutePath());
+            return;
+        }
+        if (!Files.exists(FILE))
+            throw new IllegalStateException(FILE.toAbsolutePath() + " doesn't exist yet; run with \"record\" first.");
+        final List<String> expected = Files.readAllLines(FILE, StandardCharsets.UTF_8);
+        for (int i = 0; i < Math.min(expected.size(), lines.size()); i++) {
+            if (!expected.get(i).equals(lines.get(i)))
+                throw new IllegalStateException("Line " + (i + 1) + " changed; expected:\n" + expected.get(i)
+                        + "\nbut got:\n" + lines.get(i));
+        }
+        if (expected.size() != lines.size())
+            throw new IllegalStateException("Expected " + expected.size() + " lines, but got " + lines.size()
+                    + "; were languages added or removed?");
+        System.out.println("All " + lines.size() + " outputs matched.");
+    }
+
+    private static List<String> generate(TextCases cases) {
+        final List<String> lines = new ArrayList<>();
+        final GWTRNG rng = new GWTRNG(0L);
+        for (int c = 0; c < cases.languages.size(); c++) {
+            final String name = cases.names.get(c);
+            final FakeLanguageGen language = cases.languages.get(c);
+            for (long seed : SEEDS) {
+                rng.setState(seed);
+                final StringBuilder words = new StringBuilder();
+                for (int i = 0; i < 5; i++) {
+                    if (i > 0)
+                        words.append(' ');
+                    words.append(language.word(rng, true));
+                }
+                lines.add(name + "|word|" + seed + '|' + words);
+                rng.setState(seed);
+                for (int i = 0; i < 2; i++) {
+                    lines.add(name + "|sentence|" + seed + '|' + language.sentence(rng, 3, 6));
+                }
+            }
+            // NaturalLanguageCipher doesn't take an RNG, so there is only one output per language.
+            final NaturalLanguageCipher cipher = new NaturalLanguageCipher(language);
+            cipher.setCacheLevel(0);
+            lines.add(name + "|cipher|0|" + cipher.cipher(TextCases.TEXT));
+        }
+        return lines;
+    }
+}
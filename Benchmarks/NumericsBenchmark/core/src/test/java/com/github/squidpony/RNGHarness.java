@@ -0,0 +1,377 @@
+package com.github.squidpony;
+
+import squidpony.squidmath.*;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Times the same generators as {@link Bench} at several bit widths ({@code next(1)}, {@code next(2)},
+ * {@code next(32)}, and {@code nextLong()}), and runs a quick set of statistical tests on each one, then prints a
+ * single table ranked by speed with the test results beside each generator. The tests are:
+ * <ul>
+ *     <li>bit bias, a chi-squared test of how often each of the 64 bits of nextLong() is set;</li>
+ *     <li>serial correlation between consecutive nextLong() results, taken from the high 32 bits and from the low 32
+ *     bits, reporting whichever half looks worse;</li>
+ *     <li>the gap test from Knuth's TAOCP, on how many calls to next(4) go by between results of 0;</li>
+ *     <li>Marsaglia's birthday spacings test, with 4096 birthdays from next(32) in a year of 2 to the 32 days.</li>
+ * </ul>
+ * Each test gives a p-value; one below 0.001 or above 0.999 is marked as suspect, and one below 0.000001 or above
+ * 0.999999 is a failure. These are quick checks meant to find generators that are badly broken, not a replacement
+ * for PractRand or TestU01.
+ * <br>
+ * Each generator is measured in its own JVM, so the calls to it are not slowed by the JIT having seen other
+ * generators' classes at the same call site. This is a plain main() so it can be run without any test framework or
+ * graphics. The first argument, if present, is how many results each test uses (default 4194304); the second is how
+ * many calls are timed for each bit width (default 25000000, the same as Bench); any more arguments are the names of
+ * the generators to run, if not all of them.
+ */
+public class RNGHarness {
+    private static final String[] NAMES = {"PintRNG", "BirdRNG", "HerdRNG", "FlapRNG", "LapRNG", "LightRNG",
+            "BeardRNG", "BardRNG"};
+    private static final String[] WIDTHS = {"next(1)", "next(2)", "next(32)", "nextLong"};
+    private static final String[] TESTS = {"bias", "serial", "gap", "birthday"};
+    private static final String CHILD = "--child", RESULT = "RESULT";
+    private static long sink;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length > 0 && CHILD.equals(args[0])) {
+            runChild(args[1], Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+            return;
+        }
+        final int samples = args.length > 0 ? Integer.parseInt(args[0]) : 1 << 22;
+        final int calls = args.length > 1 ? Integer.parseInt(args[1]) : 25000000;
+        final String[] names = args.length > 2 ? Arrays.copyOfRange(args, 2, args.length) : NAMES;
+        final String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        final List<double[]> results = new ArrayList<>(names.length);
+        for (String name : names) {
+            System.out.println("Running " + name + "...");
+            final Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                    RNGHarness.class.getName(), CHILD, name, String.valueOf(samples), String.valueOf(calls))
+                    .redirectErrorStream(true).start();
+            double[] result = null;
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.startsWith(RESULT)) {
+                        final String[] parts = line.split("\t");
+                        result = new double[parts.length - 1];
+                        for (int i = 1; i < parts.length; i++) {
+                            result[i - 1] = Double.parseDouble(parts[i]);
+                        }
+                    } else {
+                        System.out.println("  " + line);
+                    }
+                }
+            }
+            if (process.waitFor() != 0 || result == null)
+                throw new IllegalStateException(name + " didn't finish; see the output above.");
+            result[result.length - 1] = results.size();
+            results.add(result);
+        }
+
+        // the last item in each result is its index in names; rank by the geometric mean of all widths' times.
+        Collections.sort(results, new Comparator<double[]>() {
+            @Override
+            public int compare(double[] a, double[] b) {
+                return Double.compare(speed(a), speed(b));
+            }
+        });
+        System.out.println();
+        System.out.printf("%-4s %-10s", "rank", "generator");
+        for (String width : WIDTHS) {
+            System.out.printf(" %9s", width);
+        }
+        System.out.printf(" %9s", "geomean");
+        for (String test : TESTS) {
+            System.out.printf(" %10s", test);
+        }
+        System.out.printf(" %8s%n", "quality");
+        for (int r = 0; r < results.size(); r++) {
+            final double[] result = results.get(r);
+            System.out.printf("%-4d %-10s", r + 1, names[(int) result[result.length - 1]]);
+            for (int w = 0; w < WIDTHS.length; w++) {
+                System.out.printf(" %9.3f", result[w]);
+            }
+            System.out.printf(" %9.3f", speed(result));
+            int worst = 0;
+            for (int t = 0; t < TESTS.length; t++) {
+                final double p = result[WIDTHS.length + t];
+                worst = Math.max(worst, verdict(p));
+                System.out.printf(p >= 0.0001 ? " %10.4f" : " %10.2e", p);
+            }
+            System.out.printf(" %8s%n", worst == 0 ? "pass" : worst == 1 ? "suspect" : "FAIL");
+        }
+        System.out.println("Times are in nanoseconds per call; the test columns are p-values from "
+                + samples + " results each.");
+    }
+
+    private static double speed(double[] result) {
+        double product = 1.0;
+        for (int w = 0; w < WIDTHS.length; w++) {
+            product *= result[w];
+        }
+        return Math.pow(product, 1.0 / WIDTHS.length);
+    }
+
+    private static int verdict(double p) {
+        final double tail = Math.min(p, 1.0 - p);
+        return tail < 0.000001 ? 2 : tail < 0.001 ? 1 : 0;
+    }
+
+    private static RandomnessSource create(String name) {
+        switch (name) {
+            case "PintRNG": return new PintRNG(0x1337BEEF);
+            case "BirdRNG": return new BirdRNG(0x1337BEEF);
+            case "HerdRNG": return new HerdRNG(0x1337BEEF);
+            case "FlapRNG": return new FlapRNG(0x1337BEEF);
+            case "LapRNG": return new LapRNG(0x1337BEEF);
+            case "LightRNG": return new LightRNG(0x1337BEEF);
+            case "BeardRNG": return new BeardRNG(0x1337BEEF);
+            case "BardRNG": return new BardRNG(0x1337BEEF);
+            default: throw new IllegalArgumentException("Unknown generator: " + name);
+        }
+    }
+
+    /**
+     * Measures one generator and prints a line starting with {@link #RESULT}, followed by tab-separated nanoseconds
+     * per call for each of {@link #WIDTHS}, the p-value of each of {@link #TESTS}, and a placeholder the parent uses.
+     */
+    private static void runChild(String name, int samples, int calls) {
+        final StringBuilder line = new StringBuilder(RESULT);
+        for (int w = 0; w < WIDTHS.length; w++) {
+            final RandomnessSource random = create(name);
+            double best = Double.POSITIVE_INFINITY;
+            // the first round only warms up.
+            for (int round = 0; round < 4; round++) {
+                final long start = System.nanoTime();
+                time(random, w, calls);
+                final double nanos = (System.nanoTime() - start) / (double) calls;
+                if (round > 0)
+                    best = Math.min(best, nanos);
+            }
+            line.append('\t').append(best);
+        }
+        line.append('\t').append(bitBias(create(name), samples));
+        line.append('\t').append(serialCorrelation(create(name), samples));
+        line.append('\t').append(gap(create(name), samples));
+        line.append('\t').append(birthdaySpacings(create(name), samples));
+        line.append("\t0");
+        System.out.println(line);
+        System.out.println("(ignore: " + (sink & 1) + ")");
+    }
+
+    private static void time(RandomnessSource random, int width, int calls) {
+        long tally = 0;
+        switch (width) {
+            case 0:
+                for (int i = 0; i < calls; i++) {
+                    tally += random.next(1);
+                }
+                break;
+            case 1:
+                for (int i = 0; i < calls; i++) {
+                    tally += random.next(2);
+                }
+                break;
+            case 2:
+                for (int i = 0; i < calls; i++) {
+                    tally += random.next(32);
+                }
+                break;
+            default:
+                for (int i = 0; i < calls; i++) {
+                    tally += random.nextLong();
+                }
+                break;
+        }
+        sink += tally;
+    }
+
+    /**
+     * Counts how often each bit of nextLong() is set; the sum of squared z-scores for the 64 bits is chi-squared with
+     * 64 degrees of freedom.
+     */
+    private static double bitBias(RandomnessSource random, int samples) {
+        final long[] ones = new long[64];
+        for (int i = 0; i < samples; i++) {
+            final long x = random.nextLong();
+            for (int b = 0; b < 64; b++) {
+                ones[b] += x >>> b & 1L;
+            }
+        }
+        double chi = 0.0;
+        for (int b = 0; b < 64; b++) {
+            final double d = 2.0 * ones[b] - samples;
+            chi += d * d / samples;
+        }
+        return chiSquaredUpper(chi, 64);
+    }
+
+    /**
+     * Knuth's serial correlation coefficient, in TAOCP vol. 2, 3.3.2 K, between consecutive results (wrapping around
+     * at the end), for the high and the low 32 bits of nextLong() as fractions. The coefficient is close to normal with
+     * mean -1/(n-1) and standard deviation about 1/sqrt(n); this returns the smaller two-sided p-value of the halves.
+     */
+    private static double serialCorrelation(RandomnessSource random, int samples) {
+        double sumH = 0.0, squaresH = 0.0, productsH = 0.0, sumL = 0.0, squaresL = 0.0, productsL = 0.0;
+        final long first = random.nextLong();
+        final double firstH = (first >>> 32) * 0x1p-32, firstL = (first & 0xFFFFFFFFL) * 0x1p-32;
+        double prevH = firstH, prevL = firstL;
+        sumH += firstH;
+        squaresH += firstH * firstH;
+        sumL += firstL;
+        squaresL += firstL * firstL;
+        for (int i = 1; i < samples; i++) {
+            final long x = random.nextLong();
+            final double h = (x >>> 32) * 0x1p-32, l = (x & 0xFFFFFFFFL) * 0x1p-32;
+            sumH += h;
+            squaresH += h * h;
+            productsH += prevH * h;
+            sumL += l;
+            squaresL += l * l;
+            productsL += prevL * l;
+            prevH = h;
+            prevL = l;
+        }
+        productsH += prevH * firstH;
+        productsL += prevL * firstL;
+        final double n = samples;
+        final double rH = (n * productsH - sumH * sumH) / (n * squaresH - sumH * sumH);
+        final double rL = (n * productsL - sumL * sumL) / (n * squaresL - sumL * sumL);
+        final double zH = (rH + 1.0 / (n - 1.0)) * Math.sqrt(n), zL = (rL + 1.0 / (n - 1.0)) * Math.sqrt(n);
+        return Math.min(normalTwoSided(zH), normalTwoSided(zL));
+    }
+
+    /**
+     * Knuth's gap test, in TAOCP vol. 2, 3.3.2 D, counting how many calls to next(4) go by between results of 0. Gaps
+     * of length 0 to 39 each get a bin and longer gaps share one; chi-squared with 40 degrees of freedom.
+     */
+    private static double gap(RandomnessSource random, int samples) {
+        final int bins = 40;
+        final long[] counts = new long[bins + 1];
+        long gaps = 0;
+        int length = 0;
+        for (int i = 0; i < samples; i++) {
+            if (random.next(4) == 0) {
+                counts[Math.min(length, bins)]++;
+                gaps++;
+                length = 0;
+            } else {
+                length++;
+            }
+        }
+        final double p = 1.0 / 16.0;
+        double chi = 0.0, chance = p;
+        for (int r = 0; r < bins; r++) {
+            final double expected = gaps * chance, d = counts[r] - expected;
+            chi += d * d / expected;
+            chance *= 1.0 - p;
+        }
+        final double expected = gaps * Math.pow(1.0 - p, bins), d = counts[bins] - expected;
+        chi += d * d / expected;
+        return chiSquaredUpper(chi, bins);
+    }
+
+    /**
+     * Marsaglia's birthday spacings test, as described by L'Ecuyer and Simard: 4096 birthdays from next(32) in a year
+     * of 2 to the 32 days, with the count of repeated spacings being close to Poisson with mean 4. Counts of 0 to 9
+     * each get a bin and larger counts share one; chi-squared with 10 degrees of freedom over samples / 4096 trials.
+     */
+    private static double birthdaySpacings(RandomnessSource random, int samples) {
+        final int birthdays = 4096, bins = 10, trials = Math.max(samples / birthdays, 1);
+        final long[] days = new long[birthdays], spacings = new long[birthdays];
+        final long[] counts = new long[bins + 1];
+        for (int t = 0; t < trials; t++) {
+            for (int i = 0; i < birthdays; i++) {
+                days[i] = random.next(32) & 0xFFFFFFFFL;
+            }
+            Arrays.sort(days);
+            spacings[0] = days[0];
+            for (int i = 1; i < birthdays; i++) {
+                spacings[i] = days[i] - days[i - 1];
+            }
+            Arrays.sort(spacings);
+            int repeats = 0;
+            for (int i = 1; i < birthdays; i++) {
+                if (spacings[i] == spacings[i - 1])
+                    repeats++;
+            }
+            counts[Math.min(repeats, bins)]++;
+        }
+        final double lambda = (double) birthdays * birthdays * birthdays / (4.0 * 0x1p32);
+        double chi = 0.0, chance = Math.exp(-lambda), total = 0.0;
+        for (int k = 0; k < bins; k++) {
+            final double expected = trials * chance, d = counts[k] - expected;
+            chi += d * d / expected;
+            total += chance;
+            chance *= lambda / (k + 1);
+        }
+        final double expected = trials * (1.0 - total), d = counts[bins] - expected;
+        chi += d * d / expected;
+        return chiSquaredUpper(chi, bins);
+    }
+
+    private static double normalTwoSided(double z) {
+        // erfc(|z| / sqrt(2)) is the regularized upper gamma function Q(1/2, z * z / 2).
+        return upperGamma(0.5, z * z * 0.5);
+    }
+
+    private static double chiSquaredUpper(double chi, int degrees) {
+        return upperGamma(degrees * 0.5, chi * 0.5);
+    }
+
+    /**
+     * The regularized upper incomplete gamma function Q(a, x), using a series when x is small and a continued fraction
+     * otherwise, as in Numerical Recipes.
+     */
+    private static double upperGamma(double a, double x) {
+        if (x <= 0.0)
+            return 1.0;
+        final double logFront = a * Math.log(x) - x - logGamma(a);
+        if (x < a + 1.0) {
+            double term = 1.0 / a, sum = term;
+            for (int n = 1; n < 1000 && Math.abs(term) > Math.abs(sum) * 1e-15; n++) {
+                term *= x / (a + n);
+                sum += term;
+            }
+            return Math.max(0.0, 1.0 - sum * Math.exp(logFront));
+        }
+        double b = x + 1.0 - a, c = 1e300, d = 1.0 / b, h = d;
+        for (int n = 1; n < 1000; n++) {
+            final double an = -n * (n - a);
+            b += 2.0;
+            d = an * d + b;
+            if (Math.abs(d) < 1e-300) d = 1e-300;
+            c = b + an / c;
+            if (Math.abs(c) < 1e-300) c = 1e-300;
+            d = 1.0 / d;
+            final double delta = d * c;
+            h *= delta;
+            if (Math.abs(delta - 1.0) < 1e-15)
+                break;
+        }
+        return Math.exp(logFront) * h;
+    }
+
+    /**
+     * Lanczos' approximation of the natural logarithm of the gamma function, for positive a.
+     */
+    private static double logGamma(double a) {
+        final double[] coefficients = {76.18009172947146, -86.50532032941677, 24.01409824083091,
+                -1.231739572450155, 0.1208650973866179e-2, -0.5395239384953e-5};
+        double y = a, series = 1.000000000190015;
+        final double tmp = a + 5.5 - (a + 0.5) * Math.log(a + 5.5);
+        for (double c : coefficients) {
+            series += c / ++y;
+        }
+        return -tmp + Math.log(2.5066282746310005 * series / a);
+    }
+}
@@ -108,6 +108,8 @@ public class DawnlikeDemo extends ApplicationAdapter {
     private Camera camera;
     
     private OrderedMap<Coord, AnimatedGlider> monsters;
+    // mirrors the positions in monsters, and marks the cells in toCursor, so drawing never hashes or scans per cell
+    private OccupancyGrid<AnimatedGlider> occupancy;
     private DijkstraMap getToPlayer, playerToCursor;
     private Coord cursor;
     private List<Coord> toCursor;
@@ -977,6 +979,7 @@ public class DawnlikeDemo extends ApplicationAdapter {
         floors.remove(player);
         int numMonsters = 100;
         monsters = new OrderedMap<>(numMonsters);
+        occupancy = new OccupancyGrid<>(bigWidth, bigHeight, numMonsters);
         for (int i = 0; i < numMonsters; i++) {
             Coord monPos = floors.singleRandom(rng);
             floors.remove(monPos);
@@ -987,6 +990,7 @@ public class DawnlikeDemo extends ApplicationAdapter {
 //            monster.setPackedColor(ColorTools.floatGetHSV(rng.nextFloat(), 0.75f, 0.8f, 0f));
             // new Color().fromHsv(rng.nextFloat(), 0.75f, 0.8f));
             monsters.put(monPos, monster);
+            occupancy.add(monPos, monster);
         }
         //This is used to allow clicks or taps to take the player to the desired area.
         toCursor = new ArrayList<>(200);
@@ -1177,6 +1181,7 @@ public class DawnlikeDemo extends ApplicationAdapter {
                 if(monsters.containsKey(player))
                 {
                     monsters.remove(player);
+                    occupancy.remove(player);
                     for (int x = -1; x <= 1; x++) {
                         for (int y = -1; y <= 1; y++) {
                             if(rng.nextBoolean()) 
@@ -1234,6 +1239,7 @@ public class DawnlikeDemo extends ApplicationAdapter {
                         mon.change = 0f;
                         //display.slide(mon, pos.x, pos.y, tmp.x, tmp.y, 0.125f, null);
                         monsters.put(tmp, mon);
+                        occupancy.move(pos, tmp);
                     }
                 } else {
                     monsters.put(pos, mon);
@@ -1258,11 +1264,13 @@ public class DawnlikeDemo extends ApplicationAdapter {
         //past from affecting the current frame. This isn't a problem here, but would probably be an issue if we had
         //monsters running in and out of our vision. If artifacts from previous frames show up, uncomment the next line.
         //display.clear();
+        // marking the path once per frame is much cheaper than checking toCursor.contains() for every visible cell.
+        occupancy.setPath(toCursor);
         for (int i = 0; i < bigWidth; i++) {
             for (int j = 0; j < bigHeight; j++) {
                 if(visible[i][j] > 0.0) {
                     pos.set(i * cellWidth, j * cellHeight, 0f);
-                    batch.setPackedColor(toCursor.contains(Coord.get(i, j))
+                    batch.setPackedColor(occupancy.onPath(i, j)
                             ? ColorTools.lerpFloatColors(bgColors[i][j], FLOAT_WHITE, 0.9f)
                             : ColorTools.lerpFloatColors(bgColors[i][j], FLOAT_LIGHTING, (float)visible[i][j] * 0.75f + 0.25f));
                     if(lineDungeon[i][j] == '/' || lineDungeon[i][j] == '+') // doors expect a floor drawn beneath them
@@ -1279,13 +1287,13 @@ public class DawnlikeDemo extends ApplicationAdapter {
         }
         batch.setPackedColor(FLOAT_WHITE);
         AnimatedGlider monster;
-        for (int i = 0; i < bigWidth; i++) {
-            for (int j = 0; j < bigHeight; j++) {
-                if (visible[i][j] > 0.0) {
-                    if ((monster = monsters.get(Coord.get(i, j))) != null) {
-                        batch.draw(monster.animate(time), monster.getX() * cellWidth, monster.getY() * cellHeight);
-                    }
-                }
+        Coord where;
+        // there are far fewer monsters than cells, so walk the monsters and only check visibility where they stand
+        for (int slot = occupancy.first(); slot >= 0; slot = occupancy.next(slot)) {
+            where = occupancy.positionAt(slot);
+            if (visible[where.x][where.y] > 0.0) {
+                monster = occupancy.itemAt(slot);
+                batch.draw(monster.animate(time), monster.getX() * cellWidth, monster.getY() * cellHeight);
             }
         }
         batch.draw(playerSprite.animate(time), playerSprite.getX() * cellWidth, playerSprite.getY() * cellHeight);
@@ -0,0 +1,233 @@
+package com.github.tommyettinger.demos;
+
+import squidpony.squidmath.Coord;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A dense grid that tracks which cells hold an entity, kept in sync with an entity map (usually an
+ * {@link squidpony.squidmath.OrderedMap} of Coord keys) by calling {@link #add(Coord, Object)},
+ * {@link #move(Coord, Coord)}, and {@link #remove(Coord)} whenever the map changes. Looking up a cell is just an int
+ * array read, instead of a hash lookup per cell per frame. Entities can also be iterated in the order they were added,
+ * which is the same order an OrderedMap would have if moving entities are altered in-place.
+ * <br>
+ * This also has a path mask, which can mark any number of cells as "on the path" (such as the cells leading to the
+ * cursor) so they can be checked in constant time while drawing, instead of calling {@code contains()} on a List.
+ * Clearing the path mask is also constant-time.
+ * <br>
+ * Iterate over entities like this:
+ * <pre>
+ * for (int slot = grid.first(); slot >= 0; slot = grid.next(slot)) {
+ *     Coord where = grid.positionAt(slot);
+ *     T entity = grid.itemAt(slot);
+ * }
+ * </pre>
+ */
+public class OccupancyGrid<T> {
+    public final int width, height;
+    /**
+     * Indexed by {@code x + y * width}; holds 0 for an empty cell, or the slot of the entity in that cell plus 1.
+     */
+    private final int[] occupancy;
+    /**
+     * Indexed by {@code x + y * width}; a cell is on the path if it holds the current {@link #pathStamp}.
+     */
+    private final int[] pathMask;
+    private int pathStamp = 1;
+
+    private Object[] items;
+    private Coord[] positions;
+    // a doubly-linked list through the slots keeps insertion order even after removals.
+    private int[] nextSlot, prevSlot;
+    private int head = -1, tail = -1, freeHead = -1, used = 0, size = 0;
+
+    public OccupancyGrid(int width, int height) {
+        this(width, height, 16);
+    }
+
+    public OccupancyGrid(int width, int height, int capacity) {
+        this.width = width;
+        this.height = height;
+        occupancy = new int[width * height];
+        pathMask = new int[width * height];
+        capacity = Math.max(capacity, 1);
+        items = new Object[capacity];
+        positions = new Coord[capacity];
+        nextSlot = new int[capacity];
+        prevSlot = new int[capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all entities and clears the path mask.
+     */
+    public void clear() {
+        Arrays.fill(occupancy, 0);
+        Arrays.fill(items, 0, used, null);
+        Arrays.fill(positions, 0, used, null);
+        head = tail = freeHead = -1;
+        used = size = 0;
+        clearPath();
+    }
+
+    /**
+     * Adds an entity at the given position, after all other entities in iteration order. If the cell is already
+     * occupied, the old entity is removed first, matching what {@code put()} does on a map.
+     * @param position where the entity is
+     * @param item the entity
+     */
+    public void add(Coord position, T item) {
+        final int cell = position.x + position.y * width;
+        if (occupancy[cell] != 0)
+            removeSlot(occupancy[cell] - 1);
+        int slot;
+        if (freeHead >= 0) {
+            slot = freeHead;
+            freeHead = nextSlot[slot];
+        } else {
+            if (used == items.length) {
+                final int cap = used << 1;
+                items = Arrays.copyOf(items, cap);
+                positions = Arrays.copyOf(positions, cap);
+                nextSlot = Arrays.copyOf(nextSlot, cap);
+                prevSlot = Arrays.copyOf(prevSlot, cap);
+            }
+            slot = used++;
+        }
+        items[slot] = item;
+        positions[slot] = position;
+        prevSlot[slot] = tail;
+        nextSlot[slot] = -1;
+        if (tail >= 0) nextSlot[tail] = slot;
+        else head = slot;
+        tail = slot;
+        occupancy[cell] = slot + 1;
+        size++;
+    }
+
+    /**
+     * Moves the entity at {@code from} to {@code to}, without changing its place in iteration order. This is the
+     * counterpart to {@code alter()} on an OrderedMap. Does nothing if from is empty or to is occupied.
+     * @param from the current position of an entity
+     * @param to an unoccupied position to move it to
+     * @return true if the entity was moved
+     */
+    public boolean move(Coord from, Coord to) {
+        final int fromCell = from.x + from.y * width, toCell = to.x + to.y * width;
+        final int s = occupancy[fromCell];
+        if (s == 0 || occupancy[toCell] != 0)
+            return false;
+        occupancy[fromCell] = 0;
+        occupancy[toCell] = s;
+        positions[s - 1] = to;
+        return true;
+    }
+
+    /**
+     * Removes the entity at the given position, if there is one.
+     * @param position where to remove an entity
+     * @return the removed entity, or null if the cell was empty
+     */
+    public T remove(Coord position) {
+        final int s = occupancy[position.x + position.y * width];
+        if (s == 0)
+            return null;
+        return removeSlot(s - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T removeSlot(int slot) {
+        T item = (T) items[slot];
+        occupancy[positions[slot].x + positions[slot].y * width] = 0;
+        final int p = prevSlot[slot], n = nextSlot[slot];
+        if (p >= 0) nextSlot[p] = n;
+        else head = n;
+        if (n >= 0) prevSlot[n] = p;
+        else tail = p;
+        items[slot] = null;
+        positions[slot] = null;
+        nextSlot[slot] = freeHead;
+        freeHead = slot;
+        size--;
+        return item;
+    }
+
+    public boolean isOccupied(int x, int y) {
+        return occupancy[x + y * width] != 0;
+    }
+
+    /**
+     * Gets the entity at x,y, or null if there is none.
+     * @param x x position, must be in bounds
+     * @param y y position, must be in bounds
+     * @return the entity at x,y, or null
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int x, int y) {
+        final int s = occupancy[x + y * width];
+        return s == 0 ? null : (T) items[s - 1];
+    }
+
+    /**
+     * @return the first slot in iteration order, or -1 if this is empty
+     */
+    public int first() {
+        return head;
+    }
+
+    /**
+     * @param slot a slot from {@link #first()} or a previous call to this
+     * @return the slot after the given one in iteration order, or -1 if there are no more
+     */
+    public int next(int slot) {
+        return nextSlot[slot];
+    }
+
+    @SuppressWarnings("unchecked")
+    public T itemAt(int slot) {
+        return (T) items[slot];
+    }
+
+    public Coord positionAt(int slot) {
+        return positions[slot];
+    }
+
+    /**
+     * Clears the path mask in constant time.
+     */
+    public void clearPath() {
+        if (++pathStamp == 0) {
+            // after about 4 billion clears the stamp wraps around, so old marks must really be erased.
+            Arrays.fill(pathMask, 0);
+            pathStamp = 1;
+        }
+    }
+
+    public void markPath(int x, int y) {
+        pathMask[x + y * width] = pathStamp;
+    }
+
+    /**
+     * Clears the path mask and then marks every Coord in {@code path}.
+     * @param path a List of Coord, such as a path to the cursor
+     */
+    public void setPath(List<Coord> path) {
+        clearPath();
+        for (int i = 0, n = path.size(); i < n; i++) {
+            Coord c = path.get(i);
+            pathMask[c.x + c.y * width] = pathStamp;
+        }
+    }
+
+    public boolean onPath(int x, int y) {
+        return pathMask[x + y * width] == pathStamp;
+    }
+}
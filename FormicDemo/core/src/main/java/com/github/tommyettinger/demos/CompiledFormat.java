@@ -0,0 +1,1089 @@
+package com.github.tommyettinger.demos;
+
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * A format pattern, using the same syntax as {@link String#format(String, Object...)} and Formic's Stringf, that is
+ * parsed once and can then be rendered any number of times without producing garbage. Rendering goes into a
+ * StringBuilder or char array that the caller supplies, and arguments are given in a reusable {@link Args} that keeps
+ * primitives unboxed, so once the scratch space in this and in the Args has grown to fit, a render allocates nothing.
+ * <br>
+ * Supported conversions are {@code %b %h %s %c %d %o %x %e %f %g %a %% %n}, their uppercase forms, and the date/time
+ * conversions {@code %t} and {@code %T} followed by one of
+ * {@code H I k l M S L N p s Q z a A b B h C Y y d e m R T r D F}.
+ * All flags, widths, precisions, explicit argument indices ({@code %2$s}), and the relative index flag ({@code %<s})
+ * work the same way they do in String.format(). Output is meant to match {@code String.format(Locale.US, ...)} exactly,
+ * including how doubles are rounded; the differences are that {@code %n} is always a single {@code '\n'}, uppercase
+ * conversions change each char on its own (so a sharp s stays as it is, rather than becoming "SS"), and dates use the
+ * Date's own time zone getters and English names. Conversions that need more than that, such as {@code %tZ}, or
+ * arguments that are Calendars or BigDecimals, are rejected with an IllegalArgumentException.
+ * <br>
+ * Everything here only uses what GWT can emulate. Patterns that can't be parsed throw an IllegalArgumentException when
+ * constructed; arguments that are missing or don't match their conversion throw one when rendered. A CompiledFormat
+ * keeps scratch space for rendering, so one instance must not be rendered by more than one thread at a time.
+ */
+public final class CompiledFormat {
+    private static final int LEFT_JUSTIFY = 1, UPPERCASE = 2, ALTERNATE = 4, PLUS = 8, LEADING_SPACE = 16,
+            ZERO_PAD = 32, GROUP = 64, PARENTHESES = 128;
+    /**
+     * The conversion used for runs of literal text.
+     */
+    private static final char LITERAL = '\0';
+    private static final String DIGITS = "0123456789abcdef";
+    private static final String[] DAYS = {"Sunday", "Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday"},
+            MONTHS = {"January", "February", "March", "April", "May", "June", "July", "August", "September",
+                    "October", "November", "December"};
+
+    /**
+     * The pattern this was compiled from.
+     */
+    public final String pattern;
+    private final int count;
+    /**
+     * For each piece: the lower-case conversion, the date/time conversion if {@link #dates} is true, or LITERAL.
+     */
+    private final char[] conversions;
+    private final boolean[] dates;
+    /**
+     * For each piece: 1-based explicit argument index, 0 for the next ordinary argument, or -1 for the previous one.
+     */
+    private final int[] indices;
+    private final int[] flags, widths, precisions;
+    /**
+     * Where each piece starts and ends in the pattern; literal text is copied from here.
+     */
+    private final int[] starts, ends;
+
+    private final DoubleDigits doubleDigits = new DoubleDigits();
+    private final Date scratchDate = new Date(0L);
+    private final StringBuilder scratchBuilder = new StringBuilder(64);
+    private char[] buf = new char[64];
+    private int len, hexExponent;
+
+    /**
+     * Parses pattern once, checking every conversion and flag the same way String.format() would.
+     * @param pattern a format string, as for String.format()
+     * @throws IllegalArgumentException if pattern can't be parsed, or uses a conversion this doesn't support
+     */
+    public CompiledFormat(String pattern) {
+        this.pattern = pattern;
+        final int n = pattern.length(), most = n + 1 >> 1;
+        char[] conversions = new char[most];
+        boolean[] dates = new boolean[most];
+        int[] indices = new int[most], flags = new int[most], widths = new int[most], precisions = new int[most],
+                starts = new int[most], ends = new int[most];
+        int pieces = 0;
+        for (int i = 0; i < n; ) {
+            int pct = pattern.indexOf('%', i);
+            if (pct < 0)
+                pct = n;
+            if (pct > i) {
+                conversions[pieces] = LITERAL;
+                starts[pieces] = i;
+                ends[pieces++] = pct;
+            }
+            if (pct == n)
+                break;
+            int j = pct + 1, k = j, index = 0, f = 0, width = -1, precision = -1;
+            boolean previous = false, date = false;
+            while (k < n && isDigit(pattern.charAt(k))) {
+                k++;
+            }
+            if (k > j && k < n && pattern.charAt(k) == '$') {
+                index = parseNumber(pattern, j, k);
+                if (index <= 0)
+                    throw new IllegalArgumentException("Illegal format argument index in "
+                            + pattern.substring(pct, k + 1));
+                j = k + 1;
+            }
+            FLAGS:
+            while (j < n) {
+                final int flag;
+                switch (pattern.charAt(j)) {
+                    case '-': flag = LEFT_JUSTIFY; break;
+                    case '#': flag = ALTERNATE; break;
+                    case '+': flag = PLUS; break;
+                    case ' ': flag = LEADING_SPACE; break;
+                    case '0': flag = ZERO_PAD; break;
+                    case ',': flag = GROUP; break;
+                    case '(': flag = PARENTHESES; break;
+                    case '<':
+                        if (previous)
+                            throw new IllegalArgumentException("Duplicate flag '<' in "
+                                    + pattern.substring(pct, j + 1));
+                        previous = true;
+                        j++;
+                        continue;
+                    default:
+                        break FLAGS;
+                }
+                if ((f & flag) != 0)
+                    throw new IllegalArgumentException("Duplicate flag '" + pattern.charAt(j) + "' in "
+                            + pattern.substring(pct, j + 1));
+                f |= flag;
+                j++;
+            }
+            if (previous)
+                index = -1;
+            for (k = j; k < n && isDigit(pattern.charAt(k)); k++) {
+            }
+            if (k > j) {
+                width = parseNumber(pattern, j, k);
+                j = k;
+            }
+            if (j < n && pattern.charAt(j) == '.') {
+                for (k = ++j; k < n && isDigit(pattern.charAt(k)); k++) {
+                }
+                if (k == j)
+                    throw new IllegalArgumentException("Unknown format conversion in "
+                            + pattern.substring(pct, Math.min(n, j + 1)));
+                precision = parseNumber(pattern, j, k);
+                j = k;
+            }
+            if (j < n && (pattern.charAt(j) == 't' || pattern.charAt(j) == 'T')) {
+                date = true;
+                if (pattern.charAt(j) == 'T')
+                    f |= UPPERCASE;
+                j++;
+            }
+            if (j >= n)
+                throw new IllegalArgumentException("Unknown format conversion at the end of " + pattern);
+            char c = pattern.charAt(j++);
+            final String spec = pattern.substring(pct, j);
+            if (date) {
+                if ("HIklMSLNpsQzaAbBhCYydemRTrDF".indexOf(c) < 0)
+                    throw new IllegalArgumentException("Unsupported date/time conversion in " + spec);
+                if (precision != -1)
+                    throw new IllegalArgumentException("Illegal precision in " + spec);
+                badFlags(f, ALTERNATE | PLUS | LEADING_SPACE | ZERO_PAD | GROUP | PARENTHESES, spec);
+                needsWidth(f, width, LEFT_JUSTIFY, spec);
+            } else {
+                if (c >= 'A' && c <= 'Z' && "BHSCXEGA".indexOf(c) >= 0) {
+                    f |= UPPERCASE;
+                    c = (char) (c + 32);
+                }
+                switch (c) {
+                    case 'b':
+                    case 'h':
+                    case 's':
+                        // '#' only works with Formattable arguments, which this doesn't support.
+                        badFlags(f, ALTERNATE | PLUS | LEADING_SPACE | ZERO_PAD | GROUP | PARENTHESES, spec);
+                        needsWidth(f, width, LEFT_JUSTIFY, spec);
+                        break;
+                    case 'c':
+                        if (precision != -1)
+                            throw new IllegalArgumentException("Illegal precision in " + spec);
+                        badFlags(f, ALTERNATE | PLUS | LEADING_SPACE | ZERO_PAD | GROUP | PARENTHESES, spec);
+                        needsWidth(f, width, LEFT_JUSTIFY, spec);
+                        break;
+                    case 'd':
+                    case 'o':
+                    case 'x':
+                        checkNumeric(f, width, spec);
+                        if (precision != -1)
+                            throw new IllegalArgumentException("Illegal precision in " + spec);
+                        badFlags(f, c == 'd' ? ALTERNATE : GROUP, spec);
+                        break;
+                    case 'e':
+                    case 'f':
+                    case 'g':
+                    case 'a':
+                        checkNumeric(f, width, spec);
+                        badFlags(f, c == 'a' ? PARENTHESES | GROUP : c == 'e' ? GROUP : c == 'g' ? ALTERNATE : 0, spec);
+                        break;
+                    case '%':
+                        if (precision != -1)
+                            throw new IllegalArgumentException("Illegal precision in " + spec);
+                        badFlags(previous ? -1 : f, ~LEFT_JUSTIFY, spec);
+                        needsWidth(f, width, LEFT_JUSTIFY, spec);
+                        break;
+                    case 'n':
+                        if (precision != -1 || width != -1 || f != 0 || previous)
+                            throw new IllegalArgumentException("Illegal width, precision, or flags in " + spec);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown format conversion in " + spec);
+                }
+            }
+            conversions[pieces] = c;
+            dates[pieces] = date;
+            indices[pieces] = index;
+            flags[pieces] = f;
+            widths[pieces] = width;
+            precisions[pieces] = precision;
+            starts[pieces] = pct;
+            ends[pieces++] = j;
+            i = j;
+        }
+        count = pieces;
+        this.conversions = Arrays.copyOf(conversions, pieces);
+        this.dates = Arrays.copyOf(dates, pieces);
+        this.indices = Arrays.copyOf(indices, pieces);
+        this.flags = Arrays.copyOf(flags, pieces);
+        this.widths = Arrays.copyOf(widths, pieces);
+        this.precisions = Arrays.copyOf(precisions, pieces);
+        this.starts = Arrays.copyOf(starts, pieces);
+        this.ends = Arrays.copyOf(ends, pieces);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int parseNumber(String pattern, int start, int end) {
+        long n = 0L;
+        for (int i = start; i < end; i++) {
+            n = n * 10L + pattern.charAt(i) - '0';
+            if (n > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("Number too large in " + pattern.substring(start, end));
+        }
+        return (int) n;
+    }
+
+    private static void badFlags(int f, int bad, String spec) {
+        if ((f & bad) != 0)
+            throw new IllegalArgumentException("Flags don't match the conversion in " + spec);
+    }
+
+    private static void needsWidth(int f, int width, int flag, String spec) {
+        if (width == -1 && (f & flag) != 0)
+            throw new IllegalArgumentException("Missing width in " + spec);
+    }
+
+    private static void checkNumeric(int f, int width, String spec) {
+        needsWidth(f, width, LEFT_JUSTIFY | ZERO_PAD, spec);
+        if ((f & (PLUS | LEADING_SPACE)) == (PLUS | LEADING_SPACE)
+                || (f & (LEFT_JUSTIFY | ZERO_PAD)) == (LEFT_JUSTIFY | ZERO_PAD))
+            throw new IllegalArgumentException("Illegal combination of flags in " + spec);
+    }
+
+    /**
+     * Renders this with the given arguments, appending to sb.
+     * @param sb the StringBuilder to append to
+     * @param args the arguments, in order
+     * @return sb, for chaining
+     * @throws IllegalArgumentException if an argument is missing or can't be shown by its conversion
+     */
+    public StringBuilder appendTo(StringBuilder sb, Args args) {
+        int ordinary = 0, last = -1;
+        for (int p = 0; p < count; p++) {
+            final char conv = conversions[p];
+            if (conv == LITERAL) {
+                sb.append(pattern, starts[p], ends[p]);
+                continue;
+            }
+            if (conv == 'n' && !dates[p]) {
+                sb.append('\n');
+                continue;
+            }
+            final int start = sb.length(), f = flags[p], width = widths[p], precision = precisions[p];
+            if (conv == '%' && !dates[p]) {
+                sb.append('%');
+                justify(sb, start, f, width);
+                continue;
+            }
+            final int idx = indices[p] > 0 ? indices[p] - 1 : indices[p] < 0 ? last : ordinary++;
+            if (idx < 0 || idx >= args.size)
+                throw new IllegalArgumentException("Missing argument for " + pattern.substring(starts[p], ends[p]));
+            last = idx;
+            final byte kind = args.kinds[idx];
+            final Object object = args.objects[idx];
+            if (kind == Args.OBJECT && object == null) {
+                sb.append(conv == 'b' && !dates[p] ? "false" : "null");
+                text(sb, start, f, precision);
+            } else if (dates[p]) {
+                final Date date;
+                if (kind == Args.LONG) {
+                    // setting a Date makes it work out its fields again (which allocates on desktop), so only do that
+                    // when the time changes, as it doesn't between %tD and %<tT.
+                    if (scratchDate.getTime() != args.longs[idx])
+                        scratchDate.setTime(args.longs[idx]);
+                    date = scratchDate;
+                } else if (object instanceof Date) {
+                    date = (Date) object;
+                } else {
+                    throw mismatch(p, idx, args);
+                }
+                date(sb, conv, date);
+                if ((f & UPPERCASE) != 0)
+                    upper(sb, start);
+            } else {
+                switch (conv) {
+                    case 'b':
+                        sb.append(kind != Args.BOOLEAN || args.longs[idx] != 0L);
+                        text(sb, start, f, precision);
+                        break;
+                    case 'h':
+                        unsigned(hash(args, idx) & 0xFFFFFFFFL, 4);
+                        sb.append(buf, 0, len);
+                        text(sb, start, f, precision);
+                        break;
+                    case 's':
+                        switch (kind) {
+                            case Args.INT: sb.append((int) args.longs[idx]); break;
+                            case Args.LONG: sb.append(args.longs[idx]); break;
+                            case Args.FLOAT: sb.append((float) args.doubles[idx]); break;
+                            case Args.DOUBLE: sb.append(args.doubles[idx]); break;
+                            case Args.CHAR: sb.append((char) args.longs[idx]); break;
+                            case Args.BOOLEAN: sb.append(args.longs[idx] != 0L); break;
+                            default:
+                                if (object instanceof CharSequence)
+                                    sb.append((CharSequence) object);
+                                else
+                                    sb.append(object);
+                        }
+                        text(sb, start, f, precision);
+                        break;
+                    case 'c':
+                        if (kind == Args.CHAR) {
+                            sb.append((char) args.longs[idx]);
+                        } else if (kind == Args.INT) {
+                            final int cp = (int) args.longs[idx];
+                            if (cp < 0 || cp > 0x10FFFF)
+                                throw new IllegalArgumentException("Illegal code point " + cp + " for "
+                                        + pattern.substring(starts[p], ends[p]));
+                            if (cp < 0x10000) {
+                                sb.append((char) cp);
+                            } else {
+                                sb.append((char) ((cp - 0x10000 >>> 10) + 0xD800));
+                                sb.append((char) ((cp & 0x3FF) + 0xDC00));
+                            }
+                        } else {
+                            throw mismatch(p, idx, args);
+                        }
+                        text(sb, start, f, precision);
+                        break;
+                    case 'd':
+                    case 'o':
+                    case 'x': {
+                        long value;
+                        if (kind == Args.INT) {
+                            value = (int) args.longs[idx];
+                            if (value < 0L && conv != 'd')
+                                value += 1L << 32;
+                        } else if (kind == Args.LONG) {
+                            value = args.longs[idx];
+                        } else {
+                            throw mismatch(p, idx, args);
+                        }
+                        integer(sb, start, value, conv, f, width);
+                        break;
+                    }
+                    default: {
+                        if (kind != Args.DOUBLE && kind != Args.FLOAT)
+                            throw mismatch(p, idx, args);
+                        floating(sb, start, args.doubles[idx], conv, f, width, precision);
+                    }
+                }
+            }
+            justify(sb, start, f, width);
+        }
+        return sb;
+    }
+
+    /**
+     * Renders this with the given arguments into out, starting at offset.
+     * @param out the char array to write into; it must have room for the whole result after offset
+     * @param offset the first index in out to write to
+     * @param args the arguments, in order
+     * @return how many chars were written
+     * @throws IllegalArgumentException if an argument is missing or can't be shown by its conversion
+     * @throws IndexOutOfBoundsException if out isn't big enough
+     */
+    public int format(char[] out, int offset, Args args) {
+        scratchBuilder.setLength(0);
+        appendTo(scratchBuilder, args);
+        final int n = scratchBuilder.length();
+        if (offset < 0 || offset + n > out.length)
+            throw new IndexOutOfBoundsException("A result of length " + n + " doesn't fit at offset " + offset);
+        for (int i = 0; i < n; i++) {
+            out[offset + i] = scratchBuilder.charAt(i);
+        }
+        return n;
+    }
+
+    /**
+     * Renders this with the given arguments as a new String. This allocates the String, of course; use
+     * {@link #appendTo(StringBuilder, Args)} or {@link #format(char[], int, Args)} to avoid that.
+     * @param args the arguments, in order
+     * @return the formatted String
+     */
+    public String format(Args args) {
+        scratchBuilder.setLength(0);
+        return appendTo(scratchBuilder, args).toString();
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+
+    private IllegalArgumentException mismatch(int p, int idx, Args args) {
+        final Object o = args.objects[idx];
+        return new IllegalArgumentException(pattern.substring(starts[p], ends[p]) + " can't be used with "
+                + (args.kinds[idx] == Args.OBJECT ? o.getClass().getName() : Args.KIND_NAMES[args.kinds[idx]]));
+    }
+
+    private static int hash(Args args, int idx) {
+        final long bits = args.longs[idx];
+        switch (args.kinds[idx]) {
+            case Args.INT:
+            case Args.CHAR:
+                return (int) bits;
+            case Args.LONG:
+                return (int) (bits ^ bits >>> 32);
+            case Args.FLOAT:
+                return Float.floatToIntBits((float) args.doubles[idx]);
+            case Args.DOUBLE: {
+                final long d = Double.doubleToLongBits(args.doubles[idx]);
+                return (int) (d ^ d >>> 32);
+            }
+            case Args.BOOLEAN:
+                return bits != 0L ? 1231 : 1237;
+            default:
+                return args.objects[idx].hashCode();
+        }
+    }
+
+    /**
+     * Finishes a general or character conversion, cutting it to precision chars and making it upper-case if needed.
+     */
+    private static void text(StringBuilder sb, int start, int f, int precision) {
+        if (precision != -1 && sb.length() - start > precision)
+            sb.setLength(start + precision);
+        if ((f & UPPERCASE) != 0)
+            upper(sb, start);
+    }
+
+    private static void upper(StringBuilder sb, int start) {
+        for (int i = start, n = sb.length(); i < n; i++) {
+            sb.setCharAt(i, Character.toUpperCase(sb.charAt(i)));
+        }
+    }
+
+    private static void justify(StringBuilder sb, int start, int f, int width) {
+        final int spaces = width - (sb.length() - start);
+        if (width == -1 || spaces <= 0)
+            return;
+        if ((f & LEFT_JUSTIFY) != 0) {
+            for (int i = 0; i < spaces; i++) {
+                sb.append(' ');
+            }
+        } else {
+            insert(sb, start, ' ', spaces);
+        }
+    }
+
+    /**
+     * Inserts c at index in sb, amount times, without the temporary arrays StringBuilder.insert() can make.
+     */
+    private static void insert(StringBuilder sb, int index, char c, int amount) {
+        final int end = sb.length();
+        sb.setLength(end + amount);
+        for (int i = end - 1; i >= index; i--) {
+            sb.setCharAt(i + amount, sb.charAt(i));
+        }
+        for (int i = index + amount - 1; i >= index; i--) {
+            sb.setCharAt(i, c);
+        }
+    }
+
+    private static void leadingSign(StringBuilder sb, boolean negative, int f) {
+        if (!negative) {
+            if ((f & PLUS) != 0)
+                sb.append('+');
+            else if ((f & LEADING_SPACE) != 0)
+                sb.append(' ');
+        } else {
+            sb.append((f & PARENTHESES) != 0 ? '(' : '-');
+        }
+    }
+
+    private static int adjustWidth(int width, int f, boolean negative) {
+        return width != -1 && negative && (f & PARENTHESES) != 0 ? width - 1 : width;
+    }
+
+    private void put(char c) {
+        if (len == buf.length)
+            buf = Arrays.copyOf(buf, len << 1);
+        buf[len++] = c;
+    }
+
+    /**
+     * Appends the digits in buf to sb, with grouping separators if needed, and then pads with zeros after the sign
+     * (which is already in sb after start) until the whole conversion is width chars long, if needed.
+     */
+    private void magnitude(StringBuilder sb, int start, int f, int width) {
+        final int begin = sb.length();
+        int dot = 0;
+        while (dot < len && buf[dot] != '.') {
+            dot++;
+        }
+        final boolean group = (f & GROUP) != 0;
+        for (int j = 0; j < len; j++) {
+            sb.append(buf[j]);
+            if (group && j < dot - 1 && (dot - j) % 3 == 1)
+                sb.append(',');
+        }
+        if (width != -1 && (f & ZERO_PAD) != 0 && sb.length() - start < width)
+            insert(sb, begin, '0', width - (sb.length() - start));
+    }
+
+    /**
+     * Puts the digits of value in buf, as an unsigned number with 2 to the shift as its base.
+     */
+    private void unsigned(long value, int shift) {
+        len = 0;
+        do {
+            put(DIGITS.charAt((int) value & (1 << shift) - 1));
+            value >>>= shift;
+        } while (value != 0L);
+        reverse();
+    }
+
+    private void reverse() {
+        for (int i = 0, j = len - 1; i < j; i++, j--) {
+            final char t = buf[i];
+            buf[i] = buf[j];
+            buf[j] = t;
+        }
+    }
+
+    private void integer(StringBuilder sb, int start, long value, char conv, int f, int width) {
+        if (conv == 'd') {
+            final boolean negative = value < 0L;
+            leadingSign(sb, negative, f);
+            len = 0;
+            do {
+                put((char) ('0' + Math.abs((int) (value % 10L))));
+                value /= 10L;
+            } while (value != 0L);
+            reverse();
+            magnitude(sb, start, f, adjustWidth(width, f, negative));
+            if (negative && (f & PARENTHESES) != 0)
+                sb.append(')');
+            return;
+        }
+        // like Formatter, this only rejects these flags once there's a number to show, not for null.
+        if ((f & (PARENTHESES | LEADING_SPACE | PLUS)) != 0)
+            throw new IllegalArgumentException("Flags don't match the conversion %" + conv);
+        final boolean hex = conv == 'x', upper = (f & UPPERCASE) != 0;
+        unsigned(value, hex ? 4 : 3);
+        int digits = len;
+        if ((f & ALTERNATE) != 0) {
+            sb.append(hex ? upper ? "0X" : "0x" : "0");
+            digits += hex ? 2 : 1;
+        }
+        if ((f & ZERO_PAD) != 0) {
+            for (int i = digits; i < width; i++) {
+                sb.append('0');
+            }
+        }
+        for (int i = 0; i < len; i++) {
+            sb.append(upper ? Character.toUpperCase(buf[i]) : buf[i]);
+        }
+    }
+
+    private void floating(StringBuilder sb, int start, double value, char conv, int f, int width, int precision) {
+        final boolean upper = (f & UPPERCASE) != 0;
+        if (value != value) {
+            sb.append(upper ? "NAN" : "NaN");
+            return;
+        }
+        final boolean negative = Double.compare(value, 0.0) == -1;
+        final double v = Math.abs(value);
+        leadingSign(sb, negative, f);
+        if (v == Double.POSITIVE_INFINITY) {
+            sb.append(upper ? "INFINITY" : "Infinity");
+        } else if (conv == 'a') {
+            hexFloating(sb, v, f, width, precision, negative);
+        } else {
+            final DoubleDigits dd = doubleDigits;
+            int prec, exp;
+            boolean scientific = true;
+            int e10 = 0;
+            if (conv == 'e') {
+                prec = precision == -1 ? 6 : precision;
+                dd.set(v);
+                exp = applyPrecision(dd.exponent, dd.digits, dd.count, prec + 1);
+                fillScientific(prec, dd.digits, dd.count);
+                if (v != 0.0)
+                    e10 = exp - 1;
+            } else if (conv == 'f') {
+                prec = precision == -1 ? 6 : precision;
+                dd.set(v);
+                exp = applyPrecision(dd.exponent, dd.digits, dd.count, dd.exponent + prec);
+                fillDecimal(prec, dd.digits, dd.count, exp);
+                scientific = false;
+            } else {
+                prec = precision == -1 ? 6 : precision == 0 ? 1 : precision;
+                int rounded = 0;
+                if (v == 0.0) {
+                    len = 0;
+                    put('0');
+                    scientific = false;
+                } else {
+                    dd.set(v);
+                    exp = applyPrecision(dd.exponent, dd.digits, dd.count, prec);
+                    rounded = exp - 1;
+                    if (rounded < -4 || rounded >= prec) {
+                        fillScientific(prec - 1, dd.digits, dd.count);
+                        e10 = rounded;
+                    } else {
+                        fillDecimal(prec - exp, dd.digits, dd.count, exp);
+                        scientific = false;
+                    }
+                }
+                prec -= scientific ? 1 : rounded + 1;
+            }
+            addZeros(prec);
+            if ((f & ALTERNATE) != 0 && prec == 0)
+                put('.');
+            if (scientific) {
+                magnitude(sb, start, f, width == -1 ? -1
+                        : adjustWidth(width - (e10 > 99 || e10 < -99 ? 5 : 4), f, negative));
+                sb.append(upper ? 'E' : 'e').append(e10 < 0 ? '-' : '+');
+                int e = Math.abs(e10);
+                if (e > 99) {
+                    sb.append((char) ('0' + e / 100));
+                    e %= 100;
+                }
+                sb.append((char) ('0' + e / 10)).append((char) ('0' + e % 10));
+            } else {
+                magnitude(sb, start, f, adjustWidth(width, f, negative));
+            }
+        }
+        if (negative && (f & PARENTHESES) != 0)
+            sb.append(')');
+    }
+
+    /**
+     * Rounds digits in place to prec significant digits, rounding half up, the way Formatter does.
+     * @return the decimal exponent after rounding, which is one more than decExp if rounding carried out
+     */
+    private static int applyPrecision(int decExp, char[] digits, int nDigits, int prec) {
+        if (prec >= nDigits || prec < 0)
+            return decExp;
+        if (prec == 0) {
+            if (digits[0] >= '5') {
+                digits[0] = '1';
+                Arrays.fill(digits, 1, nDigits, '0');
+                return decExp + 1;
+            }
+            Arrays.fill(digits, 0, nDigits, '0');
+            return decExp;
+        }
+        if (digits[prec] >= '5') {
+            int i = prec;
+            char q = digits[--i];
+            if (q == '9') {
+                while (q == '9' && i > 0) {
+                    q = digits[--i];
+                }
+                if (q == '9') {
+                    digits[0] = '1';
+                    Arrays.fill(digits, 1, nDigits, '0');
+                    return decExp + 1;
+                }
+            }
+            digits[i] = (char) (q + 1);
+            Arrays.fill(digits, i + 1, nDigits, '0');
+        } else {
+            Arrays.fill(digits, prec, nDigits, '0');
+        }
+        return decExp;
+    }
+
+    private void fillDecimal(int precision, char[] digits, int nDigits, int exp) {
+        len = 0;
+        if (exp > 0) {
+            if (nDigits < exp) {
+                for (int i = 0; i < exp; i++) {
+                    put(i < nDigits ? digits[i] : '0');
+                }
+            } else {
+                final int t = Math.min(nDigits - exp, precision);
+                for (int i = 0; i < exp; i++) {
+                    put(digits[i]);
+                }
+                if (t > 0) {
+                    put('.');
+                    for (int i = exp; i < exp + t; i++) {
+                        put(digits[i]);
+                    }
+                }
+            }
+        } else {
+            final int zeros = Math.max(0, Math.min(-exp, precision)),
+                    t = Math.max(0, Math.min(nDigits, precision + exp));
+            put('0');
+            if (zeros > 0 || t > 0) {
+                put('.');
+                for (int i = 0; i < zeros; i++) {
+                    put('0');
+                }
+                for (int i = 0; i < t; i++) {
+                    put(digits[i]);
+                }
+            }
+        }
+    }
+
+    private void fillScientific(int precision, char[] digits, int nDigits) {
+        len = 0;
+        put(digits[0]);
+        final int t = Math.max(0, Math.min(nDigits - 1, precision));
+        if (t > 0) {
+            put('.');
+            for (int i = 1; i <= t; i++) {
+                put(digits[i]);
+            }
+        }
+    }
+
+    /**
+     * Pads the number in buf with zeros after its decimal point until it has prec digits there, adding the point if
+     * it needs one.
+     */
+    private void addZeros(int prec) {
+        int i = 0;
+        while (i < len && buf[i] != '.') {
+            i++;
+        }
+        final boolean needDot = i == len;
+        final int outPrec = len - i - (needDot ? 0 : 1);
+        if (outPrec == prec)
+            return;
+        if (needDot)
+            put('.');
+        for (int z = outPrec; z < prec; z++) {
+            put('0');
+        }
+    }
+
+    private void hexFloating(StringBuilder sb, double v, int f, int width, int precision, boolean negative) {
+        final int prec = precision == -1 ? 0 : precision == 0 ? 1 : precision;
+        final boolean upper = (f & UPPERCASE) != 0;
+        hexDouble(v, prec);
+        sb.append(upper ? "0X" : "0x");
+        if ((f & ZERO_PAD) != 0) {
+            final int lead = negative || (f & (PLUS | LEADING_SPACE)) != 0 ? 3 : 2;
+            for (int i = len + 1 + stringLength(hexExponent) + lead; i < width; i++) {
+                sb.append('0');
+            }
+        }
+        if (prec != 0)
+            addZeros(prec);
+        for (int i = 0; i < len; i++) {
+            sb.append(upper ? Character.toUpperCase(buf[i]) : buf[i]);
+        }
+        sb.append(upper ? 'P' : 'p').append(hexExponent);
+    }
+
+    private static int stringLength(int n) {
+        int length = n < 0 ? 2 : 1;
+        for (n = Math.abs(n); n >= 10; n /= 10) {
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * Puts the hexadecimal significand of a finite, non-negative double in buf, rounded to prec hex digits after the
+     * point when prec is between 1 and 12, and its binary exponent in hexExponent, as Formatter does for %a.
+     */
+    private void hexDouble(double d, int prec) {
+        if (d == 0.0 || prec == 0 || prec >= 13) {
+            hexString(d);
+            return;
+        }
+        final boolean subnormal = (Double.doubleToLongBits(d) & 0x7FF0000000000000L) == 0L;
+        if (subnormal)
+            d *= 0x1p54;
+        final int shift = 52 - prec * 4;
+        final long bits = Double.doubleToLongBits(d), roundingBits = bits & ~(~0L << shift);
+        long significand = bits >> shift;
+        final boolean leastZero = (significand & 1L) == 0L, round = (1L << shift - 1 & roundingBits) != 0L,
+                sticky = shift > 1 && (~(1L << shift - 1) & roundingBits) != 0L;
+        if ((leastZero && round && sticky) || (!leastZero && round))
+            significand++;
+        final double result = Double.longBitsToDouble(significand << shift);
+        if (result == Double.POSITIVE_INFINITY) {
+            len = 0;
+            put('1');
+            put('.');
+            put('0');
+            hexExponent = 1024;
+            return;
+        }
+        hexString(result);
+        if (subnormal)
+            hexExponent -= 54;
+    }
+
+    /**
+     * Does what Double.toHexString() does for a finite, non-negative double, without the "0x" prefix, putting the
+     * significand in buf and the exponent in hexExponent.
+     */
+    private void hexString(double d) {
+        len = 0;
+        final long bits = Double.doubleToLongBits(d);
+        final int biased = (int) (bits >>> 52) & 0x7FF;
+        final long significand = bits & 0xFFFFFFFFFFFFFL;
+        if (d == 0.0) {
+            put('0');
+            put('.');
+            put('0');
+            hexExponent = 0;
+            return;
+        }
+        put(biased == 0 ? '0' : '1');
+        put('.');
+        int end = 3;
+        for (int i = 0; i < 13; i++) {
+            final int nibble = (int) (significand >>> 48 - i * 4) & 15;
+            put(DIGITS.charAt(nibble));
+            if (nibble != 0)
+                end = len;
+        }
+        len = end;
+        hexExponent = biased == 0 ? -1022 : biased - 1023;
+    }
+
+    private static void number(StringBuilder sb, long value, int width, boolean zeroPad) {
+        if (zeroPad) {
+            for (int i = stringLength((int) value); i < width; i++) {
+                sb.append('0');
+            }
+        }
+        sb.append(value);
+    }
+
+    private static void date(StringBuilder sb, char c, Date date) {
+        switch (c) {
+            case 'H':
+            case 'k':
+                number(sb, date.getHours(), 2, c == 'H');
+                break;
+            case 'I':
+            case 'l': {
+                final int h = date.getHours();
+                number(sb, h == 0 || h == 12 ? 12 : h % 12, 2, c == 'I');
+                break;
+            }
+            case 'M':
+                number(sb, date.getMinutes(), 2, true);
+                break;
+            case 'S':
+                number(sb, date.getSeconds(), 2, true);
+                break;
+            case 'L':
+                number(sb, millis(date), 3, true);
+                break;
+            case 'N':
+                number(sb, millis(date) * 1000000, 9, true);
+                break;
+            case 'p':
+                sb.append(date.getHours() < 12 ? "am" : "pm");
+                break;
+            case 's':
+                sb.append(date.getTime() / 1000L);
+                break;
+            case 'Q':
+                sb.append(date.getTime());
+                break;
+            case 'z': {
+                int minutes = -date.getTimezoneOffset();
+                sb.append(minutes < 0 ? '-' : '+');
+                minutes = Math.abs(minutes);
+                number(sb, minutes / 60 * 100 + minutes % 60, 4, true);
+                break;
+            }
+            case 'a':
+                sb.append(DAYS[date.getDay()], 0, 3);
+                break;
+            case 'A':
+                sb.append(DAYS[date.getDay()]);
+                break;
+            case 'b':
+            case 'h':
+                sb.append(MONTHS[date.getMonth()], 0, 3);
+                break;
+            case 'B':
+                sb.append(MONTHS[date.getMonth()]);
+                break;
+            case 'C':
+                number(sb, (date.getYear() + 1900) / 100, 2, true);
+                break;
+            case 'y':
+                number(sb, (date.getYear() + 1900) % 100, 2, true);
+                break;
+            case 'Y':
+                number(sb, date.getYear() + 1900, 4, true);
+                break;
+            case 'd':
+            case 'e':
+                number(sb, date.getDate(), 2, c == 'd');
+                break;
+            case 'm':
+                number(sb, date.getMonth() + 1, 2, true);
+                break;
+            case 'R':
+            case 'T':
+                date(sb, 'H', date);
+                sb.append(':');
+                date(sb, 'M', date);
+                if (c == 'T') {
+                    sb.append(':');
+                    date(sb, 'S', date);
+                }
+                break;
+            case 'r':
+                date(sb, 'I', date);
+                sb.append(':');
+                date(sb, 'M', date);
+                sb.append(':');
+                date(sb, 'S', date);
+                sb.append(date.getHours() < 12 ? " AM" : " PM");
+                break;
+            case 'D':
+                date(sb, 'm', date);
+                sb.append('/');
+                date(sb, 'd', date);
+                sb.append('/');
+                date(sb, 'y', date);
+                break;
+            default: // 'F'
+                date(sb, 'Y', date);
+                sb.append('-');
+                date(sb, 'm', date);
+                sb.append('-');
+                date(sb, 'd', date);
+        }
+    }
+
+    private static int millis(Date date) {
+        return (int) ((date.getTime() % 1000L + 1000L) % 1000L);
+    }
+
+    /**
+     * A reusable list of arguments for a {@link CompiledFormat}. Primitives are stored without boxing; anything else,
+     * including Strings and Dates, is stored as an Object. Call {@link #clear()} and then add each argument in order
+     * before every render; the arrays here only grow, so after the first few renders this makes no garbage.
+     */
+    public static final class Args {
+        private static final byte INT = 0, LONG = 1, FLOAT = 2, DOUBLE = 3, CHAR = 4, BOOLEAN = 5, OBJECT = 6;
+        private static final String[] KIND_NAMES = {"int", "long", "float", "double", "char", "boolean"};
+
+        private byte[] kinds;
+        private long[] longs;
+        private double[] doubles;
+        private Object[] objects;
+        private int size;
+
+        public Args() {
+            this(8);
+        }
+
+        /**
+         * @param capacity how many arguments this can hold before it needs to grow
+         */
+        public Args(int capacity) {
+            capacity = Math.max(1, capacity);
+            kinds = new byte[capacity];
+            longs = new long[capacity];
+            doubles = new double[capacity];
+            objects = new Object[capacity];
+        }
+
+        /**
+         * Removes every argument, so this can be filled again.
+         * @return this, for chaining
+         */
+        public Args clear() {
+            Arrays.fill(objects, 0, size, null);
+            size = 0;
+            return this;
+        }
+
+        /**
+         * @return how many arguments have been added since the last {@link #clear()}
+         */
+        public int size() {
+            return size;
+        }
+
+        private int next(byte kind) {
+            if (size == kinds.length) {
+                final int capacity = size << 1;
+                kinds = Arrays.copyOf(kinds, capacity);
+                longs = Arrays.copyOf(longs, capacity);
+                doubles = Arrays.copyOf(doubles, capacity);
+                objects = Arrays.copyOf(objects, capacity);
+            }
+            kinds[size] = kind;
+            return size++;
+        }
+
+        public Args add(int value) {
+            final int i = next(INT);
+            longs[i] = value;
+            return this;
+        }
+
+        public Args add(long value) {
+            final int i = next(LONG);
+            longs[i] = value;
+            return this;
+        }
+
+        public Args add(float value) {
+            final int i = next(FLOAT);
+            doubles[i] = value;
+            return this;
+        }
+
+        public Args add(double value) {
+            final int i = next(DOUBLE);
+            doubles[i] = value;
+            return this;
+        }
+
+        public Args add(char value) {
+            final int i = next(CHAR);
+            longs[i] = value;
+            return this;
+        }
+
+        public Args add(boolean value) {
+            final int i = next(BOOLEAN);
+            longs[i] = value ? 1L : 0L;
+            return this;
+        }
+
+        /**
+         * Adds any Object, such as a String, a Date, or null. Boxed Integer, Long, Float, Double, Character, and
+         * Boolean values are unboxed, so they behave the same as they do in String.format().
+         * @param value any Object, or null
+         * @return this, for chaining
+         */
+        public Args add(Object value) {
+            if (value instanceof Integer)
+                return add(((Integer) value).intValue());
+            if (value instanceof Long)
+                return add(((Long) value).longValue());
+            if (value instanceof Float)
+                return add(((Float) value).floatValue());
+            if (value instanceof Double)
+                return add(((Double) value).doubleValue());
+            if (value instanceof Character)
+                return add(((Character) value).charValue());
+            if (value instanceof Boolean)
+                return add(((Boolean) value).booleanValue());
+            final int i = next(OBJECT);
+            objects[i] = value;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package com.github.tommyettinger.demos;
+
+/**
+ * Finds the decimal digits of a double that java.util.Formatter rounds from when it formats a double with %e, %f, %g,
+ * or their variants. These are the digits the JDK's FloatingDecimal produces for Formatter, which are usually the
+ * shortest digits that read back as the same double, but not always: whole numbers below 2 to the 63 get every digit
+ * they have, and the second digit is always produced. Matching those digits exactly is what lets formatted output
+ * agree with String.format() down to the last rounded place.
+ * <br>
+ * This uses int and long arithmetic where FloatingDecimal does (including its handling of overflow in those paths),
+ * and fixed-size arrays of 32-bit limbs where it uses big integers, so once constructed it never allocates and it
+ * only needs what GWT can emulate.
+ * <br>
+ * After {@link #set(double)}, the value is {@code 0.d1d2d3... * 10^exponent}, where the digits are in
+ * {@link #digits} as chars from '0' to '9'. One instance must not be used by more than one thread at a time.
+ */
+final class DoubleDigits {
+    private static final int[] SMALL_5_POW = {
+            1, 5, 5 * 5, 5 * 5 * 5, 5 * 5 * 5 * 5, 5 * 5 * 5 * 5 * 5, 5 * 5 * 5 * 5 * 5 * 5, 5 * 5 * 5 * 5 * 5 * 5 * 5,
+            390625, 1953125, 9765625, 48828125, 244140625, 1220703125
+    };
+    private static final long[] LONG_5_POW = new long[27];
+
+    static {
+        LONG_5_POW[0] = 1L;
+        for (int i = 1; i < LONG_5_POW.length; i++) {
+            LONG_5_POW[i] = LONG_5_POW[i - 1] * 5L;
+        }
+    }
+
+    /**
+     * How many bits 5 to the power of the index needs, rounded up.
+     */
+    private static final int[] N_5_BITS = {
+            0, 3, 5, 7, 10, 12, 14, 17, 19, 21, 24, 26, 28, 31, 33, 35, 38, 40, 42, 45, 47, 49, 52, 54, 56, 59, 61
+    };
+    /**
+     * How many trailing digits of a whole number are noise, indexed by how many bits below its lowest significant bit
+     * the number has, minus one. Whole numbers with a short-enough path never need more than index 8.
+     */
+    private static final int[] INSIGNIFICANT = {0, 0, 0, 0, 1, 1, 1, 2, 2};
+
+    /**
+     * The digits of the last value set, most significant first; only the first {@link #count} are meaningful.
+     */
+    final char[] digits = new char[32];
+    /**
+     * How many digits the last value set has.
+     */
+    int count;
+    /**
+     * The decimal exponent of the last value set, so that it equals 0.digits times 10 to this power.
+     */
+    int exponent;
+
+    private final Big bigB = new Big(), bigS = new Big(), bigM = new Big(), bigTenS = new Big(), sum = new Big();
+
+    /**
+     * Finds the digits of a finite, non-negative double. Zero gets the single digit '0' and an exponent of 0. Negative,
+     * infinite, and NaN values must be handled by the caller.
+     * @param value a finite double that is 0 or greater
+     */
+    void set(double value) {
+        final long bits = Double.doubleToLongBits(value);
+        final int biased = (int) (bits >>> 52) & 0x7FF;
+        long fractBits = bits & 0xFFFFFFFFFFFFFL;
+        if (biased == 0 && fractBits == 0L) {
+            digits[0] = '0';
+            count = 1;
+            exponent = 0;
+            return;
+        }
+        int binExp, nSignificantBits;
+        if (biased == 0) {
+            final int leading = Long.numberOfLeadingZeros(fractBits), shift = leading - 11;
+            fractBits <<= shift;
+            binExp = 1 - shift - 1023;
+            nSignificantBits = 64 - leading;
+        } else {
+            fractBits |= 0x10000000000000L;
+            binExp = biased - 1023;
+            nSignificantBits = 53;
+        }
+        final int tailZeros = Long.numberOfTrailingZeros(fractBits), nFractBits = 53 - tailZeros;
+        final int nTinyBits = Math.max(0, nFractBits - binExp - 1);
+        if (binExp <= 62 && binExp >= -21 && nTinyBits == 0 && nFractBits < 64) {
+            // a whole number that fits in a long.
+            final int insignificant = binExp > nSignificantBits + 2 ? INSIGNIFICANT[binExp - nSignificantBits - 1] : 0;
+            wholeDigits(binExp >= 52 ? fractBits << (binExp - 52) : fractBits >>> (52 - binExp), insignificant);
+            return;
+        }
+        int decExp = (int) Math.floor((Double.longBitsToDouble(0x3FF0000000000000L | (fractBits & 0xFFFFFFFFFFFFFL))
+                - 1.5) * 0.289529654 + 0.176091259 + binExp * 0.301029995663981);
+        final int B5 = Math.max(0, -decExp), S5 = Math.max(0, decExp), M5 = B5;
+        int B2 = B5 + nTinyBits + binExp, S2 = S5 + nTinyBits, M2 = B2 - nSignificantBits;
+        fractBits >>>= tailZeros;
+        B2 -= nFractBits - 1;
+        final int common = Math.min(B2, S2);
+        B2 -= common;
+        S2 -= common;
+        M2 -= common;
+        if (nFractBits == 1)
+            M2 -= 1;
+        if (M2 < 0) {
+            B2 -= M2;
+            S2 -= M2;
+            M2 = 0;
+        }
+        final int bBits = nFractBits + B2 + (B5 < N_5_BITS.length ? N_5_BITS[B5] : B5 * 3);
+        final int tenSBits = S2 + 1 + (S5 + 1 < N_5_BITS.length ? N_5_BITS[S5 + 1] : (S5 + 1) * 3);
+        int n = 0, q;
+        boolean low, high;
+        long lowDigitDifference;
+        if (bBits < 32 && tenSBits < 32) {
+            int b = ((int) fractBits * SMALL_5_POW[B5]) << B2;
+            final int s = SMALL_5_POW[S5] << S2, tens = s * 10;
+            int m = SMALL_5_POW[M5] << M2;
+            q = b / s;
+            b = 10 * (b % s);
+            m *= 10;
+            high = b + m > tens;
+            if (q == 0 && !high)
+                decExp--;
+            else
+                digits[n++] = (char) ('0' + q);
+            low = high = false;
+            while (!low && !high) {
+                q = b / s;
+                b = 10 * (b % s);
+                m *= 10;
+                if (m > 0) {
+                    low = b < m;
+                    high = b + m > tens;
+                } else {
+                    low = high = true;
+                }
+                digits[n++] = (char) ('0' + q);
+            }
+            lowDigitDifference = (b << 1) - tens;
+        } else if (bBits < 64 && tenSBits < 64) {
+            long b = (fractBits * LONG_5_POW[B5]) << B2;
+            final long s = LONG_5_POW[S5] << S2, tens = s * 10L;
+            long m = LONG_5_POW[M5] << M2;
+            q = (int) (b / s);
+            b = 10L * (b % s);
+            m *= 10L;
+            high = b + m > tens;
+            if (q == 0 && !high)
+                decExp--;
+            else
+                digits[n++] = (char) ('0' + q);
+            low = high = false;
+            while (!low && !high) {
+                q = (int) (b / s);
+                b = 10L * (b % s);
+                m *= 10L;
+                if (m > 0L) {
+                    low = b < m;
+                    high = b + m > tens;
+                } else {
+                    low = high = true;
+                }
+                digits[n++] = (char) ('0' + q);
+            }
+            lowDigitDifference = (b << 1) - tens;
+        } else {
+            final Big b = bigB.set(fractBits).mulPow5(B5).shiftLeft(B2), s = bigS.set(1L).mulPow5(S5).shiftLeft(S2),
+                    m = bigM.set(10L).mulPow5(M5).shiftLeft(M2), tens = bigTenS.set(s).mul(10);
+            q = b.quotientTimesTen(s);
+            high = tens.compareTo(sum.set(b).add(m)) <= 0;
+            if (q == 0 && !high)
+                decExp--;
+            else
+                digits[n++] = (char) ('0' + q);
+            low = high = false;
+            while (!low && !high) {
+                q = b.quotientTimesTen(s);
+                m.mul(10);
+                low = b.compareTo(m) < 0;
+                high = tens.compareTo(sum.set(b).add(m)) <= 0;
+                digits[n++] = (char) ('0' + q);
+            }
+            lowDigitDifference = high && low ? b.shiftLeft(1).compareTo(tens) : 0L;
+        }
+        exponent = decExp + 1;
+        count = n;
+        if (high) {
+            if (!low || lowDigitDifference > 0L || (lowDigitDifference == 0L && (digits[n - 1] & 1) != 0))
+                roundUp();
+        }
+    }
+
+    /**
+     * Gets the digits of a positive whole number, dropping trailing zeros, after rounding off the given number of its
+     * lowest digits as noise.
+     */
+    private void wholeDigits(long value, int insignificant) {
+        int decExp = 0;
+        if (insignificant != 0) {
+            final long pow10 = LONG_5_POW[insignificant] << insignificant, residue = value % pow10;
+            value /= pow10;
+            decExp += insignificant;
+            if (residue >= pow10 >> 1)
+                value++;
+        }
+        int i = digits.length - 1;
+        int c = (int) (value % 10L);
+        value /= 10L;
+        while (c == 0) {
+            decExp++;
+            c = (int) (value % 10L);
+            value /= 10L;
+        }
+        while (value != 0L) {
+            digits[i--] = (char) (c + '0');
+            decExp++;
+            c = (int) (value % 10L);
+            value /= 10L;
+        }
+        digits[i] = (char) (c + '0');
+        count = digits.length - i;
+        System.arraycopy(digits, i, digits, 0, count);
+        exponent = decExp + 1;
+    }
+
+    private void roundUp() {
+        int i = count - 1;
+        char q = digits[i];
+        if (q == '9') {
+            while (q == '9' && i > 0) {
+                digits[i] = '0';
+                q = digits[--i];
+            }
+            if (q == '9') {
+                exponent++;
+                digits[0] = '1';
+                return;
+            }
+        }
+        digits[i] = (char) (q + 1);
+    }
+
+    /**
+     * A non-negative big integer with room for any value the digit generation needs (a bit over 1100 bits).
+     */
+    private static final class Big {
+        private static final int LIMBS = 40;
+        private final int[] limbs = new int[LIMBS];
+        private int length;
+
+        Big set(long value) {
+            limbs[0] = (int) value;
+            limbs[1] = (int) (value >>> 32);
+            length = limbs[1] != 0 ? 2 : limbs[0] != 0 ? 1 : 0;
+            return this;
+        }
+
+        Big set(Big other) {
+            System.arraycopy(other.limbs, 0, limbs, 0, other.length);
+            length = other.length;
+            return this;
+        }
+
+        Big shiftLeft(int bits) {
+            if (length == 0 || bits == 0)
+                return this;
+            final int whole = bits >>> 5, part = bits & 31;
+            if (part == 0) {
+                limbs[length + whole] = 0;
+                for (int i = length - 1; i >= 0; i--) {
+                    limbs[i + whole] = limbs[i];
+                }
+            } else {
+                limbs[length + whole] = limbs[length - 1] >>> (32 - part);
+                for (int i = length - 1; i > 0; i--) {
+                    limbs[i + whole] = limbs[i] << part | limbs[i - 1] >>> (32 - part);
+                }
+                limbs[whole] = limbs[0] << part;
+            }
+            for (int i = 0; i < whole; i++) {
+                limbs[i] = 0;
+            }
+            length += whole + 1;
+            trim();
+            return this;
+        }
+
+        Big mul(int small) {
+            long carry = 0L;
+            for (int i = 0; i < length; i++) {
+                carry += (limbs[i] & 0xFFFFFFFFL) * small;
+                limbs[i] = (int) carry;
+                carry >>>= 32;
+            }
+            if (carry != 0L)
+                limbs[length++] = (int) carry;
+            return this;
+        }
+
+        Big mulPow5(int power) {
+            for (; power >= 13; power -= 13) {
+                mul(SMALL_5_POW[13]);
+            }
+            return power == 0 ? this : mul(SMALL_5_POW[power]);
+        }
+
+        Big add(Big other) {
+            final int n = Math.max(length, other.length);
+            long carry = 0L;
+            for (int i = 0; i < n; i++) {
+                carry += (i < length ? limbs[i] & 0xFFFFFFFFL : 0L)
+                        + (i < other.length ? other.limbs[i] & 0xFFFFFFFFL : 0L);
+                limbs[i] = (int) carry;
+                carry >>>= 32;
+            }
+            length = n;
+            if (carry != 0L)
+                limbs[length++] = (int) carry;
+            return this;
+        }
+
+        /**
+         * Subtracts other, which must not be greater than this.
+         */
+        Big sub(Big other) {
+            long borrow = 0L;
+            for (int i = 0; i < length; i++) {
+                borrow = (limbs[i] & 0xFFFFFFFFL) - (i < other.length ? other.limbs[i] & 0xFFFFFFFFL : 0L) + borrow;
+                limbs[i] = (int) borrow;
+                borrow >>= 32;
+            }
+            trim();
+            return this;
+        }
+
+        /**
+         * Sets this to 10 times the remainder of this divided by divisor, returning the quotient, which must be
+         * less than 10.
+         */
+        int quotientTimesTen(Big divisor) {
+            int q = 0;
+            while (compareTo(divisor) >= 0) {
+                sub(divisor);
+                q++;
+            }
+            mul(10);
+            return q;
+        }
+
+        int compareTo(Big other) {
+            if (length != other.length)
+                return length < other.length ? -1 : 1;
+            for (int i = length - 1; i >= 0; i--) {
+                if (limbs[i] != other.limbs[i])
+                    return (limbs[i] & 0xFFFFFFFFL) < (other.limbs[i] & 0xFFFFFFFFL) ? -1 : 1;
+            }
+            return 0;
+        }
+
+        private void trim() {
+            while (length > 0 && limbs[length - 1] == 0) {
+                length--;
+            }
+        }
+    }
+}
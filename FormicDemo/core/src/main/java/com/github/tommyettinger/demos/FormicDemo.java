@@ -14,13 +14,13 @@ import squidpony.squidgrid.gui.gdx.SColor;
 import squidpony.squidgrid.gui.gdx.SparseLayers;
 import squidpony.squidgrid.gui.gdx.SquidInput;
 import squidpony.squidmath.GWTRNG;
-import text.formic.Stringf;
 
 import java.util.Date;
 
 /**
  * This is a tiny demo that tests various features of Formic ( https://github.com/tommyettinger/formic ),
- * a String formatting library for GWT.
+ * a String formatting library for GWT. The patterns here are the ones Formic's Stringf was shown with, but they are
+ * parsed once into {@link CompiledFormat}s, which render them into a reused StringBuilder without making garbage.
  */
 public class FormicDemo extends ApplicationAdapter {
     // FilterBatch is almost the same as SpriteBatch, but is a bit faster with SquidLib and allows color filtering
@@ -55,6 +55,12 @@ public class FormicDemo extends ApplicationAdapter {
     private SquidInput input;
     private Color bgColor;
     private Stage languageStage;
+    // parsed once; rendering them into line with args makes no garbage, unlike formatting a new String each time.
+    private final CompiledFormat numbers = new CompiledFormat("%11d %<08X %12s %10.10f %<10.10g %<10.10E %<10.10a"),
+            clock = new CompiledFormat("%tD %<tT");
+    private final CompiledFormat.Args args = new CompiledFormat.Args();
+    private final StringBuilder line = new StringBuilder(128);
+    private final Date now = new Date();
 
     private static final float FLOAT_LIGHTING = -0x1.cff1fep126F, // same result as SColor.COSMIC_LATTE.toFloatBits()
             GRAY_FLOAT = -0x1.7e7e7ep125F; // same result as SColor.CW_GRAY_BLACK.toFloatBits()
@@ -119,17 +125,27 @@ public class FormicDemo extends ApplicationAdapter {
     {
         languageDisplay.clear(0);
         languageDisplay.fillBackground(languageDisplay.defaultPackedBackground);
+        now.setTime(System.currentTimeMillis());
         for (int i = 0; i < gridHeight - 1; i += 2) {
             //////////////////////////(dec  hex)  str (float   decsci   sci      hexfloat)
-            String s = Stringf.format("%11d %<08X %12s %10.10f %<10.10g %<10.10E %<10.10a",
-                rng.nextInt(), 
-                FakeLanguageGen.CELESTIAL.word(rng, true, 3),
-                rng.nextDouble() / (1.0 - rng.nextDouble()));
-            languageDisplay.put(1, i, s,
-                rng.getRandomElement(SColor.COLOR_WHEEL_PALETTE_RICH));
-            s = Stringf.format("%tD %<tT", new Date()); // date and time
-            languageDisplay.put(1, i+1, s,
-                    rng.getRandomElement(SColor.COLOR_WHEEL_PALETTE_RICH));
+            line.setLength(0);
+            numbers.appendTo(line, args.clear()
+                .add(rng.nextInt())
+                .add(FakeLanguageGen.CELESTIAL.word(rng, true, 3))
+                .add(rng.nextDouble() / (1.0 - rng.nextDouble())));
+            putLine(i, rng.getRandomElement(SColor.COLOR_WHEEL_PALETTE_RICH));
+            line.setLength(0);
+            clock.appendTo(line, args.clear().add(now)); // date and time
+            putLine(i + 1, rng.getRandomElement(SColor.COLOR_WHEEL_PALETTE_RICH));
+        }
+    }
+
+    /**
+     * Puts the chars in line into the given row, starting one cell in, without making a String from them.
+     */
+    private void putLine(int row, Color color) {
+        for (int j = 0, n = line.length(); j < n; j++) {
+            languageDisplay.put(1 + j, row, line.charAt(j), color);
         }
     }
     @Override
@@ -0,0 +1,84 @@
+package com.github.tommyettinger.demos;
+
+import text.formic.Stringf;
+
+import java.lang.management.ManagementFactory;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Compares how fast FormicDemo's two patterns can be formatted, and how many bytes each call allocates, using
+ * {@link String#format(Locale, String, Object...)}, Formic's {@link Stringf#format(String, Object...)}, and a
+ * {@link CompiledFormat} rendering into a reused StringBuilder. Allocation is measured with the per-thread counter
+ * that HotSpot provides, so it includes boxing the arguments for the first two. CompiledFormat's number line allocates
+ * nothing; what it does allocate comes from java.util.Date working out its fields after each setTime(), which happens
+ * once per new time no matter how the Date is formatted.
+ * <br>
+ * This is a plain main() so it can be run without any test framework or graphics.
+ */
+public class CompiledFormatBenchmark {
+    private static final String NUMBERS = "%11d %<08X %12s %10.10f %<10.10g %<10.10E %<10.10a", CLOCK = "%tD %<tT";
+    private static final int CALLS = 200000;
+
+    public static void main(String[] args) {
+        final com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final long id = Thread.currentThread().getId();
+        final int[] ints = new int[1024];
+        final double[] doubles = new double[1024];
+        final Random rng = new Random(1L);
+        for (int i = 0; i < ints.length; i++) {
+            ints[i] = rng.nextInt();
+            doubles[i] = rng.nextDouble() / (1.0 - rng.nextDouble());
+        }
+        final String word = "Aldebaran";
+        final Date now = new Date();
+        final CompiledFormat numbers = new CompiledFormat(NUMBERS), clock = new CompiledFormat(CLOCK);
+        final CompiledFormat.Args arguments = new CompiledFormat.Args();
+        final StringBuilder line = new StringBuilder(128);
+
+        for (int round = 0; round < 3; round++) {
+            long sink = 0, start, bytes;
+
+            bytes = threads.getThreadAllocatedBytes(id);
+            start = System.nanoTime();
+            for (int i = 0; i < CALLS; i++) {
+                sink += String.format(Locale.US, NUMBERS, ints[i & 1023], word, doubles[i & 1023]).length();
+                now.setTime(1697382245123L + i * 1000L);
+                sink += String.format(Locale.US, CLOCK, now).length();
+            }
+            report("String.format()", System.nanoTime() - start, threads.getThreadAllocatedBytes(id) - bytes, sink);
+
+            sink = 0;
+            bytes = threads.getThreadAllocatedBytes(id);
+            start = System.nanoTime();
+            for (int i = 0; i < CALLS; i++) {
+                sink += Stringf.format(NUMBERS, ints[i & 1023], word, doubles[i & 1023]).length();
+                now.setTime(1697382245123L + i * 1000L);
+                sink += Stringf.format(CLOCK, now).length();
+            }
+            report("Stringf.format()", System.nanoTime() - start, threads.getThreadAllocatedBytes(id) - bytes, sink);
+
+            sink = 0;
+            bytes = threads.getThreadAllocatedBytes(id);
+            start = System.nanoTime();
+            for (int i = 0; i < CALLS; i++) {
+                line.setLength(0);
+                numbers.appendTo(line, arguments.clear().add(ints[i & 1023]).add(word).add(doubles[i & 1023]));
+                sink += line.length();
+                now.setTime(1697382245123L + i * 1000L);
+                line.setLength(0);
+                clock.appendTo(line, arguments.clear().add(now));
+                sink += line.length();
+            }
+            report("CompiledFormat", System.nanoTime() - start, threads.getThreadAllocatedBytes(id) - bytes, sink);
+            System.out.println();
+        }
+    }
+
+    private static void report(String name, long nanos, long bytes, long sink) {
+        System.out.printf("%-18s %8.1f ns per pair of lines, %8.1f bytes allocated per pair  [%d]%n",
+                name, nanos / (double) CALLS, bytes / (double) CALLS, sink & 1);
+    }
+}
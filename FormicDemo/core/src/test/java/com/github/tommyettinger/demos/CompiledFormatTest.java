@@ -0,0 +1,167 @@
+package com.github.tommyettinger.demos;
+
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Checks that {@link CompiledFormat} gives exactly what {@code String.format(Locale.US, ...)} gives, for FormicDemo's
+ * own patterns, for hand-picked values that are hard to round, and for many random combinations of flags, widths,
+ * precisions, conversions, and arguments. Patterns that String.format() rejects must also be rejected here, either
+ * when compiled or when rendered.
+ * <br>
+ * This is a plain main() so it can be run without any test framework; it throws at the first mismatch.
+ */
+public class CompiledFormatTest {
+    private static final String FLAGS = "-#+ 0,(";
+    private static final String CONVERSIONS = "bhscdoxefgaBHSCXEGA";
+    private static final String DATES = "HIklMSLNpsQzaAbBhCYydemRTrDF";
+    private static int checked = 0, rejected = 0;
+
+    public static void main(String[] args) {
+        final Random rng = new Random(1234567L);
+        final Object[] values = {
+                0, 1, -1, 7, -42, 123456789, Integer.MIN_VALUE, Integer.MAX_VALUE,
+                0L, -1L, 9876543210L, Long.MIN_VALUE, Long.MAX_VALUE,
+                0.0, -0.0, 1.0, -1.0, 0.5, 1.5, 2.5, -2.5, 0.125, 0.1, 0.3, 1e-5, 9.9999995, 0.0009, 0.005, 0.015,
+                123456.789, 1e7, 1.0E23, 9.999999999999999E22, 1e100, 1.7976931348623157E308, 4.9E-324,
+                2.2250738585072014E-308,
+                1.0000000000000002, 0.9999999999999999, 999.9995, 99999.95, 1.00909046656637798E18, 4.35E-10,
+                Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                0.1f, -3.75f, 16777217f, Float.MIN_VALUE, Float.MAX_VALUE,
+                'a', '\u00E9', true, false, null, "", "hello", "Mixed Case Text", new StringBuilder("builder"),
+        };
+
+        // the patterns FormicDemo uses.
+        final Date now = new Date(1697382245123L);
+        for (int i = 0; i < 2000; i++) {
+            final double d = rng.nextDouble() / (1.0 - rng.nextDouble());
+            check("%11d %<08X %12s %10.10f %<10.10g %<10.10E %<10.10a", rng.nextInt(), "Celestial", d);
+            check("%tD %<tT", now);
+            check("%tD %<tT", new Date(rng.nextLong() >> 22));
+        }
+
+        // every value with every conversion, with and without a width and precision.
+        for (Object v : values) {
+            for (int c = 0; c < CONVERSIONS.length(); c++) {
+                final char conv = CONVERSIONS.charAt(c);
+                check("%" + conv, v);
+                check("%12" + conv, v);
+                check("%-12.3" + conv, v);
+                check("%.0" + conv, v);
+                check("%,+020.7" + conv, v);
+                check("%(0,30.14" + conv, v);
+                check("%#x%<o%<X%<#o%<#30.1" + conv, v);
+            }
+        }
+
+        // random doubles, in every form, to find any difference in rounding.
+        for (int i = 0; i < 300000; i++) {
+            final double d;
+            switch (i & 7) {
+                case 0: d = Double.longBitsToDouble(rng.nextLong()); break;
+                case 1: d = rng.nextDouble(); break;
+                case 2: d = rng.nextDouble() / (1.0 - rng.nextDouble()); break;
+                case 3: d = (rng.nextLong() >> rng.nextInt(64)) * 0.5; break;
+                case 4: d = Double.longBitsToDouble(rng.nextLong() & 0x800FFFFFFFFFFFFFL); break;
+                case 5: d = rng.nextInt(200000) / 1000.0 - 100.0; break;
+                case 6: d = (rng.nextInt(20000) + 0.5) * Math.pow(10, rng.nextInt(20) - 10); break;
+                default: d = rng.nextFloat(); break;
+            }
+            final int p = rng.nextInt(20);
+            check("%." + p + "e|%<." + p + "f|%<." + p + "g|%<." + (p % 15) + "a|%<e|%<f|%<g|%<a", d);
+        }
+
+        // random patterns, including ones String.format() rejects.
+        for (int i = 0; i < 400000; i++) {
+            final StringBuilder pattern = new StringBuilder();
+            final Object[] arguments = new Object[3];
+            for (int a = 0; a < arguments.length; a++) {
+                arguments[a] = values[rng.nextInt(values.length)];
+            }
+            for (int spec = rng.nextInt(3) + 1; spec > 0; spec--) {
+                if (rng.nextInt(4) == 0)
+                    pattern.append("x = ");
+                pattern.append('%');
+                if (rng.nextInt(6) == 0)
+                    pattern.append(rng.nextInt(3) + 1).append('$');
+                if (rng.nextInt(6) == 0)
+                    pattern.append('<');
+                for (int f = rng.nextInt(3); f > 0; f--) {
+                    pattern.append(FLAGS.charAt(rng.nextInt(FLAGS.length())));
+                }
+                if (rng.nextBoolean())
+                    pattern.append(rng.nextInt(25) + 1);
+                if (rng.nextInt(3) == 0)
+                    pattern.append('.').append(rng.nextInt(18));
+                if (rng.nextInt(8) == 0) {
+                    pattern.append(rng.nextBoolean() ? 't' : 'T').append(DATES.charAt(rng.nextInt(DATES.length())));
+                    arguments[rng.nextInt(arguments.length)] = rng.nextBoolean()
+                            ? new Date(rng.nextLong() >> 20) : (Object) (rng.nextLong() >> 20);
+                } else {
+                    pattern.append(rng.nextInt(12) == 0 ? "%" : rng.nextInt(20) == 0 ? "n"
+                            : String.valueOf(CONVERSIONS.charAt(rng.nextInt(CONVERSIONS.length()))));
+                }
+            }
+            check(pattern.toString(), arguments);
+        }
+        System.out.println("All " + checked + " formatted results matched String.format(), and " + rejected
+                + " patterns or arguments were rejected by both.");
+    }
+
+    private static void check(String pattern, Object... arguments) {
+        String expected, actual;
+        try {
+            expected = String.format(Locale.US, pattern, arguments);
+        } catch (IllegalArgumentException e) {
+            expected = null;
+        }
+        final CompiledFormat.Args args = new CompiledFormat.Args(1);
+        for (Object a : arguments) {
+            args.add(a);
+        }
+        try {
+            // render twice into the same builder, to be sure scratch space from one render doesn't leak into the next.
+            final CompiledFormat format = new CompiledFormat(pattern);
+            final StringBuilder sb = new StringBuilder("prefix");
+            format.appendTo(sb, args);
+            final int first = sb.length();
+            format.appendTo(sb, args);
+            actual = sb.substring(6, first);
+            if (!actual.equals(sb.substring(first)))
+                throw new IllegalStateException("Rendering \"" + pattern + "\" twice gave different results");
+            final char[] chars = new char[actual.length() + 3];
+            if (format.format(chars, 3, args) != actual.length()
+                    || !actual.equals(new String(chars, 3, actual.length())))
+                throw new IllegalStateException("Rendering \"" + pattern + "\" into a char[] didn't match");
+        } catch (IllegalArgumentException e) {
+            if (expected != null)
+                throw new IllegalStateException("\"" + pattern + "\" with " + describe(arguments)
+                        + " was rejected, but String.format() gave \"" + expected + "\"", e);
+            rejected++;
+            return;
+        }
+        if (expected == null)
+            throw new IllegalStateException("\"" + pattern + "\" with " + describe(arguments)
+                    + " gave \"" + actual + "\", but String.format() rejected it");
+        if (!expected.equals(actual))
+            throw new IllegalStateException("\"" + pattern + "\" with " + describe(arguments) + " gave \"" + actual
+                    + "\", but String.format() gave \"" + expected + "\"");
+        checked++;
+    }
+
+    private static String describe(Object[] arguments) {
+        final StringBuilder sb = new StringBuilder("[");
+        for (Object a : arguments) {
+            if (sb.length() > 1)
+                sb.append(", ");
+            if (a instanceof Double)
+                sb.append(Double.doubleToLongBits((Double) a)).append("L bits (").append(a).append(')');
+            else
+                sb.append(a);
+            if (a != null)
+                sb.append(" as ").append(a.getClass().getSimpleName());
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,147 @@
+package com.squidpony.globe;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.utils.BufferUtils;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.NumberUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Shows a color map, such as {@link squidpony.squidgrid.gui.gdx.WorldMapView#getColorMap()}, as one Texture instead
+ * of one draw call or vertex per cell. Call {@link #update(float[][])} whenever the color map changes; it converts the
+ * packed float colors to RGBA8888 bytes and remembers which rows of the texture actually changed. The next call to
+ * {@link #getTexture()} uploads just those rows. Cells with the empty color become fully transparent.
+ * <br>
+ * Row 0 of the texture is the top of the map, which is the highest y in the color map, so drawing the texture with a
+ * Batch at its full size looks the same as drawing each cell at its x,y.
+ * <br>
+ * Converting doesn't touch OpenGL, so {@link #update(float[][])} and {@link #getPixels()} work headless; only
+ * {@link #getTexture()} needs a GL context.
+ */
+public class ColorMapSurface implements Disposable {
+    public final int width, height;
+    private final float emptyColor;
+    private final ByteBuffer pixels;
+    private Texture texture;
+    private int dirtyStart, dirtyEnd;
+
+    /**
+     * @param width the width of color maps this will show
+     * @param height the height of color maps this will show
+     * @param emptyColor a packed float color that should be transparent, such as WorldMapView.emptyColor
+     */
+    public ColorMapSurface(int width, int height, float emptyColor) {
+        this.width = width;
+        this.height = height;
+        this.emptyColor = emptyColor;
+        pixels = BufferUtils.newByteBuffer(width * height * 4);
+        // ABGR ints written little-endian put the bytes in R, G, B, A order.
+        pixels.order(ByteOrder.LITTLE_ENDIAN);
+        dirtyStart = 0;
+        dirtyEnd = height - 1;
+    }
+
+    /**
+     * Gets the RGBA8888 int that should be stored for the given packed float color, as ABGR so it can be written
+     * little-endian. The empty color becomes 0, which is transparent.
+     * @param color a packed float color, as produced by Color.toFloatBits()
+     * @param emptyColor the packed float color to treat as transparent
+     * @return the color as an ABGR8888 int, with full 0-255 alpha
+     */
+    public static int toABGR(float color, float emptyColor) {
+        return color == emptyColor ? 0 : NumberUtils.floatToIntColor(color);
+    }
+
+    /**
+     * Converts colors into RGBA bytes, and marks any texture rows that changed since the last upload as dirty.
+     * @param colors a color map indexed by [x][y], at least width by height
+     * @return true if any cell changed
+     */
+    public boolean update(float[][] colors) {
+        final int rowBytes = width << 2;
+        int low = height, high = -1;
+        for (int x = 0; x < width; x++) {
+            final float[] column = colors[x];
+            for (int y = 0, row = height - 1, i = row * rowBytes + (x << 2); y < height; y++, row--, i -= rowBytes) {
+                final int c = toABGR(column[y], emptyColor);
+                if (pixels.getInt(i) != c) {
+                    pixels.putInt(i, c);
+                    if (row < low) low = row;
+                    if (row > high) high = row;
+                }
+            }
+        }
+        if (high < 0)
+            return false;
+        dirtyStart = Math.min(dirtyStart, low);
+        dirtyEnd = Math.max(dirtyEnd, high);
+        return true;
+    }
+
+    /**
+     * @return the first texture row that still needs uploading, or {@link #height} if none do
+     */
+    public int getDirtyStart() {
+        return dirtyEnd < 0 ? height : dirtyStart;
+    }
+
+    /**
+     * @return how many texture rows, starting at {@link #getDirtyStart()}, still need uploading
+     */
+    public int getDirtyRows() {
+        return dirtyEnd < 0 ? 0 : dirtyEnd - dirtyStart + 1;
+    }
+
+    /**
+     * The converted pixels, RGBA8888, starting at the top row; this should be treated as read-only.
+     * @return the ByteBuffer holding every converted pixel
+     */
+    public ByteBuffer getPixels() {
+        return pixels;
+    }
+
+    /**
+     * Gets the texture, creating it the first time, after uploading any rows that changed since the last call.
+     * @return a Texture of width by height that can be drawn with any Batch
+     */
+    public Texture getTexture() {
+        if (texture == null) {
+            texture = new Texture(width, height, Pixmap.Format.RGBA8888);
+            texture.setFilter(Texture.TextureFilter.Nearest, Texture.TextureFilter.Nearest);
+            dirtyStart = 0;
+            dirtyEnd = height - 1;
+        }
+        if (dirtyEnd >= 0) {
+            texture.bind();
+            Gdx.gl.glPixelStorei(GL20.GL_UNPACK_ALIGNMENT, 1);
+            pixels.position(dirtyStart * width << 2);
+            Gdx.gl.glTexSubImage2D(GL20.GL_TEXTURE_2D, 0, 0, dirtyStart, width, dirtyEnd - dirtyStart + 1,
+                    GL20.GL_RGBA, GL20.GL_UNSIGNED_BYTE, pixels);
+            pixels.position(0);
+            markUploaded();
+        }
+        return texture;
+    }
+
+    /**
+     * Marks every row as clean. {@link #getTexture()} calls this after uploading; call it yourself only if you upload
+     * {@link #getPixels()} some other way.
+     */
+    public void markUploaded() {
+        dirtyStart = height;
+        dirtyEnd = -1;
+    }
+
+    @Override
+    public void dispose() {
+        if (texture != null) {
+            texture.dispose();
+            texture = null;
+        }
+    }
+}
@@ -5,7 +5,7 @@ import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input;
 import com.badlogic.gdx.InputAdapter;
 import com.badlogic.gdx.graphics.GL20;
-import com.badlogic.gdx.graphics.glutils.ImmediateModeRenderer20;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.utils.viewport.StretchViewport;
 import com.badlogic.gdx.utils.viewport.Viewport;
 import squidpony.StringKit;
@@ -33,7 +33,8 @@ public class GlobeDemo extends ApplicationAdapter {
     private RotatingSpaceMap world;
 
 
-    private ImmediateModeRenderer20 batch;
+    private SpriteBatch batch;
+    private ColorMapSurface surface;
     private SquidInput input;
     private Viewport view;
     private GWTRNG rng;
@@ -50,8 +51,9 @@ public class GlobeDemo extends ApplicationAdapter {
     public void create() {
 
         //// you will probably want to change batch to use whatever rendering system is appropriate
-        //// for your game; here it always renders pixels
-        batch = new ImmediateModeRenderer20(width * height, false, true, 0);
+        //// for your game; here it draws the whole color map as one texture
+        batch = new SpriteBatch();
+        surface = new ColorMapSurface(width, height, WorldMapView.emptyColor);
         view = new StretchViewport(width, height);
         //seed = 0x0c415cf07774ab2eL;//0x9987a26d1e4d187dL;//0xDEBACL;
         rng = new GWTRNG();
@@ -136,6 +138,7 @@ public class GlobeDemo extends ApplicationAdapter {
         world.zoomIn();
         wmv.generate(world.seedA, world.seedB, world.landModifier, world.heatModifier);
         wmv.show();
+        surface.update(wmv.getColorMap());
         ttg = System.currentTimeMillis() - startTime;
     }
     public void zoomIn(int zoomX, int zoomY)
@@ -144,6 +147,7 @@ public class GlobeDemo extends ApplicationAdapter {
         world.zoomIn(1, zoomX<<1, zoomY<<1);
         wmv.generate(world.seedA, world.seedB, world.landModifier, world.heatModifier);
         wmv.show();
+        surface.update(wmv.getColorMap());
         ttg = System.currentTimeMillis() - startTime;
     }
     public void zoomOut()
@@ -152,6 +156,7 @@ public class GlobeDemo extends ApplicationAdapter {
         world.zoomOut();
         wmv.generate(world.seedA, world.seedB, world.landModifier, world.heatModifier);
         wmv.show();
+        surface.update(wmv.getColorMap());
         ttg = System.currentTimeMillis() - startTime;
     }
     public void zoomOut(int zoomX, int zoomY)
@@ -160,6 +165,7 @@ public class GlobeDemo extends ApplicationAdapter {
         world.zoomOut(1, zoomX<<1, zoomY<<1);
         wmv.generate(world.seedA, world.seedB, world.landModifier, world.heatModifier);
         wmv.show();
+        surface.update(wmv.getColorMap());
         ttg = System.currentTimeMillis() - startTime;
     }
     public void generate(final long seed)
@@ -175,6 +181,7 @@ public class GlobeDemo extends ApplicationAdapter {
                 0.9 + NumberTools.formCurvedDouble((seed ^ 0x123456789ABCDL) * 0x12345689ABL) * 0.3,
                 DiverRNG.determineDouble(seed * 0x12345L + 0x54321L) * 0.55 + 0.9);
         wmv.show();
+        surface.update(wmv.getColorMap());
         ttg = System.currentTimeMillis() - startTime;
     }
     public void rotate()
@@ -186,24 +193,17 @@ public class GlobeDemo extends ApplicationAdapter {
         //// comment out next line if using something other than RotatingSpaceView
         wmv.getBiomeMapper().makeBiomes(world);
         wmv.show();
+        surface.update(wmv.getColorMap());
         ttg = System.currentTimeMillis() - startTime;
     }
 
 
     public void putMap() {
-        float[][] cm = wmv.getColorMap();
-        //// everything after this part of putMap() should be customized to your rendering setup
-        batch.begin(view.getCamera().combined, GL20.GL_POINTS);
-        float c;
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                c = cm[x][y];
-                if(c != WorldMapView.emptyColor) {
-                    batch.color(c);
-                    batch.vertex(x, y, 0f);
-                }
-            }
-        }
+        //// everything in putMap() should be customized to your rendering setup; the color map was already converted
+        //// to a texture by surface.update() after each change, and only changed rows get uploaded here.
+        batch.setProjectionMatrix(view.getCamera().combined);
+        batch.begin();
+        batch.draw(surface.getTexture(), 0, 0, width, height);
         batch.end();
     }
 
@@ -224,6 +224,13 @@ public class GlobeDemo extends ApplicationAdapter {
         Gdx.graphics.setTitle("Took " + ttg + " ms to generate");//, took " + ttd + " ms to draw");
     }
 
+    @Override
+    public void dispose() {
+        surface.dispose();
+        batch.dispose();
+        super.dispose();
+    }
+
     @Override
     public void resize(int width, int height) {
         super.resize(width, height);
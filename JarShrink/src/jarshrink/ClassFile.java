@@ -0,0 +1,351 @@
+package jarshrink;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Just enough of a class-file parser to find a class's members, read their bytecode and constant-pool references, and
+ * write the class back out without some of its fields or methods. <br>
+ * Everything else, including the constant pool, is copied unchanged, so unused constants are left behind; that's
+ * harmless, and much simpler than renumbering every reference in the file.
+ * @author Deconimus
+ */
+public class ClassFile {
+	
+	
+	public static final int ACC_PRIVATE = 0x0002, ACC_STATIC = 0x0008, ACC_NATIVE = 0x0100, ACC_INTERFACE = 0x0200,
+							ACC_ABSTRACT = 0x0400, ACC_ANNOTATION = 0x2000;
+	
+	public static final int CLASS = 7, FIELDREF = 9, METHODREF = 10, INTERFACE_METHODREF = 11, NAME_AND_TYPE = 12,
+							METHOD_HANDLE = 15, METHOD_TYPE = 16, DYNAMIC = 17, INVOKE_DYNAMIC = 18;
+	
+	
+	private final byte[] bytes;
+	
+	private int[] offsets;
+	private byte[] tags;
+	private String[] strings;
+	
+	public final int access;
+	public final String name, superName;
+	public final String[] interfaces;
+	
+	public final List<Member> fields, methods;
+	
+	/** Each bootstrap method's MethodHandle index, followed by its arguments' constant-pool indices. */
+	public int[][] bootstrapMethods;
+	
+	private int fieldsStart, methodsStart, attributesStart;
+	
+	
+	public ClassFile(byte[] bytes) throws IOException {
+		
+		this.bytes = bytes;
+		
+		if (bytes.length < 10 || u4(0) != 0xCAFEBABE) { throw new IOException("Not a class file."); }
+		
+		int count = u2(8);
+		
+		offsets = new int[count];
+		tags = new byte[count];
+		strings = new String[count];
+		
+		int p = 10;
+		
+		for (int i = 1; i < count; i++) {
+			
+			tags[i] = bytes[p];
+			offsets[i] = p + 1;
+			
+			switch (tags[i]) {
+				
+				case 1: p += 3 + u2(p+1); break;
+				case 3: case 4: p += 5; break;
+				case 5: case 6: p += 9; i++; break;
+				case 7: case 8: case 16: case 19: case 20: p += 3; break;
+				case 15: p += 4; break;
+				case 9: case 10: case 11: case 12: case 17: case 18: p += 5; break;
+				
+				default: throw new IOException("Unknown constant-pool tag "+tags[i]+" in a class file.");
+			}
+		}
+		
+		access = u2(p);
+		name = className(u2(p+2));
+		superName = (u2(p+4) == 0) ? null : className(u2(p+4));
+		
+		interfaces = new String[u2(p+6)];
+		p += 8;
+		
+		for (int i = 0; i < interfaces.length; i++, p += 2) { interfaces[i] = className(u2(p)); }
+		
+		fieldsStart = p;
+		fields = new ArrayList<Member>(u2(p));
+		p = readMembers(p, fields);
+		
+		methodsStart = p;
+		methods = new ArrayList<Member>(u2(p));
+		p = readMembers(p, methods);
+		
+		attributesStart = p;
+		bootstrapMethods = new int[0][];
+		
+		for (int i = 0, n = u2(p), q = p+2; i < n; i++) {
+			
+			int len = u4(q+2);
+			
+			if (utf8(u2(q)).equals("BootstrapMethods")) {
+				
+				bootstrapMethods = new int[u2(q+6)][];
+				
+				for (int b = 0, r = q+8; b < bootstrapMethods.length; b++) {
+					
+					int[] bsm = new int[1 + u2(r+2)];
+					bsm[0] = u2(r);
+					
+					for (int a = 1; a < bsm.length; a++) { bsm[a] = u2(r+2+a*2); }
+					
+					bootstrapMethods[b] = bsm;
+					r += 4 + (bsm.length-1) * 2;
+				}
+			}
+			
+			q += 6 + len;
+		}
+	}
+	
+	
+	private int readMembers(int p, List<Member> members) {
+		
+		int n = u2(p);
+		p += 2;
+		
+		for (int i = 0; i < n; i++) {
+			
+			Member m = new Member(u2(p), utf8(u2(p+2)), utf8(u2(p+4)), p);
+			
+			int q = p+8;
+			
+			for (int a = 0, attrs = u2(p+6); a < attrs; a++) {
+				
+				int len = u4(q+2);
+				
+				if (utf8(u2(q)).equals("Code")) {
+					
+					m.codeLength = u4(q+10);
+					m.codeStart = q+14;
+				}
+				
+				q += 6 + len;
+			}
+			
+			m.end = q;
+			members.add(m);
+			p = q;
+		}
+		
+		return p;
+	}
+	
+	
+	/**
+	 * @return The class file without the members that aren't kept.
+	 */
+	public byte[] write(List<Member> keptFields, List<Member> keptMethods) {
+		
+		ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length);
+		
+		out.write(bytes, 0, fieldsStart);
+		writeMembers(out, keptFields);
+		writeMembers(out, keptMethods);
+		out.write(bytes, attributesStart, bytes.length - attributesStart);
+		
+		return out.toByteArray();
+	}
+	
+	private void writeMembers(ByteArrayOutputStream out, List<Member> members) {
+		
+		out.write(members.size() >>> 8);
+		out.write(members.size());
+		
+		for (Member m : members) { out.write(bytes, m.start, m.end - m.start); }
+	}
+	
+	
+	public boolean is(int flag) { return (access & flag) != 0; }
+	
+	public int u1(int p) { return bytes[p] & 0xFF; }
+	public int u2(int p) { return (bytes[p] & 0xFF) << 8 | (bytes[p+1] & 0xFF); }
+	public int u4(int p) { return (bytes[p] & 0xFF) << 24 | (bytes[p+1] & 0xFF) << 16 | (bytes[p+2] & 0xFF) << 8 | (bytes[p+3] & 0xFF); }
+	
+	public int tag(int index) { return tags[index]; }
+	
+	/** @return Where the data of the constant at index starts, just after its tag. */
+	public int constant(int index) { return offsets[index]; }
+	
+	public String utf8(int index) {
+		
+		if (strings[index] != null) { return strings[index]; }
+		
+		// modified UTF-8, so there are no 4-byte forms; supplementary characters come as two 3-byte surrogates.
+		int p = offsets[index], len = u2(p), end = p+2+len;
+		char[] chars = new char[len];
+		int n = 0;
+		
+		for (int i = p+2; i < end;) {
+			
+			int c = bytes[i++] & 0xFF;
+			
+			if (c < 0x80) { chars[n++] = (char)c; }
+			else if (c < 0xE0) { chars[n++] = (char)((c & 0x1F) << 6 | (bytes[i++] & 0x3F)); }
+			else { chars[n++] = (char)((c & 0x0F) << 12 | (bytes[i++] & 0x3F) << 6 | (bytes[i++] & 0x3F)); }
+		}
+		
+		return strings[index] = new String(chars, 0, n);
+	}
+	
+	/** @return The internal name of the CONSTANT_Class at index, like "java/lang/String". */
+	public String className(int index) { return utf8(u2(offsets[index])); }
+	
+	/** @return The owner, name and descriptor of a Fieldref, Methodref or InterfaceMethodref. */
+	public String[] memberRef(int index) {
+		
+		int nat = offsets[u2(offsets[index]+2)];
+		
+		return new String[] { className(u2(offsets[index])), utf8(u2(nat)), utf8(u2(nat+2)) };
+	}
+	
+	/** @return The NameAndType of an InvokeDynamic or Dynamic constant, as { name, descriptor }. */
+	public String[] dynamicNameAndType(int index) {
+		
+		int nat = offsets[u2(offsets[index]+2)];
+		
+		return new String[] { utf8(u2(nat)), utf8(u2(nat+2)) };
+	}
+	
+	
+	/**
+	 * @return The internal names of the classes this class refers to in its constant pool and in its members'
+	 * 			descriptors, sorted and without the class itself.
+	 */
+	public Set<String> dependencies() {
+		
+		Set<String> deps = new TreeSet<String>();
+		
+		for (int i = 1; i < tags.length; i++) {
+			
+			switch (tags[i]) {
+				
+				case CLASS: addClass(deps, className(i)); break;
+				case NAME_AND_TYPE: addDescriptor(deps, utf8(u2(offsets[i]+2))); break;
+				case METHOD_TYPE: addDescriptor(deps, utf8(u2(offsets[i]))); break;
+			}
+		}
+		
+		for (Member m : fields) { addDescriptor(deps, m.desc); }
+		for (Member m : methods) { addDescriptor(deps, m.desc); }
+		
+		deps.remove(name);
+		
+		return deps;
+	}
+	
+	private static void addClass(Set<String> deps, String name) {
+		
+		if (name.startsWith("[")) { addDescriptor(deps, name); }
+		else { deps.add(name); }
+	}
+	
+	private static void addDescriptor(Set<String> deps, String desc) {
+		
+		for (int i = 0, len = desc.length(); i < len; i++) {
+			
+			if (desc.charAt(i) == 'L') {
+				
+				int end = desc.indexOf(';', i);
+				if (end < 0) { return; }
+				
+				deps.add(desc.substring(i+1, end));
+				i = end;
+			}
+		}
+	}
+	
+	
+	/**
+	 * @return The length of the instruction at pc, in a method whose code starts at codeStart.
+	 */
+	public int instructionLength(int codeStart, int pc) {
+		
+		int op = bytes[codeStart+pc] & 0xFF;
+		
+		switch (op) {
+			
+			case 0x10: case 0x12: case 0x15: case 0x16: case 0x17: case 0x18: case 0x19:
+			case 0x36: case 0x37: case 0x38: case 0x39: case 0x3A: case 0xA9: case 0xBC:
+				return 2;
+			
+			case 0x11: case 0x13: case 0x14: case 0x84: case 0xB2: case 0xB3: case 0xB4: case 0xB5: case 0xB6: case 0xB7:
+			case 0xB8: case 0xBB: case 0xBD: case 0xC0: case 0xC1: case 0xC6: case 0xC7:
+				return 3;
+			
+			case 0xC5: return 4;
+			case 0xB9: case 0xBA: case 0xC8: case 0xC9: return 5;
+			case 0xC4: return ((bytes[codeStart+pc+1] & 0xFF) == 0x84) ? 6 : 4;
+			
+			case 0xAA: {
+				
+				int p = (pc + 4) & ~3;
+				return p + 12 + 4 * (u4(codeStart+p+8) - u4(codeStart+p+4) + 1) - pc;
+			}
+			
+			case 0xAB: {
+				
+				int p = (pc + 4) & ~3;
+				return p + 8 + 8 * u4(codeStart+p+4) - pc;
+			}
+			
+			default: return (op >= 0x99 && op <= 0xA8) ? 3 : 1;
+		}
+	}
+	
+	
+	/**
+	 * A field or method, with where it is in the class file.
+	 */
+	public static class Member {
+		
+		
+		public final int access;
+		public final String name, desc;
+		
+		final int start;
+		int end;
+		
+		/** Where the method's bytecode starts in the class file, or -1 if it has none. */
+		public int codeStart = -1, codeLength;
+		
+		
+		Member(int access, String name, String desc, int start) {
+			
+			this.access = access;
+			this.name = name;
+			this.desc = desc;
+			this.start = start;
+		}
+		
+		
+		public boolean is(int flag) { return (access & flag) != 0; }
+		
+		/** @return The size of the member in the class file, in bytes. */
+		public int size() { return end - start; }
+		
+		@Override
+		public String toString() { return name+desc; }
+	}
+	
+}
@@ -0,0 +1,278 @@
+package jarshrink;
+
+import java.io.PrintStream;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * The class-dependency-graph in compact form. <br>
+ * Every class name is interned to an int; the dependencies of class i are {@code edges[offsets[i]]} up to
+ * {@code edges[offsets[i+1]]}. Classes that only appear as dependencies, which are outside of the jar, have none.
+ * Reachability is tracked in bitsets, and results are returned as {@link ClassSet}s, which also work as a
+ * {@code Set<String>} wherever one was used before.
+ * @author Deconimus
+ */
+public class ClassGraph {
+	
+	
+	private String[] names;
+	private int[] offsets, edges;
+	private int classes, known;
+	
+	// open addressing from name hashes to id+1, with 0 for empty slots.
+	private int[] table;
+	private int mask;
+	
+	
+	/**
+	 * @param dependencyMap	The dependencies of each class, as given by Dependencies.buildDependencyMap().
+	 * @param roots			Classes to intern even if they don't appear in the map, such as the Main-Class.
+	 */
+	public ClassGraph(Map<String, String[]> dependencyMap, String... roots) {
+		
+		int edgeCount = 0;
+		
+		for (String[] deps : dependencyMap.values()) { if (deps != null) { edgeCount += deps.length; } }
+		
+		int capacity = Integer.highestOneBit(Math.max(dependencyMap.size() * 2, 16)) << 1;
+		
+		names = new String[Math.max(dependencyMap.size(), 16)];
+		table = new int[capacity];
+		mask = capacity - 1;
+		
+		// classes with entries come first, so an id below 'known' means the class is inside the jar.
+		for (String cl : dependencyMap.keySet()) { intern(cl); }
+		
+		known = classes;
+		
+		int[] from = new int[edgeCount], to = new int[edgeCount];
+		int e = 0;
+		
+		for (Map.Entry<String, String[]> entry : dependencyMap.entrySet()) {
+			
+			if (entry.getValue() == null) { continue; }
+			
+			int id = id(entry.getKey());
+			
+			for (String dep : entry.getValue()) {
+				
+				from[e] = id;
+				to[e++] = intern(dep);
+			}
+		}
+		
+		if (roots != null) {
+			
+			for (String root : roots) { if (root != null) { intern(root); } }
+		}
+		
+		offsets = new int[classes + 1];
+		edges = new int[edgeCount];
+		
+		for (int i = 0; i < edgeCount; i++) { offsets[from[i] + 1]++; }
+		for (int i = 0; i < classes; i++) { offsets[i + 1] += offsets[i]; }
+		
+		int[] fill = new int[classes];
+		System.arraycopy(offsets, 0, fill, 0, classes);
+		
+		for (int i = 0; i < edgeCount; i++) { edges[fill[from[i]]++] = to[i]; }
+	}
+	
+	
+	private int intern(String name) {
+		
+		int slot = name.hashCode() & mask;
+		
+		for (int id; (id = table[slot]) != 0; slot = (slot + 1) & mask) {
+			
+			if (names[id - 1].equals(name)) { return id - 1; }
+		}
+		
+		if (classes == names.length) {
+			
+			String[] n = new String[classes << 1];
+			System.arraycopy(names, 0, n, 0, classes);
+			names = n;
+		}
+		
+		names[classes] = name;
+		table[slot] = ++classes;
+		
+		if (classes * 2 > table.length) { rehash(); }
+		
+		return classes - 1;
+	}
+	
+	private void rehash() {
+		
+		table = new int[table.length << 1];
+		mask = table.length - 1;
+		
+		for (int i = 0; i < classes; i++) {
+			
+			int slot = names[i].hashCode() & mask;
+			while (table[slot] != 0) { slot = (slot + 1) & mask; }
+			
+			table[slot] = i + 1;
+		}
+	}
+	
+	
+	/**
+	 * @return The id of the class, or -1 if it isn't in the graph.
+	 */
+	public int id(String name) {
+		
+		if (name == null) { return -1; }
+		
+		for (int slot = name.hashCode() & mask, id; (id = table[slot]) != 0; slot = (slot + 1) & mask) {
+			
+			if (names[id - 1].equals(name)) { return id - 1; }
+		}
+		
+		return -1;
+	}
+	
+	public String name(int id) { return names[id]; }
+	
+	/** @return How many classes are in the graph, including those only known as dependencies. */
+	public int size() { return classes; }
+	
+	/** @return True if the class had an entry in the dependency-map, meaning it's inside the jar. */
+	public boolean isKnown(int id) { return id < known; }
+	
+	
+	/**
+	 * Finds every class reachable from the Main-Class and from each class inside the jar that matches a keep rule.
+	 * @param mainClass			The Main-Class, or null.
+	 * @param keep				The keep rules; classes are kept if their names start with any of them.
+	 * @param printExtDeps		Whether to print each reached class that's outside of the jar.
+	 * @param printStream		Where to print them; may be null.
+	 */
+	public ClassSet reach(String mainClass, PackageTrie keep, boolean printExtDeps, PrintStream printStream) {
+		
+		long[] reached = new long[(classes + 63) >>> 6];
+		int[] queue = new int[classes];
+		int head = 0, tail = 0;
+		
+		int main = id(mainClass);
+		
+		if (main >= 0) {
+			
+			reached[main >>> 6] |= 1L << main;
+			queue[tail++] = main;
+		}
+		
+		if (keep != null && !keep.isEmpty()) {
+			
+			for (int i = 0; i < known; i++) {
+				
+				if ((reached[i >>> 6] & 1L << i) == 0L && keep.matches(names[i])) {
+					
+					reached[i >>> 6] |= 1L << i;
+					queue[tail++] = i;
+				}
+			}
+		}
+		
+		boolean nullDeps = false;
+		
+		while (head < tail) {
+			
+			int cl = queue[head++];
+			
+			if (cl >= known) {
+				
+				if (printExtDeps) {
+					
+					if (!nullDeps) {
+						
+						if (printStream != null) printStream.println("External Dependencies:\n");
+						nullDeps = true;
+					}
+					
+					if (printStream != null) printStream.println("]"+names[cl]);
+				}
+				
+				continue;
+			}
+			
+			for (int e = offsets[cl], end = offsets[cl + 1]; e < end; e++) {
+				
+				int dep = edges[e];
+				
+				if ((reached[dep >>> 6] & 1L << dep) == 0L) {
+					
+					reached[dep >>> 6] |= 1L << dep;
+					queue[tail++] = dep;
+				}
+			}
+		}
+		
+		return new ClassSet(this, reached, tail);
+	}
+	
+	
+	/**
+	 * A set of classes in a {@link ClassGraph}, stored as a bitset over their ids. <br>
+	 * It's a read-only {@code Set<String>}, so it can be used anywhere the class-tree was used as one.
+	 */
+	public static class ClassSet extends AbstractSet<String> {
+		
+		
+		private final ClassGraph graph;
+		private final long[] bits;
+		private final int size;
+		
+		
+		ClassSet(ClassGraph graph, long[] bits, int size) {
+			
+			this.graph = graph;
+			this.bits = bits;
+			this.size = size;
+		}
+		
+		
+		public boolean contains(int id) { return id >= 0 && id < graph.classes && (bits[id >>> 6] & 1L << id) != 0L; }
+		
+		@Override
+		public boolean contains(Object o) { return (o instanceof String) && contains(graph.id((String)o)); }
+		
+		@Override
+		public int size() { return size; }
+		
+		public ClassGraph getGraph() { return graph; }
+		
+		@Override
+		public Iterator<String> iterator() {
+			
+			return new Iterator<String>() {
+				
+				int next = advance(0);
+				
+				private int advance(int from) {
+					
+					while (from < graph.classes && (bits[from >>> 6] & 1L << from) == 0L) { from++; }
+					return from;
+				}
+				
+				public boolean hasNext() { return next < graph.classes; }
+				
+				public String next() {
+					
+					if (next >= graph.classes) { throw new NoSuchElementException(); }
+					
+					String name = graph.names[next];
+					next = advance(next + 1);
+					
+					return name;
+				}
+				
+				public void remove() { throw new UnsupportedOperationException(); }
+			};
+		}
+	}
+	
+}
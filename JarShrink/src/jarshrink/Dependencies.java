@@ -28,14 +28,14 @@ public class Dependencies {
 		
 		try {
 		
-			ProcessBuilder pb = new ProcessBuilder(jdeps, "-verbose:class", "-filter:none", "\""+jar.getAbsolutePath()+"\"");
+			ProcessBuilder pb = new ProcessBuilder(jdeps, "-verbose:class", "-filter:none", jar.getAbsolutePath());
 			Process p = pb.start();
 			
 			BufferedReader reader = new BufferedReader(new InputStreamReader(p.getInputStream()));
 			
 			for (String line = "", cur = ""; (line = reader.readLine()) != null;) {
 				
-				lines.add(line.trim());
+				lines.add(line);
 			}
 			
 		} catch (Exception e) { e.printStackTrace(); }
@@ -45,14 +45,36 @@ public class Dependencies {
 		String lastKey = null;
 		List<String> buffer = new ArrayList<String>();
 		
-		for (String line : lines) {
+		for (String raw : lines) {
+			
+			String line = raw.trim();
 			
 			if (line.contains(" java.") || line.contains(" javax.")) { continue; }
 			
 			int ind = line.indexOf("->");
 			int parInd = line.indexOf(" (");
 			
-			if (ind < 0 && parInd >= 0) {
+			if (ind > 0) {
+				
+				// jdeps 9 and later print "Class -> Dependency location" on one line; unindented lines are per archive.
+				if (raw.isEmpty() || !Character.isWhitespace(raw.charAt(0))) { continue; }
+				
+				String key = line.substring(0, ind).trim();
+				
+				if (!key.equals(lastKey)) {
+					
+					if (lastKey != null) { map.put(lastKey, buffer.toArray(new String[buffer.size()])); }
+					
+					lastKey = key;
+					buffer.clear();
+				}
+				
+				String dep = line.substring(ind+2).trim();
+				int space = dep.indexOf(' ');
+				
+				buffer.add((space < 0) ? dep : dep.substring(0, space));
+				
+			} else if (ind < 0 && parInd >= 0) {
 				
 				if (lastKey != null && buffer != null) {
 					
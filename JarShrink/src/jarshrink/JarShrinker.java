@@ -1,10 +1,14 @@
 package jarshrink;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Set;
 
+import visionCore.util.ArchiveWriter;
 import visionCore.util.Files;
 import visionCore.util.Jars;
 
@@ -19,11 +23,11 @@ public class JarShrinker {
 	private static final String ext = ((isWindows) ? ".exe" : "");
 	
 	
-	private File tmpdir;
+	private File tmpdir, cacheDir;
 	
 	private String jdepsLocation;
 	
-	private boolean printStatus, printDependencyList;
+	private boolean printStatus, printDependencyList, shrinkMembers;
 	
 	private PrintStream printStream;
 	
@@ -54,6 +58,7 @@ public class JarShrinker {
 		
 		this.printStatus = false;
 		this.printDependencyList = false;
+		this.shrinkMembers = false;
 		
 		this.setPrintStream(System.out);
 	}
@@ -61,7 +66,8 @@ public class JarShrinker {
 	
 	/**
 	 * Shrinks the jar by removing redundant classes and subclasses. <br>
-	 * Optionally it keeps specified packages and classes together with their dependencies. <br>
+	 * Optionally it keeps specified packages and classes together with their dependencies, and removes the fields and
+	 * methods nothing reaches. <br>
 	 * 
 	 * @param jarFile	The specified jar to shrink.
 	 * @param out		The output-file of the new jar.
@@ -86,13 +92,59 @@ public class JarShrinker {
 			return;
 		}
 		
+		ShrinkCache cache = null;
+		Map<String, String[]> dependencyMap = null;
+		File lastOut = null;
+		String fingerprint = null;
+		
+		if (cacheDir != null) {
+			
+			if (printStatus && printStream != null) printStream.println("Checking the cache");
+			
+			String name = unpacked.getName();
+			cache = new ShrinkCache(new File(cacheDir, name+".cache"));
+			lastOut = new File(cacheDir, name+".jar");
+			
+			try {
+				
+				cacheDir.mkdirs();
+				dependencyMap = cache.buildDependencyMap(jdepsLocation, jarFile);
+				fingerprint = cache.fingerprint(mainClass, Boolean.toString(shrinkMembers), Arrays.toString(keep));
+				
+				if (fingerprint.equals(cache.getFingerprint()) && lastOut.isFile()) {
+					
+					if (printStatus && printStream != null) printStream.println("Nothing changed since the last run, reusing its jar");
+					
+					java.nio.file.Files.copy(lastOut.toPath(), out.toPath(), StandardCopyOption.REPLACE_EXISTING);
+					Files.deleteDir(unpacked);
+					
+					if (printStatus && printStream != null) printStream.println("Done");
+					return;
+				}
+				
+				if (printStatus && printStream != null) {
+					
+					printStream.println("Reused the dependencies of "+cache.getReused()+" classes, "+cache.getAnalyzed()+" are new or changed");
+				}
+				
+			} catch (IOException e) {
+				
+				e.printStackTrace();
+				cache = null;
+				dependencyMap = null;
+			}
+		}
+		
 		if (printStatus && printStream != null) printStream.println("Unpacking .jar");
 		
 		Jars.extract(jarFile, unpacked);
 		
-		if (printStatus && printStream != null) printStream.println("Analyzing dependencies");
-		
-		Map<String, String[]> dependencyMap = Dependencies.buildDependencyMap(jdepsLocation, unpacked);
+		if (dependencyMap == null) {
+			
+			if (printStatus && printStream != null) printStream.println("Analyzing dependencies");
+			
+			dependencyMap = Dependencies.buildDependencyMap(jdepsLocation, unpacked);
+		}
 		
 		if (printStatus && printStream != null) printStream.println("Constructing dependency-tree");
 		
@@ -113,9 +165,42 @@ public class JarShrinker {
 		
 		Dependencies.removeRedundantClasses(unpacked, classTree);
 		
+		if (shrinkMembers) {
+			
+			if (printStatus && printStream != null) printStream.println("Removing unreachable members");
+			
+			try {
+				
+				MemberShrinker memberShrinker = new MemberShrinker(unpacked);
+				memberShrinker.shrink(mainClass, keep);
+				
+				if (printStatus && printStream != null) memberShrinker.printSummary(printStream);
+				
+			} catch (IOException e) { e.printStackTrace(); }
+		}
+		
 		if (printStatus && printStream != null) printStream.println("Building new .jar");
 		
-		Jars.create(unpacked, out);
+		if (cache == null) {
+			
+			Jars.create(unpacked, out);
+			
+		} else {
+			
+			try {
+				
+				// entries that are the same as in the last output are copied from it rather than compressed again.
+				ArchiveWriter writer = new ArchiveWriter();
+				writer.setReuse(lastOut);
+				writer.write(unpacked, out, new File(unpacked, "META-INF"+File.separator+"MANIFEST.MF"));
+				
+				java.nio.file.Files.copy(out.toPath(), lastOut.toPath(), StandardCopyOption.REPLACE_EXISTING);
+				
+				cache.setFingerprint(fingerprint);
+				cache.save();
+				
+			} catch (IOException e) { e.printStackTrace(); }
+		}
 		
 		Files.deleteDir(unpacked);
 		
@@ -126,6 +211,13 @@ public class JarShrinker {
 	public File getTmpdir() { return tmpdir; }
 	public void setTmpdir(File tmpdir) { this.tmpdir = tmpdir; }
 
+	public File getCacheDir() { return cacheDir; }
+	/**
+	 * Keeps what was learned about a jar's classes in the given directory, so shrinking it again only analyzes the
+	 * classes that changed. See {@link ShrinkCache}. Null, the default, turns the cache off.
+	 */
+	public void setCacheDir(File cacheDir) { this.cacheDir = cacheDir; }
+	
 	public String getJdepsLocation() { return jdepsLocation; }
 	public void setJdepsLocation(String jdepsLocation) { this.jdepsLocation = jdepsLocation; }
 
@@ -135,6 +227,10 @@ public class JarShrinker {
 	public boolean getPrintDependencyList() { return printDependencyList; }
 	public void setPrintDependencyList(boolean printDependencyList) { this.printDependencyList = printDependencyList; }
 	
+	public boolean getShrinkMembers() { return shrinkMembers; }
+	/** Also removes the fields and methods the kept classes can't reach. See {@link MemberShrinker}. */
+	public void setShrinkMembers(boolean shrinkMembers) { this.shrinkMembers = shrinkMembers; }
+	
 	public PrintStream getPrintStream() { return printStream; }
 	public void setPrintStream(PrintStream out) { this.printStream = out; }
 	
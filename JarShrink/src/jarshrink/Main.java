@@ -30,9 +30,9 @@ public class Main {
 	public static String abspath, javaHome;
 	
 	
-	public static String jar, out, keep[], tmpdir;
+	public static String jar, out, keep[], tmpdir, cachedir;
 	
-	public static boolean printStatus, printDependencyList;
+	public static boolean printStatus, printDependencyList, shrinkMembers;
 	
 	static {
 		
@@ -63,6 +63,8 @@ public class Main {
 		JarShrinker shrinker = new JarShrinker(new File(tmpdir));
 		shrinker.setPrintStatus(printStatus);
 		shrinker.setPrintDependencyList(printDependencyList);
+		shrinker.setShrinkMembers(shrinkMembers);
+		if (cachedir != null) { shrinker.setCacheDir(new File(cachedir)); }
 		
 		try {
 			
@@ -101,6 +103,10 @@ public class Main {
 				
 				printDependencyList = false;
 				
+			} else if (arg.equals("-m") || arg.equals("-members")) {
+				
+				shrinkMembers = true;
+				
 			} else if (nextArg != null) {
 			
 				if (arg.equals("-o") || arg.equals("-out")) {
@@ -120,6 +126,11 @@ public class Main {
 					
 					tmpdir = nextArg;
 					i++;
+					
+				} else if (arg.equals("-c") || arg.equals("-cache")) {
+					
+					cachedir = nextArg;
+					i++;
 				}
 				
 			}
@@ -161,6 +172,10 @@ public class Main {
 		System.out.println("\t\t\tdependencies. Can be called multiple times.");
 		System.out.println("\t-s | -status\tPrint status information.");
 		System.out.println("\t-n | -nolist\tDon't print the dependency list.");
+		System.out.println("\t-c | -cache\tKeeps the classes' dependencies in the given directory, so the next run");
+		System.out.println("\t\t\tonly analyzes the classes that changed.");
+		System.out.println("\t-m | -members\tAlso remove unreachable fields and methods. Classes used only through");
+		System.out.println("\t\t\treflection or JNI need to be kept with -keep.");
 		
 		System.out.println();
 		
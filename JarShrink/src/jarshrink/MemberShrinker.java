@@ -0,0 +1,642 @@
+package jarshrink;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Removes the methods and fields that can't be reached, from classes that are otherwise kept. <br>
+ * Starting at the Main-Class's main method, every member of the classes matched by the keep rules, and every static
+ * initializer, this follows the bytecode of each reachable method to the fields and methods it uses. Calls to instance
+ * methods reach the matching method of every class that is ever instantiated and is a subtype of the called type, and
+ * methods of instantiated classes that override or implement a method of a class outside of the jar (like toString()
+ * or Runnable.run()) are kept, since code outside of the jar can call them. Lambdas and method references are
+ * followed through their bootstrap arguments. <br>
+ * Some members are always kept because the JVM or the standard library uses them by name: native methods, an enum's
+ * values() and valueOf(), everything in annotation types, and the fields and special methods of Serializable classes.
+ * Anything else that is only used through reflection or JNI needs a keep rule, as with whole classes.
+ * @author Deconimus
+ */
+public class MemberShrinker {
+	
+	
+	private final File dir;
+	
+	private final Map<String, Node> nodes;
+	
+	private final Set<String> reachedMethods, reachedFields, instantiated, virtualCalls;
+	private final Map<String, List<String>> calledOwners;
+	private final Map<String, List<Node>> instantiatedSubtypes;
+	private final Map<String, Set<String>> externalMethods;
+	private final ArrayDeque<Object[]> queue;
+	
+	private int removedMethods, removedFields;
+	private long bytesBefore, bytesAfter;
+	
+	
+	/**
+	 * @param dir	The directory the jar was extracted to, after redundant classes were removed from it.
+	 */
+	public MemberShrinker(File dir) throws IOException {
+		
+		this.dir = dir;
+		
+		nodes = new HashMap<String, Node>();
+		
+		reachedMethods = new HashSet<String>();
+		reachedFields = new HashSet<String>();
+		instantiated = new HashSet<String>();
+		virtualCalls = new HashSet<String>();
+		calledOwners = new HashMap<String, List<String>>();
+		instantiatedSubtypes = new HashMap<String, List<Node>>();
+		externalMethods = new HashMap<String, Set<String>>();
+		queue = new ArrayDeque<Object[]>();
+		
+		load(dir, true);
+	}
+	
+	
+	private void load(File d, boolean root) throws IOException {
+		
+		File[] files = d.listFiles();
+		if (files == null) { return; }
+		
+		for (File f : files) {
+			
+			if (f.isDirectory()) {
+				
+				// classes for other Java versions in a multi-release jar are left alone.
+				if (!(root && f.getName().equals("META-INF"))) { load(f, false); }
+			
+			} else if (f.getName().endsWith(".class") && !f.getName().equals("module-info.class")) {
+				
+				ClassFile cf = new ClassFile(java.nio.file.Files.readAllBytes(f.toPath()));
+				nodes.put(cf.name, new Node(cf, f));
+			}
+		}
+	}
+	
+	
+	/**
+	 * Finds the reachable members and rewrites every class file that has members that aren't.
+	 * @param mainClass		The Main-Class, in the form "pkg.Main", or null.
+	 * @param keep			Keep rules; every member of each class whose name starts with one of them is kept.
+	 */
+	public void shrink(String mainClass, String[] keep) throws IOException {
+		
+		analyze(mainClass, keep);
+		rewrite();
+	}
+	
+	/**
+	 * Finds the reachable members without changing any files.
+	 */
+	public void analyze(String mainClass, String[] keep) {
+		
+		PackageTrie trie = new PackageTrie(keep);
+		
+		for (Node n : nodes.values()) {
+			
+			ClassFile cf = n.cf;
+			
+			markMethod(n, "<clinit>()V");
+			
+			if (!trie.isEmpty() && trie.matches(cf.name.replace('/', '.'))) {
+				
+				for (ClassFile.Member m : cf.methods) { markMethod(n, m.name+m.desc); }
+				for (ClassFile.Member f : cf.fields) { markField(n, f.name+":"+f.desc); }
+				
+				instantiate(cf.name);
+				continue;
+			}
+			
+			for (ClassFile.Member m : cf.methods) {
+				
+				if (m.is(ClassFile.ACC_NATIVE) || cf.is(ClassFile.ACC_ANNOTATION)) { markMethod(n, m.name+m.desc); }
+			}
+			
+			if ("java/lang/Enum".equals(cf.superName)) {
+				
+				markMethod(n, "values()[L"+cf.name+";");
+				markMethod(n, "valueOf(Ljava/lang/String;)L"+cf.name+";");
+			}
+			
+			if (ancestors(n).contains("java/io/Serializable")) { keepSerializable(n); }
+		}
+		
+		if (mainClass != null) {
+			
+			Node main = nodes.get(mainClass.replace('.', '/'));
+			if (main != null) { markMethod(main, "main([Ljava/lang/String;)V"); }
+		}
+		
+		while (!queue.isEmpty()) {
+			
+			Object[] item = queue.poll();
+			scan((Node)item[0], (ClassFile.Member)item[1]);
+		}
+	}
+	
+	private void keepSerializable(Node n) {
+		
+		for (ClassFile.Member f : n.cf.fields) { markField(n, f.name+":"+f.desc); }
+		
+		markMethod(n, "writeObject(Ljava/io/ObjectOutputStream;)V");
+		markMethod(n, "readObject(Ljava/io/ObjectInputStream;)V");
+		markMethod(n, "readObjectNoData()V");
+		markMethod(n, "writeReplace()Ljava/lang/Object;");
+		markMethod(n, "readResolve()Ljava/lang/Object;");
+		
+		if (ancestors(n).contains("java/io/Externalizable")) { markMethod(n, "<init>()V"); }
+		
+		// deserializing calls the no-arg constructor of the first superclass that isn't Serializable.
+		for (Node s = nodes.get(n.cf.superName); s != null; s = nodes.get(s.cf.superName)) {
+			
+			if (!ancestors(s).contains("java/io/Serializable")) {
+				
+				markMethod(s, "<init>()V");
+				break;
+			}
+		}
+	}
+	
+	
+	/**
+	 * Writes the class files again without the members that weren't reached.
+	 */
+	public void rewrite() throws IOException {
+		
+		for (Node n : nodes.values()) {
+			
+			ClassFile cf = n.cf;
+			
+			List<ClassFile.Member> fields = new ArrayList<ClassFile.Member>(cf.fields.size());
+			List<ClassFile.Member> methods = new ArrayList<ClassFile.Member>(cf.methods.size());
+			
+			for (ClassFile.Member f : cf.fields) { if (reachedFields.contains(cf.name+"."+f.name+":"+f.desc)) { fields.add(f); } }
+			for (ClassFile.Member m : cf.methods) { if (reachedMethods.contains(cf.name+"."+m.name+m.desc)) { methods.add(m); } }
+			
+			long before = n.file.length();
+			bytesBefore += before;
+			
+			if (fields.size() == cf.fields.size() && methods.size() == cf.methods.size()) {
+				
+				bytesAfter += before;
+				continue;
+			}
+			
+			removedFields += cf.fields.size() - fields.size();
+			removedMethods += cf.methods.size() - methods.size();
+			
+			byte[] out = cf.write(fields, methods);
+			java.nio.file.Files.write(n.file.toPath(), out);
+			
+			bytesAfter += out.length;
+		}
+	}
+	
+	
+	private void scan(Node n, ClassFile.Member m) {
+		
+		if (m.codeStart < 0) { return; }
+		
+		ClassFile cf = n.cf;
+		
+		for (int pc = 0; pc < m.codeLength; pc += cf.instructionLength(m.codeStart, pc)) {
+			
+			int p = m.codeStart + pc, op = cf.u1(p);
+			
+			switch (op) {
+				
+				case 0x12: constant(cf, cf.u1(p+1)); break;
+				case 0x13: constant(cf, cf.u2(p+1)); break;
+				
+				case 0xB2: case 0xB3: case 0xB4: case 0xB5: {
+					
+					String[] ref = cf.memberRef(cf.u2(p+1));
+					markFieldRef(ref[0], ref[1]+":"+ref[2]);
+					break;
+				}
+				
+				case 0xB6: case 0xB9: {
+					
+					String[] ref = cf.memberRef(cf.u2(p+1));
+					virtualCall(ref[0], ref[1]+ref[2]);
+					break;
+				}
+				
+				case 0xB7: case 0xB8: {
+					
+					String[] ref = cf.memberRef(cf.u2(p+1));
+					directCall(ref[0], ref[1]+ref[2]);
+					break;
+				}
+				
+				case 0xBA: {
+					
+					int index = cf.u2(p+1);
+					bootstrap(cf, cf.u2(cf.constant(index)));
+					
+					// a lambda's class is made at runtime and implements the returned interface, so its defaults can be called.
+					String desc = cf.dynamicNameAndType(index)[1];
+					int ret = desc.lastIndexOf(')') + 1;
+					
+					if (desc.charAt(ret) == 'L') { instantiateLambda(desc.substring(ret+1, desc.length()-1)); }
+					break;
+				}
+				
+				case 0xBB: instantiate(cf.className(cf.u2(p+1))); break;
+			}
+		}
+	}
+	
+	private void constant(ClassFile cf, int index) {
+		
+		if (cf.tag(index) == ClassFile.METHOD_HANDLE) { methodHandle(cf, index); }
+		else if (cf.tag(index) == ClassFile.DYNAMIC) { bootstrap(cf, cf.u2(cf.constant(index))); }
+	}
+	
+	private void bootstrap(ClassFile cf, int bsm) {
+		
+		int[] args = cf.bootstrapMethods[bsm];
+		
+		methodHandle(cf, args[0]);
+		
+		for (int a = 1; a < args.length; a++) {
+			
+			if (cf.tag(args[a]) == ClassFile.METHOD_HANDLE) { methodHandle(cf, args[a]); }
+		}
+	}
+	
+	private void methodHandle(ClassFile cf, int index) {
+		
+		int kind = cf.u1(cf.constant(index));
+		String[] ref = cf.memberRef(cf.u2(cf.constant(index)+1));
+		
+		switch (kind) {
+			
+			case 1: case 2: case 3: case 4: markFieldRef(ref[0], ref[1]+":"+ref[2]); break;
+			case 5: case 9: virtualCall(ref[0], ref[1]+ref[2]); break;
+			case 8: instantiate(ref[0]); directCall(ref[0], ref[1]+ref[2]); break;
+			default: directCall(ref[0], ref[1]+ref[2]); break;
+		}
+	}
+	
+	
+	private void markMethod(Node n, String sig) {
+		
+		ClassFile.Member m = n.methods.get(sig);
+		
+		if (m != null && reachedMethods.add(n.cf.name+"."+sig)) { queue.add(new Object[] { n, m }); }
+	}
+	
+	private void markField(Node n, String sig) {
+		
+		if (n.fields.containsKey(sig)) { reachedFields.add(n.cf.name+"."+sig); }
+	}
+	
+	private void directCall(String owner, String sig) {
+		
+		Node n = resolveMethod(owner, sig);
+		if (n != null) { markMethod(n, sig); }
+	}
+	
+	private void virtualCall(String owner, String sig) {
+		
+		// the method the call links to has to stay, even if it's abstract.
+		directCall(owner, sig);
+		
+		if (!virtualCalls.add(owner+"."+sig)) { return; }
+		
+		List<String> owners = calledOwners.get(sig);
+		if (owners == null) { calledOwners.put(sig, owners = new ArrayList<String>(2)); }
+		owners.add(owner);
+		
+		List<Node> subtypes = instantiatedSubtypes.get(owner);
+		
+		if (subtypes != null) {
+			
+			for (int i = 0; i < subtypes.size(); i++) { select(subtypes.get(i), sig); }
+		}
+	}
+	
+	private void markFieldRef(String owner, String sig) {
+		
+		Node n = resolveField(nodes.get(owner), sig);
+		if (n != null) { markField(n, sig); }
+	}
+	
+	
+	private void instantiate(String name) {
+		
+		Node n = nodes.get(name);
+		
+		if (n == null || !instantiated.add(name)) { return; }
+		
+		dispatch(n);
+	}
+	
+	private void instantiateLambda(String iface) {
+		
+		Node i = nodes.get(iface);
+		
+		if (i == null || !i.cf.is(ClassFile.ACC_INTERFACE) || !instantiated.add("lambda:"+iface)) { return; }
+		
+		dispatch(new Node(iface));
+	}
+	
+	private void dispatch(Node n) {
+		
+		Set<String> ancestors = ancestors(n);
+		
+		for (String a : ancestors) {
+			
+			List<Node> subtypes = instantiatedSubtypes.get(a);
+			if (subtypes == null) { instantiatedSubtypes.put(a, subtypes = new ArrayList<Node>()); }
+			subtypes.add(n);
+		}
+		
+		Set<String> candidates = new HashSet<String>();
+		boolean unknown = false;
+		
+		for (String a : ancestors) {
+			
+			Node an = nodes.get(a);
+			
+			if (an != null && an.cf != null) {
+				
+				for (ClassFile.Member m : an.cf.methods) {
+					
+					if (!m.is(ClassFile.ACC_STATIC) && !m.is(ClassFile.ACC_PRIVATE) && !m.name.startsWith("<")) { candidates.add(m.name+m.desc); }
+				}
+			
+			} else if (an == null) {
+				
+				Set<String> ext = externalMethods(a);
+				
+				if (ext == null) { unknown = true; }
+				else { for (String sig : ext) { select(n, sig); } }
+			}
+		}
+		
+		for (String sig : candidates) {
+			
+			if (unknown) { select(n, sig); continue; }
+			
+			List<String> owners = calledOwners.get(sig);
+			if (owners == null) { continue; }
+			
+			for (String owner : owners) {
+				
+				if (ancestors.contains(owner)) {
+					
+					select(n, sig);
+					break;
+				}
+			}
+		}
+	}
+	
+	/** Marks the method that a call to sig on an instance of n would run. */
+	private void select(Node n, String sig) {
+		
+		for (Node c = n; c != null; c = nodes.get(c.superName)) {
+			
+			ClassFile.Member m = c.methods.get(sig);
+			
+			if (m != null && !m.is(ClassFile.ACC_STATIC) && !m.is(ClassFile.ACC_PRIVATE)) {
+				
+				if (!m.is(ClassFile.ACC_ABSTRACT)) { markMethod(c, sig); }
+				return;
+			}
+		}
+		
+		for (String a : ancestors(n)) {
+			
+			Node i = nodes.get(a);
+			if (i == null || i.cf == null || !i.cf.is(ClassFile.ACC_INTERFACE)) { continue; }
+			
+			ClassFile.Member m = i.methods.get(sig);
+			
+			if (m != null && !m.is(ClassFile.ACC_STATIC) && !m.is(ClassFile.ACC_ABSTRACT) && !m.is(ClassFile.ACC_PRIVATE)) {
+				
+				markMethod(i, sig);
+			}
+		}
+	}
+	
+	/** @return The class that declares the method a call to owner.sig links to, or null if that's outside the jar. */
+	private Node resolveMethod(String owner, String sig) {
+		
+		Node start = nodes.get(owner);
+		
+		for (Node c = start; c != null; c = nodes.get(c.superName)) {
+			
+			if (c.methods.containsKey(sig)) { return c; }
+		}
+		
+		if (start == null) { return null; }
+		
+		for (String a : ancestors(start)) {
+			
+			Node i = nodes.get(a);
+			if (i != null && i.methods.containsKey(sig)) { return i; }
+		}
+		
+		return null;
+	}
+	
+	private Node resolveField(Node c, String sig) {
+		
+		if (c == null) { return null; }
+		if (c.fields.containsKey(sig)) { return c; }
+		
+		for (String i : c.interfaces) {
+			
+			Node r = resolveField(nodes.get(i), sig);
+			if (r != null) { return r; }
+		}
+		
+		return resolveField(nodes.get(c.superName), sig);
+	}
+	
+	
+	/** @return The class itself and all its superclasses and superinterfaces, including those outside of the jar. */
+	private Set<String> ancestors(Node n) {
+		
+		if (n.ancestors != null) { return n.ancestors; }
+		
+		Set<String> set = new LinkedHashSet<String>();
+		
+		if (n.name != null) { set.add(n.name); }
+		
+		if (n.superName != null) {
+			
+			Node s = nodes.get(n.superName);
+			
+			if (s == null) { set.add(n.superName); }
+			else { set.addAll(ancestors(s)); }
+		}
+		
+		for (String i : n.interfaces) {
+			
+			Node in = nodes.get(i);
+			
+			if (in == null) { set.add(i); }
+			else { set.addAll(ancestors(in)); }
+		}
+		
+		return n.ancestors = set;
+	}
+	
+	/**
+	 * @return The signatures of the instance methods that a class outside of the jar has or inherits, which code outside
+	 * 			of the jar might call, or null if the class can't be loaded to find out.
+	 */
+	private Set<String> externalMethods(String name) {
+		
+		if (externalMethods.containsKey(name)) { return externalMethods.get(name); }
+		
+		Set<String> sigs = null;
+		
+		try {
+			
+			Class<?> c = Class.forName(name.replace('/', '.'), false, MemberShrinker.class.getClassLoader());
+			
+			sigs = new HashSet<String>();
+			
+			ArrayDeque<Class<?>> todo = new ArrayDeque<Class<?>>();
+			Set<Class<?>> seen = new HashSet<Class<?>>();
+			todo.add(c);
+			
+			while (!todo.isEmpty()) {
+				
+				Class<?> k = todo.poll();
+				if (!seen.add(k)) { continue; }
+				
+				for (Method m : k.getDeclaredMethods()) {
+					
+					if (!Modifier.isStatic(m.getModifiers()) && !Modifier.isPrivate(m.getModifiers())) { sigs.add(m.getName()+descriptor(m)); }
+				}
+				
+				if (k.getSuperclass() != null) { todo.add(k.getSuperclass()); }
+				for (Class<?> i : k.getInterfaces()) { todo.add(i); }
+			}
+		
+		} catch (ClassNotFoundException | LinkageError e) { sigs = null; }
+		
+		externalMethods.put(name, sigs);
+		
+		return sigs;
+	}
+	
+	private static String descriptor(Method m) {
+		
+		StringBuilder sb = new StringBuilder("(");
+		
+		for (Class<?> p : m.getParameterTypes()) { descriptor(p, sb); }
+		
+		return descriptor(m.getReturnType(), sb.append(')')).toString();
+	}
+	
+	private static StringBuilder descriptor(Class<?> c, StringBuilder sb) {
+		
+		while (c.isArray()) {
+			
+			sb.append('[');
+			c = c.getComponentType();
+		}
+		
+		if (!c.isPrimitive()) { return sb.append('L').append(c.getName().replace('.', '/')).append(';'); }
+		
+		if (c == void.class) { return sb.append('V'); }
+		if (c == boolean.class) { return sb.append('Z'); }
+		if (c == byte.class) { return sb.append('B'); }
+		if (c == char.class) { return sb.append('C'); }
+		if (c == short.class) { return sb.append('S'); }
+		if (c == int.class) { return sb.append('I'); }
+		if (c == long.class) { return sb.append('J'); }
+		if (c == float.class) { return sb.append('F'); }
+		
+		return sb.append('D');
+	}
+	
+	
+	public void printSummary(PrintStream out) {
+		
+		if (out == null) { return; }
+		
+		out.println("Removed "+removedMethods+" methods and "+removedFields+" fields; class files went from "
+					+bytesBefore+" to "+bytesAfter+" bytes.");
+	}
+	
+	public int getRemovedMethods() { return removedMethods; }
+	public int getRemovedFields() { return removedFields; }
+	
+	public long getBytesBefore() { return bytesBefore; }
+	public long getBytesAfter() { return bytesAfter; }
+	
+	public File getDir() { return dir; }
+	
+	/** @return Whether the method, given like "pkg/Type.name(I)V", was found to be reachable. */
+	public boolean isReached(String method) { return reachedMethods.contains(method); }
+	
+	
+	/**
+	 * A class in the jar, or the class of a lambda that only implements one interface.
+	 */
+	private static class Node {
+		
+		
+		final ClassFile cf;
+		final File file;
+		
+		final String name, superName;
+		final String[] interfaces;
+		
+		final Map<String, ClassFile.Member> methods, fields;
+		
+		Set<String> ancestors;
+		
+		
+		Node(ClassFile cf, File file) {
+			
+			this.cf = cf;
+			this.file = file;
+			
+			name = cf.name;
+			superName = cf.superName;
+			interfaces = cf.interfaces;
+			
+			methods = new HashMap<String, ClassFile.Member>();
+			fields = new HashMap<String, ClassFile.Member>();
+			
+			for (ClassFile.Member m : cf.methods) { methods.put(m.name+m.desc, m); }
+			for (ClassFile.Member f : cf.fields) { fields.put(f.name+":"+f.desc, f); }
+		}
+		
+		Node(String iface) {
+			
+			cf = null;
+			file = null;
+			
+			name = null;
+			superName = "java/lang/Object";
+			interfaces = new String[] { iface };
+			
+			methods = new HashMap<String, ClassFile.Member>();
+			fields = methods;
+		}
+	}
+	
+}
@@ -0,0 +1,99 @@
+package jarshrink;
+
+/**
+ * Matches class names against keep rules. <br>
+ * A class matches when its name starts with any rule, the same test JarShrink has always used, so "com.foo" keeps
+ * "com.foo.Bar" as well as "com.foobar.Baz". Rules share their common package prefixes in one trie, so checking a class
+ * takes time proportional to the length of its name instead of the number of rules.
+ * @author Deconimus
+ */
+public class PackageTrie {
+	
+	
+	// node 0 is the root; each node's children are a linked list through nextSibling.
+	private char[] label;
+	private int[] firstChild, nextSibling;
+	private boolean[] terminal;
+	
+	private int nodes;
+	
+	
+	public PackageTrie(String... rules) {
+		
+		int capacity = 1;
+		
+		if (rules != null) {
+			
+			for (String rule : rules) { if (rule != null) { capacity += rule.length(); } }
+		}
+		
+		label = new char[capacity];
+		firstChild = new int[capacity];
+		nextSibling = new int[capacity];
+		terminal = new boolean[capacity];
+		nodes = 1;
+		
+		if (rules != null) {
+			
+			for (String rule : rules) { if (rule != null) { add(rule); } }
+		}
+	}
+	
+	
+	private void add(String rule) {
+		
+		int node = 0;
+		
+		for (int i = 0, len = rule.length(); i < len && !terminal[node]; i++) {
+			
+			node = child(node, rule.charAt(i), true);
+		}
+		
+		terminal[node] = true;
+	}
+	
+	private int child(int node, char c, boolean create) {
+		
+		for (int ch = firstChild[node]; ch != 0; ch = nextSibling[ch]) {
+			
+			if (label[ch] == c) { return ch; }
+		}
+		
+		if (!create) { return 0; }
+		
+		int ch = nodes++;
+		
+		label[ch] = c;
+		nextSibling[ch] = firstChild[node];
+		firstChild[node] = ch;
+		
+		return ch;
+	}
+	
+	
+	/**
+	 * @return True if the name starts with any of the rules.
+	 */
+	public boolean matches(String name) {
+		
+		if (terminal[0]) { return true; }
+		
+		int node = 0;
+		
+		for (int i = 0, len = name.length(); i < len; i++) {
+			
+			node = child(node, name.charAt(i), false);
+			
+			if (node == 0) { return false; }
+			if (terminal[node]) { return true; }
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * @return True if there are no rules, so nothing matches.
+	 */
+	public boolean isEmpty() { return nodes == 1 && !terminal[0]; }
+
+}
@@ -0,0 +1,317 @@
+package jarshrink;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import visionCore.util.Files;
+
+/**
+ * Remembers a hash of every entry in a jar, and the dependencies of every class, between runs. <br>
+ * When the same jar is shrunk again, only the classes whose contents changed are analyzed again; the dependencies of all
+ * others, usually the libraries, are read from the cache. A fingerprint of the whole jar and the options it was shrunk
+ * with tells when nothing changed at all, so the last output can be used as it is. <br>
+ * The new or changed classes are written to a directory next to the cache file and analyzed there by jdeps, all in one
+ * run, so the dependencies kept for each class are exactly what jdeps reports for it when given the whole jar.
+ * @author Deconimus
+ */
+public class ShrinkCache {
+	
+	
+	private static final int MAGIC = 0x4A534301, VERSION = 2;
+	
+	
+	private final File file;
+	
+	/** The entries of the last jar, by name; classes have their dependencies, other entries null. */
+	private Map<String, Record> records;
+	
+	private String fingerprint;
+	
+	private int reused, analyzed;
+	
+	
+	/**
+	 * @param file	The file the cache is kept in. If it doesn't exist yet, or can't be read, the cache starts out empty.
+	 */
+	public ShrinkCache(File file) {
+		
+		this.file = file;
+		this.records = new HashMap<String, Record>();
+		
+		if (file.isFile()) {
+			
+			try { load(); } catch (IOException e) { records.clear(); fingerprint = null; }
+		}
+	}
+	
+	
+	/**
+	 * Hashes every entry in the jar, analyzes the classes that are new or changed since the last time with jdeps and
+	 * takes the dependencies of the others from the cache. Afterwards the cache only holds the jar's current entries.
+	 * @param jdeps	The jdeps executable, as given to {@link Dependencies#buildDependencyMap}.
+	 * @return The dependency-map of the jar's classes, in the form {@link Dependencies#buildDependencyMap} returns.
+	 * @throws IOException If the jar can't be read, or jdeps found nothing in the changed classes.
+	 */
+	public Map<String, String[]> buildDependencyMap(String jdeps, File jar) throws IOException {
+		
+		Map<String, Record> current = new HashMap<String, Record>(records.size() * 2 + 16);
+		Map<String, String[]> map = new HashMap<String, String[]>(records.size() * 2 + 16);
+		
+		MessageDigest digest = sha1();
+		byte[] buffer = new byte[1 << 16];
+		
+		reused = analyzed = 0;
+		
+		List<Record> changed = new ArrayList<Record>();
+		File changedDir = new File(file.getAbsolutePath()+".classes");
+		Files.deleteDir(changedDir);
+		
+		ZipFile zip = new ZipFile(jar);
+		
+		try {
+			
+			for (Enumeration<? extends ZipEntry> en = zip.entries(); en.hasMoreElements();) {
+				
+				ZipEntry entry = en.nextElement();
+				if (entry.isDirectory()) { continue; }
+				
+				String name = entry.getName();
+				boolean isClass = name.endsWith(".class") && !name.startsWith("META-INF/") && !name.endsWith("module-info.class");
+				
+				byte[] bytes = read(zip.getInputStream(entry), buffer);
+				byte[] hash = digest.digest(bytes);
+				
+				Record record = records.get(name);
+				
+				if (record == null || !Arrays.equals(record.hash, hash)) {
+					
+					record = new Record(hash, null, null);
+					
+					if (isClass) {
+						
+						String internalName = new ClassFile(bytes).name;
+						File f = new File(changedDir, internalName+".class");
+						f.getParentFile().mkdirs();
+						java.nio.file.Files.write(f.toPath(), bytes);
+						
+						record.className = internalName.replace('/', '.');
+						changed.add(record);
+						analyzed++;
+					}
+				
+				} else if (isClass) { reused++; }
+				
+				current.put(name, record);
+			}
+		
+		} finally { zip.close(); }
+		
+		try {
+			
+			if (!changed.isEmpty()) {
+				
+				Map<String, String[]> found = Dependencies.buildDependencyMap(jdeps, changedDir);
+				
+				// a class that only uses the JDK isn't in jdeps' output at all, but if nothing is, jdeps didn't run.
+				if (found.isEmpty()) { throw new IOException("jdeps found no dependencies in "+changed.size()+" classes."); }
+				
+				for (Record record : changed) {
+					
+					String[] deps = found.get(record.className);
+					record.deps = (deps == null) ? new String[0] : deps;
+				}
+			}
+		
+		} finally { Files.deleteDir(changedDir); }
+		
+		for (Record record : current.values()) {
+			
+			if (record.className != null) { map.put(record.className, record.deps); }
+		}
+		
+		records = current;
+		
+		return map;
+	}
+	
+	
+	/**
+	 * Combines the hashes of the jar's entries, as of the last {@link #buildDependencyMap}, with the given options.
+	 * @return A hash that only stays the same if the jar and the options do.
+	 */
+	public String fingerprint(String... options) {
+		
+		MessageDigest digest = sha1();
+		
+		for (Map.Entry<String, Record> e : new TreeMap<String, Record>(records).entrySet()) {
+			
+			digest.update(e.getKey().getBytes(StandardCharsets.UTF_8));
+			digest.update((byte)0);
+			digest.update(e.getValue().hash);
+		}
+		
+		for (String option : options) {
+			
+			digest.update((byte)1);
+			if (option != null) { digest.update(option.getBytes(StandardCharsets.UTF_8)); }
+		}
+		
+		StringBuilder sb = new StringBuilder(40);
+		for (byte b : digest.digest()) { sb.append(Character.forDigit((b >> 4) & 15, 16)).append(Character.forDigit(b & 15, 16)); }
+		
+		return sb.toString();
+	}
+	
+	
+	private void load() throws IOException {
+		
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+		
+		try {
+			
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) { throw new IOException("Not a cache of this version."); }
+			
+			String fp = in.readUTF();
+			fingerprint = fp.isEmpty() ? null : fp;
+			
+			for (int i = 0, n = in.readInt(); i < n; i++) {
+				
+				String name = in.readUTF();
+				
+				byte[] hash = new byte[in.readUnsignedByte()];
+				in.readFully(hash);
+				
+				String className = null;
+				String[] deps = null;
+				
+				if (in.readBoolean()) {
+					
+					className = in.readUTF();
+					deps = new String[in.readInt()];
+					
+					for (int d = 0; d < deps.length; d++) { deps[d] = in.readUTF(); }
+				}
+				
+				records.put(name, new Record(hash, className, deps));
+			}
+		
+		} finally { in.close(); }
+	}
+	
+	/**
+	 * Writes the cache to its file. It's written to a temporary file first, so an interrupted save can't leave a
+	 * half-written cache behind.
+	 */
+	public void save() throws IOException {
+		
+		File parent = file.getAbsoluteFile().getParentFile();
+		if (parent != null) { parent.mkdirs(); }
+		
+		File tmp = new File(file.getAbsolutePath()+".tmp");
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 1 << 16));
+		
+		try {
+			
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeUTF((fingerprint == null) ? "" : fingerprint);
+			out.writeInt(records.size());
+			
+			for (Map.Entry<String, Record> e : records.entrySet()) {
+				
+				Record r = e.getValue();
+				
+				out.writeUTF(e.getKey());
+				out.writeByte(r.hash.length);
+				out.write(r.hash);
+				out.writeBoolean(r.className != null);
+				
+				if (r.className != null) {
+					
+					out.writeUTF(r.className);
+					out.writeInt(r.deps.length);
+					
+					for (String dep : r.deps) { out.writeUTF(dep); }
+				}
+			}
+		
+		} finally { out.close(); }
+		
+		java.nio.file.Files.move(tmp.toPath(), file.toPath(), java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+	}
+	
+	
+	private static byte[] read(InputStream in, byte[] buffer) throws IOException {
+		
+		ByteArrayOutputStream out = new ByteArrayOutputStream(buffer.length);
+		
+		try {
+			
+			for (int len; (len = in.read(buffer)) > 0;) { out.write(buffer, 0, len); }
+		
+		} finally { in.close(); }
+		
+		return out.toByteArray();
+	}
+	
+	private static MessageDigest sha1() {
+		
+		try {
+			
+			return MessageDigest.getInstance("SHA-1");
+		
+		} catch (NoSuchAlgorithmException e) { throw new IllegalStateException(e); }
+	}
+	
+	
+	public File getFile() { return file; }
+	
+	/** @return The fingerprint stored with the last shrunk jar, or null. */
+	public String getFingerprint() { return fingerprint; }
+	public void setFingerprint(String fingerprint) { this.fingerprint = fingerprint; }
+	
+	/** @return How many classes the last {@link #buildDependencyMap} took from the cache. */
+	public int getReused() { return reused; }
+	
+	/** @return How many classes the last {@link #buildDependencyMap} had to analyze. */
+	public int getAnalyzed() { return analyzed; }
+	
+	
+	private static class Record {
+		
+		
+		final byte[] hash;
+		
+		String className;
+		String[] deps;
+		
+		
+		Record(byte[] hash, String className, String[] deps) {
+			
+			this.hash = hash;
+			this.className = className;
+			this.deps = deps;
+		}
+	}
+	
+}
@@ -0,0 +1,593 @@
+package visionCore.util;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Writes a directory into a zip or jar archive, deflating the entries on several threads at once. <br>
+ * The output only depends on the files' names and contents: entries are written in sorted order (after the manifest,
+ * for jars), every entry gets the same timestamp, and no extra fields are written, so the same input always gives the
+ * same bytes. Files that are already compressed, such as images, sounds and nested jars, are stored as they are, as is
+ * anything that deflating wouldn't make smaller. <br>
+ * Given the archive written the last time, entries whose contents haven't changed are copied from it as they are,
+ * instead of being compressed again. An entry only counts as unchanged if its old data decompresses to exactly the new
+ * contents; a matching CRC and size alone aren't trusted. <br>
+ * Archives with more than 65535 entries or larger than 4GB would need Zip64, which isn't written; those throw an
+ * IOException.
+ *
+ * @author Deconimus
+ */
+public class ArchiveWriter {
+	
+	
+	/** 1980-02-01 00:00:00 UTC, the earliest date that every zip tool reads the same way in every time zone. */
+	public static final long DEFAULT_TIME = 315532800000L + 31L * 86400000L;
+	
+	private static final String MANIFEST = "META-INF/MANIFEST.MF", MANIFEST_DIR = "META-INF/";
+	
+	private static final String[] DEFAULT_STORED = { "png", "jpg", "jpeg", "gif", "webp", "ogg", "mp3", "flac",
+													 "jar", "zip", "gz", "bz2", "xz", "7z", "ktx2" };
+	
+	
+	private int level, threads;
+	
+	private int dosTime, dosDate;
+	private long time;
+	
+	private Set<String> stored;
+	
+	private File reuse;
+	
+	
+	public ArchiveWriter() {
+		
+		this.level = Deflater.DEFAULT_COMPRESSION;
+		this.threads = Runtime.getRuntime().availableProcessors();
+		this.stored = new HashSet<String>(Arrays.asList(DEFAULT_STORED));
+		
+		setTime(DEFAULT_TIME);
+	}
+	
+	
+	/**
+	 * Writes every file and directory inside the given directory into a new archive, replacing any existing file.
+	 * @param dir	The directory whose contents become the archive's entries.
+	 * @param out	The archive to write.
+	 */
+	public void write(File dir, File out) throws IOException {
+		
+		write(dir, out, null);
+	}
+	
+	/**
+	 * Writes every file and directory inside the given directory into a new jar, replacing any existing file. <br>
+	 * The manifest, if it exists, is written first, as JarInputStream expects, and is not written again if it's inside
+	 * the directory.
+	 * @param dir		The directory whose contents become the archive's entries.
+	 * @param out		The archive to write.
+	 * @param manifest	The file to write as META-INF/MANIFEST.MF, or null.
+	 */
+	public void write(File dir, File out, File manifest) throws IOException {
+		
+		List<Entry> entries = new ArrayList<Entry>(256);
+		
+		collect(dir, dir.getAbsolutePath().length()+1, manifest, entries);
+		Collections.sort(entries);
+		
+		if (manifest != null && manifest.exists() && !manifest.isDirectory()) {
+			
+			for (int i = entries.size()-1; i >= 0; i--) {
+				
+				if (entries.get(i).name.equals(MANIFEST_DIR) || entries.get(i).name.equals(MANIFEST)) { entries.remove(i); }
+			}
+			
+			entries.add(0, new Entry(MANIFEST_DIR, null));
+			entries.add(1, new Entry(MANIFEST, manifest));
+		}
+		
+		if (entries.size() > 0xFFFF) { throw new IOException(entries.size()+" entries would need Zip64, which isn't supported."); }
+		
+		Map<String, Previous> previous = new HashMap<String, Previous>();
+		RandomAccessFile previousFile = null;
+		
+		if (reuse != null && reuse.isFile() && !reuse.getAbsoluteFile().equals(out.getAbsoluteFile())) {
+			
+			previousFile = new RandomAccessFile(reuse, "r");
+			
+			// an archive that can't be read is simply not reused.
+			try { readCentral(previousFile, previous); } catch (IOException e) { previous.clear(); }
+		}
+		
+		try {
+			
+			if (out.exists()) { out.delete(); }
+			
+			OutputStream os = new BufferedOutputStream(new FileOutputStream(out), 1 << 16);
+			
+			try {
+				
+				writeEntries(entries, os, previous, (previousFile == null) ? null : previousFile.getChannel());
+				
+			} finally { os.close(); }
+			
+		} finally { if (previousFile != null) { previousFile.close(); } }
+	}
+	
+	
+	private void writeEntries(List<Entry> entries, OutputStream os, final Map<String, Previous> previous, final FileChannel channel) throws IOException {
+		
+		byte[] header = new byte[46];
+		long offset = 0L;
+		
+		if (threads <= 1) {
+			
+			for (Entry entry : entries) {
+				
+				entry.compress(level, stored, previous.get(entry.name), channel);
+				offset += writeLocal(entry, offset, os, header);
+			}
+			
+		} else {
+			
+			ExecutorService pool = Executors.newFixedThreadPool(threads);
+			
+			try {
+				
+				// only a few entries per thread are compressed ahead of the writer, so memory use stays bounded.
+				ArrayDeque<Future<Entry>> pending = new ArrayDeque<Future<Entry>>();
+				int next = 0, window = threads * 4;
+				
+				while (next < entries.size() || !pending.isEmpty()) {
+					
+					while (next < entries.size() && pending.size() < window) {
+						
+						final Entry entry = entries.get(next++);
+						
+						pending.add(pool.submit(new Callable<Entry>() {
+							
+							public Entry call() throws IOException {
+								
+								entry.compress(level, stored, previous.get(entry.name), channel);
+								return entry;
+							}
+						}));
+					}
+					
+					offset += writeLocal(await(pending.poll()), offset, os, header);
+				}
+				
+			} finally { pool.shutdownNow(); }
+		}
+		
+		long start = offset;
+		
+		for (Entry entry : entries) {
+			
+			offset += writeCentral(entry, os, header);
+		}
+		
+		if (offset > 0xFFFFFFFFL) { throw new IOException("An archive this large would need Zip64, which isn't supported."); }
+		
+		putInt(header, 0, 0x06054b50);
+		putShort(header, 4, 0);
+		putShort(header, 6, 0);
+		putShort(header, 8, entries.size());
+		putShort(header, 10, entries.size());
+		putInt(header, 12, (int)(offset - start));
+		putInt(header, 16, (int)start);
+		putShort(header, 20, 0);
+		os.write(header, 0, 22);
+	}
+	
+	private static Entry await(Future<Entry> future) throws IOException {
+		
+		try {
+			
+			return future.get();
+			
+		} catch (InterruptedException e) {
+			
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while compressing entries.", e);
+			
+		} catch (ExecutionException e) {
+			
+			if (e.getCause() instanceof IOException) { throw (IOException)e.getCause(); }
+			throw new IOException(e.getCause());
+		}
+	}
+	
+	private int writeLocal(Entry entry, long offset, OutputStream os, byte[] header) throws IOException {
+		
+		if (offset + 30 + entry.nameBytes.length + entry.size > 0xFFFFFFFFL) {
+			
+			throw new IOException("An archive this large would need Zip64, which isn't supported.");
+		}
+		
+		entry.offset = offset;
+		
+		putInt(header, 0, 0x04034b50);
+		putShort(header, 4, 20);
+		putShort(header, 6, entry.flags());
+		putShort(header, 8, entry.method);
+		putShort(header, 10, dosTime);
+		putShort(header, 12, dosDate);
+		putInt(header, 14, entry.crc);
+		putInt(header, 18, entry.size);
+		putInt(header, 22, entry.rawSize);
+		putShort(header, 26, entry.nameBytes.length);
+		putShort(header, 28, 0);
+		os.write(header, 0, 30);
+		os.write(entry.nameBytes);
+		os.write(entry.data, 0, entry.size);
+		
+		int written = 30 + entry.nameBytes.length + entry.size;
+		
+		// the central directory only needs the sizes, so the contents can be let go.
+		entry.data = null;
+		
+		return written;
+	}
+	
+	private int writeCentral(Entry entry, OutputStream os, byte[] header) throws IOException {
+		
+		putInt(header, 0, 0x02014b50);
+		putShort(header, 4, 20);
+		putShort(header, 6, 20);
+		putShort(header, 8, entry.flags());
+		putShort(header, 10, entry.method);
+		putShort(header, 12, dosTime);
+		putShort(header, 14, dosDate);
+		putInt(header, 16, entry.crc);
+		putInt(header, 20, entry.size);
+		putInt(header, 24, entry.rawSize);
+		putShort(header, 28, entry.nameBytes.length);
+		putShort(header, 30, 0);
+		putShort(header, 32, 0);
+		putShort(header, 34, 0);
+		putShort(header, 36, 0);
+		putInt(header, 38, (entry.file == null) ? 0x10 : 0);
+		putInt(header, 42, (int)entry.offset);
+		os.write(header, 0, 46);
+		os.write(entry.nameBytes);
+		
+		return 46 + entry.nameBytes.length;
+	}
+	
+	
+	/**
+	 * Reads where each entry of an earlier archive is, and how it was compressed, from its central directory.
+	 */
+	private static void readCentral(RandomAccessFile file, Map<String, Previous> previous) throws IOException {
+		
+		long length = file.length();
+		int tail = (int)Math.min(length, 22 + 0xFFFF);
+		
+		byte[] b = new byte[tail];
+		file.seek(length - tail);
+		file.readFully(b);
+		
+		int eocd = -1;
+		
+		for (int i = tail - 22; i >= 0; i--) {
+			
+			if (getInt(b, i) == 0x06054b50) { eocd = i; break; }
+		}
+		
+		if (eocd < 0) { throw new IOException("No end of central directory."); }
+		
+		int count = getShort(b, eocd+10);
+		long size = getInt(b, eocd+12) & 0xFFFFFFFFL, start = getInt(b, eocd+16) & 0xFFFFFFFFL;
+		
+		if (start + size > length) { throw new IOException("Broken central directory."); }
+		
+		b = new byte[(int)size];
+		file.seek(start);
+		file.readFully(b);
+		
+		for (int i = 0, p = 0; i < count; i++) {
+			
+			if (getInt(b, p) != 0x02014b50) { throw new IOException("Broken central directory."); }
+			
+			int flags = getShort(b, p+8), method = getShort(b, p+10);
+			int nameLength = getShort(b, p+28), extra = getShort(b, p+30), comment = getShort(b, p+32);
+			
+			// entries with a data descriptor or anything but store and deflate are compressed again instead.
+			if ((flags & 0x08) == 0 && (method == 0 || method == 8)) {
+				
+				Previous prev = new Previous();
+				prev.method = method;
+				prev.crc = getInt(b, p+16);
+				prev.size = getInt(b, p+20);
+				prev.rawSize = getInt(b, p+24);
+				prev.offset = getInt(b, p+42) & 0xFFFFFFFFL;
+				
+				previous.put(new String(b, p+46, nameLength, (flags & 0x800) != 0 ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1), prev);
+			}
+			
+			p += 46 + nameLength + extra + comment;
+		}
+	}
+	
+	
+	private static void collect(File dir, int rootLength, File manifest, List<Entry> entries) {
+		
+		File[] files = dir.listFiles();
+		if (files == null) { return; }
+		
+		for (File f : files) {
+			
+			if (manifest != null && f.equals(manifest)) { continue; }
+			
+			String name = f.getAbsolutePath().substring(rootLength).replace('\\', '/');
+			
+			if (f.isDirectory()) {
+				
+				entries.add(new Entry(name+"/", null));
+				collect(f, rootLength, manifest, entries);
+				
+			} else { entries.add(new Entry(name, f)); }
+		}
+	}
+	
+	
+	private static int getShort(byte[] b, int i) { return (b[i] & 0xFF) | (b[i+1] & 0xFF) << 8; }
+	private static int getInt(byte[] b, int i) { return getShort(b, i) | getShort(b, i+2) << 16; }
+	
+	private static void putShort(byte[] b, int i, int v) {
+		
+		b[i] = (byte)v;
+		b[i+1] = (byte)(v >>> 8);
+	}
+	
+	private static void putInt(byte[] b, int i, int v) {
+		
+		b[i] = (byte)v;
+		b[i+1] = (byte)(v >>> 8);
+		b[i+2] = (byte)(v >>> 16);
+		b[i+3] = (byte)(v >>> 24);
+	}
+	
+	
+	public int getLevel() { return level; }
+	
+	/** @param level The level of compression from 1 (fastest) to 9 (best), 0 to store everything, or -1 for the default. */
+	public void setLevel(int level) { this.level = level; }
+	
+	public int getThreads() { return threads; }
+	
+	/** @param threads How many threads compress entries; 1 compresses them on the calling thread. */
+	public void setThreads(int threads) { this.threads = Math.max(threads, 1); }
+	
+	public long getTime() { return time; }
+	
+	/**
+	 * @param time The time every entry is given, in milliseconds since the epoch. It's converted to the zip format's
+	 * 				local date and time as if in UTC, so it doesn't depend on the time zone of the machine.
+	 */
+	public void setTime(long time) {
+		
+		Calendar cal = Calendar.getInstance(TimeZone.getTimeZone("UTC"), Locale.ROOT);
+		cal.setTimeInMillis(time);
+		
+		int year = Math.max(cal.get(Calendar.YEAR), 1980);
+		
+		this.time = time;
+		this.dosDate = ((year - 1980) << 9) | ((cal.get(Calendar.MONTH) + 1) << 5) | cal.get(Calendar.DAY_OF_MONTH);
+		this.dosTime = (cal.get(Calendar.HOUR_OF_DAY) << 11) | (cal.get(Calendar.MINUTE) << 5) | (cal.get(Calendar.SECOND) >> 1);
+	}
+	
+	public File getReuse() { return reuse; }
+	
+	/**
+	 * @param previous	An archive written earlier by an ArchiveWriter with the same settings, or null. Entries with the
+	 * 					same name and contents are copied from it rather than compressed again. The archive being
+	 * 					written can't be its own previous one.
+	 */
+	public void setReuse(File previous) { this.reuse = previous; }
+	
+	public Set<String> getStoredExtensions() { return stored; }
+	
+	/** @param extensions The file extensions, in lower case and without the dot, of files that are stored without compressing them. */
+	public void setStoredExtensions(String... extensions) { this.stored = new HashSet<String>(Arrays.asList(extensions)); }
+	
+	
+	private static class Entry implements Comparable<Entry> {
+		
+		
+		final String name;
+		final byte[] nameBytes;
+		final File file;
+		
+		byte[] data;
+		int size, rawSize, crc, method;
+		long offset;
+		
+		
+		Entry(String name, File file) {
+			
+			this.name = name;
+			this.nameBytes = name.getBytes(StandardCharsets.UTF_8);
+			this.file = file;
+		}
+		
+		
+		void compress(int level, Set<String> stored, Previous previous, FileChannel channel) throws IOException {
+			
+			if (file == null) {
+				
+				data = new byte[0];
+				return;
+			}
+			
+			byte[] raw = java.nio.file.Files.readAllBytes(file.toPath());
+			
+			CRC32 crc32 = new CRC32();
+			crc32.update(raw, 0, raw.length);
+			
+			crc = (int)crc32.getValue();
+			rawSize = raw.length;
+			data = raw;
+			size = raw.length;
+			
+			if (previous != null && previous.crc == crc && previous.rawSize == rawSize && previous.read(this, raw, channel)) { return; }
+			
+			int dot = name.lastIndexOf('.');
+			
+			if (level == 0 || raw.length == 0 || (dot > name.lastIndexOf('/') && stored.contains(name.substring(dot+1).toLowerCase(Locale.ROOT)))) { return; }
+			
+			Deflater deflater = new Deflater(level, true);
+			
+			try {
+				
+				deflater.setInput(raw);
+				deflater.finish();
+				
+				// anything that doesn't shrink is stored instead, so the buffer never needs to be larger than the input.
+				byte[] out = new byte[raw.length];
+				int len = 0;
+				
+				while (!deflater.finished() && len < out.length) {
+					
+					len += deflater.deflate(out, len, out.length - len);
+				}
+				
+				if (deflater.finished() && len < raw.length) {
+					
+					data = out;
+					size = len;
+					method = 8;
+				}
+				
+			} finally { deflater.end(); }
+		}
+		
+		int flags() {
+			
+			// bit 11 marks names that are UTF-8 rather than the old IBM code page.
+			return (nameBytes.length != name.length()) ? 0x800 : 0;
+		}
+		
+		public int compareTo(Entry o) { return name.compareTo(o.name); }
+	}
+	
+	
+	/**
+	 * Where an entry of an earlier archive is, and how it was compressed.
+	 */
+	private static class Previous {
+		
+		
+		int method, crc, size, rawSize;
+		long offset;
+		
+		
+		/**
+		 * Reads the entry's compressed data into the given entry, if the local header agrees with the central directory
+		 * and the data holds exactly raw. A matching CRC and size only make that likely, so the data is decompressed
+		 * and compared, which is still much faster than compressing raw again.
+		 */
+		boolean read(Entry entry, byte[] raw, FileChannel channel) throws IOException {
+			
+			ByteBuffer header = ByteBuffer.allocate(30);
+			readFully(channel, header, offset);
+			
+			byte[] h = header.array();
+			
+			if (getInt(h, 0) != 0x04034b50 || getShort(h, 8) != method) { return false; }
+			
+			ByteBuffer data = ByteBuffer.allocate(size);
+			readFully(channel, data, offset + 30 + getShort(h, 26) + getShort(h, 28));
+			
+			if (!holds(data.array(), raw)) { return false; }
+			
+			entry.data = data.array();
+			entry.size = size;
+			entry.method = method;
+			
+			return true;
+		}
+		
+		private boolean holds(byte[] data, byte[] raw) {
+			
+			if (method == 0) { return Arrays.equals(data, raw); }
+			
+			Inflater inflater = new Inflater(true);
+			
+			try {
+				
+				inflater.setInput(data);
+				
+				// one byte more than expected, so data that holds more than raw is caught.
+				byte[] out = new byte[raw.length + 1];
+				int len = 0;
+				boolean padded = false;
+				
+				while (!inflater.finished() && len < out.length) {
+					
+					int n = inflater.inflate(out, len, out.length - len);
+					len += n;
+					
+					if (n == 0) {
+						
+						// without the zlib wrapper, the inflater may need one extra byte of input to finish.
+						if (inflater.needsInput() && !padded) { inflater.setInput(new byte[1]); padded = true; }
+						else { break; }
+					}
+				}
+				
+				if (!inflater.finished() || len != raw.length) { return false; }
+				
+				for (int i = 0; i < len; i++) {
+					
+					if (out[i] != raw[i]) { return false; }
+				}
+				
+				return true;
+				
+			} catch (DataFormatException e) {
+				
+				return false;
+				
+			} finally { inflater.end(); }
+		}
+		
+		private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+			
+			while (buffer.hasRemaining()) {
+				
+				int len = channel.read(buffer, position + buffer.position());
+				if (len < 0) { throw new IOException("The previous archive ended early."); }
+			}
+		}
+	}
+	
+}
@@ -1,11 +1,7 @@
 package visionCore.util;
 
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
 import java.nio.charset.Charset;
-import java.util.List;
-import java.util.zip.ZipOutputStream;
 
 import visionCore.math.FastMath;
 
@@ -88,44 +84,13 @@ public class Jars {
 	
 	public static void create(File in, File out, File manifest) {
 		
-		if (out.exists()) { out.delete(); }
-		
-		ZipOutputStream zout = null;
-		
 		try {
 			
-			zout = new ZipOutputStream(new FileOutputStream(out));
-			
-			byte[] buffer = new byte[4096];
-			
-			if (manifest != null && manifest.exists() && !manifest.isDirectory()) {
-				
-				Zipper.addEntry(zout, "META-INF/MANIFEST.MF", manifest, buffer);
-			}
-			
-			addEntries(zout, in, in, manifest, buffer);
-			
-			zout.flush();
-			zout.close();
+			new ArchiveWriter().write(in, out, manifest);
 			
 		} catch (Exception e) { e.printStackTrace(); }
 		
 	}
 	
-	private static void addEntries(ZipOutputStream zout, File dir, File root, File manifest, byte[] buffer) throws IOException {
-		
-		for (File f : dir.listFiles()) {
-			
-			if (f == manifest || f.equals(manifest)) { continue; }
-			
-			Zipper.addEntry(zout, f, root, buffer);
-			
-			if (f.isDirectory()) {
-				
-				addEntries(zout, f, root, manifest, buffer);
-			}
-		}
-	}
-	
 	
 }
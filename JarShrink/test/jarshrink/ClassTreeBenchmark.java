@@ -0,0 +1,187 @@
+package jarshrink;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Times building the class-tree for a made-up jar of 100,000 classes in 2,000 packages with hundreds of keep rules, as
+ * with a library that uses reflection heavily, comparing the String-based algorithm ClassTreeBuilder used to have with
+ * {@link ClassGraph} and {@link PackageTrie}. It also checks that both find exactly the same classes, and estimates how
+ * much heap each one's structures keep. <br>
+ * This is a plain main() so it can be run without any test framework. The first argument, if present, is the number of
+ * keep rules (default 400).
+ * @author Deconimus
+ */
+public class ClassTreeBenchmark {
+	
+	
+	private static final int CLASSES = 100000, PACKAGES = 2000, DEPS = 8;
+	
+	
+	public static void main(String[] args) {
+		
+		int rules = (args.length > 0) ? Integer.parseInt(args[0]) : 400;
+		
+		Random random = new Random(1L);
+		Map<String, String[]> map = new HashMap<String, String[]>(CLASSES * 2);
+		String[] names = new String[CLASSES];
+		
+		for (int i = 0; i < CLASSES; i++) {
+			
+			int p = i % PACKAGES;
+			names[i] = "com.example.lib"+(p % 20)+".pkg"+p+".Type"+i;
+		}
+		
+		for (int i = 0; i < CLASSES; i++) {
+			
+			// mostly classes in the same package, sometimes a lower-numbered package of the same library or something outside.
+			String[] deps = new String[random.nextInt(DEPS * 2)];
+			int p = i % PACKAGES;
+			
+			for (int d = 0; d < deps.length; d++) {
+				
+				int r = random.nextInt(100);
+				int q = (r < 6 && p >= 20) ? p - 20 * (1 + random.nextInt(p / 20)) : p;
+				
+				deps[d] = (r >= 98) ? "org.external.Api"+random.nextInt(500) : names[q + PACKAGES * random.nextInt(CLASSES / PACKAGES)];
+			}
+			
+			map.put(names[i], deps);
+		}
+		
+		String[] keep = new String[rules];
+		
+		for (int k = 0; k < rules; k++) {
+			
+			int p = random.nextInt(PACKAGES * 4);
+			keep[k] = (p < PACKAGES) ? "com.example.lib"+(p % 20)+".pkg"+p+"." : "com.example.missing"+p;
+		}
+		
+		String main = names[12345];
+		
+		for (int round = 0; round < 5; round++) {
+			
+			long start = System.nanoTime();
+			Set<String> legacy = legacyClassTree(main, map, keep);
+			long legacyNanos = System.nanoTime() - start;
+			
+			start = System.nanoTime();
+			ClassGraph graph = new ClassGraph(map, main);
+			long buildNanos = System.nanoTime() - start;
+			
+			start = System.nanoTime();
+			Set<String> tree = ClassTreeBuilder.getClassTree(graph, main, keep, false, null);
+			long reachNanos = System.nanoTime() - start;
+			
+			if (!tree.equals(legacy) || !legacy.equals(tree)) { throw new IllegalStateException("The class-trees differ!"); }
+			
+			System.out.printf("%,d classes kept; Strings: %8.2f ms, ClassGraph: %8.2f ms to build + %8.2f ms to reach%n",
+							  tree.size(), legacyNanos / 1e6, buildNanos / 1e6, reachNanos / 1e6);
+		}
+		
+		// each structure is kept alive in 'hold' until the end, so later measurements can't see it freed.
+		Object[] hold = { map, null, null, null, null };
+		long base = usedHeap();
+		
+		Map<String, String[]> copy = new HashMap<String, String[]>(CLASSES * 2);
+		for (Map.Entry<String, String[]> e : map.entrySet()) { copy.put(e.getKey(), e.getValue().clone()); }
+		hold[1] = copy;
+		
+		long mapBytes = usedHeap() - base;
+		base = usedHeap();
+		
+		hold[2] = legacyClassTree(main, map, keep);
+		
+		long setBytes = usedHeap() - base;
+		base = usedHeap();
+		
+		ClassGraph graph = new ClassGraph(map, main);
+		hold[3] = graph;
+		
+		long graphBytes = usedHeap() - base;
+		
+		// too small to measure this way; it's one bit per class in the graph.
+		hold[4] = ClassTreeBuilder.getClassTree(graph, main, keep, false, null);
+		long bitsBytes = (graph.size() + 63) / 64 * 8;
+		
+		System.out.printf("%nHeap kept by the dependency-map's HashMap:  %,14d bytes (not counting the names)%n", mapBytes);
+		System.out.printf("Heap kept by the ClassGraph:                %,14d bytes (not counting the names)%n", graphBytes);
+		System.out.printf("Heap kept by the HashSet class-tree:        %,14d bytes%n", setBytes);
+		System.out.printf("Heap kept by the ClassSet class-tree:       %,14d bytes%n", bitsBytes);
+		
+		if (hold[1] == null || hold[2] == null || hold[3] == null || hold[4] == null) { System.out.println(); }
+	}
+	
+	private static long usedHeap() {
+		
+		Runtime runtime = Runtime.getRuntime();
+		
+		for (int i = 0; i < 4; i++) { System.gc(); }
+		
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+	
+	/** What ClassTreeBuilder.getClassTree() did before ClassGraph, without the printing. */
+	private static Set<String> legacyClassTree(String mainClass, Map<String, String[]> dependencyMap, String[] keep) {
+		
+		Set<String> classTree = new HashSet<String>();
+		List<String> newlyAdded = new ArrayList<String>();
+		
+		if (mainClass != null) {
+			
+			classTree.add(mainClass);
+			newlyAdded.add(mainClass);
+		}
+		
+		if (keep != null && keep.length > 0) {
+			
+			for (String cl : dependencyMap.keySet()) {
+				
+				for (String k : keep) {
+					
+					if (cl.startsWith(k)) {
+						
+						classTree.add(cl);
+						newlyAdded.add(cl);
+						
+						break;
+					}
+				}
+			}
+		}
+		
+		List<String> buffer = new ArrayList<String>();
+		
+		while (!newlyAdded.isEmpty()) {
+			
+			for (String cl : newlyAdded) {
+				
+				String[] deps = dependencyMap.get(cl);
+				if (deps == null) { continue; }
+				
+				for (String dep : deps) { buffer.add(dep); }
+			}
+			
+			newlyAdded.clear();
+			
+			for (String cl : buffer) {
+				
+				if (!classTree.contains(cl)) {
+					
+					classTree.add(cl);
+					newlyAdded.add(cl);
+				}
+			}
+			
+			buffer.clear();
+		}
+		
+		return classTree;
+	}
+	
+}
@@ -0,0 +1,118 @@
+package jarshrink;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import visionCore.util.Files;
+import visionCore.util.Jars;
+
+/**
+ * Times {@link MemberShrinker} on a fresh copy of some classes, several times, and reports how much it removed. <br>
+ * This is a plain main() so it can be run without any test framework. With no arguments it compiles JarShrink's own
+ * sources and shrinks them from jarshrink.Main; otherwise the arguments are a directory of classes or a jar, and the main
+ * class (a jar's Main-Class is used if it's left out).
+ * @author Deconimus
+ */
+public class MemberShrinkerBenchmark {
+	
+	
+	private static final int ROUNDS = 8;
+	
+	
+	public static void main(String[] args) throws Exception {
+		
+		File tmp = java.nio.file.Files.createTempDirectory("member-shrinker-bench").toFile();
+		
+		try {
+			
+			File classes = new File(tmp, "classes");
+			classes.mkdirs();
+			
+			String mainClass = (args.length > 1) ? args[1] : null;
+			
+			if (args.length == 0) {
+				
+				compileOwnSources(classes);
+				mainClass = "jarshrink.Main";
+			
+			} else if (args[0].endsWith(".jar")) {
+				
+				Jars.extract(new File(args[0]), classes);
+				if (mainClass == null) { mainClass = Jars.getMainClass(new File(args[0])); }
+			
+			} else { copy(new File(args[0]), classes); }
+			
+			for (int round = 0; round < ROUNDS; round++) {
+				
+				File work = new File(tmp, "round"+round);
+				copy(classes, work);
+				
+				long start = System.nanoTime();
+				MemberShrinker shrinker = new MemberShrinker(work);
+				long loadNanos = System.nanoTime() - start;
+				
+				start = System.nanoTime();
+				shrinker.analyze(mainClass, null);
+				long analyzeNanos = System.nanoTime() - start;
+				
+				start = System.nanoTime();
+				shrinker.rewrite();
+				long rewriteNanos = System.nanoTime() - start;
+				
+				System.out.printf("load %7.2f ms, analyze %7.2f ms, rewrite %7.2f ms; %,d methods and %,d fields removed, %,d -> %,d bytes%n",
+								  loadNanos / 1e6, analyzeNanos / 1e6, rewriteNanos / 1e6, shrinker.getRemovedMethods(),
+								  shrinker.getRemovedFields(), shrinker.getBytesBefore(), shrinker.getBytesAfter());
+				
+				Files.deleteDir(work);
+			}
+		
+		} finally { Files.deleteDir(tmp); }
+	}
+	
+	private static void compileOwnSources(File out) {
+		
+		JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+		if (javac == null) { throw new IllegalStateException("Compiling JarShrink's sources needs a JDK."); }
+		
+		List<String> options = new ArrayList<String>(Arrays.asList("-encoding", "UTF-8", "-nowarn", "-d", out.getAbsolutePath()));
+		collectSources(new File("src"), options);
+		
+		if (options.size() <= 6) { throw new IllegalStateException("Run this from JarShrink's directory, or pass a jar."); }
+		if (javac.run(null, null, null, options.toArray(new String[options.size()])) != 0) { throw new IllegalStateException("Compiling failed."); }
+	}
+	
+	private static void collectSources(File dir, List<String> sources) {
+		
+		File[] files = dir.listFiles();
+		if (files == null) { return; }
+		
+		for (File f : files) {
+			
+			if (f.isDirectory()) { collectSources(f, sources); }
+			else if (f.getName().endsWith(".java")) { sources.add(f.getAbsolutePath()); }
+		}
+	}
+	
+	private static void copy(File from, File to) throws IOException {
+		
+		to.mkdirs();
+		
+		File[] files = from.listFiles();
+		if (files == null) { return; }
+		
+		for (File f : files) {
+			
+			File t = new File(to, f.getName());
+			
+			if (f.isDirectory()) { copy(f, t); }
+			else { java.nio.file.Files.copy(f.toPath(), t.toPath()); }
+		}
+	}
+	
+}
@@ -0,0 +1,249 @@
+package jarshrink;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import visionCore.util.ArchiveWriter;
+import visionCore.util.Files;
+
+/**
+ * Compiles a small application that uses virtual and interface calls, default methods, lambdas and method references,
+ * enums with constant bodies, nested classes, Comparable and toString() called from the standard library, and
+ * serialization, then shrinks its members with {@link MemberShrinker}, runs both jars and checks that they print the
+ * same thing. It also checks that the members nothing uses were removed and that those used in less obvious ways
+ * were kept. This is done once for Java 8 bytecode and once for the running JDK's own. <br>
+ * This is a plain main() so it can be run without any test framework; it needs a JDK, and throws at the first problem.
+ * @author Deconimus
+ */
+public class MemberShrinkerTest {
+	
+	
+	private static final String[][] SOURCES = {
+		{ "lib/Library.java",
+			"package lib;\n"
+			+ "public class Library {\n"
+			+ "    private int unusedCounter;\n"
+			+ "    public static int twice(int x) { return x * 2; }\n"
+			+ "    public static int thrice(int x) { return x * 3; }\n"
+			+ "    public static String big(int n) { StringBuilder sb = new StringBuilder(); for (int i = 0; i < n; i++) sb.append(i); return sb.toString(); }\n"
+			+ "}\n" },
+		{ "lib/Shape.java",
+			"package lib;\n"
+			+ "public abstract class Shape {\n"
+			+ "    public abstract double area();\n"
+			+ "    public String describe() { return getClass().getSimpleName() + \" of area \" + area(); }\n"
+			+ "    public String unusedHelper() { return \"never\"; }\n"
+			+ "}\n" },
+		{ "lib/Circle.java",
+			"package lib;\n"
+			+ "public class Circle extends Shape {\n"
+			+ "    private final double r;\n"
+			+ "    public Circle(double r) { this.r = r; }\n"
+			+ "    public double area() { return 3.0 * r * r; }\n"
+			+ "}\n" },
+		{ "lib/Triangle.java",
+			"package lib;\n"
+			+ "public class Triangle extends Shape {\n"
+			+ "    public double area() { return 0.5; }\n"
+			+ "}\n" },
+		{ "lib/Greeter.java",
+			"package lib;\n"
+			+ "public interface Greeter {\n"
+			+ "    String greet(String name);\n"
+			+ "    default String greetAll(String... names) { StringBuilder sb = new StringBuilder(); for (String n : names) sb.append(greet(n)).append(';'); return sb.toString(); }\n"
+			+ "    default String unusedDefault() { return \"never\"; }\n"
+			+ "}\n" },
+		{ "lib/Op.java",
+			"package lib;\n"
+			+ "public enum Op {\n"
+			+ "    PLUS { public int apply(int a, int b) { return a + b; } },\n"
+			+ "    TIMES { public int apply(int a, int b) { return a * b; } };\n"
+			+ "    public abstract int apply(int a, int b);\n"
+			+ "}\n" },
+		{ "app/Animal.java",
+			"package app;\n"
+			+ "public interface Animal { String speak(); }\n" },
+		{ "app/Dog.java",
+			"package app;\n"
+			+ "public class Dog implements Animal { public String speak() { return \"Woof\"; } }\n" },
+		{ "app/Cat.java",
+			"package app;\n"
+			+ "public class Cat implements Animal { public String speak() { return \"Meow\"; } }\n" },
+		{ "app/Point.java",
+			"package app;\n"
+			+ "public class Point implements Comparable<Point> {\n"
+			+ "    final int x, y;\n"
+			+ "    Point(int x, int y) { this.x = x; this.y = y; }\n"
+			+ "    public int compareTo(Point o) { return Integer.compare(x * x + y * y, o.x * o.x + o.y * o.y); }\n"
+			+ "    public String toString() { return \"(\" + x + \",\" + y + \")\"; }\n"
+			+ "    public int unusedDistance() { return Math.abs(x) + Math.abs(y); }\n"
+			+ "}\n" },
+		{ "app/Settings.java",
+			"package app;\n"
+			+ "public class Settings implements java.io.Serializable {\n"
+			+ "    private static final long serialVersionUID = 42L;\n"
+			+ "    int volume = 7;\n"
+			+ "    transient int cache;\n"
+			+ "    private void writeObject(java.io.ObjectOutputStream out) throws java.io.IOException { out.defaultWriteObject(); }\n"
+			+ "}\n" },
+		{ "app/Main.java",
+			"package app;\n"
+			+ "import java.util.*;\n"
+			+ "import java.util.function.*;\n"
+			+ "import lib.*;\n"
+			+ "public class Main {\n"
+			+ "    private int secret = 5;\n"
+			+ "    private int hidden() { return secret * 2; }\n"
+			+ "    class Inner { int peek() { return hidden(); } }\n"
+			+ "    public static void main(String[] args) throws Exception {\n"
+			+ "        Shape s = new Circle(2.0);\n"
+			+ "        System.out.println(s.describe());\n"
+			+ "        Animal a = new Dog();\n"
+			+ "        System.out.println(a.speak());\n"
+			+ "        Greeter g = n -> \"Hi \" + n;\n"
+			+ "        System.out.println(g.greetAll(\"Ann\", \"Bo\"));\n"
+			+ "        Function<Integer, Integer> f = Library::twice;\n"
+			+ "        System.out.println(f.apply(21));\n"
+			+ "        for (Op op : Op.values()) {\n"
+			+ "            switch (op) { case PLUS: System.out.print(\"plus \"); break; default: System.out.print(\"other \"); }\n"
+			+ "            System.out.println(op.apply(3, 4) + \" \" + Op.valueOf(op.name()));\n"
+			+ "        }\n"
+			+ "        List<Point> points = new ArrayList<>(Arrays.asList(new Point(3, 4), new Point(1, 1), new Point(0, 2)));\n"
+			+ "        Collections.sort(points);\n"
+			+ "        System.out.println(points);\n"
+			+ "        points.forEach(System.out::println);\n"
+			+ "        System.out.println(new Main().new Inner().peek());\n"
+			+ "        java.io.ByteArrayOutputStream bytes = new java.io.ByteArrayOutputStream();\n"
+			+ "        new java.io.ObjectOutputStream(bytes).writeObject(new Settings());\n"
+			+ "        Settings back = (Settings) new java.io.ObjectInputStream(new java.io.ByteArrayInputStream(bytes.toByteArray())).readObject();\n"
+			+ "        System.out.println(\"volume \" + back.volume);\n"
+			+ "        System.out.println(Library.big(args.length + 5));\n"
+			+ "    }\n"
+			+ "}\n" },
+	};
+	
+	private static final String[] REMOVED = { "lib/Library.thrice(I)I", "lib/Shape.unusedHelper()Ljava/lang/String;",
+											  "lib/Triangle.area()D", "lib/Triangle.<init>()V", "lib/Greeter.unusedDefault()Ljava/lang/String;",
+											  "app/Cat.speak()Ljava/lang/String;", "app/Point.unusedDistance()I" };
+	
+	private static final String[] KEPT = { "lib/Library.twice(I)I", "lib/Shape.area()D", "lib/Circle.area()D",
+										   "lib/Greeter.greetAll([Ljava/lang/String;)Ljava/lang/String;", "lib/Op.values()[Llib/Op;",
+										   "app/Point.compareTo(Lapp/Point;)I", "app/Point.toString()Ljava/lang/String;",
+										   "app/Dog.speak()Ljava/lang/String;", "app/Settings.writeObject(Ljava/io/ObjectOutputStream;)V",
+										   "app/Main.hidden()I" };
+	
+	
+	public static void main(String[] args) throws Exception {
+		
+		File tmp = java.nio.file.Files.createTempDirectory("member-shrinker-test").toFile();
+		
+		try {
+			
+			run(tmp, "8");
+			run(tmp, null);
+		
+		} finally { Files.deleteDir(tmp); }
+	}
+	
+	private static void run(File tmp, String release) throws Exception {
+		
+		String label = (release == null) ? "current" : release;
+		File src = new File(tmp, "src-"+label), full = new File(tmp, "full-"+label), shrunk = new File(tmp, "shrunk-"+label);
+		
+		List<String> options = new ArrayList<String>();
+		if (release != null) { options.addAll(Arrays.asList("--release", release)); }
+		options.addAll(Arrays.asList("-d", full.getAbsolutePath()));
+		
+		for (String[] source : SOURCES) {
+			
+			File f = new File(src, source[0]);
+			f.getParentFile().mkdirs();
+			java.nio.file.Files.write(f.toPath(), source[1].getBytes(StandardCharsets.UTF_8));
+			options.add(f.getAbsolutePath());
+		}
+		
+		full.mkdirs();
+		
+		JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+		if (javac == null) { throw new IllegalStateException("This test needs a JDK."); }
+		if (javac.run(null, null, null, options.toArray(new String[options.size()])) != 0) { throw new IllegalStateException("Compiling failed."); }
+		
+		File manifest = new File(tmp, "MANIFEST.MF");
+		java.nio.file.Files.write(manifest.toPath(), "Manifest-Version: 1.0\r\nMain-Class: app.Main\r\n\r\n".getBytes(StandardCharsets.UTF_8));
+		
+		java.nio.file.Files.walk(full.toPath()).forEach(p -> {
+			
+			try {
+				
+				java.nio.file.Path q = shrunk.toPath().resolve(full.toPath().relativize(p));
+				if (p.toFile().isDirectory()) { q.toFile().mkdirs(); }
+				else { java.nio.file.Files.copy(p, q); }
+			
+			} catch (IOException e) { throw new RuntimeException(e); }
+		});
+		
+		MemberShrinker shrinker = new MemberShrinker(shrunk);
+		shrinker.shrink("app.Main", null);
+		
+		for (String m : REMOVED) { if (shrinker.isReached(m)) { throw new IllegalStateException(m+" should have been removed."); } }
+		for (String m : KEPT) { if (!shrinker.isReached(m)) { throw new IllegalStateException(m+" should have been kept."); } }
+		
+		// read the rewritten classes back, which also checks that they still parse.
+		for (String m : REMOVED) { if (declares(shrunk, m)) { throw new IllegalStateException(m+" is still in its class file."); } }
+		
+		File fullJar = new File(tmp, "full-"+label+".jar"), shrunkJar = new File(tmp, "shrunk-"+label+".jar");
+		new ArchiveWriter().write(full, fullJar, manifest);
+		new ArchiveWriter().write(shrunk, shrunkJar, manifest);
+		
+		String expected = runJar(fullJar), actual = runJar(shrunkJar);
+		
+		if (!expected.equals(actual)) {
+			
+			throw new IllegalStateException("The shrunk application printed:\n"+actual+"\ninstead of:\n"+expected);
+		}
+		
+		System.out.println("Java "+label+": the shrunk application matched; "+shrinker.getRemovedMethods()+" methods and "
+						   +shrinker.getRemovedFields()+" fields removed, "+fullJar.length()+" -> "+shrunkJar.length()+" bytes.");
+	}
+	
+	private static boolean declares(File dir, String method) throws IOException {
+		
+		int dot = method.indexOf('.');
+		File f = new File(dir, method.substring(0, dot)+".class");
+		
+		for (ClassFile.Member m : new ClassFile(java.nio.file.Files.readAllBytes(f.toPath())).methods) {
+			
+			if ((m.name+m.desc).equals(method.substring(dot+1))) { return true; }
+		}
+		
+		return false;
+	}
+	
+	private static String runJar(File jar) throws IOException, InterruptedException {
+		
+		String java = System.getProperty("java.home")+File.separator+"bin"+File.separator+"java";
+		Process p = new ProcessBuilder(java, "-Xshare:auto", "-jar", jar.getAbsolutePath()).redirectErrorStream(true).start();
+		
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		InputStream in = p.getInputStream();
+		byte[] buffer = new byte[4096];
+		
+		for (int len; (len = in.read(buffer)) > 0;) { out.write(buffer, 0, len); }
+		
+		String text = new String(out.toByteArray(), StandardCharsets.UTF_8);
+		
+		if (p.waitFor() != 0) { throw new IllegalStateException(jar.getName()+" failed:\n"+text); }
+		
+		return text;
+	}
+	
+}
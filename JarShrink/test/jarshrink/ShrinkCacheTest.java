@@ -0,0 +1,246 @@
+package jarshrink;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import visionCore.util.ArchiveWriter;
+import visionCore.util.Files;
+
+/**
+ * Checks that shrinking a jar with a {@link ShrinkCache} gives exactly the jar that shrinking it without one does. <br>
+ * Two versions of a small application are compiled, where the second changes two classes so that one library class
+ * is no longer needed and another one is. The first version is shrunk to fill the cache, then the second is shrunk with
+ * the cache, again with nothing changed, and once more with an empty cache; all three jars have to be byte-identical,
+ * hold the right classes, and the cache has to have analyzed only the changed classes. The second version is also
+ * shrunk without any cache, which runs jdeps on the whole jar and writes it with {@link visionCore.util.Jars}; that jar
+ * has to hold exactly the same files with the same contents. <br>
+ * This is a plain main() so it can be run without any test framework; it needs a JDK, and throws at the first problem.
+ * @author Deconimus
+ */
+public class ShrinkCacheTest {
+	
+	
+	private static final String MAIN_V1 = "package app; public class Main { public static void main(String[] a) { System.out.println(lib.A.run()); } }";
+	private static final String MAIN_V2 = "package app; public class Main { public static void main(String[] a) { System.out.println(lib.A.run() + lib.C.go()); } }";
+	
+	private static final String A_V1 = "package lib; public class A { public static String run() { return \"A\" + B.help(); } }";
+	private static final String A_V2 = "package lib; public class A { public static String run() { return \"A alone\"; } }";
+	
+	private static final String[][] LIBRARY = {
+		{ "lib/B.java", "package lib; public class B { static String help() { return \"B\"; } }" },
+		{ "lib/C.java", "package lib; public class C { public static String go() { return \" C\" + new D().name(); } }" },
+		{ "lib/D.java", "package lib; public class D { String name() { return \"D\"; } }" },
+		{ "lib/E.java", "package lib; public class E { public static int unused() { return 1; } }" },
+	};
+	
+	private static final String[] EXPECTED = { "META-INF/", "META-INF/MANIFEST.MF", "app/", "app/Main.class", "data/", "data/info.txt",
+											   "lib/", "lib/A.class", "lib/C.class", "lib/D.class" };
+	
+	
+	public static void main(String[] args) throws Exception {
+		
+		File tmp = java.nio.file.Files.createTempDirectory("shrink-cache-test").toFile();
+		
+		try {
+			
+			File in1 = build(tmp, "v1", MAIN_V1, A_V1), in2 = build(tmp, "v2", MAIN_V2, A_V2);
+			int classes = LIBRARY.length + 2, changed = countChanged(new File(tmp, "v1"), new File(tmp, "v2"));
+			
+			// the cache on its own: after the first jar, only the changed classes of the second are analyzed.
+			File cacheFile = new File(tmp, "direct.cache");
+			
+			ShrinkCache cache = new ShrinkCache(cacheFile);
+			cache.buildDependencyMap("jdeps", in1);
+			check(cache.getAnalyzed() == classes && cache.getReused() == 0, "The first run analyzed "+cache.getAnalyzed()+" classes.");
+			cache.save();
+			
+			cache = new ShrinkCache(cacheFile);
+			Map<String, String[]> cached = cache.buildDependencyMap("jdeps", in2);
+			check(cache.getAnalyzed() == changed && cache.getReused() == classes - changed,
+				  "The second run analyzed "+cache.getAnalyzed()+" classes instead of "+changed+".");
+			
+			Map<String, String[]> cold = new ShrinkCache(new File(tmp, "missing.cache")).buildDependencyMap("jdeps", in2);
+			check(cached.keySet().equals(cold.keySet()), "The cached dependency-map has other classes.");
+			for (String cl : cold.keySet()) { check(Arrays.equals(cached.get(cl), cold.get(cl)), "The dependencies of "+cl+" differ."); }
+			
+			// the whole shrinker: cached runs have to give the same bytes as a cold one.
+			File cacheDir = new File(tmp, "cache"), coldDir = new File(tmp, "cold-cache");
+			
+			String log = shrink(in1, new File(tmp, "out1.jar"), cacheDir, tmp);
+			check(log.contains("Reused the dependencies of 0 classes, "+classes+" are new"), "The first run printed:\n"+log);
+			
+			log = shrink(in2, new File(tmp, "out2.jar"), cacheDir, tmp);
+			check(log.contains((classes - changed)+" classes, "+changed+" are new"), "The second run printed:\n"+log);
+			
+			log = shrink(in2, new File(tmp, "out3.jar"), cacheDir, tmp);
+			check(log.contains("Nothing changed"), "The third run printed:\n"+log);
+			
+			shrink(in2, new File(tmp, "cold.jar"), coldDir, tmp);
+			
+			byte[] expected = java.nio.file.Files.readAllBytes(new File(tmp, "cold.jar").toPath());
+			
+			for (String name : new String[] { "out2.jar", "out3.jar" }) {
+				
+				check(Arrays.equals(expected, java.nio.file.Files.readAllBytes(new File(tmp, name).toPath())), name+" differs from the cold run.");
+			}
+			
+			check(entries(new File(tmp, "cold.jar")).equals(new TreeSet<String>(Arrays.asList(EXPECTED))),
+				  "The shrunk jar holds "+entries(new File(tmp, "cold.jar")));
+			
+			// without a cache the jar is written another way, so only its files and their contents can be compared.
+			shrink(in2, new File(tmp, "uncached.jar"), null, tmp);
+			
+			Map<String, String> uncached = contents(new File(tmp, "uncached.jar")), cachedContents = contents(new File(tmp, "out2.jar"));
+			check(uncached.equals(cachedContents), "Shrinking without a cache kept "+uncached.keySet()+" instead of "+cachedContents.keySet());
+			
+			System.out.println("Cached and cold runs gave the same "+expected.length+" byte jar, with the same "+uncached.size()
+							   +" files as a run without a cache; "+changed+" of "+classes+" classes were analyzed again.");
+		
+		} finally { Files.deleteDir(tmp); }
+	}
+	
+	
+	/** @return What the shrinker printed. */
+	private static String shrink(File in, File out, File cacheDir, File tmp) {
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		PrintStream err = System.err;
+		
+		JarShrinker shrinker = new JarShrinker(tmp, "jdeps");
+		shrinker.setCacheDir(cacheDir);
+		shrinker.setPrintStatus(true);
+		shrinker.setPrintStream(new PrintStream(bytes));
+		
+		// exceptions are printed rather than thrown, so they're caught here too.
+		System.setErr(new PrintStream(bytes));
+		
+		try { shrinker.shrink(in, out); } finally { System.setErr(err); }
+		
+		String log = new String(bytes.toByteArray());
+		
+		check(out.isFile() && !log.contains("Exception"), "Shrinking "+in.getPath()+" failed:\n"+log);
+		
+		return log;
+	}
+	
+	private static File build(File tmp, String version, String main, String a) throws IOException {
+		
+		File src = new File(tmp, version+"-src"), classes = new File(tmp, version);
+		List<String> options = new ArrayList<String>(Arrays.asList("-d", classes.getAbsolutePath()));
+		
+		List<String[]> sources = new ArrayList<String[]>(Arrays.asList(LIBRARY));
+		sources.add(new String[] { "app/Main.java", main });
+		sources.add(new String[] { "lib/A.java", a });
+		
+		for (String[] source : sources) {
+			
+			File f = new File(src, source[0]);
+			f.getParentFile().mkdirs();
+			java.nio.file.Files.write(f.toPath(), source[1].getBytes(StandardCharsets.UTF_8));
+			options.add(f.getAbsolutePath());
+		}
+		
+		classes.mkdirs();
+		
+		JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+		if (javac == null) { throw new IllegalStateException("This test needs a JDK."); }
+		check(javac.run(null, null, null, options.toArray(new String[options.size()])) == 0, "Compiling "+version+" failed.");
+		
+		File info = new File(classes, "data/info.txt");
+		info.getParentFile().mkdirs();
+		java.nio.file.Files.write(info.toPath(), "Some resource that is always kept.".getBytes(StandardCharsets.UTF_8));
+		
+		File manifest = new File(classes, "META-INF/MANIFEST.MF");
+		manifest.getParentFile().mkdirs();
+		java.nio.file.Files.write(manifest.toPath(), "Manifest-Version: 1.0\r\nMain-Class: app.Main\r\n\r\n".getBytes(StandardCharsets.UTF_8));
+		
+		// both versions have the same name, as the cache is kept per jar name.
+		File jar = new File(tmp, version+"-jar"+File.separator+"app.jar");
+		jar.getParentFile().mkdirs();
+		new ArchiveWriter().write(classes, jar, manifest);
+		
+		return jar;
+	}
+	
+	private static int countChanged(File v1, File v2) throws IOException {
+		
+		int changed = 0;
+		
+		for (String cl : new String[] { "app/Main", "lib/A", "lib/B", "lib/C", "lib/D", "lib/E" }) {
+			
+			byte[] a = java.nio.file.Files.readAllBytes(new File(v1, cl+".class").toPath());
+			byte[] b = java.nio.file.Files.readAllBytes(new File(v2, cl+".class").toPath());
+			
+			if (!Arrays.equals(a, b)) { changed++; }
+		}
+		
+		return changed;
+	}
+	
+	private static Set<String> entries(File jar) throws IOException {
+		
+		Set<String> names = new TreeSet<String>();
+		ZipFile zf = new ZipFile(jar);
+		
+		try {
+			
+			for (Enumeration<? extends ZipEntry> it = zf.entries(); it.hasMoreElements();) { names.add(it.nextElement().getName()); }
+		
+		} finally { zf.close(); }
+		
+		return names;
+	}
+	
+	/** @return Every file in the jar, by name, with its contents as hex. */
+	private static Map<String, String> contents(File jar) throws IOException {
+		
+		Map<String, String> files = new TreeMap<String, String>();
+		ZipFile zf = new ZipFile(jar);
+		
+		try {
+			
+			for (Enumeration<? extends ZipEntry> it = zf.entries(); it.hasMoreElements();) {
+				ZipEntry ze = it.nextElement();
+				
+				if (ze.isDirectory()) { continue; }
+				
+				InputStream in = zf.getInputStream(ze);
+				StringBuilder sb = new StringBuilder();
+				
+				try {
+					
+					for (int b; (b = in.read()) >= 0;) { sb.append(Character.forDigit(b >> 4, 16)).append(Character.forDigit(b & 15, 16)); }
+				
+				} finally { in.close(); }
+				
+				files.put(ze.getName(), sb.toString());
+			}
+		
+		} finally { zf.close(); }
+		
+		return files;
+	}
+	
+	private static void check(boolean condition, String message) {
+		
+		if (!condition) { throw new IllegalStateException(message); }
+	}
+	
+}
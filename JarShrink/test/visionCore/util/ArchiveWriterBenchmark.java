@@ -0,0 +1,151 @@
+package visionCore.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Times writing a large jar the way Jars.create() used to, one entry at a time through a ZipOutputStream, against
+ * {@link ArchiveWriter} on one thread and on every available thread, and on one thread again reusing the archive it
+ * just wrote, which is what a shrink with nothing changed but a few classes comes down to. <br>
+ * This is a plain main() so it can be run without any test framework. The first argument, if present, is a jar to
+ * extract and re-zip, such as a fat jar full of assets; otherwise a jar of about 230MB is made up, with a mix of
+ * class-like files that compress well and image-like files that don't.
+ *
+ * @author Deconimus
+ */
+public class ArchiveWriterBenchmark {
+	
+	
+	public static void main(String[] args) throws IOException {
+		
+		File tmp = java.nio.file.Files.createTempDirectory("archive-writer-bench").toFile();
+		
+		try {
+			
+			File dir = new File(tmp, "unpacked");
+			
+			if (args.length > 0) {
+				
+				Zipper.unzip(new File(args[0]), dir);
+				
+			} else { generate(dir); }
+			
+			int threads = Runtime.getRuntime().availableProcessors();
+			File out = new File(tmp, "out.jar"), previous = new File(tmp, "previous.jar");
+			
+			for (int round = 0; round < 3; round++) {
+				
+				long start = System.nanoTime();
+				writeSerially(dir, out);
+				report("ZipOutputStream", start, out);
+				
+				ArchiveWriter writer = new ArchiveWriter();
+				writer.setThreads(1);
+				
+				start = System.nanoTime();
+				writer.write(dir, out, new File(dir, "META-INF/MANIFEST.MF"));
+				report("ArchiveWriter, 1 thread", start, out);
+				
+				java.nio.file.Files.copy(out.toPath(), previous.toPath(), java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+				writer.setReuse(previous);
+				
+				start = System.nanoTime();
+				writer.write(dir, out, new File(dir, "META-INF/MANIFEST.MF"));
+				report("ArchiveWriter, reusing", start, out);
+				
+				writer.setReuse(null);
+				writer.setThreads(threads);
+				
+				start = System.nanoTime();
+				writer.write(dir, out, new File(dir, "META-INF/MANIFEST.MF"));
+				report("ArchiveWriter, "+threads+((threads == 1) ? " thread" : " threads"), start, out);
+				
+				System.out.println();
+			}
+			
+		} finally { Files.deleteDir(tmp); }
+	}
+	
+	private static void report(String name, long start, File out) {
+		
+		System.out.printf("%-28s %8.1f ms, %,14d bytes%n", name, (System.nanoTime() - start) / 1e6, out.length());
+	}
+	
+	/** What Jars.create() did before it used ArchiveWriter. */
+	private static void writeSerially(File dir, File out) throws IOException {
+		
+		if (out.exists()) { out.delete(); }
+		
+		ZipOutputStream zout = new ZipOutputStream(new FileOutputStream(out));
+		byte[] buffer = new byte[4096];
+		
+		try {
+			
+			addEntries(zout, dir, dir, buffer);
+			
+		} finally { zout.close(); }
+	}
+	
+	private static void addEntries(ZipOutputStream zout, File dir, File root, byte[] buffer) throws IOException {
+		
+		for (File f : dir.listFiles()) {
+			
+			Zipper.addEntry(zout, f, root, buffer);
+			
+			if (f.isDirectory()) { addEntries(zout, f, root, buffer); }
+		}
+	}
+	
+	private static void generate(File dir) throws IOException {
+		
+		Random random = new Random(1L);
+		StringBuilder sb = new StringBuilder();
+		
+		new File(dir, "META-INF").mkdirs();
+		java.nio.file.Files.write(new File(dir, "META-INF/MANIFEST.MF").toPath(),
+								  "Manifest-Version: 1.0\r\nMain-Class: game.Main\r\n\r\n".getBytes(StandardCharsets.UTF_8));
+			
+		for (int p = 0; p < 40; p++) {
+			
+			File pkg = new File(dir, "game/package"+p);
+			pkg.mkdirs();
+			
+			for (int c = 0; c < 60; c++) {
+				
+				sb.setLength(0);
+				int lines = 200 + random.nextInt(2000);
+				
+				for (int i = 0; i < lines; i++) {
+					
+					sb.append("invokevirtual game/package").append(random.nextInt(40)).append("/Type").append(random.nextInt(60))
+					  .append(".method").append(random.nextInt(12)).append(":(I)V ").append(random.nextInt(1000)).append('\n');
+				}
+				
+				java.nio.file.Files.write(new File(pkg, "Type"+c+".class").toPath(), sb.toString().getBytes(StandardCharsets.UTF_8));
+			}
+		}
+		
+		File assets = new File(dir, "assets");
+		assets.mkdirs();
+		
+		for (int a = 0; a < 300; a++) {
+			
+			byte[] data = new byte[100000 + random.nextInt(300000)];
+			random.nextBytes(data);
+			
+			java.nio.file.Files.write(new File(assets, "sprite"+a+((a % 3 == 0) ? ".ogg" : ".png")).toPath(), data);
+		}
+		
+		List<File> files = Files.getFilesRecursive(dir);
+		long total = 0L;
+		for (File f : files) { total += f.length(); }
+		
+		System.out.printf("Generated %d files, %,d bytes in all.%n%n", files.size(), total);
+	}
+	
+}
@@ -0,0 +1,308 @@
+package visionCore.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.InvalidPathException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Random;
+import java.util.jar.JarInputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Checks that {@link ArchiveWriter} gives byte-for-byte the same archive for the same contents, no matter how many
+ * threads compress it, what order the files were created in, or when they were last modified, and that the archive
+ * reads back with the right contents through ZipFile and JarInputStream. It also checks that reusing an earlier archive
+ * gives the same bytes as compressing everything again, even for files changed to other contents with the same size and
+ * CRC32 as before. Names the platform can't use as file names,
+ * such as the non-ASCII one under a C or POSIX locale, are skipped. <br>
+ * This is a plain main() so it can be run without any test framework; it throws at the first problem.
+ *
+ * @author Deconimus
+ */
+public class ArchiveWriterTest {
+	
+	
+	private static final String[] NAMES = { "META-INF/MANIFEST.MF", "a/Main.class", "a/b/Helper.class", "a/b/Helper$1.class",
+											"a-b/readme.txt", "assets/tiles.png", "assets/theme.ogg", "assets/empty.txt",
+											"assets/caf\u00E9.json", "lib/inner.jar", "z.txt" };
+		
+	
+	public static void main(String[] args) throws IOException {
+		
+		File tmp = java.nio.file.Files.createTempDirectory("archive-writer-test").toFile();
+		
+		try {
+			
+			String[] names = usableNames(tmp);
+			
+			File first = new File(tmp, "first"), second = new File(tmp, "second");
+			
+			// the same files, created in opposite orders, with different modification times.
+			for (int i = 0; i < names.length; i++) { create(first, names[i], 1000000000000L + i * 1000L); }
+			for (int i = names.length-1; i >= 0; i--) { create(second, names[i], 1500000000000L - i * 7777L); }
+			
+			File manifest = new File(first, "META-INF/MANIFEST.MF");
+			
+			byte[] expected = null;
+			
+			for (int threads : new int[] { 1, 2, 3, 8 }) {
+				
+				for (File dir : new File[] { first, second }) {
+					
+					File out = new File(tmp, "out-"+threads+"-"+dir.getName()+".jar");
+					
+					ArchiveWriter writer = new ArchiveWriter();
+					writer.setThreads(threads);
+					writer.write(dir, out, new File(dir, "META-INF/MANIFEST.MF"));
+					
+					byte[] bytes = java.nio.file.Files.readAllBytes(out.toPath());
+					
+					if (expected == null) {
+						
+						expected = bytes;
+						verify(out, first, manifest, names.length);
+						
+					} else if (!Arrays.equals(expected, bytes)) {
+						
+						throw new IllegalStateException(out.getName()+" differs from the first archive written.");
+					}
+				}
+			}
+			
+			System.out.println("All archives were identical, "+expected.length+" bytes each, and read back correctly.");
+			
+			// after one file changes, reusing the last archive must give the same bytes as compressing everything again.
+			java.nio.file.Files.write(new File(second, "a/b/Helper.class").toPath(), new byte[5000]);
+			
+			File cold = new File(tmp, "cold.jar"), reused = new File(tmp, "reused.jar");
+			new ArchiveWriter().write(second, cold, new File(second, "META-INF/MANIFEST.MF"));
+			
+			ArchiveWriter writer = new ArchiveWriter();
+			writer.setReuse(new File(tmp, "out-1-first.jar"));
+			writer.write(second, reused, new File(second, "META-INF/MANIFEST.MF"));
+			
+			if (!Arrays.equals(java.nio.file.Files.readAllBytes(cold.toPath()), java.nio.file.Files.readAllBytes(reused.toPath()))) {
+				
+				throw new IllegalStateException("Reusing an earlier archive gave different bytes.");
+			}
+			
+			verify(reused, second, manifest, names.length);
+			
+			System.out.println("Reusing an earlier archive after a change gave the same "+reused.length()+" bytes.");
+			
+			// a compressed and a stored file get new contents with the same size and CRC32; neither may be copied.
+			for (String name : new String[] { "z.txt", "assets/tiles.png" }) {
+				
+				File f = new File(second, name);
+				byte[] old = java.nio.file.Files.readAllBytes(f.toPath()), forged = old.clone();
+				
+				for (int i = 0; i < 64; i++) { forged[i] = (byte)('#' + i % 16); }
+				forceCrc(forged, crc(old));
+				
+				if (Arrays.equals(old, forged) || crc(old) != crc(forged)) { throw new IllegalStateException("Couldn't forge "+name); }
+				
+				java.nio.file.Files.write(f.toPath(), forged);
+			}
+			
+			File forgedCold = new File(tmp, "forged-cold.jar"), forgedReused = new File(tmp, "forged-reused.jar");
+			new ArchiveWriter().write(second, forgedCold, new File(second, "META-INF/MANIFEST.MF"));
+			
+			writer = new ArchiveWriter();
+			writer.setReuse(reused);
+			writer.write(second, forgedReused, new File(second, "META-INF/MANIFEST.MF"));
+			
+			if (!Arrays.equals(java.nio.file.Files.readAllBytes(forgedCold.toPath()), java.nio.file.Files.readAllBytes(forgedReused.toPath()))) {
+				
+				throw new IllegalStateException("Files with the same CRC32 and size were copied from the earlier archive.");
+			}
+			
+			verify(forgedReused, second, manifest, names.length);
+			
+			System.out.println("Files changed without changing their CRC32 or size were compressed again.");
+			
+		} finally { Files.deleteDir(tmp); }
+	}
+	
+	private static String[] usableNames(File dir) {
+		
+		List<String> names = new ArrayList<String>(NAMES.length);
+		
+		for (String name : NAMES) {
+			
+			try {
+				
+				new File(dir, name).toPath();
+				names.add(name);
+				
+			} catch (InvalidPathException e) {
+				
+				System.out.println("Skipping "+name.replaceAll("[^\\x20-\\x7E]", "?")+", since the file system encoding can't represent it.");
+			}
+		}
+		
+		return names.toArray(new String[names.size()]);
+	}
+	
+	private static void create(File root, String name, long time) throws IOException {
+		
+		File f = new File(root, name);
+		f.getParentFile().mkdirs();
+		
+		byte[] data;
+		
+		if (name.endsWith(".MF")) {
+			
+			data = "Manifest-Version: 1.0\r\nMain-Class: a.Main\r\n\r\n".getBytes(StandardCharsets.UTF_8);
+			
+		} else if (name.endsWith("empty.txt")) {
+			
+			data = new byte[0];
+			
+		} else if (name.endsWith(".png") || name.endsWith(".ogg") || name.endsWith(".jar")) {
+			
+			data = new byte[40000 + name.length()];
+			new Random(name.hashCode()).nextBytes(data);
+			
+		} else {
+			
+			StringBuilder sb = new StringBuilder();
+			for (int i = 0; i < 2000; i++) { sb.append(name).append(" line ").append(i % 37).append('\n'); }
+			data = sb.toString().getBytes(StandardCharsets.UTF_8);
+		}
+		
+		java.nio.file.Files.write(f.toPath(), data);
+		f.setLastModified(time);
+	}
+	
+	private static int crc(byte[] data) {
+		
+		CRC32 crc = new CRC32();
+		crc.update(data, 0, data.length);
+		
+		return (int)crc.getValue();
+	}
+	
+	/**
+	 * Flips bits in the last four bytes of data so its CRC32 becomes target. A CRC is linear over GF(2), so each of
+	 * those 32 bits changes the CRC by a fixed pattern, and the right set of bits to flip is found by elimination.
+	 */
+	private static void forceCrc(byte[] data, int target) {
+		
+		int n = data.length, base = crc(data);
+		int[] vectors = new int[32], masks = new int[32];
+		
+		for (int b = 0; b < 32; b++) {
+			
+			data[n - 4 + (b >> 3)] ^= 1 << (b & 7);
+			int v = crc(data) ^ base, m = 1 << b;
+			data[n - 4 + (b >> 3)] ^= 1 << (b & 7);
+			
+			for (int bit = 31; bit >= 0 && v != 0; bit--) {
+				
+				if ((v >>> bit & 1) == 0) { continue; }
+				if (vectors[bit] == 0) { vectors[bit] = v; masks[bit] = m; break; }
+				
+				v ^= vectors[bit];
+				m ^= masks[bit];
+			}
+		}
+		
+		int diff = base ^ target, flips = 0;
+		
+		for (int bit = 31; bit >= 0; bit--) {
+			
+			if ((diff >>> bit & 1) == 0) { continue; }
+			
+			diff ^= vectors[bit];
+			flips ^= masks[bit];
+		}
+		
+		for (int b = 0; b < 32; b++) {
+			
+			if ((flips >>> b & 1) != 0) { data[n - 4 + (b >> 3)] ^= 1 << (b & 7); }
+		}
+	}
+	
+	private static void verify(File jar, File source, File manifest, int expectedFiles) throws IOException {
+		
+		JarInputStream jin = new JarInputStream(new FileInputStream(jar));
+		
+		try {
+			
+			if (jin.getManifest() == null || !"a.Main".equals(jin.getManifest().getMainAttributes().getValue("Main-Class"))) {
+				
+				throw new IllegalStateException("JarInputStream didn't find the manifest.");
+			}
+			
+		} finally { jin.close(); }
+		
+		ZipFile zf = new ZipFile(jar, StandardCharsets.UTF_8);
+		
+		try {
+			
+			String last = null;
+			int files = 0;
+			long time = -1L;
+			
+			for (Enumeration<? extends ZipEntry> it = zf.entries(); it.hasMoreElements();) {
+				ZipEntry ze = it.nextElement();
+				
+				if (time == -1L) { time = ze.getTime(); }
+				if (ze.getTime() != time) { throw new IllegalStateException(ze.getName()+" has a different time."); }
+				
+				if (last != null && !last.startsWith("META-INF/") && last.compareTo(ze.getName()) >= 0) {
+					
+					throw new IllegalStateException(ze.getName()+" is out of order after "+last);
+				}
+				last = ze.getName();
+				
+				if (ze.isDirectory()) { continue; }
+				
+				files++;
+				
+				String name = ze.getName();
+				boolean stored = name.endsWith(".png") || name.endsWith(".ogg") || name.endsWith(".jar") || name.endsWith("empty.txt");
+				
+				if ((ze.getMethod() == ZipEntry.STORED) != stored) {
+					
+					throw new IllegalStateException(name+" was "+((stored) ? "compressed" : "stored")+" when it shouldn't be.");
+				}
+				
+				File f = name.equals("META-INF/MANIFEST.MF") ? manifest : new File(source, name);
+				
+				if (!Arrays.equals(java.nio.file.Files.readAllBytes(f.toPath()), read(zf.getInputStream(ze)))) {
+					
+					throw new IllegalStateException(name+" didn't read back the same.");
+				}
+			}
+			
+			if (files != expectedFiles) { throw new IllegalStateException("Expected "+expectedFiles+" files, found "+files); }
+			
+		} finally { zf.close(); }
+	}
+	
+	private static byte[] read(InputStream in) throws IOException {
+		
+		ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+		byte[] buffer = new byte[8192];
+		
+		for (int len; (len = in.read(buffer)) > 0;) {
+			
+			out.write(buffer, 0, len);
+		}
+		
+		in.close();
+		
+		return out.toByteArray();
+	}
+	
+}
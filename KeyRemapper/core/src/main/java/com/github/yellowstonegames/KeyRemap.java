@@ -59,6 +59,12 @@ public class KeyRemap extends ApplicationAdapter {
     /** The pixel height of a cell */
     private static final int cellHeight = 17;
     private SquidInput input, mappingStore;
+    /**
+     * If true, everything given to input is logged and saved to keyremap.replay on exit, so a session can be replayed
+     * from the same mapping; see InputLog. The desktop launcher sets this when the "record" environment variable is set.
+     */
+    public boolean recordInput = false;
+    private InputRecorder recorder;
     private IntIntMap reverseMapping;
     private Arrangement<Integer> keyToIndex, shiftKeyToIndex;
     private Color bgColor;
@@ -577,7 +583,13 @@ public class KeyRemap extends ApplicationAdapter {
         }));
         //IMPORTANT so mistakes in previous mappings don't prevent the correct keys from being entered
         input.clearMapping();
-        Gdx.input.setInputProcessor(new InputMultiplexer(stage, input));
+        if (recordInput) {
+            // there's no RNG here, so the log starts with a hash of the mapping this started from instead of a seed.
+            recorder = new InputRecorder(input, mappingStore.keyMappingToString().hashCode(), 30);
+            Gdx.input.setInputProcessor(new InputMultiplexer(stage, recorder));
+        } else {
+            Gdx.input.setInputProcessor(new InputMultiplexer(stage, input));
+        }
         stage.addActor(display);
 
 
@@ -794,6 +806,16 @@ public class KeyRemap extends ApplicationAdapter {
         stage.getViewport().apply(false);
         // stage has its own batch and must be explicitly told to draw().
         stage.draw();
+        if (recorder != null)
+            recorder.endTick(recorder.isChecksumTick() ? checksum() : 0L);
+    }
+
+    /**
+     * Mixes together the state a replay has to get the same: the selected key, the modifier toggles, and every mapping.
+     */
+    public long checksum() {
+        long hash = InputLog.mix(selectedIndex, (shifted ? 1 : 0) | (ctrled ? 2 : 0) | (alted ? 4 : 0));
+        return InputLog.mix(hash, mappingStore.keyMappingToString().hashCode());
     }
 
     @Override
@@ -813,6 +835,17 @@ public class KeyRemap extends ApplicationAdapter {
                 0, 0);
         stage.getViewport().update(width, height, false);
     }
+
+    /**
+     * Saves the input log from this session, if {@link #recordInput} is true and local files can be written here, so it
+     * can be replayed later.
+     */
+    @Override
+    public void dispose() {
+        if (recorder != null && Gdx.files.isLocalStorageAvailable())
+            Gdx.files.local("keyremap.replay").writeBytes(recorder.finish().toBytes(), false);
+        super.dispose();
+    }
 }
 // An explanation of hexadecimal float/double literals was mentioned earlier, so here it is.
 // The literal 0x1p-9f is a good example; it is essentially the same as writing 0.001953125f,
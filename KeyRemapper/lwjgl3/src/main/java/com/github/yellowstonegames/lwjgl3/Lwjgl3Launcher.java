@@ -11,7 +11,10 @@ public class Lwjgl3Launcher {
 	}
 
 	private static Lwjgl3Application createApplication() {
-		return new Lwjgl3Application(new KeyRemap(), getDefaultConfiguration());
+		KeyRemap app = new KeyRemap();
+		// run with the environment variable "record" set to save this session's input to keyremap.replay.
+		app.recordInput = System.getenv("record") != null;
+		return new Lwjgl3Application(app, getDefaultConfiguration());
 	}
 
 	private static Lwjgl3ApplicationConfiguration getDefaultConfiguration() {
@@ -0,0 +1,168 @@
+package com.squidpony.demo;
+
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.utils.Disposable;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Evaluates the same 3D "cosmic" field that {@link NorthernLights} draws, but a whole row at a time instead of one
+ * pixel at a time, and writes RGBA8888 pixels straight into a Pixmap's buffer instead of calling setColor() and
+ * drawPixel() for each one.
+ * <br>
+ * Each row keeps its three connections in float arrays, and each of the three cosmic passes is one straight loop over
+ * the row with no calls into other objects, so the JIT can unroll it and keep everything in registers. Rows are split
+ * into bands and handed to a pool of threads, one per core, each with its own scratch arrays; since every pixel only
+ * depends on its own position, the result is exactly the same as NorthernLights' per-pixel cosmic() calls no matter how
+ * many threads are used.
+ */
+public class CosmicField implements Disposable {
+    public final int seed;
+    private final int threads;
+    private final ExecutorService pool;
+    private float[][] scratch;
+
+    /**
+     * @param seed the same seed NorthernLights uses
+     * @param threads how many threads to split rows across; 1 does everything on the calling thread
+     */
+    public CosmicField(int seed, int threads) {
+        this.seed = seed;
+        this.threads = Math.max(1, threads);
+        scratch = new float[this.threads * 3][0];
+        if (this.threads > 1) {
+            pool = Executors.newFixedThreadPool(this.threads, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "CosmicField");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        } else {
+            pool = null;
+        }
+    }
+
+    /**
+     * Uses one thread per available processor.
+     * @param seed the same seed NorthernLights uses
+     */
+    public CosmicField(int seed) {
+        this(seed, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Fills an RGBA8888 Pixmap with one frame of the field. Pixel x,y of the Pixmap uses {@code x * xScale} and
+     * {@code y * yScale}, or {@code (height - 1 - y) * yScale} if flipY is true (for a field shown with y going up).
+     * @param pixmap an RGBA8888 Pixmap to overwrite entirely
+     * @param ftm the time offset for this frame
+     * @param xScale how much each pixel to the right changes the field's x
+     * @param yScale how much each pixel down (or up, if flipY) changes the field's y
+     * @param flipY if true, the bottom row of the Pixmap is y=0
+     */
+    public void render(Pixmap pixmap, float ftm, float xScale, float yScale, boolean flipY) {
+        render(pixmap.getPixels(), pixmap.getWidth(), pixmap.getHeight(), ftm, xScale, yScale, flipY);
+    }
+
+    /**
+     * Like {@link #render(Pixmap, float, float, float, boolean)}, but fills any ByteBuffer with width * height * 4
+     * bytes of RGBA8888 data, top row first; this doesn't need a GL context or native code.
+     */
+    public void render(final ByteBuffer pixels, final int width, final int height, final float ftm,
+                       final float xScale, final float yScale, final boolean flipY) {
+        if (scratch[0].length < width) {
+            for (int i = 0; i < scratch.length; i++) {
+                scratch[i] = new float[width];
+            }
+        }
+        if (pool == null || height < threads * 2) {
+            renderRows(pixels, 0, 0, height, width, height, ftm, xScale, yScale, flipY);
+            return;
+        }
+        final Future<?>[] bands = new Future<?>[threads];
+        for (int t = 0; t < threads; t++) {
+            final int band = t, start = height * t / threads, end = height * (t + 1) / threads;
+            bands[t] = pool.submit(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    renderRows(pixels, band, start, end, width, height, ftm, xScale, yScale, flipY);
+                    return null;
+                }
+            });
+        }
+        try {
+            for (Future<?> f : bands) {
+                f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while rendering the field", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not render the field", e.getCause());
+        }
+    }
+
+    private void renderRows(ByteBuffer pixels, int band, int start, int end, int width, int height, float ftm,
+                            float xScale, float yScale, boolean flipY) {
+        // each band gets its own view of the buffer, so no thread moves another's position or changes its order.
+        final ByteBuffer out = pixels.duplicate().order(ByteOrder.BIG_ENDIAN);
+        final float[] c0 = scratch[band * 3], c1 = scratch[band * 3 + 1], c2 = scratch[band * 3 + 2];
+        for (int row = start; row < end; row++) {
+            final float ay = (flipY ? height - 1 - row : row) * yScale;
+            evaluateRow(ftm, ay, xScale, width, c0, c1, c2);
+            for (int x = 0, i = row * width << 2; x < width; x++, i += 4) {
+                out.putInt(i, rgba(NorthernLights.swayTight(c0[x]), NorthernLights.swayTight(c1[x]),
+                        NorthernLights.swayTight(c2[x])));
+            }
+        }
+    }
+
+    /**
+     * Computes the three connections for every pixel in one row, leaving them in c0, c1, and c2.
+     */
+    public void evaluateRow(float ftm, float ay, float xScale, int width, float[] c0, float[] c1, float[] c2) {
+        final float fy = ftm + ay;
+        for (int x = 0; x < width; x++) {
+            final float ax = x * xScale;
+            c0[x] = fy;
+            c1[x] = ftm + ax;
+            c2[x] = ax + ay;
+        }
+        pass(seed ^ 0xC13FA9A9, c0, c1, c2, c1, c2, c0, width);
+        pass(seed ^ 0xDB4F0B91, c0, c1, c2, c2, c0, c1, width);
+        pass(seed ^ 0x19F1D48E, c0, c1, c2, c0, c1, c2, width);
+    }
+
+    /**
+     * One cosmic pass over a row; cx, cy, and cz are c0, c1, and c2 in some order, matching the index arguments to
+     * NorthernLights' cosmic(int, float[], int, int, int). Each element is updated in the same order as the per-pixel
+     * version, so results match it exactly.
+     */
+    private static void pass(int seed, float[] c0, float[] c1, float[] c2, float[] cx, float[] cy, float[] cz,
+                             int width) {
+        final int s1 = seed ^ 0x7F4A7C15, s2 = seed ^ 0x9E3779B9;
+        for (int i = 0; i < width; i++) {
+            c0[i] += NorthernLights.swayRandomized(seed, cx[i] + cz[i]);
+            c1[i] += NorthernLights.swayRandomized(s1, cy[i] + cx[i]);
+            c2[i] += NorthernLights.swayRandomized(s2, cz[i] + cy[i]);
+        }
+    }
+
+    private static int rgba(float r, float g, float b) {
+        return (int) (r * 255) << 24 | (int) (g * 255) << 16 | (int) (b * 255) << 8 | 255;
+    }
+
+    @Override
+    public void dispose() {
+        if (pool != null)
+            pool.shutdownNow();
+    }
+}
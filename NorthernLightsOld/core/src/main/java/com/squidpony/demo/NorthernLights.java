@@ -29,6 +29,9 @@ public class NorthernLights extends ApplicationAdapter {
     private AnimatedPNG animatedPNG;
     private PNG8 iapng;
     private AnimatedGif animatedGif;
+    private CosmicField field;
+    private Pixmap screen;
+    private Texture screenTexture;
     @Override
     public void create() {
         super.create();
@@ -62,6 +65,7 @@ public class NorthernLights extends ApplicationAdapter {
 //                0x6B1873FF, 0xD631DEFF, 0xE773D6FF, 0xA52973FF, 0xE7298CFF, 0xCF1562FF, 0x845A6BFF, 0xD66B7BFF
 //        });
         frames = new Array<>(true, 120, Pixmap.class);
+        field = new CosmicField(seed);
         iw = 1f / width;
         ih = 1f / height;
 //        width = Gdx.graphics.getWidth();
@@ -72,24 +76,7 @@ public class NorthernLights extends ApplicationAdapter {
             final int tm = i << 4;
             final float rt = tm * RATE,
                     ftm = rt * 0x5p-13f;
-
-            for (int x = 0; x < width; x++) {
-                for (int y = 0; y < height; y++) {
-                    final float ax = x * iw, ay = y * ih; // adjusted for starting dimensions
-                    con[0] = ftm + ay;
-                    con[1] = ftm + ax;
-                    con[2] = ax + ay;
-                    cosmic(seed ^ 0xC13FA9A9, con, 1, 2, 0);
-                    cosmic(seed ^ 0xDB4F0B91, con, 2, 0, 1);
-                    cosmic(seed ^ 0x19F1D48E, con, 0, 1, 2);
-                    frame.setColor(swayTight(con[0]), swayTight(con[1]), swayTight(con[2]), 1f);
-                    frame.drawPixel(x, y
-//                            255 - Math.min(255, (int)(260 * Math.sqrt(((x - 128) * (x - 128) + (y - 128) * (y - 128)) * 0x1p-14)))
-////use as the alpha to get a circle that fades at the edges
-//                            1f - Math.min(1f, (int)(1.02f * Math.sqrt(((x - 128) * (x - 128) + (y - 128) * (y - 128)) * 0x1p-14)))
-                    );
-                }
-            }
+            field.render(frame, ftm, iw, ih, false);
             frames.add(frame);
         }
         animatedPNG.write(Gdx.files.local("animated" + TimeUtils.millis() + ".png"), frames, 20);
@@ -168,7 +155,8 @@ public class NorthernLights extends ApplicationAdapter {
         con[2] += (swayRandomized(seed ^ 0x9E3779B9, z + y));
     }
 
-    private void cosmic(int seed, float[] con, int x, int y, int z)
+    // package-visible so CosmicFieldTest can check CosmicField against the per-pixel path this demo used to draw with
+    static void cosmic(int seed, float[] con, int x, int y, int z)
     {
         con[0] += swayRandomized(seed, con[x] + con[z]);
         con[1] += swayRandomized(seed ^ 0x7F4A7C15, con[y] + con[x]);
@@ -212,90 +200,37 @@ public class NorthernLights extends ApplicationAdapter {
 //        final float r1 = rt * 0x4.e6e9p-13f;//swayRandomized(0x81234567, rt * 0x4.e6e9p-13f);
 //        final float r2 = rt * 0x5.09fcp-13f;//swayRandomized(0x78123456, rt * 0x5.09fcp-13f);
 
-        batch.begin();
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-				float ax = x * 0.0075f, ay = y * 0.005f; // adjusted for starting dimensions
-				con[0] = ftm + ay;
-				con[1] = ftm + ax;
-				con[2] = ax + ay;
-				
-                //conn0 = swayRandomized(-1052792407, yt - 1.11f) * ax + swayRandomized(-1640531527, xt - 3.11f) * ay + swayRandomized(924071052, -2.4375f - xy) * ftm;
-				//conn1 = swayRandomized(-615576687, yt + 2.41f) * ax + swayRandomized(776648142, 1.41f - xt) * ay + swayRandomized(-566875093, xy + 1.5625f) * ftm;
-				//conn2 = swayRandomized(435278990, 3.61f - yt) * ax + swayRandomized(-509935190, xt + 2.61f) * ay + swayRandomized(-284277664, xy + -3.8125f) * ftm;
-                //conn0 = cosmic(conn0, conn1, conn2);
-                //conn1 = cosmic(conn0, conn1, conn2);
-                //conn2 = cosmic(conn0, conn1, conn2);
-                
-                //2D
-//                cosmic(seed ^ 0xDB4F0B91, con, 0, 1);
-//                cosmic(~seed, con, 1, 0);
-//                cosmic(seed, con);
-                
-                //cosmic(seed ^ 0x19F1D48E, con, 0, 1, 2);
-
-//                //3D
-                cosmic(seed ^ 0xC13FA9A9, con, 1, 2, 0);
-                cosmic(seed ^ 0xDB4F0B91, con, 2, 0, 1);
-                cosmic(seed ^ 0x19F1D48E, con, 0, 1, 2);
-
-//                cosmic(seed ^ 0xC13FA9A9, con, con[1], con[2], con[0]);
-//                cosmic(seed ^ 0xDB4F0B91, con, con[2], con[0], con[1]);
-//                cosmic(seed ^ 0x19F1D48E, con, con[0], con[1], con[2]);
-                
-//                zone  = cosmic(conn0, conn1, conn2);
-//                conn0 = /*r0*/ + x * c0 - y * s0;
-//                conn1 = /*r1*/ - x * c1 + y * s1;
-//                conn2 = /*r2*/ + x * c2 + y * s2;
-//
-//                zone = 0f;//cosmic(x * 0x1p-7f, y * 0x1p-7f, ftm);
-//                conn0 = cosmic(conn0, conn1, conn2) + zone;
-//                conn1 = cosmic(conn0, conn1, conn2) + zone;
-//                conn2 = cosmic(conn0, conn1, conn2) + zone;
-//                int bright = (int)((swayRandomized(seed ^ 0xDB4F0B91, (con[0]) * 2) * 85.25f
-//                        + swayRandomized(seed ^ 0xBBE05633, (con[1]) * 3) * 85.25f
-//                        + swayRandomized(seed ^ 0xA0F2EC75, (con[2]) * 5) * 85.25f));
-//                batch.setColor(bright, bright, bright);
-                //0xDB4F0B9175AE2165L, 0xBBE0563303A4615FL, 0xA0F2EC75A1FE1575L
-                //batch.setColor(swayTight((((con[0]) * 0.2f)
-                //                + ((con[1]) * 0.3f) 
-                //                + ((con[2]) * 0.5f) )),
-                //        swayTight((((con[1]) * 0.2f)
-                //                + ((con[2]) * 0.3f) 
-                //                + ((con[0]) * 0.5f) )),
-                //        swayTight((((con[2]) * 0.2f)
-                //                + ((con[0]) * 0.3f) 
-                //                + ((con[1]) * 0.5f) )));
-                
-//                batch.setColor((int)((swayRandomized(seed ^ 0xDB4F0B91, (con[0]) * 2) * 85.25f
-//                                + swayRandomized(seed ^ 0xBBE05633, (con[1]) * 3) * 85.25f
-//                                + swayRandomized(seed ^ 0xA0F2EC75, (con[2]) * 5) * 85.25f)),
-//                        (int)((swayRandomized(seed ^ 0x0B9175AE, (con[1]) * 2) * 85.25f
-//                                + swayRandomized(seed ^ 0x563303A4, (con[2]) * 3) * 85.25f
-//                                + swayRandomized(seed ^ 0xEC75A1FE, (con[0]) * 5) * 85.25f)),
-//                        (int)((swayRandomized(seed ^ 0x75AE2165, (con[2]) * 2) * 85.25f
-//                                + swayRandomized(seed ^ 0x03A4615F, (con[0]) * 3) * 85.25f
-//                                + swayRandomized(seed ^ 0xA1FE1575, (con[1]) * 5) * 85.25f)));
-//                final int bright = swayTight(con[0] + con[1] + con[2]);
-//                batch.setColor(bright, bright, bright);
-                batch.setColor(swayTight(con[0]), swayTight(con[1]), swayTight(con[2]), 1f);
-//                batch.setColor((int)(con[0] * 127.99 + 128), (int)(con[1] * 127.99 + 128), (int)(con[2] * 127.99 + 128));
-//                batch.setColor(lerpFloatColors(
-//                        floatGet(swayTight(conn0), swayTight(conn1), swayTight(conn2))
-//                        , floatGetHSV(swayTight(conn2), 1f, 1f), swayTight(0.5f - conn1))
-//            );
-
-//                conn0 = swayTight(conn0 + conn1 + conn2);
-//                conn0 = swayTight(cosmic(conn0, conn1, conn2));
-//                conn0 = swayTight(conn2 + zone);
-//                batch.setColor(conn0, conn0, conn0, 1f);
-                batch.draw(tiny, x, y);
+        // the field used to be computed and drawn one pixel at a time here; see cosmic(int, float[], int, int, int).
+        if (screen == null || screen.getWidth() != width || screen.getHeight() != height) {
+            if (screen != null) {
+                screen.dispose();
+                screenTexture.dispose();
             }
+            screen = new Pixmap(width, height, Pixmap.Format.RGBA8888);
+            screenTexture = new Texture(screen);
         }
+        field.render(screen, ftm, 0.0075f, 0.005f, true);
+        screenTexture.draw(screen, 0, 0);
+        batch.begin();
+        batch.draw(screenTexture, 0, 0);
         batch.end();
     }
 
 
+    @Override
+    public void dispose() {
+        field.dispose();
+        if (screen != null) {
+            screen.dispose();
+            screenTexture.dispose();
+        }
+        for (Pixmap frame : frames) {
+            frame.dispose();
+        }
+        tiny.dispose();
+        batch.dispose();
+    }
+
     public static float floatGetHSV(float hue, float saturation, float value) {
         if (saturation <= 0.0039f) {
             return floatGet(value, value, value);
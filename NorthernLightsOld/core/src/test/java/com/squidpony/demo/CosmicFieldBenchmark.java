@@ -0,0 +1,65 @@
+package com.squidpony.demo;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Measures frames per second for the "cosmic" field at 512x512 and 1920x1080, computed three ways: one pixel at a
+ * time (the original CPU path, {@link CosmicFieldTest#originalPixel(int, float, float, float)}, minus the Pixmap
+ * calls), a row at a time on one thread, and a row at a time split across every core. It also reports how long the 50 recorded 256x256 frames that {@link NorthernLights#create()} makes would
+ * take each way.
+ * <br>
+ * This is a plain main() so it can be run without any test framework or graphics.
+ */
+public class CosmicFieldBenchmark {
+    public static void main(String[] args) {
+        final int seed = 0x1234ABCD;
+        CosmicField single = new CosmicField(seed, 1), parallel = new CosmicField(seed);
+        System.out.println("Using " + Runtime.getRuntime().availableProcessors() + " threads for the parallel field.");
+        for (int[] size : new int[][]{{256, 256}, {512, 512}, {1920, 1080}}) {
+            final int width = size[0], height = size[1];
+            final ByteBuffer pixels = ByteBuffer.allocateDirect(width * height * 4);
+            final int frames = Math.max(3, 2_000_000 / (width * height) * 4);
+            long sink = 0;
+            // warm up every path before timing it
+            sink += perPixel(seed, pixels, width, height, 0f, frames / 3 + 1);
+            single.render(pixels, width, height, 0f, 0.0075f, 0.005f, true);
+            parallel.render(pixels, width, height, 0f, 0.0075f, 0.005f, true);
+
+            long start = System.nanoTime();
+            sink += perPixel(seed, pixels, width, height, 0.5f, frames);
+            final double perPixelFps = frames / ((System.nanoTime() - start) * 1E-9);
+            start = System.nanoTime();
+            for (int f = 0; f < frames; f++) {
+                single.render(pixels, width, height, f * 0.01f, 0.0075f, 0.005f, true);
+            }
+            final double rowFps = frames / ((System.nanoTime() - start) * 1E-9);
+            start = System.nanoTime();
+            for (int f = 0; f < frames; f++) {
+                parallel.render(pixels, width, height, f * 0.01f, 0.0075f, 0.005f, true);
+            }
+            final double parallelFps = frames / ((System.nanoTime() - start) * 1E-9);
+            sink += pixels.get(0);
+            System.out.printf("%4dx%-4d per-pixel %8.2f FPS, rows %8.2f FPS, parallel rows %8.2f FPS; " +
+                            "50 frames would take %7.2f s, %7.2f s, %7.2f s  [%d]%n",
+                    width, height, perPixelFps, rowFps, parallelFps,
+                    50 / perPixelFps, 50 / rowFps, 50 / parallelFps, sink & 1);
+        }
+        single.dispose();
+        parallel.dispose();
+    }
+
+    private static long perPixel(int seed, ByteBuffer pixels, int width, int height, float ftm, int frames) {
+        long sink = 0;
+        for (int f = 0; f < frames; f++) {
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    final int c = CosmicFieldTest.originalPixel(seed, ftm + f * 0.01f, x * 0.0075f,
+                            (height - 1 - y) * 0.005f);
+                    pixels.putInt((y * width + x) << 2, c);
+                    sink += c;
+                }
+            }
+        }
+        return sink;
+    }
+}
@@ -0,0 +1,61 @@
+package com.squidpony.demo;
+
+import com.badlogic.gdx.graphics.Color;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Checks that {@link CosmicField}'s row-at-a-time, multithreaded rendering gives exactly the same pixels as the
+ * original per-pixel path in {@link NorthernLights}, for a few frames, sizes, and thread counts, with y going down (as
+ * in the recorded frames) and up (as on screen). The per-pixel path is {@link #originalPixel(int, float, float, float)},
+ * which calls NorthernLights' own cosmic() and stores the color the way Pixmap.setColor() did.
+ * <br>
+ * This is a plain main() so it can be run without any test framework or graphics; it throws if any pixel differs.
+ */
+public class CosmicFieldTest {
+    public static void main(String[] args) {
+        final int seed = 0x1234ABCD;
+        int checked = 0;
+        for (int threads : new int[]{1, 3, Runtime.getRuntime().availableProcessors()}) {
+            CosmicField field = new CosmicField(seed, threads);
+            for (int[] size : new int[][]{{256, 256}, {97, 61}, {480, 480}}) {
+                final int width = size[0], height = size[1];
+                final ByteBuffer pixels = ByteBuffer.allocate(width * height * 4).order(ByteOrder.BIG_ENDIAN);
+                for (int frame = 0; frame < 50; frame += 7) {
+                    final float ftm = (frame << 4) * 1.5f * 0x5p-13f;
+                    final boolean flip = (frame & 1) == 1;
+                    final float xScale = flip ? 0.0075f : 1f / width, yScale = flip ? 0.005f : 1f / height;
+                    field.render(pixels, width, height, ftm, xScale, yScale, flip);
+                    for (int y = 0; y < height; y++) {
+                        final float ay = (flip ? height - 1 - y : y) * yScale;
+                        for (int x = 0; x < width; x++) {
+                            final int expected = originalPixel(seed, ftm, x * xScale, ay),
+                                    actual = pixels.getInt((y * width + x) << 2);
+                            if (expected != actual)
+                                throw new IllegalStateException(String.format(
+                                        "Pixel %d,%d of frame %d at %dx%d with %d threads was %08X, should be %08X",
+                                        x, y, frame, width, height, threads, actual, expected));
+                            checked++;
+                        }
+                    }
+                }
+            }
+            field.dispose();
+        }
+        System.out.println("All " + checked + " pixels matched the per-pixel path.");
+    }
+
+    /**
+     * The body of the loop NorthernLights used to draw each pixel with, returning the RGBA8888 int that
+     * {@code frame.setColor(r, g, b, 1f)} and {@code drawPixel()} stored.
+     */
+    static int originalPixel(int seed, float ftm, float ax, float ay) {
+        final float[] con = {ftm + ay, ftm + ax, ax + ay};
+        NorthernLights.cosmic(seed ^ 0xC13FA9A9, con, 1, 2, 0);
+        NorthernLights.cosmic(seed ^ 0xDB4F0B91, con, 2, 0, 1);
+        NorthernLights.cosmic(seed ^ 0x19F1D48E, con, 0, 1, 2);
+        return Color.rgba8888(NorthernLights.swayTight(con[0]), NorthernLights.swayTight(con[1]),
+                NorthernLights.swayTight(con[2]), 1f);
+    }
+}
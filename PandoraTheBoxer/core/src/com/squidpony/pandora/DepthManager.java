@@ -0,0 +1,348 @@
+package com.squidpony.pandora;
+
+import squidpony.squidgrid.mapping.DungeonGenerator;
+import squidpony.squidgrid.mapping.DungeonUtility;
+import squidpony.squidgrid.mapping.SerpentMapGenerator;
+import squidpony.squidmath.Coord;
+import squidpony.squidmath.CoordPacker;
+import squidpony.squidmath.LightRNG;
+import squidpony.squidmath.RNG;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Owns the maps for every depth of the box, and makes sure only the depths near the player take up much memory.
+ * <br>
+ * Nothing is made up front. Each floor is carved by a {@link SerpentMapGenerator} and decorated with water, grass,
+ * doors and so on, all on a worker thread, when it is prefetched, starting with the floors closest to the current one.
+ * Stairs still line up between floors: a floor's up-stair goes where the floor above it put its down-stair, so floors
+ * are always made in order from the top, and the worker only keeps the position of each floor's down-stair for the
+ * floor below. Each finished floor is a {@link Level}; only the current floor and the floors directly above and below
+ * it are kept as full char[][] grids. Any other floor that has been made is compacted into a bit-packed form that uses
+ * only as many bits per cell as it needs to tell its distinct chars apart, and is inflated again if the player gets
+ * close to it.
+ * <br>
+ * This doesn't know about DijkstraMap or FOV; the game builds those from {@link Level#deco}.
+ */
+public class DepthManager {
+    /**
+     * The decorated grids for one floor, plus which cells of that floor the player has seen.
+     */
+    public static class Level {
+        /** The dungeon with water, grass, doors and stairs, one char per cell. */
+        public char[][] deco;
+        /** Only '#' for walls and '.' for floors (doors and stairs count as floors). */
+        public char[][] bare;
+        /** The double-width dungeon with box-drawing walls, as shown on screen. */
+        public char[][] line;
+        public boolean[][] seen;
+
+        public long estimateBytes() {
+            return charGridBytes(deco) + charGridBytes(bare) + charGridBytes(line) + (long) seen.length * (seen[0].length + 16);
+        }
+    }
+
+    /**
+     * A floor that isn't near the player, with each grid packed down to a few bits per cell.
+     */
+    private static class PackedLevel {
+        PackedGrid deco, bare, line;
+        long[] seen;
+
+        long estimateBytes() {
+            return deco.estimateBytes() + bare.estimateBytes() + line.estimateBytes() + seen.length * 8L + 16;
+        }
+    }
+
+    /**
+     * A char[][] stored as indices into a small palette, each index using {@link #bits} bits.
+     */
+    private static class PackedGrid {
+        final int width, height, bits;
+        final char[] palette;
+        final long[] data;
+
+        PackedGrid(char[][] grid) {
+            width = grid.length;
+            height = grid[0].length;
+            char[] found = new char[16];
+            int count = 0;
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < height; y++) {
+                    if (indexOf(found, count, grid[x][y]) < 0) {
+                        if (count == found.length) {
+                            char[] bigger = new char[count << 1];
+                            System.arraycopy(found, 0, bigger, 0, count);
+                            found = bigger;
+                        }
+                        found[count++] = grid[x][y];
+                    }
+                }
+            }
+            palette = new char[count];
+            System.arraycopy(found, 0, palette, 0, count);
+            bits = Math.max(1, 32 - Integer.numberOfLeadingZeros(count - 1));
+            data = new long[(width * height * bits + 63) >>> 6];
+            long pos = 0;
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < height; y++, pos += bits) {
+                    long idx = indexOf(palette, count, grid[x][y]);
+                    final int word = (int) (pos >>> 6), shift = (int) (pos & 63);
+                    data[word] |= idx << shift;
+                    if (shift + bits > 64)
+                        data[word + 1] |= idx >>> (64 - shift);
+                }
+            }
+        }
+
+        char[][] unpack() {
+            char[][] grid = new char[width][height];
+            final long mask = (1L << bits) - 1L;
+            long pos = 0;
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < height; y++, pos += bits) {
+                    final int word = (int) (pos >>> 6), shift = (int) (pos & 63);
+                    long idx = data[word] >>> shift;
+                    if (shift + bits > 64)
+                        idx |= data[word + 1] << (64 - shift);
+                    grid[x][y] = palette[(int) (idx & mask)];
+                }
+            }
+            return grid;
+        }
+
+        long estimateBytes() {
+            return data.length * 8L + palette.length * 2L + 48;
+        }
+
+        private static int indexOf(char[] chars, int count, char c) {
+            for (int i = 0; i < count; i++) {
+                if (chars[i] == c) return i;
+            }
+            return -1;
+        }
+    }
+
+    public final int width, height, depth;
+    private final long seed;
+    /**
+     * Where each floor's down-stair is, so the floor below can put its up-stair there. Only the worker thread uses these.
+     */
+    private final Coord[] downStairs;
+    private final Level[] inflated;
+    private final PackedLevel[] packed;
+    private final Future<?>[] pending;
+    private final ExecutorService worker;
+    private int currentDepth = -1;
+
+    /**
+     * Starts making the first two floors on a worker thread, and returns right away. Call {@link #enter(int)} to get a
+     * floor, and {@link #dispose()} when the game ends.
+     * @param width the width of each floor, in cells
+     * @param height the height of each floor, in cells
+     * @param depth how many floors there are
+     * @param seed determines the whole box; the same seed always makes the same floors
+     */
+    public DepthManager(int width, int height, int depth, long seed) {
+        this.width = width;
+        this.height = height;
+        this.depth = depth;
+        this.seed = seed;
+        downStairs = new Coord[depth];
+        inflated = new Level[depth];
+        packed = new PackedLevel[depth];
+        pending = new Future<?>[depth];
+        worker = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "DepthManager");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        prefetch(0);
+        prefetch(1);
+    }
+
+    public int getCurrentDepth() {
+        return currentDepth;
+    }
+
+    /**
+     * Makes {@code d} the current floor and returns it, waiting for the worker if it hasn't finished decorating that
+     * floor yet. Floors more than one away from d are compacted, and the next two floors below d start generating in
+     * the background if they haven't already.
+     * @param d the depth to move to, from 0 to {@code depth - 1}
+     * @return the fully inflated Level for d
+     */
+    public Level enter(int d) {
+        currentDepth = d;
+        Level level = obtain(d);
+        for (int i = 0; i < depth; i++) {
+            if (i < d - 1 || i > d + 1) {
+                if (inflated[i] != null) {
+                    packed[i] = pack(inflated[i]);
+                    inflated[i] = null;
+                }
+            }
+            else if (i != d && isReady(i)) {
+                obtain(i);
+            }
+        }
+        prefetch(d + 1);
+        prefetch(d + 2);
+        return level;
+    }
+
+    /**
+     * @param d a depth
+     * @return true if d has been made already, so {@link #enter(int)} won't need to wait for the worker
+     */
+    public boolean isReady(int d) {
+        return inflated[d] != null || packed[d] != null || (pending[d] != null && pending[d].isDone());
+    }
+
+    /**
+     * @param d a depth
+     * @return true if d is currently stored as full grids instead of bit-packed
+     */
+    public boolean isInflated(int d) {
+        return inflated[d] != null;
+    }
+
+    /**
+     * Estimates how many bytes all floors take up, counting inflated and packed floors alike.
+     * @return an approximate count of bytes used by floor data
+     */
+    public long estimateBytes() {
+        long total = 0;
+        for (int i = 0; i < depth; i++) {
+            if (inflated[i] != null) total += inflated[i].estimateBytes();
+            else if (packed[i] != null) total += packed[i].estimateBytes();
+        }
+        return total;
+    }
+
+    /**
+     * Stops the worker thread; this can't be used after.
+     */
+    public void dispose() {
+        worker.shutdownNow();
+    }
+
+    private void prefetch(final int d) {
+        if (d < 0 || d >= depth || pending[d] != null || inflated[d] != null || packed[d] != null)
+            return;
+        // the worker runs tasks in order, so the floor above is always done before this one needs its down-stair
+        prefetch(d - 1);
+        pending[d] = worker.submit(new Callable<Level>() {
+            @Override
+            public Level call() {
+                return generate(d);
+            }
+        });
+    }
+
+    private Level obtain(int d) {
+        if (inflated[d] != null)
+            return inflated[d];
+        if (packed[d] != null) {
+            inflated[d] = unpack(packed[d]);
+            packed[d] = null;
+            return inflated[d];
+        }
+        prefetch(d);
+        try {
+            inflated[d] = (Level) pending[d].get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while generating depth " + d, e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not generate depth " + d, e.getCause());
+        }
+        pending[d] = null;
+        return inflated[d];
+    }
+
+    /**
+     * Carves and decorates one floor. This runs on the worker thread, so it uses its own generators and RNG, seeded
+     * from the depth so the result doesn't depend on which order floors are made in. The floor above must have been
+     * made first, so its down-stair is known.
+     */
+    private Level generate(int d) {
+        RNG rng = new RNG(new LightRNG(seed ^ (d + 1) * 0x9E3779B97F4A7C15L));
+        SerpentMapGenerator serpent = new SerpentMapGenerator(width, height, rng, 0.1);
+        serpent.putCaveCarvers(3);
+        serpent.putBoxRoomCarvers(1);
+        serpent.putRoundRoomCarvers(1);
+        char[][] layout = serpent.generate();
+        DungeonUtility utility = new DungeonUtility(rng);
+        short[] floors = CoordPacker.pack(layout, '.');
+        Coord up = d == 0 ? utility.randomCell(floors) : downStairs[d - 1];
+        // the up-stair can land in rock on this floor; dig from it toward a random floor until reaching any floor
+        Coord target = utility.randomCell(floors);
+        int x = up.x, y = up.y;
+        while (layout[x][y] != '.') {
+            layout[x][y] = '.';
+            x += Integer.signum(target.x - x);
+            y += Integer.signum(target.y - y);
+        }
+        layout[up.x][up.y] = '<';
+        if (d + 1 < depth) {
+            Coord down = utility.randomCell(CoordPacker.removePacked(floors, up.x, up.y));
+            layout[down.x][down.y] = '>';
+            downStairs[d] = down;
+        }
+
+        DungeonGenerator dungeonGen = new DungeonGenerator(width, height, rng);
+        dungeonGen.addWater(12);
+        dungeonGen.addGrass(10);
+        dungeonGen.addBoulders(15);
+        dungeonGen.addDoors(8, false);
+        Level level = new Level();
+        level.deco = dungeonGen.generateRespectingStairs(layout);
+        level.bare = dungeonGen.getBareDungeon();
+        level.line = DungeonUtility.hashesToLines(DungeonUtility.doubleWidth(
+                DungeonUtility.closeDoors(level.deco)), true);
+        level.seen = new boolean[width][height];
+        return level;
+    }
+
+    private static PackedLevel pack(Level level) {
+        PackedLevel p = new PackedLevel();
+        p.deco = new PackedGrid(level.deco);
+        p.bare = new PackedGrid(level.bare);
+        p.line = new PackedGrid(level.line);
+        final int w = level.seen.length, h = level.seen[0].length;
+        p.seen = new long[(w * h + 63) >>> 6];
+        for (int x = 0, i = 0; x < w; x++) {
+            for (int y = 0; y < h; y++, i++) {
+                if (level.seen[x][y]) p.seen[i >>> 6] |= 1L << i;
+            }
+        }
+        return p;
+    }
+
+    private Level unpack(PackedLevel p) {
+        Level level = new Level();
+        level.deco = p.deco.unpack();
+        level.bare = p.bare.unpack();
+        level.line = p.line.unpack();
+        level.seen = new boolean[width][height];
+        for (int x = 0, i = 0; x < width; x++) {
+            for (int y = 0; y < height; y++, i++) {
+                level.seen[x][y] = (p.seen[i >>> 6] & 1L << i) != 0;
+            }
+        }
+        return level;
+    }
+
+    private static long charGridBytes(char[][] grid) {
+        return (long) grid.length * (grid[0].length * 2L + 16);
+    }
+}
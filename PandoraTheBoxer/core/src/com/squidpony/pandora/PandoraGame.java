@@ -20,7 +20,6 @@ import squidpony.squidgrid.Radius;
 import squidpony.squidgrid.gui.gdx.*;
 import squidpony.squidgrid.mapping.DungeonGenerator;
 import squidpony.squidgrid.mapping.DungeonUtility;
-import squidpony.squidgrid.mapping.SerpentDeepMapGenerator;
 import squidpony.squidmath.Coord;
 import squidpony.squidmath.CoordPacker;
 import squidpony.squidmath.LightRNG;
@@ -43,7 +42,10 @@ public class PandoraGame extends ApplicationAdapter {
     /** Non-{@code null} iff '?' was pressed before */
     private /*Nullable*/ Actor help;
     private DungeonGenerator dungeonGen;
-    private char[][][] decoDungeons, bareDungeons, lineDungeons;
+    /** Generates floors in the background and compacts the ones far from the player. */
+    private DepthManager depths;
+    /** The decorated, bare and line grids for the current floor, plus what the player has seen on it. */
+    private DepthManager.Level level;
     private double[][] res;
     private int[][] lights;
     private int[][] colors, bgColors;
@@ -62,12 +64,19 @@ public class PandoraGame extends ApplicationAdapter {
     private int cellHeight;
     private SquidInput input;
     private double counter;
-    private boolean[][][] seen;
     private int health = 7;
     private SquidColorCenter fgCenter, bgCenter;
     private Color bgColor;
+    /**
+     * Monster values are 0 until a monster notices the player; after that, they are one more than the
+     * {@link SimulationLod#getTurn()} the monster last acted on.
+     */
     private HashMap<AnimatedEntity, Integer> monsters;
+    /** Reused each turn to hold the positions of monsters, so they can block each other's paths. */
+    private LinkedHashSet<Coord> monplaces;
     private DijkstraMap getToPlayer, playerToCursor;
+    /** Lets monsters far from the player move room-to-room every few turns instead of pathfinding every turn. */
+    private SimulationLod lod;
     private Stage stage;
     private int framesWithoutAnimation = 0;
     private Coord cursor;
@@ -92,9 +101,6 @@ public class PandoraGame extends ApplicationAdapter {
         cellWidth = 8;
         cellHeight = 18;
         currentDepth = 0;
-        decoDungeons = new char[depth][][];
-        bareDungeons = new char[depth][][];
-        lineDungeons = new char[depth][][];
         // the font will try to load Inconsolata-LGC as a bitmap font from resources.
         // this font is covered under the SIL Open Font License (fully free), so there's no reason it can't be used.
         display = new SquidLayers(width * 2, height + 1, cellWidth, cellHeight, DefaultResources.smoothName, bgCenter, fgCenter);
@@ -110,28 +116,13 @@ public class PandoraGame extends ApplicationAdapter {
         messages.appendWrappingMessage("Use numpad or vi-keys to move, bump=attack. ? for help, q to quit.");
         counter = 0;
 
+        // the floors are decorated by DepthManager on its own thread; here we only need dungeonGen for its utility.
         dungeonGen = new DungeonGenerator(width, height, rng);
-        dungeonGen.addWater(12);
-        dungeonGen.addGrass(10);
-        dungeonGen.addBoulders(15);
-        dungeonGen.addDoors(8, false);
-        SerpentDeepMapGenerator serpent = new SerpentDeepMapGenerator(width, height, depth, rng, 0.1);
-        serpent.putCaveCarvers(3);
-        serpent.putBoxRoomCarvers(1);
-        serpent.putRoundRoomCarvers(1);
-        char[][][] sg = serpent.generate();
-        for (int i = 0; i < depth; i++) {
-            decoDungeons[i] = dungeonGen.generateRespectingStairs(sg[i]);
-
-            // change the TilesetType to lots of different choices to see what dungeon works best.
-            //bareDungeons = dungeonGen.generate(TilesetType.DEFAULT_DUNGEON);
-            bareDungeons[i] = dungeonGen.getBareDungeon();
-            lineDungeons[i] = DungeonUtility.hashesToLines(DungeonUtility.doubleWidth(
-                    DungeonUtility.closeDoors(decoDungeons[i])), true);
-
-        }
+        // nothing is made up front; each floor is carved and decorated in the background, nearest floors first.
+        depths = new DepthManager(width, height, depth, 0xBADBEEFB0BBL);
+        level = depths.enter(currentDepth);
         // it's more efficient to get random floors from a packed set containing only (compressed) floor positions.
-        short[] placement = CoordPacker.pack(bareDungeons[currentDepth], '.');
+        short[] placement = CoordPacker.pack(level.bare, '.');
         Coord pl = dungeonGen.utility.randomCell(placement);
         placement = CoordPacker.removePacked(placement, pl.x, pl.y);
         int numMonsters = 10;
@@ -143,13 +134,15 @@ public class PandoraGame extends ApplicationAdapter {
             monsters.put(display.animateActor(monPos.x, monPos.y, (FakeLanguageGen.GREEK_AUTHENTIC.word(rng, true) + "??").substring(0, 2),
                     fgCenter.filter(display.getPalette().get(11)), true), 0);
         }
+        monplaces = new LinkedHashSet<Coord>(32);
         // your choice of FOV matters here.
         fov = new FOV(FOV.RIPPLE_TIGHT);
-        getToPlayer = new DijkstraMap(decoDungeons[currentDepth], DijkstraMap.Measurement.CHEBYSHEV);
+        getToPlayer = new DijkstraMap(level.deco, DijkstraMap.Measurement.CHEBYSHEV);
         getToPlayer.rng = rng;
         getToPlayer.setGoal(pl);
         pathMap = getToPlayer.scan(null);
-        res = DungeonUtility.generateResistances(decoDungeons[currentDepth]);
+        lod = new SimulationLod(level.bare, 7, 10, 20);
+        res = DungeonUtility.generateResistances(level.deco);
         fovmap = fov.calculateFOV(res, pl.x, pl.y, 8, Radius.SQUARE);
 
         player = display.animateActor(pl.x, pl.y, "@@",
@@ -157,13 +150,12 @@ public class PandoraGame extends ApplicationAdapter {
         cursor = Coord.get(-1, -1);
         toCursor = new ArrayList<Coord>(10);
         awaitedMoves = new ArrayList<Coord>(10);
-        playerToCursor = new DijkstraMap(decoDungeons[currentDepth], DijkstraMap.Measurement.EUCLIDEAN);
-        colors = DungeonUtility.generatePaletteIndices(decoDungeons[currentDepth]);
-        bgColors = DungeonUtility.generateBGPaletteIndices(decoDungeons[currentDepth]);
+        playerToCursor = new DijkstraMap(level.deco, DijkstraMap.Measurement.EUCLIDEAN);
+        colors = DungeonUtility.generatePaletteIndices(level.deco);
+        bgColors = DungeonUtility.generateBGPaletteIndices(level.deco);
         bgColor = SColor.DARK_SLATE_GRAY;
 
-        lights = DungeonUtility.generateLightnessModifiers(decoDungeons[currentDepth], counter);
-        seen = new boolean[depth][width][height];
+        lights = DungeonUtility.generateLightnessModifiers(level.deco, counter);
         lang = FakeLanguageGen.GREEK_AUTHENTIC.sentence(rng, 4, 5, new String[]{",", ",", ";"},
                 new String[]{"...", "...", "...", "!", "."}, 0.1);
         // this is a big one.
@@ -322,14 +314,14 @@ public class PandoraGame extends ApplicationAdapter {
 
         int newX = player.gridX + xmod, newY = player.gridY + ymod;
         if (newX >= 0 && newY >= 0 && newX < width && newY < height
-                && bareDungeons[currentDepth][newX][newY] != '#')
+                && level.bare[newX][newY] != '#')
         {
             // '+' is a door.
-            if (lineDungeons[currentDepth][newX][newY] == '+') {
-                decoDungeons[currentDepth][newX][newY] = '/';
-                lineDungeons[currentDepth][newX][newY] = '/';
+            if (level.line[newX][newY] == '+') {
+                level.deco[newX][newY] = '/';
+                level.line[newX][newY] = '/';
                 // changes to the map mean the resistances for FOV need to be regenerated.
-                res = DungeonUtility.generateResistances(decoDungeons[currentDepth]);
+                res = DungeonUtility.generateResistances(level.deco);
                 // recalculate FOV, store it in fovmap for the render to use.
                 fovmap = fov.calculateFOV(res, player.gridX, player.gridY, 8, Radius.SQUARE);
 
@@ -378,7 +370,7 @@ public class PandoraGame extends ApplicationAdapter {
         // this is an important piece of DijkstraMap usage; the argument is a Set of Points for squares that
         // temporarily cannot be moved through (not walls, which are automatically known because the map char[][]
         // was passed to the DijkstraMap constructor, but things like moving creatures and objects).
-        LinkedHashSet<Coord> monplaces = new LinkedHashSet<Coord>(monsters.size());
+        monplaces.clear();
         for(AnimatedEntity ae : monsters.keySet())
         {
             monplaces.add(Coord.get(ae.gridX, ae.gridY));
@@ -388,11 +380,35 @@ public class PandoraGame extends ApplicationAdapter {
         // recalculate FOV, store it in fovmap for the render to use.
         fovmap = fov.calculateFOV(res, player.gridX, player.gridY, 8, Radius.SQUARE);
         // handle monster turns
+        lod.update(player.gridX, player.gridY);
         ArrayList<Coord> nextMovePositions = new ArrayList<Coord>(25);
         for(Map.Entry<AnimatedEntity, Integer> mon : monsters.entrySet())
         {
-            // monster values are used to store their aggression, 1 for actively stalking the player, 0 for not.
-            if(mon.getValue() > 0 || fovmap[mon.getKey().gridX][mon.getKey().gridY] > 0.1)
+            AnimatedEntity ae = mon.getKey();
+            // visible uses the same threshold as noticing the player below, so seeing a monster only gives it full
+            // turns when it could also notice the player.
+            int tier = lod.tierOf(ae.gridX, ae.gridY, fovmap[ae.gridX][ae.gridY] > 0.1);
+            // monsters far from the player only move room-to-room every few turns, and only if they're already
+            // stalking the player; they end up on a free floor cell, so nothing changes when they get close again.
+            if(tier != SimulationLod.FULL)
+            {
+                int steps;
+                if(mon.getValue() > 0 && (steps = lod.stepsDue(tier, mon.getValue() - 1)) > 0)
+                {
+                    Coord tmp = lod.coarseStep(ae.gridX, ae.gridY, steps, monplaces);
+                    if(tmp.x != ae.gridX || tmp.y != ae.gridY)
+                    {
+                        monplaces.remove(Coord.get(ae.gridX, ae.gridY));
+                        monplaces.add(tmp);
+                        // still at its old cell until the slide ends, so checkOverlap() needs to know it's taken
+                        nextMovePositions.add(tmp);
+                        display.slide(ae, tmp.x, tmp.y);
+                    }
+                    monsters.put(ae, lod.getTurn() + 1);
+                }
+            }
+            // monster values are used to store their aggression, 0 for not noticing the player, otherwise stalking.
+            else if(mon.getValue() > 0 || fovmap[ae.gridX][ae.gridY] > 0.1)
             {
                 if(mon.getValue() == 0)
                 {
@@ -406,9 +422,9 @@ public class PandoraGame extends ApplicationAdapter {
                 double best = 9999.0;
                 for(Direction d : rng.shuffle(Direction.OUTWARDS))
                 {
-                    Coord tmp = Coord.get(mon.getKey().gridX + d.deltaX, mon.getKey().gridY + d.deltaY);
+                    Coord tmp = Coord.get(ae.gridX + d.deltaX, ae.gridY + d.deltaY);
                     if(pathMap[tmp.x][tmp.y] < best &&
-                            !checkOverlap(mon.getKey(), tmp.x, tmp.y, nextMovePositions))
+                            !checkOverlap(ae, tmp.x, tmp.y, nextMovePositions))
                     {
                         // pathMap is a 2D array of doubles where 0 is the goal (the player).
                         // we use best to store which option is closest to the goal.
@@ -417,13 +433,12 @@ public class PandoraGame extends ApplicationAdapter {
                     }
                 }
                 if(choice != null) {
-                    Coord tmp = Coord.get(mon.getKey().gridX + choice.deltaX, mon.getKey().gridY + choice.deltaY);
+                    Coord tmp = Coord.get(ae.gridX + choice.deltaX, ae.gridY + choice.deltaY);
                     // if we would move into the player, instead damage the player and give newMons the current
                     // position of this monster.
                     if (player.gridX == tmp.x && player.gridY == tmp.y) {
                         display.wiggle(player);
                         health--;
-                        monsters.put(mon.getKey(), 1);
                     }
                     // otherwise store the new position in newMons.
                     else {
@@ -431,19 +446,12 @@ public class PandoraGame extends ApplicationAdapter {
                             display.put(mon.getKey().x, mon.getKey().y, 'M', 11);
                         }*/
                         nextMovePositions.add(Coord.get(tmp.x, tmp.y));
-                        monsters.put(mon.getKey(), 1);
-                        display.slide(mon.getKey(), tmp.x, tmp.y);
+                        monplaces.add(tmp);
+                        display.slide(ae, tmp.x, tmp.y);
 
                     }
                 }
-                else
-                {
-                    monsters.put(mon.getKey(), 1);
-                }
-            }
-            else
-            {
-                monsters.put(mon.getKey(), mon.getValue());
+                monsters.put(ae, lod.getTurn() + 1);
             }
         }
 
@@ -529,15 +537,15 @@ public class PandoraGame extends ApplicationAdapter {
                 // if we see it now, we remember the cell and show a lit cell based on the fovmap value (between 0.0
                 // and 1.0), with 1.0 being almost pure white at +215 lightness and 0.0 being rather dark at -105.
                 if (fovmap[i][j] > 0.0) {
-                    seen[currentDepth][i][j] = true;
-                    display.put(i * 2, j, lineDungeons[currentDepth][i * 2][j], colors[i][j], bgColors[i][j],
+                    level.seen[i][j] = true;
+                    display.put(i * 2, j, level.line[i * 2][j], colors[i][j], bgColors[i][j],
                             lights[i][j] + (int) (-105 + 320 * fovmap[i][j]));
-                    display.put(i * 2 + 1, j, lineDungeons[currentDepth][i * 2 + 1][j], colors[i][j], bgColors[i][j],
+                    display.put(i * 2 + 1, j, level.line[i * 2 + 1][j], colors[i][j], bgColors[i][j],
                             lights[i][j] + (int) (-105 + 320 * fovmap[i][j]));
                     // if we don't see it now, but did earlier, use a very dark background, but lighter than black.
-                } else if (seen[currentDepth][i][j]) {
-                    display.put(i * 2, j, lineDungeons[currentDepth][i * 2][j], colors[i][j], bgColors[i][j], -140);
-                    display.put(i * 2 + 1, j, lineDungeons[currentDepth][i * 2 + 1][j], colors[i][j], bgColors[i][j], -140);
+                } else if (level.seen[i][j]) {
+                    display.put(i * 2, j, level.line[i * 2][j], colors[i][j], bgColors[i][j], -140);
+                    display.put(i * 2 + 1, j, level.line[i * 2 + 1][j], colors[i][j], bgColors[i][j], -140);
                 }
             }
         }
@@ -564,7 +572,7 @@ public class PandoraGame extends ApplicationAdapter {
         // used as the z-axis when generating Simplex noise to make water seem to "move"
         counter += Gdx.graphics.getDeltaTime() * 15;
         // this does the standard lighting for walls, floors, etc. but also uses counter to do the Simplex noise thing.
-        lights = DungeonUtility.generateLightnessModifiers(decoDungeons[currentDepth], counter);
+        lights = DungeonUtility.generateLightnessModifiers(level.deco, counter);
 
         // you done bad. you done real bad.
         if (health <= 0) {
@@ -656,6 +664,11 @@ public class PandoraGame extends ApplicationAdapter {
         }
     }
 
+    @Override
+    public void dispose() {
+        depths.dispose();
+    }
+
     @Override
     public void resize(int width, int height) {
         super.resize(width, height);
@@ -0,0 +1,296 @@
+package com.squidpony.pandora;
+
+import squidpony.squidmath.Coord;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Decides how much simulation each monster gets, so a floor can hold many more monsters than could each run a full
+ * pathfinding search every turn.
+ * <br>
+ * Monsters the player can see, or that are within {@link #nearDistance} cells of the player, are in the {@link #FULL}
+ * tier and should be simulated normally, every turn. Monsters further out are in the {@link #NEAR} tier, which acts
+ * every 2 turns, and anything past {@link #farDistance} is in the {@link #FAR} tier, which acts every 4 turns. Those
+ * two tiers don't search the whole map; they move room-to-room over a graph of rooms that is built once per map, by
+ * cutting the map into square blocks and taking each connected group of floor cells in a block as a room. A coarse
+ * move walks toward the middle of the next room on the way to the player, using only the cells of the room the
+ * monster is in and that next room, and takes as many steps as turns have passed since the monster last acted.
+ * <br>
+ * A coarse move always ends on a real floor cell that no other monster is in, and never covers more steps than a
+ * fully simulated monster could have, so when a monster gets close enough to be in the {@link #FULL} tier again, it
+ * can just carry on from where it is.
+ * <br>
+ * This doesn't keep anything per monster; callers keep the turn each monster last acted on, from {@link #getTurn()},
+ * and pass it to {@link #stepsDue(int, int)}.
+ */
+public class SimulationLod {
+    public static final int FULL = 0, NEAR = 1, FAR = 2;
+    /** How many turns apart each tier acts. */
+    private static final int[] PERIODS = {1, 2, 4};
+    private static final int[] DX = {0, 0, -1, 1, -1, 1, -1, 1}, DY = {-1, 1, 0, 0, -1, -1, 1, 1};
+
+    public final int width, height, roomSize, nearDistance, farDistance;
+
+    // cells are numbered x * height + y, the same order as a char[x][y] map.
+    private int[] roomOf;
+    // for each room, the cell closest to its middle, and the rooms that touch it.
+    private int[] anchors;
+    private int[][] links;
+    private int rooms;
+    // for each room, the next room on the way to the player's room, or -1 if the player's room can't be reached.
+    private int[] toward;
+    private int[] roomQueue;
+
+    // search state for coarse moves, reused between them; a cell's dist only counts if its stamp is the current search.
+    private final int[] dist, stamp, queue;
+    private int search;
+
+    private int turn, playerX, playerY, playerRoom = -1;
+
+    /**
+     * Builds the room graph for the given map, treating '#' as a wall and anything else as walkable.
+     * @param map a char[x][y] map, such as a {@link DepthManager.Level#bare} grid
+     * @param roomSize the width and height of each block rooms are found in; should be no more than nearDistance
+     * @param nearDistance monsters at most this many cells from the player (by the larger of x and y) are fully simulated
+     * @param farDistance monsters more than this many cells from the player act least often
+     */
+    public SimulationLod(char[][] map, int roomSize, int nearDistance, int farDistance) {
+        width = map.length;
+        height = map[0].length;
+        this.roomSize = Math.max(roomSize, 2);
+        this.nearDistance = nearDistance;
+        this.farDistance = Math.max(farDistance, nearDistance);
+        roomOf = new int[width * height];
+        dist = new int[width * height];
+        stamp = new int[width * height];
+        queue = new int[width * height];
+        initialize(map);
+    }
+
+    /**
+     * Rebuilds the room graph for a new map of the same size, such as after changing floors. The turn count is kept, so
+     * turns that monsters last acted on stay meaningful.
+     * @param map a char[x][y] map with the same size this was constructed with
+     */
+    public void initialize(char[][] map) {
+        Arrays.fill(roomOf, -1);
+        rooms = 0;
+        int[] anchorList = new int[64];
+        int blocksX = (width + roomSize - 1) / roomSize, blocksY = (height + roomSize - 1) / roomSize;
+        for (int bx = 0; bx < blocksX; bx++) {
+            for (int by = 0; by < blocksY; by++) {
+                int startX = bx * roomSize, startY = by * roomSize,
+                        endX = Math.min(width, startX + roomSize), endY = Math.min(height, startY + roomSize);
+                for (int x = startX; x < endX; x++) {
+                    for (int y = startY; y < endY; y++) {
+                        if (map[x][y] == '#' || roomOf[x * height + y] >= 0)
+                            continue;
+                        if (rooms == anchorList.length)
+                            anchorList = Arrays.copyOf(anchorList, rooms << 1);
+                        anchorList[rooms] = fillRoom(map, x, y, rooms, startX, startY, endX, endY);
+                        rooms++;
+                    }
+                }
+            }
+        }
+        anchors = Arrays.copyOf(anchorList, rooms);
+        links = new int[rooms][];
+        int[] counts = new int[rooms];
+        int[][] found = new int[rooms][4];
+        for (int c = 0; c < width * height; c++) {
+            int r = roomOf[c];
+            if (r < 0)
+                continue;
+            int x = c / height, y = c % height;
+            for (int d = 0; d < 8; d++) {
+                int nx = x + DX[d], ny = y + DY[d];
+                if (nx < 0 || ny < 0 || nx >= width || ny >= height)
+                    continue;
+                int s = roomOf[nx * height + ny];
+                if (s < 0 || s == r || indexOf(found[r], counts[r], s) >= 0)
+                    continue;
+                if (counts[r] == found[r].length)
+                    found[r] = Arrays.copyOf(found[r], counts[r] << 1);
+                found[r][counts[r]++] = s;
+            }
+        }
+        for (int r = 0; r < rooms; r++) {
+            links[r] = Arrays.copyOf(found[r], counts[r]);
+        }
+        toward = new int[rooms];
+        roomQueue = new int[rooms];
+        playerRoom = -1;
+    }
+
+    /**
+     * Floods one room from x,y without leaving its block, and returns the room's cell closest to its middle.
+     */
+    private int fillRoom(char[][] map, int x, int y, int room, int startX, int startY, int endX, int endY) {
+        int head = 0, tail = 0;
+        long sumX = 0, sumY = 0;
+        queue[tail++] = x * height + y;
+        roomOf[x * height + y] = room;
+        while (head < tail) {
+            int c = queue[head++], cx = c / height, cy = c % height;
+            sumX += cx;
+            sumY += cy;
+            for (int d = 0; d < 8; d++) {
+                int nx = cx + DX[d], ny = cy + DY[d];
+                if (nx < startX || ny < startY || nx >= endX || ny >= endY || map[nx][ny] == '#'
+                        || roomOf[nx * height + ny] >= 0)
+                    continue;
+                roomOf[nx * height + ny] = room;
+                queue[tail++] = nx * height + ny;
+            }
+        }
+        // the middle itself may be a wall, or in another room, so pick the closest cell that is in this one.
+        double midX = sumX / (double) tail, midY = sumY / (double) tail, best = Double.MAX_VALUE;
+        int anchor = queue[0];
+        for (int i = 0; i < tail; i++) {
+            int c = queue[i];
+            double ex = c / height - midX, ey = c % height - midY;
+            if (ex * ex + ey * ey < best) {
+                best = ex * ex + ey * ey;
+                anchor = c;
+            }
+        }
+        return anchor;
+    }
+
+    private static int indexOf(int[] items, int count, int item) {
+        for (int i = 0; i < count; i++) {
+            if (items[i] == item)
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Starts a new turn with the player at the given position. Call this once per turn, before any monster acts. The
+     * way from each room to the player's room is only found again if the player changed rooms.
+     */
+    public void update(int playerX, int playerY) {
+        turn++;
+        this.playerX = playerX;
+        this.playerY = playerY;
+        int room = roomOf[playerX * height + playerY];
+        if (room == playerRoom || room < 0)
+            return;
+        playerRoom = room;
+        Arrays.fill(toward, -1);
+        toward[room] = room;
+        int head = 0, tail = 0;
+        roomQueue[tail++] = room;
+        while (head < tail) {
+            int r = roomQueue[head++];
+            for (int s : links[r]) {
+                if (toward[s] < 0) {
+                    toward[s] = r;
+                    roomQueue[tail++] = s;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return how many times {@link #update(int, int)} has been called
+     */
+    public int getTurn() {
+        return turn;
+    }
+
+    /**
+     * Gets the tier for a monster at x,y: {@link #FULL} if the player can see it or it is close, otherwise
+     * {@link #NEAR} or {@link #FAR} by its distance from the player.
+     * @param visible true if the player can see the monster's cell
+     */
+    public int tierOf(int x, int y, boolean visible) {
+        int distance = Math.max(Math.abs(x - playerX), Math.abs(y - playerY));
+        if (visible || distance <= nearDistance)
+            return FULL;
+        return distance <= farDistance ? NEAR : FAR;
+    }
+
+    /**
+     * @return how many turns apart monsters in the given tier act
+     */
+    public int getPeriod(int tier) {
+        return PERIODS[tier];
+    }
+
+    /**
+     * Finds whether a monster in the given tier should act this turn, and if so, how many steps it can take.
+     * @param tier a tier from {@link #tierOf(int, int, boolean)}
+     * @param lastTurn the value of {@link #getTurn()} when the monster last acted
+     * @return 0 if the monster should wait, or how many steps it can take, at most the tier's period
+     */
+    public int stepsDue(int tier, int lastTurn) {
+        int waited = turn - lastTurn;
+        return waited >= PERIODS[tier] ? PERIODS[tier] : 0;
+    }
+
+    /**
+     * Gets the room a cell is in, or -1 for a wall.
+     */
+    public int roomOf(int x, int y) {
+        return roomOf[x * height + y];
+    }
+
+    public int getRoomCount() {
+        return rooms;
+    }
+
+    /**
+     * Moves a monster at x,y up to {@code steps} cells toward the next room on the way to the player, without entering
+     * any cell in {@code occupied} or the player's cell. It stops early if the way is blocked.
+     * @param occupied the cells of other monsters; this should contain x,y, and isn't changed
+     * @return where the monster ends up, which is x,y if it couldn't move
+     */
+    public Coord coarseStep(int x, int y, int steps, Set<Coord> occupied) {
+        int from = x * height + y, room = roomOf[from];
+        if (room < 0 || steps <= 0 || playerRoom < 0 || toward[room] < 0)
+            return Coord.get(x, y);
+        int next = toward[room];
+        int goal = next == room ? playerX * height + playerY : anchors[next];
+        // distances to the goal, over just the two rooms
+        search++;
+        int head = 0, tail = 0;
+        queue[tail++] = goal;
+        stamp[goal] = search;
+        dist[goal] = 0;
+        while (head < tail && stamp[from] != search) {
+            int c = queue[head++], cx = c / height, cy = c % height;
+            for (int d = 0; d < 8; d++) {
+                int nx = cx + DX[d], ny = cy + DY[d];
+                if (nx < 0 || ny < 0 || nx >= width || ny >= height)
+                    continue;
+                int n = nx * height + ny, r = roomOf[n];
+                if ((r != room && r != next) || stamp[n] == search)
+                    continue;
+                stamp[n] = search;
+                dist[n] = dist[c] + 1;
+                queue[tail++] = n;
+            }
+        }
+        if (stamp[from] != search)
+            return Coord.get(x, y);
+        int at = from;
+        for (int i = 0; i < steps; i++) {
+            int cx = at / height, cy = at % height, step = -1;
+            for (int d = 0; d < 8 && step < 0; d++) {
+                int nx = cx + DX[d], ny = cy + DY[d];
+                if (nx < 0 || ny < 0 || nx >= width || ny >= height)
+                    continue;
+                int n = nx * height + ny;
+                if (stamp[n] == search && dist[n] == dist[at] - 1 && (nx != playerX || ny != playerY)
+                        && !occupied.contains(Coord.get(nx, ny)))
+                    step = n;
+            }
+            if (step < 0)
+                break;
+            at = step;
+        }
+        return Coord.get(at / height, at % height);
+    }
+}
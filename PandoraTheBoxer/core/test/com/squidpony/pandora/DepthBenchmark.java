@@ -0,0 +1,111 @@
+package com.squidpony.pandora;
+
+import squidpony.squidgrid.mapping.DungeonGenerator;
+import squidpony.squidgrid.mapping.DungeonUtility;
+import squidpony.squidgrid.mapping.SerpentDeepMapGenerator;
+import squidpony.squidmath.LightRNG;
+import squidpony.squidmath.RNG;
+
+import java.util.Arrays;
+
+/**
+ * Compares making every floor up front (how PandoraGame used to start) with {@link DepthManager}, for 12 to 48
+ * floors. For each size this prints the time until the first floor is playable, the bytes held by floor data then
+ * and after walking all the way down, and the slowest and average time to change floors. Nothing is held for floors
+ * that haven't been made yet, and packed floors still grow with depth, just by much less per floor.
+ * <br>
+ * It also checks that every floor's up-stair is where the floor above put its down-stair, and that a floor comes back
+ * exactly the same after being compacted and inflated again.
+ * This is a plain main() so it can be run without any test framework or graphics.
+ */
+public class DepthBenchmark {
+    private static final int WIDTH = 35, HEIGHT = 35;
+
+    public static void main(String[] args) {
+        for (int depth : new int[]{12, 24, 48}) {
+            long start = System.nanoTime();
+            char[][][][] eager = generateEagerly(depth);
+            long eagerNanos = System.nanoTime() - start;
+            long eagerBytes = 0;
+            for (int i = 0; i < depth; i++) {
+                for (char[][] grid : eager[i]) {
+                    eagerBytes += grid.length * (grid[0].length * 2L + 16);
+                }
+                eagerBytes += WIDTH * (HEIGHT + 16L); // seen
+            }
+
+            start = System.nanoTime();
+            DepthManager depths = new DepthManager(WIDTH, HEIGHT, depth, 0xBADBEEFB0BBL);
+            DepthManager.Level first = depths.enter(0);
+            long lazyStartNanos = System.nanoTime() - start;
+            long startBytes = depths.estimateBytes();
+            first.seen[3][4] = true;
+            char[][] firstDeco = copy(first.deco);
+
+            long worst = 0, total = 0;
+            int transitions = 0;
+            char[][] above = first.deco;
+            for (int d = 1; d < depth; d++, transitions++) {
+                long t = System.nanoTime();
+                DepthManager.Level level = depths.enter(d);
+                t = System.nanoTime() - t;
+                worst = Math.max(worst, t);
+                total += t;
+                for (int x = 0; x < WIDTH; x++) {
+                    for (int y = 0; y < HEIGHT; y++) {
+                        if (above[x][y] == '>' && level.deco[x][y] != '<')
+                            throw new IllegalStateException("Floor " + d + " has no up-stair at " + x + "," + y);
+                    }
+                }
+                above = level.deco;
+            }
+            long lazyBytes = depths.estimateBytes();
+            for (int d = depth - 2; d >= 0; d--, transitions++) {
+                long t = System.nanoTime();
+                depths.enter(d);
+                t = System.nanoTime() - t;
+                worst = Math.max(worst, t);
+                total += t;
+            }
+            DepthManager.Level back = depths.enter(0);
+            if (!Arrays.deepEquals(firstDeco, back.deco) || !back.seen[3][4])
+                throw new IllegalStateException("Floor 0 changed after being packed and unpacked!");
+            depths.dispose();
+
+            System.out.printf("%2d floors: eager start %8.2f ms, %8d bytes; managed start %8.2f ms, %8d bytes, " +
+                            "%8d bytes at the bottom; floor change worst %7.3f ms, average %7.3f ms%n",
+                    depth, eagerNanos * 1E-6, eagerBytes, lazyStartNanos * 1E-6, startBytes, lazyBytes,
+                    worst * 1E-6, total * 1E-6 / transitions);
+        }
+    }
+
+    private static char[][][][] generateEagerly(int depth) {
+        RNG rng = new RNG(new LightRNG(0xBADBEEFB0BBL));
+        DungeonGenerator dungeonGen = new DungeonGenerator(WIDTH, HEIGHT, rng);
+        dungeonGen.addWater(12);
+        dungeonGen.addGrass(10);
+        dungeonGen.addBoulders(15);
+        dungeonGen.addDoors(8, false);
+        SerpentDeepMapGenerator serpent = new SerpentDeepMapGenerator(WIDTH, HEIGHT, depth, rng, 0.1);
+        serpent.putCaveCarvers(3);
+        serpent.putBoxRoomCarvers(1);
+        serpent.putRoundRoomCarvers(1);
+        char[][][] sg = serpent.generate();
+        char[][][][] floors = new char[depth][3][][];
+        for (int i = 0; i < depth; i++) {
+            floors[i][0] = dungeonGen.generateRespectingStairs(sg[i]);
+            floors[i][1] = dungeonGen.getBareDungeon();
+            floors[i][2] = DungeonUtility.hashesToLines(DungeonUtility.doubleWidth(
+                    DungeonUtility.closeDoors(floors[i][0])), true);
+        }
+        return floors;
+    }
+
+    private static char[][] copy(char[][] grid) {
+        char[][] next = new char[grid.length][];
+        for (int i = 0; i < grid.length; i++) {
+            next[i] = grid[i].clone();
+        }
+        return next;
+    }
+}
@@ -0,0 +1,114 @@
+package com.squidpony.pandora;
+
+import squidpony.squidmath.Coord;
+
+import java.util.HashSet;
+import java.util.Random;
+
+/**
+ * Times monster turns against how many monsters are chasing the player, on a 160x100 map. Full fidelity gives every
+ * monster its own path search to the player each turn, like TsarGame's findPath() call per monster; with
+ * {@link SimulationLod}, only monsters in the {@link SimulationLod#FULL} tier do that, and the rest take coarse
+ * room-to-room steps every 2 or 4 turns.
+ * <br>
+ * This is a plain main() so it can be run from an IDE without any test framework.
+ */
+public class SimulationLodBenchmark {
+    private static final int WIDTH = 160, HEIGHT = 100, TURNS = 20;
+    // keeps the searches from being optimized away
+    private static long sink = 0L;
+
+    public static void main(String[] args) {
+        char[][] map = SimulationLodTest.makeMap(WIDTH, HEIGHT, new Random(1L));
+        SimulationLod lod = new SimulationLod(map, 7, 10, 20);
+        System.out.println(lod.getRoomCount() + " rooms");
+        for (int count : new int[]{100, 300, 1000, 3000}) {
+            // warm up both before timing them
+            run(map, null, count, 2L);
+            run(map, lod, count, 2L);
+            long start = System.nanoTime();
+            run(map, null, count, 3L);
+            long fullNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            run(map, lod, count, 3L);
+            long lodNanos = System.nanoTime() - start;
+            System.out.printf("%5d monsters: full fidelity %9.1f us/turn, with SimulationLod %8.1f us/turn%n",
+                    count, fullNanos * 1E-3 / TURNS, lodNanos * 1E-3 / TURNS);
+        }
+    }
+
+    /**
+     * Runs TURNS turns with the player wandering near the middle of the map; lod is null for full fidelity.
+     */
+    private static void run(char[][] map, SimulationLod lod, int count, long seed) {
+        Random rng = new Random(seed);
+        Coord player = SimulationLodTest.randomFloor(map, rng);
+        HashSet<Coord> occupied = new HashSet<Coord>(count * 2);
+        Coord[] monsters = new Coord[count];
+        int[] acted = new int[count];
+        for (int i = 0; i < count; i++) {
+            Coord c;
+            do {
+                c = SimulationLodTest.randomFloor(map, rng);
+            } while (c.equals(player) || occupied.contains(c));
+            monsters[i] = c;
+            occupied.add(c);
+        }
+        int[] queue = new int[WIDTH * HEIGHT], stamp = new int[WIDTH * HEIGHT], parent = new int[WIDTH * HEIGHT];
+        int search = 0;
+        for (int turn = 0; turn < TURNS; turn++) {
+            int d = rng.nextInt(8);
+            Coord next = Coord.get(player.x + SimulationLodTest.DX[d], player.y + SimulationLodTest.DY[d]);
+            if (map[next.x][next.y] != '#' && !occupied.contains(next))
+                player = next;
+            if (lod != null)
+                lod.update(player.x, player.y);
+            for (int i = 0; i < count; i++) {
+                Coord pos = monsters[i];
+                if (lod != null) {
+                    int tier = lod.tierOf(pos.x, pos.y, false);
+                    if (tier != SimulationLod.FULL) {
+                        int steps = lod.stepsDue(tier, acted[i]);
+                        if (steps > 0) {
+                            next = lod.coarseStep(pos.x, pos.y, steps, occupied);
+                            occupied.remove(pos);
+                            occupied.add(next);
+                            monsters[i] = next;
+                            acted[i] = lod.getTurn();
+                        }
+                        continue;
+                    }
+                    acted[i] = lod.getTurn();
+                }
+                // a breadth-first search from this monster until it finds the player, then the first step on the way
+                search++;
+                int head = 0, tail = 0, from = pos.x * HEIGHT + pos.y, goal = player.x * HEIGHT + player.y;
+                queue[tail++] = from;
+                stamp[from] = search;
+                while (head < tail && stamp[goal] != search) {
+                    int c = queue[head++], cx = c / HEIGHT, cy = c % HEIGHT;
+                    for (int e = 0; e < 8; e++) {
+                        int nx = cx + SimulationLodTest.DX[e], ny = cy + SimulationLodTest.DY[e], n = nx * HEIGHT + ny;
+                        if (map[nx][ny] == '#' || stamp[n] == search)
+                            continue;
+                        stamp[n] = search;
+                        parent[n] = c;
+                        queue[tail++] = n;
+                    }
+                }
+                sink += tail;
+                if (stamp[goal] != search)
+                    continue;
+                int step = goal;
+                while (parent[step] != from)
+                    step = parent[step];
+                next = Coord.get(step / HEIGHT, step % HEIGHT);
+                if (step != goal && !occupied.contains(next)) {
+                    occupied.remove(pos);
+                    occupied.add(next);
+                    monsters[i] = next;
+                }
+            }
+        }
+    }
+}
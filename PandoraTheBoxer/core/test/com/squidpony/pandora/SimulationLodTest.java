@@ -0,0 +1,212 @@
+package com.squidpony.pandora;
+
+import squidpony.squidmath.Coord;
+
+import java.util.HashSet;
+import java.util.Random;
+
+/**
+ * Has crowds of monsters chase a wandering player through random maps, with the ones close to the player stepping
+ * downhill on a full distance map every turn and the rest moving with {@link SimulationLod#coarseStep}, and checks
+ * that coarse moves never break the rules a full step follows: every monster stays on a floor cell, no two share a
+ * cell, none is ever on the player, and no monster covers more walking distance than turns have passed since it last
+ * acted. When a monster is promoted back to {@link SimulationLod#FULL}, its walking distance from where its coarse
+ * stretch began must fit in the turns that stretch took. It also checks that a lone monster always gets close to a
+ * player that stands still, so coarse movement can't get stuck.
+ * <br>
+ * This is a plain main() so it can be run from an IDE without any test framework; it throws at the first mismatch.
+ */
+public class SimulationLodTest {
+    static final int[] DX = {0, 0, -1, 1, -1, 1, -1, 1}, DY = {-1, 1, 0, 0, -1, -1, 1, 1};
+
+    public static void main(String[] args) {
+        int promotions = 0, coarseMoves = 0;
+        for (int trial = 0; trial < 8; trial++) {
+            Random rng = new Random(trial);
+            char[][] map = makeMap(72, 48, rng);
+            SimulationLod lod = new SimulationLod(map, 7, 10, 20);
+            int[] counts = chase(map, lod, 60, 400, rng);
+            promotions += counts[0];
+            coarseMoves += counts[1];
+            reachesPlayer(map, lod, rng);
+        }
+        if (promotions == 0 || coarseMoves == 0)
+            throw new IllegalStateException("The test never exercised coarse moves and promotions.");
+        System.out.println("Checked " + coarseMoves + " coarse moves and " + promotions + " promotions; all were consistent.");
+    }
+
+    private static int[] chase(char[][] map, SimulationLod lod, int count, int turns, Random rng) {
+        final int width = map.length, height = map[0].length;
+        Coord player = randomFloor(map, rng);
+        HashSet<Coord> occupied = new HashSet<Coord>();
+        Coord[] monsters = new Coord[count], stretchStart = new Coord[count];
+        int[] acted = new int[count], tiers = new int[count], stretchTurn = new int[count];
+        for (int i = 0; i < count; i++) {
+            Coord c;
+            do {
+                c = randomFloor(map, rng);
+            } while (c.equals(player) || occupied.contains(c));
+            monsters[i] = c;
+            occupied.add(c);
+            tiers[i] = SimulationLod.FULL;
+        }
+        int promotions = 0, coarseMoves = 0;
+        for (int turn = 0; turn < turns; turn++) {
+            // the player wanders, and sometimes runs off a long way, so monsters drop out of the full tier too
+            int moves = rng.nextInt(10) == 0 ? 12 : 1;
+            for (int m = 0; m < moves; m++) {
+                int d = rng.nextInt(8);
+                Coord next = Coord.get(player.x + DX[d], player.y + DY[d]);
+                if (map[next.x][next.y] != '#' && !occupied.contains(next))
+                    player = next;
+            }
+            lod.update(player.x, player.y);
+            int[][] toPlayer = distances(map, player, -1);
+            for (int i = 0; i < count; i++) {
+                Coord pos = monsters[i];
+                int tier = lod.tierOf(pos.x, pos.y, false);
+                if (tier == SimulationLod.FULL) {
+                    if (tiers[i] != SimulationLod.FULL) {
+                        promotions++;
+                        int walked = distances(map, stretchStart[i], -1)[pos.x][pos.y];
+                        if (walked > lod.getTurn() - stretchTurn[i])
+                            throw new IllegalStateException("Monster " + i + " was promoted " + walked
+                                    + " steps from where its coarse moves began, in " + (lod.getTurn() - stretchTurn[i]) + " turns.");
+                    }
+                    for (int d = 0; d < 8; d++) {
+                        Coord next = Coord.get(pos.x + DX[d], pos.y + DY[d]);
+                        if (toPlayer[next.x][next.y] < toPlayer[pos.x][pos.y] && !next.equals(player) && !occupied.contains(next)) {
+                            occupied.remove(pos);
+                            occupied.add(next);
+                            monsters[i] = next;
+                            break;
+                        }
+                    }
+                    acted[i] = lod.getTurn();
+                } else {
+                    if (tiers[i] == SimulationLod.FULL) {
+                        stretchStart[i] = pos;
+                        stretchTurn[i] = acted[i];
+                    }
+                    int steps = lod.stepsDue(tier, acted[i]);
+                    if (steps > 0) {
+                        if (steps > lod.getTurn() - acted[i])
+                            throw new IllegalStateException("Monster " + i + " was given " + steps + " steps after "
+                                    + (lod.getTurn() - acted[i]) + " turns.");
+                        Coord next = lod.coarseStep(pos.x, pos.y, steps, occupied);
+                        if (map[next.x][next.y] == '#' || next.equals(player) || (!next.equals(pos) && occupied.contains(next)))
+                            throw new IllegalStateException("Monster " + i + " made a coarse move from " + pos + " onto " + next
+                                    + ", which isn't free.");
+                        if (distances(map, pos, steps + 1)[next.x][next.y] > steps)
+                            throw new IllegalStateException("Monster " + i + " moved from " + pos + " to " + next + " in "
+                                    + steps + " steps, which is too far.");
+                        occupied.remove(pos);
+                        occupied.add(next);
+                        monsters[i] = next;
+                        acted[i] = lod.getTurn();
+                        coarseMoves++;
+                    }
+                }
+                tiers[i] = tier;
+            }
+            if (occupied.size() != count)
+                throw new IllegalStateException("Two monsters ended turn " + turn + " on the same cell.");
+        }
+        return new int[]{promotions, coarseMoves};
+    }
+
+    /**
+     * A lone monster placed anywhere must get within the full tier of a player that doesn't move.
+     */
+    private static void reachesPlayer(char[][] map, SimulationLod lod, Random rng) {
+        Coord player = randomFloor(map, rng);
+        int[][] toPlayer = distances(map, player, -1);
+        HashSet<Coord> occupied = new HashSet<Coord>();
+        for (int n = 0; n < 30; n++) {
+            Coord pos = randomFloor(map, rng);
+            if (pos.equals(player) || toPlayer[pos.x][pos.y] == Integer.MAX_VALUE)
+                continue;
+            int acted = lod.getTurn(), limit = lod.getTurn() + 4 * toPlayer[pos.x][pos.y] + 8;
+            occupied.clear();
+            occupied.add(pos);
+            while (true) {
+                lod.update(player.x, player.y);
+                int tier = lod.tierOf(pos.x, pos.y, false);
+                if (tier == SimulationLod.FULL)
+                    break;
+                if (lod.getTurn() > limit)
+                    throw new IllegalStateException("A monster at " + pos + " never got near the player at " + player);
+                int steps = lod.stepsDue(tier, acted);
+                if (steps > 0) {
+                    occupied.remove(pos);
+                    occupied.add(pos = lod.coarseStep(pos.x, pos.y, steps, occupied));
+                    acted = lod.getTurn();
+                }
+            }
+        }
+    }
+
+    /**
+     * Walking distances from start over 8-way moves, stopping past limit if it isn't negative; unreached cells get
+     * Integer.MAX_VALUE.
+     */
+    static int[][] distances(char[][] map, Coord start, int limit) {
+        final int width = map.length, height = map[0].length;
+        int[][] dist = new int[width][height];
+        for (int x = 0; x < width; x++)
+            java.util.Arrays.fill(dist[x], Integer.MAX_VALUE);
+        int[] queue = new int[width * height];
+        int head = 0, tail = 0;
+        queue[tail++] = start.x * height + start.y;
+        dist[start.x][start.y] = 0;
+        while (head < tail) {
+            int c = queue[head++], cx = c / height, cy = c % height;
+            if (limit >= 0 && dist[cx][cy] >= limit)
+                continue;
+            for (int d = 0; d < 8; d++) {
+                int nx = cx + DX[d], ny = cy + DY[d];
+                if (map[nx][ny] == '#' || dist[nx][ny] != Integer.MAX_VALUE)
+                    continue;
+                dist[nx][ny] = dist[cx][cy] + 1;
+                queue[tail++] = nx * height + ny;
+            }
+        }
+        return dist;
+    }
+
+    static Coord randomFloor(char[][] map, Random rng) {
+        while (true) {
+            int x = rng.nextInt(map.length), y = rng.nextInt(map[0].length);
+            if (map[x][y] != '#')
+                return Coord.get(x, y);
+        }
+    }
+
+    /**
+     * Rectangular rooms joined in a chain by L-shaped corridors, with a solid border, so every floor cell is
+     * reachable from every other one.
+     */
+    static char[][] makeMap(int width, int height, Random rng) {
+        char[][] map = new char[width][height];
+        for (int x = 0; x < width; x++)
+            java.util.Arrays.fill(map[x], '#');
+        int rooms = width * height / 150, lastX = -1, lastY = -1;
+        for (int r = 0; r < rooms; r++) {
+            int w = 3 + rng.nextInt(8), h = 3 + rng.nextInt(6);
+            int x0 = 1 + rng.nextInt(width - w - 2), y0 = 1 + rng.nextInt(height - h - 2);
+            for (int x = x0; x < x0 + w; x++)
+                for (int y = y0; y < y0 + h; y++)
+                    map[x][y] = '.';
+            int cx = x0 + w / 2, cy = y0 + h / 2;
+            if (lastX >= 0) {
+                for (int x = Math.min(lastX, cx); x <= Math.max(lastX, cx); x++)
+                    map[x][lastY] = '.';
+                for (int y = Math.min(lastY, cy); y <= Math.max(lastY, cy); y++)
+                    map[cx][y] = '.';
+            }
+            lastX = cx;
+            lastY = cy;
+        }
+        return map;
+    }
+}
@@ -92,6 +92,10 @@ public class PathfindingStressTest extends ApplicationAdapter {
     private Camera camera;
     
     private OrderedMap<Coord, AnimatedGlider> monsters;
+    // mirrors the positions in monsters, so drawing can check each cell without hashing a Coord
+    private OccupancyGrid<AnimatedGlider> occupancy;
+    // decides which monsters act each turn; slower monsters have a longer delay and skip some turns
+    private TurnScheduler<AnimatedGlider> scheduler;
     private DijkstraMap getToPlayer;
     private Coord cursor;
     private ArrayList<Coord> awaitedMoves;
@@ -865,6 +869,8 @@ public class PathfindingStressTest extends ApplicationAdapter {
         floorArray = floors.asCoords();
 
         monsters = new OrderedMap<>(numMonsters);
+        occupancy = new OccupancyGrid<>(bigWidth, bigHeight, numMonsters);
+        scheduler = new TurnScheduler<>(numMonsters);
         for (int i = 0; i < numMonsters; i++) {
             Coord monPos = floors.singleRandom(rng);
             floors.remove(monPos);
@@ -875,6 +881,9 @@ public class PathfindingStressTest extends ApplicationAdapter {
 //            monster.setPackedColor(ColorTools.floatGetHSV(rng.nextFloat(), 0.75f, 0.8f, 0f));
             // new Color().fromHsv(rng.nextFloat(), 0.75f, 0.8f));
             monsters.put(monPos, monster);
+            occupancy.add(monPos, monster);
+            // every monster moves once per player turn, as they always have here
+            scheduler.wake(scheduler.add(monster, TurnScheduler.NORMAL));
         }
         //When a path is confirmed by clicking, we draw from this List to find which cell is next to move into.
         awaitedMoves = new ArrayList<>(200);
@@ -915,34 +924,32 @@ public class PathfindingStressTest extends ApplicationAdapter {
 
     private void postMove() {
         phase = Phase.MONSTER_ANIM;
-        // in some cases you can use keySet() to get a Set of keys, but that makes a read-only view, and we want
-        // a copy of the key set that we can edit (so monsters don't move into each others' spaces)
-//        OrderedSet<Coord> monplaces = monsters.keysAsOrderedSet();
-        int monCount = monsters.size();
-
         rng.shuffleInPlace(floorArray);
-        for (int ci = 0; ci < monCount; ci++) {
-            Coord pos = monsters.firstKey();
-            AnimatedGlider mon = monsters.removeFirst();
+        // only the monsters due to act this turn are visited, earliest first; a monster's position is where it ended
+        // its last move
+        final long end = scheduler.getTime() + TurnScheduler.NORMAL;
+        int ci = 0;
+        for (int slot = scheduler.next(end); slot >= 0; slot = scheduler.next(end)) {
+            AnimatedGlider mon = scheduler.get(slot);
+            Coord pos = mon.end;
+            // taken out so it doesn't block its own path; put back below
+            monsters.remove(pos);
             getToPlayer.clearGoals();
-            GOAL[0] = floorArray[ci];
+            GOAL[0] = floorArray[ci++ % floorArray.length];
             awaitedMoves.clear();
             getToPlayer.findPath(awaitedMoves, 1, 7, monsters.keySet(), null, pos, GOAL);
             if (!awaitedMoves.isEmpty()) {
                 Coord tmp = awaitedMoves.get(0);
-                // if we would move into the player, instead damage the player and give newMons the current
-                // position of this monster.
+                // if we would move into the goal, stay put instead
                 if (tmp.x == GOAL[0].x && tmp.y == GOAL[0].y) {
                     monsters.put(pos, mon);
                 }
-                // otherwise store the new position in newMons.
                 else {
-                    // alter is a method on OrderedMap and OrderedSet that changes a key in-place
-                    monsters.alter(pos, tmp);
                     mon.start = pos;
                     mon.end = tmp;
                     mon.change = 0f;
                     monsters.put(tmp, mon);
+                    occupancy.move(pos, tmp);
                 }
             } else {
                 monsters.put(pos, mon);
@@ -971,12 +978,10 @@ public class PathfindingStressTest extends ApplicationAdapter {
         }
         batch.setPackedColor(FLOAT_WHITE);
         AnimatedGlider monster;
-        for (int i = 0; i < bigWidth; i++) {
-            for (int j = 0; j < bigHeight; j++) {
-                if ((monster = monsters.get(Coord.get(i, j))) != null) {
-                    batch.draw(monster.animate(time), monster.getX() * cellWidth, monster.getY() * cellHeight);
-                }
-            }
+        // every monster is drawn, so walk the monsters instead of checking every cell of the map for one
+        for (int slot = occupancy.first(); slot >= 0; slot = occupancy.next(slot)) {
+            monster = occupancy.itemAt(slot);
+            batch.draw(monster.animate(time), monster.getX() * cellWidth, monster.getY() * cellHeight);
         }
         Gdx.graphics.setTitle(Gdx.graphics.getFramesPerSecond() + " FPS");
     }
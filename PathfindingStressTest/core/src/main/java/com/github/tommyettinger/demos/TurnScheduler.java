@@ -0,0 +1,295 @@
+package com.github.tommyettinger.demos;
+
+/**
+ * Decides which actor acts next, by the time each one is due to act again, so a turn only touches the actors that act
+ * in it. Each actor has a delay, the time between its actions; {@link #NORMAL} is one player turn, so an actor with a
+ * delay of 50 acts twice per turn and one with 200 acts every other turn.
+ * <br>
+ * Awake actors are kept in a binary min-heap keyed by the time of their next action. Actors due at the same time act in
+ * the order they were scheduled, so the same calls always produce the same order, which replays depend on. Actors that
+ * are asleep aren't in the heap at all, so thousands of idle creatures cost nothing until something calls
+ * {@link #wake(int)} on them.
+ * <br>
+ * Actors are identified by a slot, given by {@link #add(Object, int)}, which stays the same until the actor is removed.
+ * Run one player turn like this:
+ * <pre>
+ * long end = scheduler.getTime() + TurnScheduler.NORMAL;
+ * for (int slot = scheduler.next(end); slot >= 0; slot = scheduler.next(end)) {
+ *     T actor = scheduler.get(slot);
+ *     // act, then optionally sleep(slot) or postpone(slot, extraTime)
+ * }
+ * </pre>
+ */
+public class TurnScheduler<T> {
+    /**
+     * The delay of an actor that acts once per player turn.
+     */
+    public static final int NORMAL = 100;
+
+    private static final int ASLEEP = -1, FREE = -2;
+
+    private Object[] items;
+    private int[] delays;
+    private long[] times, orders;
+    /**
+     * Where each slot is in {@link #heap}, or {@link #ASLEEP}, or {@link #FREE} for an unused slot.
+     */
+    private int[] heapIndex;
+    private int[] heap;
+    private int heapSize = 0, used = 0, size = 0;
+    // free slots are chained through delays, which an unused slot has no need for
+    private int freeHead = -1;
+    private long time = 0L, sequence = 0L;
+
+    public TurnScheduler() {
+        this(16);
+    }
+
+    public TurnScheduler(int capacity) {
+        capacity = Math.max(capacity, 1);
+        items = new Object[capacity];
+        delays = new int[capacity];
+        times = new long[capacity];
+        orders = new long[capacity];
+        heapIndex = new int[capacity];
+        heap = new int[capacity];
+    }
+
+    /**
+     * Adds an actor, asleep; call {@link #wake(int)} to have it start acting.
+     * @param item the actor, or whatever the caller needs to find it (such as its position)
+     * @param delay the time between its actions; {@link #NORMAL} for once per turn
+     * @return the slot that identifies this actor from now on
+     */
+    public int add(T item, int delay) {
+        int slot;
+        if (freeHead >= 0) {
+            slot = freeHead;
+            freeHead = delays[slot];
+        } else {
+            if (used == items.length)
+                resize(used << 1);
+            slot = used++;
+        }
+        items[slot] = item;
+        delays[slot] = Math.max(delay, 1);
+        times[slot] = time;
+        heapIndex[slot] = ASLEEP;
+        size++;
+        return slot;
+    }
+
+    /**
+     * Removes an actor, such as one that died. Its slot may be given to a later {@link #add(Object, int)}.
+     * @param slot a slot from {@link #add(Object, int)}
+     */
+    public void remove(int slot) {
+        if (heapIndex[slot] == FREE)
+            return;
+        if (heapIndex[slot] >= 0)
+            removeAt(heapIndex[slot]);
+        items[slot] = null;
+        heapIndex[slot] = FREE;
+        delays[slot] = freeHead;
+        freeHead = slot;
+        size--;
+    }
+
+    /**
+     * Wakes an actor so it acts as soon as possible, at the current time. Does nothing if it is already awake.
+     * @param slot a slot from {@link #add(Object, int)}
+     */
+    public void wake(int slot) {
+        wake(slot, 0);
+    }
+
+    /**
+     * Wakes an actor so it first acts after {@code wait} time has passed. Does nothing if it is already awake.
+     * @param slot a slot from {@link #add(Object, int)}
+     * @param wait how long from the current time until it acts; 0 to act as soon as possible
+     */
+    public void wake(int slot, int wait) {
+        if (heapIndex[slot] != ASLEEP)
+            return;
+        schedule(slot, time + Math.max(wait, 0));
+    }
+
+    /**
+     * Puts an actor to sleep; it won't act, and costs nothing, until {@link #wake(int)} is called on it.
+     * @param slot a slot from {@link #add(Object, int)}
+     */
+    public void sleep(int slot) {
+        if (heapIndex[slot] >= 0) {
+            removeAt(heapIndex[slot]);
+            heapIndex[slot] = ASLEEP;
+        }
+    }
+
+    /**
+     * Moves an awake actor's next action later, such as after an action that takes longer than usual.
+     * @param slot a slot from {@link #add(Object, int)}
+     * @param amount how much later it should act
+     */
+    public void postpone(int slot, int amount) {
+        if (heapIndex[slot] >= 0 && amount > 0) {
+            removeAt(heapIndex[slot]);
+            schedule(slot, times[slot] + amount);
+        }
+    }
+
+    /**
+     * Gets the next actor due to act before {@code end}, moves the current time up to when it acts, and schedules its
+     * following action one delay later. If no actor is due before then, this moves the current time up to end. Turns
+     * are half-open: an actor due exactly at end acts in the next turn, so one with a delay of {@link #NORMAL} acts
+     * exactly once in each turn of that length.
+     * @param end the time the current turn ends at; no actor acts at this time or later
+     * @return the slot of the actor that acts now, or -1 if none is due before end
+     */
+    public int next(long end) {
+        if (heapSize == 0 || times[heap[0]] >= end) {
+            if (end > time)
+                time = end;
+            return -1;
+        }
+        final int slot = heap[0];
+        time = times[slot];
+        times[slot] = time + delays[slot];
+        orders[slot] = sequence++;
+        siftDown(0);
+        return slot;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(int slot) {
+        return (T) items[slot];
+    }
+
+    /**
+     * Replaces what a slot holds, such as when an actor identified by its position moves.
+     * @param slot a slot from {@link #add(Object, int)}
+     * @param item the new value for that slot
+     */
+    public void set(int slot, T item) {
+        items[slot] = item;
+    }
+
+    public int getDelay(int slot) {
+        return delays[slot];
+    }
+
+    /**
+     * Changes the time between an actor's actions; this takes effect after its next action.
+     * @param slot a slot from {@link #add(Object, int)}
+     * @param delay the time between its actions; {@link #NORMAL} for once per turn
+     */
+    public void setDelay(int slot, int delay) {
+        delays[slot] = Math.max(delay, 1);
+    }
+
+    public boolean isAwake(int slot) {
+        return heapIndex[slot] >= 0;
+    }
+
+    /**
+     * Gets the time an awake actor will act next, or the time it was last scheduled for if it is asleep.
+     */
+    public long timeOf(int slot) {
+        return times[slot];
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * @return how many actors there are, awake or asleep
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return how many actors are awake
+     */
+    public int awake() {
+        return heapSize;
+    }
+
+    private void schedule(int slot, long when) {
+        times[slot] = when;
+        orders[slot] = sequence++;
+        final int at = heapSize++;
+        heap[at] = slot;
+        heapIndex[slot] = at;
+        siftUp(at);
+    }
+
+    private void removeAt(int at) {
+        final int last = heap[--heapSize];
+        if (at < heapSize) {
+            heap[at] = last;
+            heapIndex[last] = at;
+            siftUp(at);
+            siftDown(heapIndex[last]);
+        }
+    }
+
+    private boolean before(int a, int b) {
+        return times[a] < times[b] || (times[a] == times[b] && orders[a] < orders[b]);
+    }
+
+    private void siftUp(int at) {
+        final int slot = heap[at];
+        while (at > 0) {
+            final int parent = (at - 1) >>> 1;
+            final int p = heap[parent];
+            if (!before(slot, p))
+                break;
+            heap[at] = p;
+            heapIndex[p] = at;
+            at = parent;
+        }
+        heap[at] = slot;
+        heapIndex[slot] = at;
+    }
+
+    private void siftDown(int at) {
+        final int slot = heap[at];
+        while (true) {
+            int child = (at << 1) + 1;
+            if (child >= heapSize)
+                break;
+            if (child + 1 < heapSize && before(heap[child + 1], heap[child]))
+                child++;
+            final int c = heap[child];
+            if (!before(c, slot))
+                break;
+            heap[at] = c;
+            heapIndex[c] = at;
+            at = child;
+        }
+        heap[at] = slot;
+        heapIndex[slot] = at;
+    }
+
+    private void resize(int capacity) {
+        Object[] newItems = new Object[capacity];
+        System.arraycopy(items, 0, newItems, 0, used);
+        items = newItems;
+        int[] newDelays = new int[capacity];
+        System.arraycopy(delays, 0, newDelays, 0, used);
+        delays = newDelays;
+        long[] newTimes = new long[capacity];
+        System.arraycopy(times, 0, newTimes, 0, used);
+        times = newTimes;
+        long[] newOrders = new long[capacity];
+        System.arraycopy(orders, 0, newOrders, 0, used);
+        orders = newOrders;
+        int[] newHeapIndex = new int[capacity];
+        System.arraycopy(heapIndex, 0, newHeapIndex, 0, used);
+        heapIndex = newHeapIndex;
+        int[] newHeap = new int[capacity];
+        System.arraycopy(heap, 0, newHeap, 0, heapSize);
+        heap = newHeap;
+    }
+}
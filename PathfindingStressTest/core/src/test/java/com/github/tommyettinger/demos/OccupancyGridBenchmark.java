@@ -0,0 +1,135 @@
+package com.github.tommyettinger.demos;
+
+import squidpony.squidmath.Coord;
+import squidpony.squidmath.GWTRNG;
+import squidpony.squidmath.OrderedMap;
+
+import java.util.ArrayList;
+
+/**
+ * Times the per-cell work done by a render loop like {@link PathfindingStressTest#putMap()}: one entity lookup and
+ * one path check for every cell in a 128x128 grid, with between 100 and 10,000 entities. The "map" timings use an
+ * OrderedMap with {@code get(Coord.get(x, y))} and an ArrayList with {@code contains()}, as the demos used to; the
+ * "grid" timings use {@link OccupancyGrid} for both per cell. The "walk" timings check the path per cell but visit
+ * entities by walking the OccupancyGrid's slots, as the demos now draw them. Before timing, this checks that the map
+ * and grid give the same answers for every cell and iterate entities in the same order.
+ * <br>
+ * This is a plain main() so it can be run from an IDE without any test framework.
+ */
+public class OccupancyGridBenchmark {
+    private static final int WIDTH = 128, HEIGHT = 128, FRAMES = 200, PATH_LENGTH = 40;
+
+    public static void main(String[] args) {
+        Coord.expandPoolTo(WIDTH, HEIGHT);
+        GWTRNG rng = new GWTRNG(12345);
+        for (int count : new int[]{100, 1000, 5000, 10000}) {
+            OrderedMap<Coord, Integer> map = new OrderedMap<>(count);
+            OccupancyGrid<Integer> grid = new OccupancyGrid<>(WIDTH, HEIGHT, count);
+            while (map.size() < count) {
+                Coord c = Coord.get(rng.nextInt(WIDTH), rng.nextInt(HEIGHT));
+                if (map.containsKey(c)) continue;
+                map.put(c, map.size());
+                grid.add(c, map.get(c));
+            }
+            // shuffle some entities around and remove a few, using the same hooks a game would
+            for (int i = 0; i < count; i++) {
+                Coord from = map.keyAt(rng.nextInt(map.size()));
+                Coord to = Coord.get(rng.nextInt(WIDTH), rng.nextInt(HEIGHT));
+                if (map.containsKey(to)) continue;
+                if ((i & 15) == 0) {
+                    map.remove(from);
+                    grid.remove(from);
+                } else {
+                    map.alter(from, to);
+                    grid.move(from, to);
+                }
+            }
+            ArrayList<Coord> path = new ArrayList<>(PATH_LENGTH);
+            for (int i = 0; i < PATH_LENGTH; i++) {
+                path.add(Coord.get(rng.nextInt(WIDTH), rng.nextInt(HEIGHT)));
+            }
+
+            check(map, grid, path);
+
+            long mapResult = 0, gridResult = 0, walkResult = 0;
+            for (int warm = 0; warm < 3; warm++) {
+                mapResult += renderWithMap(map, path);
+                gridResult += renderWithGrid(grid, path);
+                walkResult += renderByWalking(grid, path);
+            }
+            long startMap = System.nanoTime();
+            for (int f = 0; f < FRAMES; f++) mapResult += renderWithMap(map, path);
+            long mapNanos = System.nanoTime() - startMap;
+            long startGrid = System.nanoTime();
+            for (int f = 0; f < FRAMES; f++) gridResult += renderWithGrid(grid, path);
+            long gridNanos = System.nanoTime() - startGrid;
+            long startWalk = System.nanoTime();
+            for (int f = 0; f < FRAMES; f++) walkResult += renderByWalking(grid, path);
+            long walkNanos = System.nanoTime() - startWalk;
+            if (mapResult != gridResult || mapResult != walkResult)
+                throw new IllegalStateException("Render loops disagree: " + mapResult + " vs. " + gridResult + " vs. " + walkResult);
+            System.out.printf("%5d entities: map %8.3f ms/frame, grid %8.3f ms/frame, walk %8.3f ms/frame%n",
+                    map.size(), mapNanos * 1E-6 / FRAMES, gridNanos * 1E-6 / FRAMES, walkNanos * 1E-6 / FRAMES);
+        }
+    }
+
+    private static void check(OrderedMap<Coord, Integer> map, OccupancyGrid<Integer> grid, ArrayList<Coord> path) {
+        if (map.size() != grid.size())
+            throw new IllegalStateException("Sizes differ: " + map.size() + " vs. " + grid.size());
+        grid.setPath(path);
+        for (int x = 0; x < WIDTH; x++) {
+            for (int y = 0; y < HEIGHT; y++) {
+                Coord c = Coord.get(x, y);
+                if (map.get(c) != grid.get(x, y))
+                    throw new IllegalStateException("Entities differ at " + c);
+                if (path.contains(c) != grid.onPath(x, y))
+                    throw new IllegalStateException("Path membership differs at " + c);
+            }
+        }
+        int i = 0;
+        for (int slot = grid.first(); slot >= 0; slot = grid.next(slot), i++) {
+            if (map.keyAt(i) != grid.positionAt(slot) || map.getAt(i) != grid.itemAt(slot))
+                throw new IllegalStateException("Iteration order differs at index " + i);
+        }
+    }
+
+    private static long renderWithMap(OrderedMap<Coord, Integer> map, ArrayList<Coord> path) {
+        long result = 0;
+        Integer e;
+        for (int x = 0; x < WIDTH; x++) {
+            for (int y = 0; y < HEIGHT; y++) {
+                Coord c = Coord.get(x, y);
+                if (path.contains(c)) result += 3;
+                if ((e = map.get(c)) != null) result += e;
+            }
+        }
+        return result;
+    }
+
+    private static long renderWithGrid(OccupancyGrid<Integer> grid, ArrayList<Coord> path) {
+        long result = 0;
+        Integer e;
+        grid.setPath(path);
+        for (int x = 0; x < WIDTH; x++) {
+            for (int y = 0; y < HEIGHT; y++) {
+                if (grid.onPath(x, y)) result += 3;
+                if ((e = grid.get(x, y)) != null) result += e;
+            }
+        }
+        return result;
+    }
+
+    private static long renderByWalking(OccupancyGrid<Integer> grid, ArrayList<Coord> path) {
+        long result = 0;
+        grid.setPath(path);
+        for (int x = 0; x < WIDTH; x++) {
+            for (int y = 0; y < HEIGHT; y++) {
+                if (grid.onPath(x, y)) result += 3;
+            }
+        }
+        for (int slot = grid.first(); slot >= 0; slot = grid.next(slot)) {
+            result += grid.itemAt(slot);
+        }
+        return result;
+    }
+}
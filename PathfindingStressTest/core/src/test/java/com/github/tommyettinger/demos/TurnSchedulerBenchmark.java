@@ -0,0 +1,267 @@
+package com.github.tommyettinger.demos;
+
+import squidpony.squidmath.Coord;
+import squidpony.squidmath.GWTRNG;
+import squidpony.squidmath.OrderedMap;
+import squidpony.squidmath.OrderedSet;
+
+import java.util.Arrays;
+
+/**
+ * Times whole turns for 10,000 to 100,000 actors of which only a small fraction is awake, first with a fixed loop over
+ * every actor that skips the idle ones and gives the rest energy, as {@code PathfindingStressTest.postMove()} and the
+ * Tsar demos did, then with {@link TurnScheduler}. In both, a few actors wake up every turn and each one goes back to
+ * sleep after acting {@link #AWAKE_ACTIONS} times, which keeps the awake fraction about steady. Before timing,
+ * this checks the scheduler against a slow reference that scans every actor for the earliest one, through random adds,
+ * removes, sleeps, wakes, postpones and speed changes, checks that whole turns give each actor one action per
+ * {@link TurnScheduler#NORMAL} of delay, and checks that two runs from the same seed act in the same order.
+ * <br>
+ * This is a plain main() so it can be run from an IDE without any test framework.
+ */
+public class TurnSchedulerBenchmark {
+    private static final int TURNS = 200, WIDTH = 400, AWAKE_ACTIONS = 20;
+    private static final int[] DELAYS = {50, 100, 100, 100, 150, 200};
+    // keeps the work done per action from being optimized away
+    private static long sink = 0L;
+
+    public static void main(String[] args) {
+        Coord.expandPoolTo(WIDTH, 250);
+        checkAgainstReference();
+        checkActionsPerTurn();
+        if (run(12345L) != run(12345L))
+            throw new IllegalStateException("Two runs from the same seed acted in different orders.");
+        System.out.println("The scheduler matched the reference, and two runs from one seed matched each other.");
+
+        for (int count : new int[]{10000, 30000, 100000}) {
+            for (double fraction : new double[]{0.01, 0.05}) {
+                // warm up both before timing them
+                fixedLoop(count, fraction, 1L);
+                scheduled(count, fraction, 1L);
+                long start = System.nanoTime();
+                long loopActions = fixedLoop(count, fraction, 2L);
+                long loopNanos = System.nanoTime() - start;
+                start = System.nanoTime();
+                long schedulerActions = scheduled(count, fraction, 2L);
+                long schedulerNanos = System.nanoTime() - start;
+                System.out.printf("%6d actors, %2.0f%% awake: fixed loop %8.2f us/turn (%6d actions), scheduler %8.2f us/turn (%6d actions)%n",
+                        count, fraction * 100, loopNanos * 1E-3 / TURNS, loopActions, schedulerNanos * 1E-3 / TURNS, schedulerActions);
+            }
+        }
+    }
+
+    /**
+     * Like the demos' postMove(): copies the key set of an OrderedMap every turn, then takes every actor out of it, looks
+     * it up, and puts it back, whether or not it is awake. Awake actors gain a turn's worth of energy and act once for
+     * every delay's worth.
+     */
+    private static long fixedLoop(int count, double fraction, long seed) {
+        GWTRNG rng = new GWTRNG(seed);
+        OrderedMap<Coord, Actor> monsters = new OrderedMap<>(count);
+        Actor[] actors = new Actor[count];
+        for (int i = 0; i < count; i++) {
+            actors[i] = new Actor(DELAYS[rng.nextInt(DELAYS.length)]);
+            if (rng.nextDouble() < fraction)
+                actors[i].left = AWAKE_ACTIONS;
+            monsters.put(Coord.get(i % WIDTH, i / WIDTH), actors[i]);
+        }
+        int wakes = Math.max(1, (int) (count * fraction / AWAKE_ACTIONS));
+        long actions = 0L, checksum = 0L;
+        for (int turn = 0; turn < TURNS; turn++) {
+            OrderedSet<Coord> places = monsters.keysAsOrderedSet();
+            for (int ci = 0; ci < count; ci++) {
+                Coord pos = places.removeFirst();
+                Actor actor = monsters.get(pos);
+                if (actor.left > 0) {
+                    actor.energy += TurnScheduler.NORMAL;
+                    while (actor.left > 0 && actor.energy >= actor.delay) {
+                        actor.energy -= actor.delay;
+                        actor.left--;
+                        checksum += pos.x;
+                        actions++;
+                    }
+                }
+                places.add(pos);
+            }
+            for (int w = 0; w < wakes; w++) {
+                Actor actor = actors[rng.nextInt(count)];
+                if (actor.left == 0)
+                    actor.left = AWAKE_ACTIONS;
+            }
+        }
+        sink += checksum;
+        return actions;
+    }
+
+    private static long scheduled(int count, double fraction, long seed) {
+        GWTRNG rng = new GWTRNG(seed);
+        TurnScheduler<Actor> scheduler = new TurnScheduler<>(count);
+        for (int i = 0; i < count; i++) {
+            int slot = scheduler.add(new Actor(DELAYS[rng.nextInt(DELAYS.length)]), 0);
+            scheduler.setDelay(slot, scheduler.get(slot).delay);
+            if (rng.nextDouble() < fraction) {
+                scheduler.get(slot).left = AWAKE_ACTIONS;
+                scheduler.wake(slot, rng.nextInt(scheduler.getDelay(slot)));
+            }
+        }
+        int wakes = Math.max(1, (int) (count * fraction / AWAKE_ACTIONS));
+        long actions = 0L, checksum = 0L;
+        for (int turn = 0; turn < TURNS; turn++) {
+            long end = scheduler.getTime() + TurnScheduler.NORMAL;
+            for (int slot = scheduler.next(end); slot >= 0; slot = scheduler.next(end)) {
+                Actor actor = scheduler.get(slot);
+                if (--actor.left == 0)
+                    scheduler.sleep(slot);
+                checksum += slot % WIDTH;
+                actions++;
+            }
+            for (int w = 0; w < wakes; w++) {
+                int slot = rng.nextInt(count);
+                if (!scheduler.isAwake(slot)) {
+                    scheduler.get(slot).left = AWAKE_ACTIONS;
+                    scheduler.wake(slot);
+                }
+            }
+        }
+        sink += checksum;
+        return actions;
+    }
+
+    private static class Actor {
+        final int delay;
+        int energy, left;
+
+        Actor(int delay) {
+            this.delay = delay;
+        }
+    }
+
+    /**
+     * Runs a mixed workload and hashes the order actors acted in.
+     */
+    private static long run(long seed) {
+        GWTRNG rng = new GWTRNG(seed);
+        TurnScheduler<Integer> scheduler = new TurnScheduler<>();
+        for (int i = 0; i < 500; i++) {
+            int slot = scheduler.add(i, DELAYS[rng.nextInt(DELAYS.length)]);
+            if (rng.nextBoolean())
+                scheduler.wake(slot);
+        }
+        long hash = 0L;
+        for (int turn = 0; turn < 100; turn++) {
+            long end = scheduler.getTime() + TurnScheduler.NORMAL;
+            for (int slot = scheduler.next(end); slot >= 0; slot = scheduler.next(end)) {
+                hash = hash * 31 + slot * 1000003L + scheduler.getTime();
+                if (rng.nextInt(50) == 0)
+                    scheduler.sleep(slot);
+            }
+            scheduler.wake(rng.nextInt(500));
+        }
+        return hash;
+    }
+
+    /**
+     * Runs whole turns of {@link TurnScheduler#NORMAL}, as the demos do, with actors woken at different points of the
+     * first turn, some right at its start. Every turn, an actor with a delay of NORMAL must act exactly once, one with
+     * half that must act twice (after the first turn, which it may have joined late), and one with twice that must act
+     * in every other turn. An actor due exactly when a turn ends belongs to the next turn, or this can't hold.
+     */
+    private static void checkActionsPerTurn() {
+        GWTRNG rng = new GWTRNG(7L);
+        final int count = 300;
+        final int[] delays = {TurnScheduler.NORMAL >> 1, TurnScheduler.NORMAL, TurnScheduler.NORMAL << 1};
+        TurnScheduler<Integer> scheduler = new TurnScheduler<>(count);
+        for (int i = 0; i < count; i++) {
+            int slot = scheduler.add(i, delays[i % delays.length]);
+            scheduler.wake(slot, i < delays.length ? 0 : rng.nextInt(TurnScheduler.NORMAL));
+        }
+        int[] acted = new int[count];
+        for (int turn = 0; turn < 50; turn++) {
+            Arrays.fill(acted, 0);
+            long end = scheduler.getTime() + TurnScheduler.NORMAL;
+            for (int slot = scheduler.next(end); slot >= 0; slot = scheduler.next(end)) {
+                acted[slot]++;
+            }
+            for (int slot = 0; slot < count; slot++) {
+                final int delay = scheduler.getDelay(slot);
+                final int expected = delay == TurnScheduler.NORMAL ? 1
+                        : delay < TurnScheduler.NORMAL ? (turn == 0 ? acted[slot] : 2)
+                        : 1 - (turn & 1);
+                if (acted[slot] != expected || (turn == 0 && acted[slot] == 0))
+                    throw new IllegalStateException("In turn " + turn + ", an actor with a delay of " + delay
+                            + " acted " + acted[slot] + " times instead of " + expected);
+            }
+        }
+    }
+
+    private static void checkAgainstReference() {
+        GWTRNG rng = new GWTRNG(42L);
+        TurnScheduler<Integer> scheduler = new TurnScheduler<>(4);
+        int capacity = 400;
+        // the reference: parallel arrays scanned in full for the earliest (time, order) pair
+        boolean[] live = new boolean[capacity], awake = new boolean[capacity];
+        long[] times = new long[capacity], orders = new long[capacity];
+        int[] delays = new int[capacity];
+        long time = 0L, sequence = 0L;
+        for (int step = 0; step < 20000; step++) {
+            int op = rng.nextInt(10);
+            if (op == 0 && scheduler.size() < capacity) {
+                int delay = DELAYS[rng.nextInt(DELAYS.length)];
+                int slot = scheduler.add(step, delay);
+                if (live[slot])
+                    throw new IllegalStateException("Slot " + slot + " was given out twice.");
+                live[slot] = true;
+                awake[slot] = false;
+                delays[slot] = delay;
+                times[slot] = time;
+            } else if (op == 1 || op == 2) {
+                int slot = rng.nextInt(capacity);
+                if (!live[slot]) continue;
+                if (op == 1) {
+                    scheduler.remove(slot);
+                    live[slot] = false;
+                } else {
+                    scheduler.sleep(slot);
+                    awake[slot] = false;
+                }
+            } else if (op == 3) {
+                int slot = rng.nextInt(capacity), wait = rng.nextInt(3) * 25;
+                if (!live[slot] || awake[slot]) continue;
+                scheduler.wake(slot, wait);
+                awake[slot] = true;
+                times[slot] = time + wait;
+                orders[slot] = sequence++;
+            } else if (op == 4) {
+                int slot = rng.nextInt(capacity), amount = 1 + rng.nextInt(60);
+                if (!live[slot] || !awake[slot]) continue;
+                scheduler.postpone(slot, amount);
+                times[slot] += amount;
+                orders[slot] = sequence++;
+            } else if (op == 5) {
+                int slot = rng.nextInt(capacity), delay = DELAYS[rng.nextInt(DELAYS.length)];
+                if (!live[slot]) continue;
+                scheduler.setDelay(slot, delay);
+                delays[slot] = delay;
+            } else {
+                long end = time + rng.nextInt(40);
+                int expected = -1;
+                for (int i = 0; i < capacity; i++) {
+                    if (live[i] && awake[i] && times[i] < end && (expected < 0 || times[i] < times[expected]
+                            || (times[i] == times[expected] && orders[i] < orders[expected])))
+                        expected = i;
+                }
+                int actual = scheduler.next(end);
+                if (actual != expected)
+                    throw new IllegalStateException("At step " + step + ", the scheduler chose " + actual + " instead of " + expected);
+                if (expected >= 0) {
+                    time = times[expected];
+                    times[expected] = time + delays[expected];
+                    orders[expected] = sequence++;
+                } else {
+                    time = Math.max(time, end);
+                }
+                if (scheduler.getTime() != time)
+                    throw new IllegalStateException("At step " + step + ", the time was " + scheduler.getTime() + " instead of " + time);
+            }
+        }
+    }
+}
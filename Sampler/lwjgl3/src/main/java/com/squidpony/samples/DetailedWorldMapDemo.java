@@ -75,6 +75,7 @@ public class DetailedWorldMapDemo extends ApplicationAdapter {
     private float nation = 0f;
     private long ttg = 0; // time to generate
     private WorldMapGenerator.DetailedBiomeMapper dbm;
+    private WorldZoomCache zoomCache;
     private FantasyPoliticalMapper fpm;
     private char[][] political;
     
@@ -212,6 +213,7 @@ public class DetailedWorldMapDemo extends ApplicationAdapter {
         //cloudNoise2 = new Noise.Ridged4D(SeededNoise.instance, 3, 6.5);
         //world = new WorldMapGenerator.TilingMap(seed, width, height, WhirlingNoise.instance, 0.9);
         dbm = new WorldMapGenerator.DetailedBiomeMapper();
+        zoomCache = new WorldZoomCache(world, dbm, 4);
         fpm = new FantasyPoliticalMapper();
         input = new SquidInput(new SquidInput.KeyHandler() {
             @Override
@@ -275,8 +277,7 @@ public class DetailedWorldMapDemo extends ApplicationAdapter {
     public void zoomIn(int zoomX, int zoomY)
     {
         long startTime = System.currentTimeMillis();
-        world.zoomIn(1, zoomX, zoomY);
-        dbm.makeBiomes(world);
+        zoomCache.zoomIn(zoomX, zoomY);
         //political = fpm.adjustZoom();//.generate(seed + 1000L, world, dbm, null, 50, 1.0);
 //        System.out.println(StringKit.hex(CrossHash.hash64(world.heightCodeData)) + " " + StringKit.hex(CrossHash.hash64(dbm.biomeCodeData)));
         ttg = System.currentTimeMillis() - startTime;
@@ -288,8 +289,7 @@ public class DetailedWorldMapDemo extends ApplicationAdapter {
     public void zoomOut(int zoomX, int zoomY)
     {
         long startTime = System.currentTimeMillis();
-        world.zoomOut(1, zoomX, zoomY);
-        dbm.makeBiomes(world);
+        zoomCache.zoomOut(zoomX, zoomY);
         //political = fpm.adjustZoom();//.generate(seed + 1000L, world, dbm, null, 50, 1.0);
 //        System.out.println(StringKit.hex(CrossHash.hash64(world.heightCodeData)) + " " + StringKit.hex(CrossHash.hash64(dbm.biomeCodeData)));
         ttg = System.currentTimeMillis() - startTime;
@@ -302,6 +302,7 @@ public class DetailedWorldMapDemo extends ApplicationAdapter {
         world.generate(1.0 + NumberTools.formCurvedDouble((seed ^ 0x123456789ABCDL) * 0x12345689ABL) * 0.3,
                 LinnormRNG.determineDouble(seed * 0x12345L + 0x54321L) * 0.2 + 0.9, seed);
         dbm.makeBiomes(world);
+        zoomCache.reset(seed);
         //randomizeColors(seed);
         //political = fpm.generate(seed + 1000L, world, dbm, null, 50, 1.0);
 //        System.out.println(StringKit.hex(CrossHash.hash64(world.heightCodeData)) + " " + StringKit.hex(CrossHash.hash64(dbm.biomeCodeData)));
@@ -314,6 +315,7 @@ public class DetailedWorldMapDemo extends ApplicationAdapter {
         world.setCenterLongitude((System.currentTimeMillis() & 0xFFFFFFF) * 0.0002);
         world.generate(world.landModifier, world.heatModifier, seed);
         dbm.makeBiomes(world);
+        zoomCache.invalidate();
         //political = fpm.generate(seed + 1000L, world, dbm, null, 50, 1.0);
 //        System.out.println(StringKit.hex(CrossHash.hash64(world.heightCodeData)) + " " + StringKit.hex(CrossHash.hash64(dbm.biomeCodeData)));
         ttg = System.currentTimeMillis() - startTime;
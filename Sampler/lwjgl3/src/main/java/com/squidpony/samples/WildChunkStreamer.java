@@ -0,0 +1,436 @@
+package com.squidpony.samples;
+
+import squidpony.squidgrid.mapping.WildMap;
+import squidpony.squidgrid.mapping.WorldMapGenerator;
+import squidpony.squidmath.IntPointHash;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Lets a wilderness view walk across the world map one cell at a time, without generating any {@link WildMap} more
+ * than once while it stays cached.
+ * <br>
+ * Each world map cell owns one chunk of wilderness, {@code chunkWidth} by {@code chunkHeight} cells, made by a single
+ * WildMap using that cell's biome and a hash of the cell's position. Chunks are kept in a least-recently-used cache.
+ * Showing a view copies cells out of the chunks it overlaps; only the cells within {@code seam} cells of a chunk edge
+ * are blended, by picking (with a fixed per-cell hash) either their own chunk or the mirrored cell across the edge,
+ * more often their own chunk the further they are from the edge. The chunks next to the view in the direction it last
+ * moved are generated ahead of time on a worker thread.
+ * <br>
+ * Floor and content indices from every chunk are remapped into one shared list of type names, so {@link #getView()}
+ * can be given to a {@link squidpony.squidgrid.gui.gdx.WildMapView} like any other WildMap.
+ */
+public class WildChunkStreamer {
+    private static final class Chunk {
+        final int chunkX, chunkY, epoch;
+        final int[][] floors, content;
+
+        Chunk(int chunkX, int chunkY, int epoch, int width, int height) {
+            this.chunkX = chunkX;
+            this.chunkY = chunkY;
+            this.epoch = epoch;
+            floors = new int[width][height];
+            content = new int[width][height];
+        }
+    }
+
+    /**
+     * A WildMap whose {@link #generate()} fills it with whatever part of the streamed wilderness is in view.
+     */
+    public class View extends WildMap {
+        View(int width, int height) {
+            super(width, height, 0, 1, 2);
+        }
+
+        @Override
+        public void generate() {
+            synchronized (floorNames) {
+                floorTypes.clear();
+                floorTypes.addAll(floorNames);
+                contentTypes.clear();
+                contentTypes.addAll(contentNames);
+            }
+            compose(floors, content);
+        }
+    }
+
+    public final int chunkWidth, chunkHeight, viewWidth, viewHeight, seam;
+    private final int capacity;
+    private final WorldMapGenerator.DetailedBiomeMapper biomes;
+    private final int worldWidth, worldHeight;
+    private final LinkedHashMap<Long, Chunk> chunks;
+    private final HashMap<Long, Future<Chunk>> pending = new HashMap<>();
+    private final ArrayList<String> floorNames = new ArrayList<>(), contentNames = new ArrayList<>();
+    private final HashMap<String, Integer> floorIndices = new HashMap<>(), contentIndices = new HashMap<>();
+    /**
+     * Chance out of 65536 for a cell at a given distance from a chunk edge to show the chunk across the edge instead.
+     */
+    private final int[] seamThresholds;
+    private final ExecutorService worker;
+    private final View view;
+    private Chunk[] window = new Chunk[16];
+    private int seed, epoch;
+    private int originX, originY, lastDX, lastDY;
+    private int hits, prefetched, misses;
+
+    /**
+     * @param biomes a biome mapper that has already run makeBiomes() on the world map; chunks use its biome codes
+     * @param worldWidth the width of the world map, in cells; chunk positions outside it use the nearest edge biome
+     * @param worldHeight the height of the world map, in cells
+     * @param chunkWidth how wide the wilderness is for one world map cell
+     * @param chunkHeight how tall the wilderness is for one world map cell
+     * @param viewWidth how wide the shown wilderness is
+     * @param viewHeight how tall the shown wilderness is
+     * @param seam how many cells on either side of a chunk edge get blended; 0 makes hard edges
+     * @param capacity how many chunks to keep; at least enough to cover the view and its neighbors is used
+     */
+    public WildChunkStreamer(WorldMapGenerator.DetailedBiomeMapper biomes, int worldWidth, int worldHeight,
+                             int chunkWidth, int chunkHeight, int viewWidth, int viewHeight, int seam, int capacity) {
+        this.biomes = biomes;
+        this.worldWidth = worldWidth;
+        this.worldHeight = worldHeight;
+        this.chunkWidth = chunkWidth;
+        this.chunkHeight = chunkHeight;
+        this.viewWidth = viewWidth;
+        this.viewHeight = viewHeight;
+        this.seam = Math.max(0, Math.min(seam, Math.min(chunkWidth, chunkHeight) >> 1));
+        final int across = (viewWidth + 2 * this.seam) / chunkWidth + 3, down = (viewHeight + 2 * this.seam) / chunkHeight + 3;
+        this.capacity = Math.max(capacity, across * down);
+        chunks = new LinkedHashMap<>(this.capacity * 2, 0.75f, true);
+        seamThresholds = new int[this.seam];
+        for (int i = 0; i < this.seam; i++) {
+            seamThresholds[i] = (int) (0x8000 * (1.0 - (i + 0.5) / this.seam));
+        }
+        worker = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "WildChunkStreamer");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        view = new View(viewWidth, viewHeight);
+    }
+
+    /**
+     * Drops every chunk, cached or still being made, so chunks will be made again from the biome mapper's current
+     * biomes. Call this whenever the world map is regenerated.
+     * @param seed mixed into every chunk's hash
+     */
+    public void reset(long seed) {
+        this.seed = (int) (seed ^ seed >>> 32);
+        epoch++;
+        for (Future<Chunk> f : pending.values()) {
+            f.cancel(false);
+        }
+        pending.clear();
+        chunks.clear();
+        lastDX = lastDY = 0;
+    }
+
+    /**
+     * Moves the view so it is centered on the wilderness for the given world map cell.
+     * @param worldX x of a cell on the world map
+     * @param worldY y of a cell on the world map
+     */
+    public void centerOn(int worldX, int worldY) {
+        originX = worldX * chunkWidth + (chunkWidth - viewWidth >> 1);
+        originY = worldY * chunkHeight + (chunkHeight - viewHeight >> 1);
+        lastDX = lastDY = 0;
+    }
+
+    /**
+     * Moves the view by the given number of wilderness cells, and starts making the chunks it is heading toward.
+     * @param dx how far to move right
+     * @param dy how far to move down
+     */
+    public void move(int dx, int dy) {
+        originX += dx;
+        originY += dy;
+        lastDX = Integer.signum(dx);
+        lastDY = Integer.signum(dy);
+        prefetchAhead();
+    }
+
+    public int getOriginX() {
+        return originX;
+    }
+
+    public int getOriginY() {
+        return originY;
+    }
+
+    /**
+     * @return the world map cell whose chunk holds the center of the view
+     */
+    public int getWorldX() {
+        return Math.floorDiv(originX + (viewWidth >> 1), chunkWidth);
+    }
+
+    public int getWorldY() {
+        return Math.floorDiv(originY + (viewHeight >> 1), chunkHeight);
+    }
+
+    /**
+     * Gets the WildMap that shows this streamer's view; call its generate() after moving to fill it.
+     * @return the WildMap for the view, always the same object
+     */
+    public View getView() {
+        return view;
+    }
+
+    /**
+     * @return how many chunks were already cached when the view needed them
+     */
+    public int getHits() {
+        return hits;
+    }
+
+    /**
+     * @return how many chunks the view needed that were being made, or had been made, ahead of time by the worker
+     */
+    public int getPrefetched() {
+        return prefetched;
+    }
+
+    /**
+     * @return how many chunks had to be made right away because nothing had started making them
+     */
+    public int getMisses() {
+        return misses;
+    }
+
+    public int size() {
+        return chunks.size();
+    }
+
+    /**
+     * Stops the worker thread; this can't be used after.
+     */
+    public void dispose() {
+        worker.shutdownNow();
+    }
+
+    /**
+     * Fills floors and content, each at least viewWidth by viewHeight, with the wilderness in view. Indices refer to
+     * the type lists copied into {@link #getView()} by its generate().
+     */
+    public void compose(int[][] floors, int[][] content) {
+        final int seam = this.seam;
+        final int x0 = Math.floorDiv(originX - seam, chunkWidth), x1 = Math.floorDiv(originX + viewWidth - 1 + seam, chunkWidth);
+        final int y0 = Math.floorDiv(originY - seam, chunkHeight), y1 = Math.floorDiv(originY + viewHeight - 1 + seam, chunkHeight);
+        final int across = x1 - x0 + 1, down = y1 - y0 + 1;
+        if (window.length < across * down)
+            window = new Chunk[across * down];
+        for (int cx = x0; cx <= x1; cx++) {
+            for (int cy = y0; cy <= y1; cy++) {
+                window[(cx - x0) * down + cy - y0] = obtain(cx, cy);
+            }
+        }
+        // the bulk of the view is straight copies from each chunk, one column run at a time.
+        for (int x = 0; x < viewWidth; x++) {
+            final int gx = originX + x, cx = Math.floorDiv(gx, chunkWidth), lx = gx - cx * chunkWidth;
+            for (int y = 0; y < viewHeight; ) {
+                final int gy = originY + y, cy = Math.floorDiv(gy, chunkHeight), ly = gy - cy * chunkHeight;
+                final int run = Math.min(chunkHeight - ly, viewHeight - y);
+                final Chunk c = window[(cx - x0) * down + cy - y0];
+                System.arraycopy(c.floors[lx], ly, floors[x], y, run);
+                System.arraycopy(c.content[lx], ly, content[x], y, run);
+                y += run;
+            }
+        }
+        if (seam == 0)
+            return;
+        // then only cells near a chunk edge are looked at again and maybe swapped for the cell mirrored across it.
+        for (int x = 0; x < viewWidth; x++) {
+            final int gx = originX + x, lx = Math.floorMod(gx, chunkWidth);
+            final boolean nearX = lx < seam || lx >= chunkWidth - seam;
+            for (int y = 0; y < viewHeight; y++) {
+                final int gy = originY + y, ly = Math.floorMod(gy, chunkHeight);
+                if (!nearX && ly >= seam && ly < chunkHeight - seam) {
+                    // skip straight past the middle of this chunk's column
+                    y += chunkHeight - seam - ly - 1;
+                    continue;
+                }
+                blend(floors, content, x, y, gx, gy, lx, ly, x0, y0, down);
+            }
+        }
+    }
+
+    private void blend(int[][] floors, int[][] content, int x, int y, int gx, int gy, int lx, int ly,
+                       int x0, int y0, int down) {
+        final int h = IntPointHash.hashAll(gx, gy, seed);
+        int cx = Math.floorDiv(gx, chunkWidth), cy = Math.floorDiv(gy, chunkHeight), sx = lx, sy = ly;
+        if (lx < seam) {
+            if ((h & 0xFFFF) < seamThresholds[lx]) {
+                cx--;
+                sx = chunkWidth - 1 - lx;
+            }
+        }
+        else if (lx >= chunkWidth - seam) {
+            if ((h & 0xFFFF) < seamThresholds[chunkWidth - 1 - lx]) {
+                cx++;
+                sx = chunkWidth - 1 - lx;
+            }
+        }
+        if (ly < seam) {
+            if ((h >>> 16) < seamThresholds[ly]) {
+                cy--;
+                sy = chunkHeight - 1 - ly;
+            }
+        }
+        else if (ly >= chunkHeight - seam) {
+            if ((h >>> 16) < seamThresholds[chunkHeight - 1 - ly]) {
+                cy++;
+                sy = chunkHeight - 1 - ly;
+            }
+        }
+        if (sx == lx && sy == ly)
+            return;
+        final Chunk c = window[(cx - x0) * down + cy - y0];
+        floors[x][y] = c.floors[sx][sy];
+        content[x][y] = c.content[sx][sy];
+    }
+
+    private static long key(int chunkX, int chunkY) {
+        return (long) chunkX << 32 ^ (chunkY & 0xFFFFFFFFL);
+    }
+
+    private Chunk obtain(int cx, int cy) {
+        final long k = key(cx, cy);
+        Chunk c = chunks.get(k);
+        if (c != null) {
+            hits++;
+            return c;
+        }
+        Future<Chunk> f = pending.remove(k);
+        if (f != null) {
+            try {
+                c = f.get();
+                prefetched++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while making wild chunk " + cx + "," + cy, e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Could not make wild chunk " + cx + "," + cy, e.getCause());
+            }
+        }
+        else {
+            c = make(cx, cy, seed, epoch);
+            misses++;
+        }
+        if (chunks.size() >= capacity) {
+            Iterator<Chunk> it = chunks.values().iterator();
+            it.next();
+            it.remove();
+        }
+        chunks.put(k, c);
+        return c;
+    }
+
+    /**
+     * Queues up the chunks that the view would start to overlap if it kept moving the way it last moved.
+     */
+    private void prefetchAhead() {
+        // finished chunks can move into the cache now, so they stop counting against the pending limit.
+        for (Iterator<Future<Chunk>> it = pending.values().iterator(); it.hasNext(); ) {
+            Future<Chunk> f = it.next();
+            if (f.isDone() && !f.isCancelled()) {
+                try {
+                    Chunk c = f.get();
+                    it.remove();
+                    if (c.epoch != epoch)
+                        continue;
+                    if (chunks.size() >= capacity) {
+                        Iterator<Chunk> old = chunks.values().iterator();
+                        old.next();
+                        old.remove();
+                    }
+                    chunks.put(key(c.chunkX, c.chunkY), c);
+                } catch (InterruptedException | ExecutionException ignored) {
+                    it.remove();
+                }
+            }
+        }
+        if (lastDX == 0 && lastDY == 0)
+            return;
+        final int x0 = Math.floorDiv(originX - seam, chunkWidth), x1 = Math.floorDiv(originX + viewWidth - 1 + seam, chunkWidth);
+        final int y0 = Math.floorDiv(originY - seam, chunkHeight), y1 = Math.floorDiv(originY + viewHeight - 1 + seam, chunkHeight);
+        if (lastDX != 0) {
+            final int cx = lastDX > 0 ? x1 + 1 : x0 - 1;
+            for (int cy = y0 - (lastDY < 0 ? 1 : 0); cy <= y1 + (lastDY > 0 ? 1 : 0); cy++) {
+                prefetch(cx, cy);
+            }
+        }
+        if (lastDY != 0) {
+            final int cy = lastDY > 0 ? y1 + 1 : y0 - 1;
+            for (int cx = x0; cx <= x1; cx++) {
+                prefetch(cx, cy);
+            }
+        }
+    }
+
+    private void prefetch(final int cx, final int cy) {
+        final long k = key(cx, cy);
+        if (chunks.containsKey(k) || pending.containsKey(k))
+            return;
+        final int s = seed, e = epoch;
+        pending.put(k, worker.submit(new Callable<Chunk>() {
+            @Override
+            public Chunk call() {
+                return make(cx, cy, s, e);
+            }
+        }));
+    }
+
+    /**
+     * Makes one chunk. This can run on the worker thread, so it uses its own WildMap, seeded from the chunk position.
+     */
+    private Chunk make(int cx, int cy, int seed, int epoch) {
+        final int hash = IntPointHash.hashAll(cx, cy, seed);
+        final int biome = biomes.getBiomeCode(Math.min(Math.max(cx, 0), worldWidth - 1),
+                Math.min(Math.max(cy, 0), worldHeight - 1));
+        WildMap wild = new WildMap(chunkWidth, chunkHeight, biome, hash, ~hash);
+        wild.generate();
+        final int[] floorMap = register(wild.floorTypes, floorNames, floorIndices),
+                contentMap = register(wild.contentTypes, contentNames, contentIndices);
+        Chunk c = new Chunk(cx, cy, epoch, chunkWidth, chunkHeight);
+        for (int x = 0; x < chunkWidth; x++) {
+            final int[] wf = wild.floors[x], wc = wild.content[x], f = c.floors[x], t = c.content[x];
+            for (int y = 0; y < chunkHeight; y++) {
+                f[y] = floorMap[wf[y]];
+                t[y] = wc[y] < 0 ? -1 : contentMap[wc[y]];
+            }
+        }
+        return c;
+    }
+
+    /**
+     * Adds any names not seen before to the shared list, and returns where each of the given names is in it.
+     */
+    private int[] register(ArrayList<String> names, ArrayList<String> shared, HashMap<String, Integer> indices) {
+        final int[] map = new int[names.size()];
+        synchronized (floorNames) {
+            for (int i = 0; i < map.length; i++) {
+                final String name = names.get(i);
+                Integer idx = indices.get(name);
+                if (idx == null) {
+                    idx = shared.size();
+                    shared.add(name);
+                    indices.put(name, idx);
+                }
+                map[i] = idx;
+            }
+        }
+        return map;
+    }
+}
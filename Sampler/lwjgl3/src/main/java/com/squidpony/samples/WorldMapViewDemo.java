@@ -3,8 +3,6 @@ package com.squidpony.samples;
 import com.badlogic.gdx.*;
 import com.badlogic.gdx.backends.lwjgl3.Lwjgl3Graphics;
 import com.badlogic.gdx.graphics.GL20;
-import com.badlogic.gdx.graphics.g2d.TextureAtlas;
-import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.utils.viewport.StretchViewport;
 import com.badlogic.gdx.utils.viewport.Viewport;
 import com.squidpony.samples.lwjgl3.CustomConfig;
@@ -37,7 +35,7 @@ public class WorldMapViewDemo extends ApplicationAdapter {
     private long seed;
     private WorldMapGenerator world;
     private WorldMapView wmv;
-    private TextureRegion dot;
+    private ColorMapSurface surface;
     
     private boolean spinning = false;
 
@@ -45,10 +43,7 @@ public class WorldMapViewDemo extends ApplicationAdapter {
     
     @Override
     public void create() {
-        // in your own code you would probably use your own atlas with a 1x1 white pixel TextureRegion in it
-        TextureAtlas atlas = new TextureAtlas("skin/neon-ui.atlas");
-        // here the 1x1 white pixel image is called "white"
-        dot = atlas.findRegion("white");
+        surface = new ColorMapSurface(width, height, WorldMapView.emptyColor);
         batch = new FilterBatch();
         view = new StretchViewport(width * 4, height * 4);
         seed = 42;
@@ -132,6 +127,7 @@ public class WorldMapViewDemo extends ApplicationAdapter {
         world.zoomIn(7, width / 2, height / 2);
         wmv.generate(world.seedA, world.seedB, world.landModifier, world.heatModifier);
         wmv.show();
+        surface.update(wmv.getColorMap());
         ttg = System.nanoTime() - startTime >> 20;
     }
     public void zoomIn(int zoomX, int zoomY)
@@ -142,6 +138,7 @@ public class WorldMapViewDemo extends ApplicationAdapter {
 
         wmv.generate(world.seedA, world.seedB, world.landModifier, world.heatModifier);
         wmv.show();
+        surface.update(wmv.getColorMap());
         ttg = System.nanoTime() - startTime >> 20;
     }
     public void zoomOut()
@@ -151,6 +148,7 @@ public class WorldMapViewDemo extends ApplicationAdapter {
         world.zoomOut(7, width / 2, height / 2);
         wmv.generate(world.seedA, world.seedB, world.landModifier, world.heatModifier);
         wmv.show();
+        surface.update(wmv.getColorMap());
         ttg = System.nanoTime() - startTime >> 20;
     }
     public void zoomOut(int zoomX, int zoomY)
@@ -160,6 +158,7 @@ public class WorldMapViewDemo extends ApplicationAdapter {
         world.zoomOut(7, zoomX, zoomY);
         wmv.generate(world.seedA, world.seedB, world.landModifier, world.heatModifier);
         wmv.show();
+        surface.update(wmv.getColorMap());
         ttg = System.nanoTime() - startTime >> 20;
     }
     public void generate(final long seed)
@@ -175,6 +174,7 @@ public class WorldMapViewDemo extends ApplicationAdapter {
                 0.9 + NumberTools.formCurvedDouble((seed ^ 0x123456789ABCDL) * 0x12345689ABL) * 0.3,
                 DiverRNG.determineDouble(seed * 0x12345L + 0x54321L) * 0.55 + 0.9);
         wmv.show();
+        surface.update(wmv.getColorMap());
         ttg = System.nanoTime() - startTime >> 20;
     }
     public void rotate()
@@ -183,25 +183,17 @@ public class WorldMapViewDemo extends ApplicationAdapter {
         world.setCenterLongitude((startTime & 0xFFFFFFFFFFFFL) * 0x1.0p-32);
         wmv.generate(world.seedA, world.seedB, world.landModifier, world.heatModifier);
         wmv.show();
+        surface.update(wmv.getColorMap());
         ttg = System.nanoTime() - startTime >> 20;
     }
 
 
-    public void putMap() { 
-        float[][] cm = wmv.getColorMap();
-        //// everything after this part of putMap() should be customized to your rendering setup
+    public void putMap() {
+        //// everything in putMap() should be customized to your rendering setup; the color map was already converted
+        //// to a texture by surface.update() after each change, so this is just one quad.
         view.apply(true);
         batch.begin();
-        float c;
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                c = cm[x][y];
-                if(c != WorldMapView.emptyColor) {
-                    batch.setColor(c);
-                    batch.draw(dot, x * 4, y * 4, 4, 4);
-                }
-            }
-        }
+        batch.draw(surface.getTexture(), 0, 0, width * 4, height * 4);
         batch.end();
     }
     
@@ -222,6 +214,13 @@ public class WorldMapViewDemo extends ApplicationAdapter {
         }
     }
 
+    @Override
+    public void dispose() {
+        surface.dispose();
+        batch.dispose();
+        super.dispose();
+    }
+
     @Override
     public void resize(int width, int height) {
         super.resize(width, height);
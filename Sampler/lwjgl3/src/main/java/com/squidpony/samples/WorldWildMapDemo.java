@@ -14,7 +14,6 @@ import squidpony.FakeLanguageGen;
 import squidpony.StringKit;
 import squidpony.squidgrid.gui.gdx.*;
 import squidpony.squidgrid.mapping.PoliticalMapper;
-import squidpony.squidgrid.mapping.WildMap;
 import squidpony.squidgrid.mapping.WorldMapGenerator;
 import squidpony.squidmath.*;
 
@@ -88,6 +87,7 @@ public class WorldWildMapDemo extends ApplicationAdapter {
     private OrderedMap<Character, FakeLanguageGen> atlas;
     private OrderedMap<Coord, String> cities;
     private WildMapView wildView;
+    private WildChunkStreamer wildStreamer;
     private boolean zoomed = false;
     //private WorldMapGenerator.EllipticalMap world;
     //private final float[][][] cloudData = new float[128][128][128];
@@ -137,6 +137,8 @@ public class WorldWildMapDemo extends ApplicationAdapter {
         //world = new WorldMapGenerator.TilingMap(seed, bigWidth, bigHeight, WhirlingNoise.instance, 0.9);
         wmv = new WorldMapView(world);
         wildView = new WildMapView(rng.nextLong(), shownWidth, shownHeight, 1);
+        wildStreamer = new WildChunkStreamer(wmv.getBiomeMapper(), bigWidth, bigHeight,
+                shownWidth, shownHeight, shownWidth, shownHeight, 6, 16);
         pm = new PoliticalMapper(FakeLanguageGen.SIMPLISH.word(rng, true));
         cities = new OrderedMap<>(96);
         atlas = new OrderedMap<>(80);
@@ -153,16 +155,20 @@ public class WorldWildMapDemo extends ApplicationAdapter {
                         rng.setState(seed);
                         break;
                     case SquidInput.DOWN_ARROW:
-                        position.add(0, 1, 0);
+                        if(zoomed) walk(0, 1);
+                        else position.add(0, 1, 0);
                         break;
                     case SquidInput.UP_ARROW:
-                        position.add(0, -1, 0);
+                        if(zoomed) walk(0, -1);
+                        else position.add(0, -1, 0);
                         break;
                     case SquidInput.LEFT_ARROW:
-                        position.add(-1, 0, 0);
+                        if(zoomed) walk(-1, 0);
+                        else position.add(-1, 0, 0);
                         break;
                     case SquidInput.RIGHT_ARROW:
-                        position.add(1, 0, 0);
+                        if(zoomed) walk(1, 0);
+                        else position.add(1, 0, 0);
                         break;
                     case 'Q':
                     case 'q':
@@ -189,14 +195,8 @@ public class WorldWildMapDemo extends ApplicationAdapter {
                     nextPosition.set(MathUtils.round(nextPosition.x), MathUtils.round(nextPosition.y), nextPosition.z);
                     position.set(cellWidth * 0.5f * shownWidth, cellHeight * (bigHeight - 0.5f * shownHeight), position.z);
                     zoomed = true;
-                    final int hash = IntPointHash.hashAll(screenX, screenY, 0x13579BDF);
-                    wildView.setWildMap(new WildMap.MixedWildMap(
-                            new WildMap(shownWidth, shownHeight, wmv.getBiomeMapper().getBiomeCode((int)(nextPosition.x / cellWidth)+1, (int) (bigHeight - nextPosition.y / cellHeight)-1), hash, ~hash),
-                            new WildMap(shownWidth, shownHeight, wmv.getBiomeMapper().getBiomeCode((int)(nextPosition.x / cellWidth)+1, (int) (bigHeight - nextPosition.y / cellHeight)), hash, ~hash),
-                            new WildMap(shownWidth, shownHeight, wmv.getBiomeMapper().getBiomeCode((int)(nextPosition.x / cellWidth), (int) (bigHeight - nextPosition.y / cellHeight)), hash, ~hash),
-                            new WildMap(shownWidth, shownHeight, wmv.getBiomeMapper().getBiomeCode((int)(nextPosition.x / cellWidth), (int) (bigHeight - nextPosition.y / cellHeight)-1), hash, ~hash),
-                            rng
-                    ));
+                    wildStreamer.centerOn((int) (nextPosition.x / cellWidth), (int) (bigHeight - nextPosition.y / cellHeight));
+                    wildView.setWildMap(wildStreamer.getView());
                     wildView.generate();
                     nextPosition.set(previousPosition);
                 }
@@ -218,6 +218,17 @@ public class WorldWildMapDemo extends ApplicationAdapter {
         stage.addActor(display);
     }
 
+    /**
+     * Moves the wilderness view by one cell; only chunks that haven't been made yet (usually none, since the ones
+     * ahead are made in the background) need any generation.
+     */
+    public void walk(int dx, int dy) {
+        long startTime = System.currentTimeMillis();
+        wildStreamer.move(dx, dy);
+        wildView.generate();
+        ttg = System.currentTimeMillis() - startTime;
+    }
+
 //    public void zoomIn() {
 //        zoomIn(bigWidth >> 1, bigHeight >> 1);
 //    }
@@ -249,6 +260,7 @@ public class WorldWildMapDemo extends ApplicationAdapter {
         world.seedB = (int) (seed >>> 32);
         wmv.generate();
         wmv.show();
+        wildStreamer.reset(seed);
         atlas.clear();
         for (int i = 0; i < 64; i++) {
             atlas.put(ArrayTools.letterAt(i),
@@ -373,6 +385,12 @@ public class WorldWildMapDemo extends ApplicationAdapter {
         stage.draw();
     }
 
+    @Override
+    public void dispose() {
+        wildStreamer.dispose();
+        super.dispose();
+    }
+
     @Override
     public void resize(int width, int height) {
         super.resize(width, height);
@@ -0,0 +1,292 @@
+package com.squidpony.samples;
+
+import squidpony.squidgrid.mapping.WorldMapGenerator;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Remembers the views of a {@link WorldMapGenerator} and its {@link WorldMapGenerator.DetailedBiomeMapper} at each
+ * zoom level, so zooming back in or out to a view that was already shown copies the stored heights, heat, moisture and
+ * biomes back instead of generating the whole map and classifying every biome again.
+ * <br>
+ * WorldMapGenerator can only make a full view at a time, so each cached "tile" here is one full view, identified by
+ * its zoom level and the center of the view in that level's pixel space (the same values WorldMapGenerator tracks
+ * internally, using the same arithmetic as its zoomIn() and zoomOut()). Only views that haven't been seen before are
+ * generated, and biomes are classified only for those views. Views are evicted least-recently-used first once there
+ * are more than {@code capacity} of them. Everything is dropped when the seed changes.
+ * <br>
+ * When a cached view is shown, the generator itself isn't moved. The next time a new view has to be generated, the
+ * generator goes straight from wherever it actually is to that new view, without replaying the views shown in between.
+ * That takes one zoom when one can reach the new view, and otherwise two. Only whole views are cached; this doesn't
+ * generate just the part of a view that wasn't seen before.
+ */
+public class WorldZoomCache {
+    private static final class View {
+        int zoom, centerX, centerY;
+        final double[][] heightData, heatData, moistureData;
+        final int[][] heightCodeData, heatCodeData, moistureCodeData, biomeCodeData;
+        double minHeat, maxHeat, minWet, maxWet;
+
+        View(int width, int height) {
+            heightData = new double[width][height];
+            heatData = new double[width][height];
+            moistureData = new double[width][height];
+            heightCodeData = new int[width][height];
+            heatCodeData = new int[width][height];
+            moistureCodeData = new int[width][height];
+            biomeCodeData = new int[width][height];
+        }
+
+        boolean matches(int zoom, int centerX, int centerY) {
+            return this.zoom == zoom && this.centerX == centerX && this.centerY == centerY;
+        }
+    }
+
+    public final WorldMapGenerator world;
+    public final WorldMapGenerator.DetailedBiomeMapper biomes;
+    private final int width, height, capacity;
+    private final LinkedHashMap<Long, View> views;
+    private long seed;
+    // the view being shown, and the view the generator is actually on; these differ after a cached view is shown.
+    private int zoom, centerX, centerY;
+    private int worldZoom, worldX, worldY;
+    // how many entries the generator has on its internal start cache; each zoomOut() call removes one and needs two
+    private int worldDepth;
+    private int hits, misses, generations;
+
+    /**
+     * @param world a WorldMapGenerator that has already generated a map with {@link #reset(long)}'s seed
+     * @param biomes the biome mapper used with world; its makeBiomes() will only be called on newly generated views
+     * @param capacity how many views to keep, at most; each takes about 40 bytes per cell
+     */
+    public WorldZoomCache(WorldMapGenerator world, WorldMapGenerator.DetailedBiomeMapper biomes, int capacity) {
+        this.world = world;
+        this.biomes = biomes;
+        this.width = world.width;
+        this.height = world.height;
+        this.capacity = Math.max(capacity, 1);
+        views = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Call this after {@code world.generate()} and {@code biomes.makeBiomes(world)} for a new seed; a new seed
+     * always starts out fully zoomed-out. Drops all cached views and stores the one just generated.
+     * @param seed the seed the world was just generated with
+     */
+    public void reset(long seed) {
+        this.seed = seed;
+        worldZoom = 0;
+        worldX = width >> 1;
+        worldY = height >> 1;
+        worldDepth = 1;
+        invalidate();
+    }
+
+    /**
+     * Call this if the world was regenerated some other way without changing its zoom (such as after changing its
+     * center longitude). Drops all cached views, and stores the view the world is on now as the one shown.
+     */
+    public void invalidate() {
+        views.clear();
+        zoom = worldZoom;
+        centerX = worldX;
+        centerY = worldY;
+        store();
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getZoom() {
+        return zoom;
+    }
+
+    public int getHits() {
+        return hits;
+    }
+
+    public int getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return how many times the world has had to generate a view, including views passed through on the way to one
+     */
+    public int getGenerations() {
+        return generations;
+    }
+
+    public int size() {
+        return views.size();
+    }
+
+    /**
+     * Zooms in one level, centered on the given pixel, like {@link WorldMapGenerator#zoomIn(int, int, int)}.
+     * @param zoomCenterX the x position in the current view to center on
+     * @param zoomCenterY the y position in the current view to center on
+     * @return true if the view was already cached, false if it had to be generated
+     */
+    public boolean zoomIn(int zoomCenterX, int zoomCenterY) {
+        final int z = zoom + 1;
+        final int x = clamp((centerX + zoomCenterX - (width >> 1)) << 1, width, z);
+        final int y = clamp((centerY + zoomCenterY - (height >> 1)) << 1, height, z);
+        if (show(z, x, y))
+            return true;
+        moveWorld(z, x, y);
+        finishMiss();
+        return false;
+    }
+
+    /**
+     * Zooms out one level, centered on the given pixel, like {@link WorldMapGenerator#zoomOut(int, int, int)}. Does
+     * nothing if already fully zoomed-out.
+     * @param zoomCenterX the x position in the current view to center on
+     * @param zoomCenterY the y position in the current view to center on
+     * @return true if the view was already cached (or nothing changed), false if it had to be generated
+     */
+    public boolean zoomOut(int zoomCenterX, int zoomCenterY) {
+        if (zoom == 0)
+            return true;
+        final int z = zoom - 1;
+        final int x = clamp(centerX + zoomCenterX - (width >> 1) >> 1, width, z);
+        final int y = clamp(centerY + zoomCenterY - (height >> 1) >> 1, height, z);
+        if (show(z, x, y))
+            return true;
+        moveWorld(z, x, y);
+        finishMiss();
+        return false;
+    }
+
+    private static int clamp(int center, int size, int zoom) {
+        return Math.min(Math.max(center, size >> 1), (size << zoom) - (size >> 1));
+    }
+
+    private static long key(int zoom, int centerX, int centerY) {
+        return (long) zoom << 58 ^ (long) centerX << 29 ^ centerY;
+    }
+
+    /**
+     * If the given view is cached, copies it into the world and biome mapper and makes it the shown view.
+     */
+    private boolean show(int z, int x, int y) {
+        View v = views.get(key(z, x, y));
+        if (v == null || !v.matches(z, x, y))
+            return false;
+        copy(v.heightData, world.heightData);
+        copy(v.heatData, world.heatData);
+        copy(v.moistureData, world.moistureData);
+        copy(v.heightCodeData, world.heightCodeData);
+        copy(v.heatCodeData, biomes.heatCodeData);
+        copy(v.moistureCodeData, biomes.moistureCodeData);
+        copy(v.biomeCodeData, biomes.biomeCodeData);
+        world.minHeat = v.minHeat;
+        world.maxHeat = v.maxHeat;
+        world.minWet = v.minWet;
+        world.maxWet = v.maxWet;
+        zoom = z;
+        centerX = x;
+        centerY = y;
+        hits++;
+        return true;
+    }
+
+    /**
+     * Generates the view at zoom z centered on x,y, starting from wherever the world actually is. A single zoomOut()
+     * can reach any view at a shallower zoom, and a single zoomIn() can reach a deeper view when its center is some
+     * position in the world's current view scaled up. Anything else zooms in one level past z first, which
+     * also keeps the generator's start cache from running out when zooming out. The generator's view only depends on
+     * its zoom and its center, so which way it got there doesn't change the result.
+     */
+    private void moveWorld(int z, int x, int y) {
+        if (z < worldZoom && worldDepth >= 2) {
+            zoomOutWorld(z, x, y);
+            return;
+        }
+        if (z > worldZoom) {
+            final int d = z - worldZoom,
+                    cx = (x >> d) - worldX + (width >> 1), cy = (y >> d) - worldY + (height >> 1);
+            if (clamp(worldX + cx - (width >> 1) << d, width, z) == x
+                    && clamp(worldY + cy - (height >> 1) << d, height, z) == y) {
+                world.zoomIn(d, cx, cy);
+                worldZoom = z;
+                worldX = x;
+                worldY = y;
+                worldDepth++;
+                generations++;
+                return;
+            }
+        }
+        final int d = Math.max(z + 1 - worldZoom, 1);
+        world.zoomIn(d, width >> 1, height >> 1);
+        worldZoom += d;
+        worldX = clamp(worldX << d, width, worldZoom);
+        worldY = clamp(worldY << d, height, worldZoom);
+        worldDepth++;
+        generations++;
+        zoomOutWorld(z, x, y);
+    }
+
+    private void zoomOutWorld(int z, int x, int y) {
+        final int d = worldZoom - z;
+        world.zoomOut(d, (x << d) - worldX + (width >> 1), (y << d) - worldY + (height >> 1));
+        worldZoom = z;
+        worldX = x;
+        worldY = y;
+        worldDepth--;
+        generations++;
+    }
+
+    private void finishMiss() {
+        biomes.makeBiomes(world);
+        zoom = worldZoom;
+        centerX = worldX;
+        centerY = worldY;
+        misses++;
+        store();
+    }
+
+    /**
+     * Copies the world's current data into a cached view for the shown zoom and center, reusing the arrays of the
+     * least-recently-used view if the cache is full.
+     */
+    private void store() {
+        View v;
+        if (views.size() >= capacity) {
+            Iterator<View> it = views.values().iterator();
+            v = it.next();
+            it.remove();
+        }
+        else {
+            v = new View(width, height);
+        }
+        v.zoom = zoom;
+        v.centerX = centerX;
+        v.centerY = centerY;
+        copy(world.heightData, v.heightData);
+        copy(world.heatData, v.heatData);
+        copy(world.moistureData, v.moistureData);
+        copy(world.heightCodeData, v.heightCodeData);
+        copy(biomes.heatCodeData, v.heatCodeData);
+        copy(biomes.moistureCodeData, v.moistureCodeData);
+        copy(biomes.biomeCodeData, v.biomeCodeData);
+        v.minHeat = world.minHeat;
+        v.maxHeat = world.maxHeat;
+        v.minWet = world.minWet;
+        v.maxWet = world.maxWet;
+        views.put(key(zoom, centerX, centerY), v);
+    }
+
+    private static void copy(double[][] from, double[][] to) {
+        for (int i = 0; i < from.length; i++) {
+            System.arraycopy(from[i], 0, to[i], 0, from[i].length);
+        }
+    }
+
+    private static void copy(int[][] from, int[][] to) {
+        for (int i = 0; i < from.length; i++) {
+            System.arraycopy(from[i], 0, to[i], 0, from[i].length);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.squidpony.samples;
+
+import com.badlogic.gdx.graphics.Color;
+
+import java.util.Random;
+
+/**
+ * Compares the CPU cost of showing a color map the old way, with one Batch quad per cell (what
+ * {@link WorldMapViewDemo} did with {@code batch.draw(dot, x*4, y*4, 4, 4)}), against {@link ColorMapSurface}.
+ * Per-cell submission is measured by writing the same 20 floats per quad that SpriteBatch writes, since a real
+ * Batch needs OpenGL; the surface is measured by converting the map, which happens only when it changes, and then by
+ * how many rows it would re-upload when only part of the map changes.
+ * <br>
+ * This is a plain main() so it can be run without any test framework or graphics.
+ */
+public class ColorMapSurfaceBenchmark {
+    private static final int FRAMES = 100;
+
+    public static void main(String[] args) {
+        final float empty = Color.toFloatBits(0f, 0f, 0f, 0f);
+        Random rng = new Random(42L);
+        for (int[] size : new int[][]{{128, 128}, {300, 300}, {512, 256}, {1024, 512}}) {
+            final int width = size[0], height = size[1];
+            float[][] colors = new float[width][height];
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < height; y++) {
+                    colors[x][y] = rng.nextInt(8) == 0 ? empty
+                            : Color.toFloatBits(rng.nextInt(256), rng.nextInt(256), rng.nextInt(256), 255);
+                }
+            }
+            float[] vertices = new float[width * height * 20];
+            ColorMapSurface surface = new ColorMapSurface(width, height, empty);
+
+            long sink = 0;
+            for (int i = 0; i < 5; i++) {
+                sink += submitPerCell(colors, vertices, empty);
+                colors[i][i] = colors[i + 1][i];
+                surface.update(colors);
+                surface.markUploaded();
+            }
+            long start = System.nanoTime();
+            long quads = 0;
+            for (int f = 0; f < FRAMES; f++) {
+                quads = submitPerCell(colors, vertices, empty);
+                sink += quads;
+            }
+            long perCellNanos = System.nanoTime() - start;
+
+            // a full change of every cell, like generating a new map.
+            start = System.nanoTime();
+            for (int f = 0; f < FRAMES; f++) {
+                colors[f % width][0] = Color.toFloatBits(f & 255, 0, 0, 255);
+                for (int x = 0; x < width; x++) {
+                    float[] column = colors[x];
+                    float first = column[0];
+                    System.arraycopy(column, 1, column, 0, height - 1);
+                    column[height - 1] = first;
+                }
+                surface.update(colors);
+                surface.markUploaded();
+            }
+            long fullNanos = System.nanoTime() - start;
+
+            // a change to a band of rows in the middle, like a small feature scrolling by; only those rows re-upload.
+            long dirtyRows = 0;
+            start = System.nanoTime();
+            for (int f = 0; f < FRAMES; f++) {
+                final int y = height / 2 + (f & 7);
+                for (int x = 0; x < width; x++) {
+                    colors[x][y] = Color.toFloatBits(x & 255, f & 255, y & 255, 255);
+                }
+                surface.update(colors);
+                dirtyRows += surface.getDirtyRows();
+                surface.markUploaded();
+            }
+            long bandNanos = System.nanoTime() - start;
+            System.out.printf("%4dx%-4d per-cell %8.3f ms/frame (%7d vertices); surface full update %7.3f ms, " +
+                            "band update %7.3f ms (%.1f of %d rows re-uploaded), 4 vertices per frame  [%d]%n",
+                    width, height, perCellNanos * 1E-6 / FRAMES, quads * 4, fullNanos * 1E-6 / FRAMES,
+                    bandNanos * 1E-6 / FRAMES, dirtyRows / (double) FRAMES, height, sink & 1);
+        }
+    }
+
+    /**
+     * Writes what SpriteBatch.draw() would write for a 4x4 quad for each non-empty cell: x, y, color, u, v for each of
+     * four corners.
+     * @return how many quads were written
+     */
+    private static long submitPerCell(float[][] colors, float[] vertices, float empty) {
+        int idx = 0;
+        for (int x = 0; x < colors.length; x++) {
+            final float[] column = colors[x];
+            for (int y = 0; y < column.length; y++) {
+                final float c = column[y];
+                if (c == empty)
+                    continue;
+                final float fx = x * 4, fy = y * 4, fx2 = fx + 4, fy2 = fy + 4;
+                vertices[idx] = fx;
+                vertices[idx + 1] = fy;
+                vertices[idx + 2] = c;
+                vertices[idx + 3] = 0f;
+                vertices[idx + 4] = 1f;
+                vertices[idx + 5] = fx;
+                vertices[idx + 6] = fy2;
+                vertices[idx + 7] = c;
+                vertices[idx + 8] = 0f;
+                vertices[idx + 9] = 0f;
+                vertices[idx + 10] = fx2;
+                vertices[idx + 11] = fy2;
+                vertices[idx + 12] = c;
+                vertices[idx + 13] = 1f;
+                vertices[idx + 14] = 0f;
+                vertices[idx + 15] = fx2;
+                vertices[idx + 16] = fy;
+                vertices[idx + 17] = c;
+                vertices[idx + 18] = 1f;
+                vertices[idx + 19] = 1f;
+                idx += 20;
+            }
+        }
+        return idx / 20;
+    }
+}
@@ -0,0 +1,80 @@
+package com.squidpony.samples;
+
+import com.badlogic.gdx.graphics.Color;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/**
+ * Checks {@link ColorMapSurface}'s conversion from packed float colors to RGBA8888 bytes without needing OpenGL: every
+ * channel must match the Color the float was packed from (alpha can be off by one, since packed floats drop its lowest
+ * bit), the empty color must become transparent, rows must be flipped so the top of the map is row 0, and only rows
+ * that really changed may be marked dirty.
+ * <br>
+ * This is a plain main() so it can be run without any test framework or graphics; it throws if any check fails.
+ */
+public class ColorMapSurfaceTest {
+    public static void main(String[] args) {
+        final int width = 37, height = 23;
+        final float empty = Color.toFloatBits(0f, 0f, 0f, 0f);
+        Random rng = new Random(123L);
+        Color[][] expected = new Color[width][height];
+        float[][] colors = new float[width][height];
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                if (rng.nextInt(16) == 0) {
+                    colors[x][y] = empty;
+                    continue;
+                }
+                Color c = new Color(rng.nextInt(256) / 255f, rng.nextInt(256) / 255f, rng.nextInt(256) / 255f, rng.nextInt(256) / 255f);
+                expected[x][y] = c;
+                colors[x][y] = c.toFloatBits();
+            }
+        }
+        ColorMapSurface surface = new ColorMapSurface(width, height, empty);
+        if (!surface.update(colors))
+            throw new IllegalStateException("A new color map should change something");
+        check(surface.getPixels(), expected, width, height);
+
+        // after an upload, the same map again changes nothing.
+        surface.markUploaded();
+        if (surface.update(colors) || surface.getDirtyRows() != 0)
+            throw new IllegalStateException("An unchanged color map should leave no dirty rows");
+
+        // changing one cell at y dirties exactly the texture row height - 1 - y.
+        final int cx = 5, cy = 3;
+        Color changed = new Color(0.5f, 0.25f, 1f, 1f);
+        if (colors[cx][cy] == changed.toFloatBits())
+            changed.r = 0.75f;
+        expected[cx][cy] = changed;
+        colors[cx][cy] = changed.toFloatBits();
+        if (!surface.update(colors))
+            throw new IllegalStateException("Changing a cell should be noticed");
+        if (surface.getDirtyStart() != height - 1 - cy || surface.getDirtyRows() != 1)
+            throw new IllegalStateException("Expected only row " + (height - 1 - cy) + " to be dirty, but rows "
+                    + surface.getDirtyStart() + " through " + (surface.getDirtyStart() + surface.getDirtyRows() - 1)
+                    + " were");
+        check(surface.getPixels(), expected, width, height);
+        System.out.println("ColorMapSurface conversion is correct.");
+    }
+
+    private static void check(ByteBuffer pixels, Color[][] expected, int width, int height) {
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                final int i = ((height - 1 - y) * width + x) * 4;
+                final int r = pixels.get(i) & 255, g = pixels.get(i + 1) & 255, b = pixels.get(i + 2) & 255,
+                        a = pixels.get(i + 3) & 255;
+                Color c = expected[x][y];
+                if (c == null) {
+                    if ((r | g | b | a) != 0)
+                        throw new IllegalStateException("Empty cell " + x + "," + y + " should be transparent");
+                    continue;
+                }
+                if (r != (int) (c.r * 255) || g != (int) (c.g * 255) || b != (int) (c.b * 255)
+                        || Math.abs(a - (int) (c.a * 255)) > 1)
+                    throw new IllegalStateException("Cell " + x + "," + y + " should be " + c + " but was RGBA "
+                            + r + "," + g + "," + b + "," + a);
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.squidpony.samples;
+
+import squidpony.squidgrid.mapping.WildMap;
+import squidpony.squidgrid.mapping.WorldMapGenerator;
+import squidpony.squidmath.FastNoise;
+import squidpony.squidmath.IntPointHash;
+import squidpony.squidmath.SilkRNG;
+
+import java.util.Arrays;
+
+/**
+ * Walks a 96x48 wilderness view across the same world {@link WorldWildMapDemo} uses, one cell per step, and prints
+ * the average, 99th percentile and worst time per step plus how often chunks were already cached or made ahead of
+ * time. For comparison, it also times building a view the way the demo used to, with four new WildMaps combined in a
+ * MixedWildMap for every step.
+ * <br>
+ * It also checks that the same view comes out the same whether its chunks were cached, prefetched, or made again
+ * after being evicted. This is a plain main() so it can be run without any test framework or graphics.
+ */
+public class WildChunkStreamerBenchmark {
+    private static final int BIG_WIDTH = 512, BIG_HEIGHT = 256, SHOWN_WIDTH = 96, SHOWN_HEIGHT = 48;
+    private static final long SEED = 1234567890L;
+
+    public static void main(String[] args) throws InterruptedException {
+        WorldMapGenerator world = new WorldMapGenerator.HyperellipticalMap(SEED, BIG_WIDTH, BIG_HEIGHT,
+                new FastNoise(31337, 2.5f, FastNoise.FOAM_FRACTAL, 2, 2.5f, 0.4f), 0.7);
+        world.generate(1.0, 1.0, SEED);
+        WorldMapGenerator.DetailedBiomeMapper biomes = new WorldMapGenerator.DetailedBiomeMapper();
+        biomes.makeBiomes(world);
+
+        WildChunkStreamer streamer = new WildChunkStreamer(biomes, BIG_WIDTH, BIG_HEIGHT,
+                SHOWN_WIDTH, SHOWN_HEIGHT, SHOWN_WIDTH, SHOWN_HEIGHT, 6, 16);
+        streamer.reset(SEED);
+        streamer.centerOn(BIG_WIDTH / 3, BIG_HEIGHT / 2);
+        WildMap view = streamer.getView();
+        view.generate();
+        final int[][] startFloors = copy(view.floors), startContent = copy(view.content);
+
+        // a scripted walk: east for a while, then south, then west, then back north to where it started.
+        int[][] legs = {{1, 0, 400}, {0, 1, 150}, {-1, 0, 400}, {0, -1, 150}};
+        int steps = 0;
+        for (int[] leg : legs) steps += leg[2];
+        long[] times = new long[steps];
+        int s = 0;
+        for (int[] leg : legs) {
+            for (int i = 0; i < leg[2]; i++, s++) {
+                long t = System.nanoTime();
+                streamer.move(leg[0], leg[1]);
+                view.generate();
+                times[s] = System.nanoTime() - t;
+                // a player doesn't press keys thousands of times a second; give the worker a moment like a frame would.
+                Thread.sleep(2);
+            }
+        }
+        if (!Arrays.deepEquals(startFloors, view.floors) || !Arrays.deepEquals(startContent, view.content))
+            throw new IllegalStateException("The starting view changed after walking away and coming back!");
+        report("streamed", times);
+        final int requests = streamer.getHits() + streamer.getPrefetched() + streamer.getMisses();
+        System.out.printf("chunk requests: %d; %.2f%% cached, %.2f%% made ahead, %.2f%% made on demand%n", requests,
+                streamer.getHits() * 100.0 / requests, streamer.getPrefetched() * 100.0 / requests,
+                streamer.getMisses() * 100.0 / requests);
+
+        // the old way, regenerating everything on every step; fewer steps because each one is much slower.
+        SilkRNG rng = new SilkRNG(SEED);
+        long[] oldTimes = new long[50];
+        for (int i = 0; i < oldTimes.length; i++) {
+            final int wx = BIG_WIDTH / 3 + i, wy = BIG_HEIGHT / 2;
+            long t = System.nanoTime();
+            final int hash = IntPointHash.hashAll(wx, wy, 0x13579BDF);
+            WildMap mixed = new WildMap.MixedWildMap(
+                    new WildMap(SHOWN_WIDTH, SHOWN_HEIGHT, biomes.getBiomeCode(wx + 1, wy - 1), hash, ~hash),
+                    new WildMap(SHOWN_WIDTH, SHOWN_HEIGHT, biomes.getBiomeCode(wx + 1, wy), hash, ~hash),
+                    new WildMap(SHOWN_WIDTH, SHOWN_HEIGHT, biomes.getBiomeCode(wx, wy), hash, ~hash),
+                    new WildMap(SHOWN_WIDTH, SHOWN_HEIGHT, biomes.getBiomeCode(wx, wy - 1), hash, ~hash),
+                    rng);
+            mixed.generate();
+            oldTimes[i] = System.nanoTime() - t;
+        }
+        report("mixed   ", oldTimes);
+        streamer.dispose();
+    }
+
+    private static void report(String name, long[] times) {
+        long[] sorted = times.clone();
+        Arrays.sort(sorted);
+        long total = 0;
+        for (long t : sorted) total += t;
+        System.out.printf("%s: %5d steps, average %8.3f ms, 99th percentile %8.3f ms, worst %8.3f ms%n", name,
+                times.length, total * 1E-6 / times.length, sorted[(int) (sorted.length * 0.99)] * 1E-6,
+                sorted[sorted.length - 1] * 1E-6);
+    }
+
+    private static int[][] copy(int[][] grid) {
+        int[][] next = new int[grid.length][];
+        for (int i = 0; i < grid.length; i++) {
+            next[i] = grid[i].clone();
+        }
+        return next;
+    }
+}
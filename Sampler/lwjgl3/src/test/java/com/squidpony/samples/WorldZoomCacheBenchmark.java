@@ -0,0 +1,96 @@
+package com.squidpony.samples;
+
+import squidpony.squidgrid.mapping.WorldMapGenerator;
+import squidpony.squidmath.FastNoise;
+
+import java.util.Arrays;
+
+/**
+ * Times repeated zoom in/out cycles on the same 1024x512 map that {@link DetailedWorldMapDemo} shows, once by zooming
+ * the WorldMapGenerator and classifying biomes every time (as the demo used to), and once through
+ * {@link WorldZoomCache}. After every step, this checks that both show exactly the same heights and biomes. Heights
+ * are only compared on the map itself; WorldMapGenerator never writes the cells off the edge of the map (height code
+ * 1000) when it zooms, so those hold whatever an earlier view left there and aren't drawn. Each cycle
+ * clicks a little further right on its second zoom, so cached views near the top are mixed with new ones below them,
+ * and the cache has to move the generator from a cached view it isn't on to a new one.
+ * <br>
+ * This is a plain main() so it can be run without any test framework or graphics.
+ */
+public class WorldZoomCacheBenchmark {
+    private static final int WIDTH = 1024, HEIGHT = 512, CYCLES = 8, DRIFT = 24;
+    private static final long SEED = 0x0c415cf07774ab2eL;
+
+    /**
+     * Each row is a click position, then +1 to zoom in or -1 to zoom out there. One cycle zooms in three levels, pans
+     * a little by zooming out and back in off-center, and zooms all the way back out. The second click moves right by
+     * {@link #DRIFT} pixels each cycle.
+     */
+    private static final int[][] CYCLE = {
+            {WIDTH >> 1, HEIGHT >> 1, 1},
+            {300, 200, 1},
+            {WIDTH >> 1, HEIGHT >> 1, 1},
+            {600, 300, -1},
+            {WIDTH >> 1, HEIGHT >> 1, 1},
+            {WIDTH >> 1, HEIGHT >> 1, -1},
+            {WIDTH >> 1, HEIGHT >> 1, -1},
+            {WIDTH >> 1, HEIGHT >> 1, -1},
+    };
+
+    public static void main(String[] args) {
+        WorldMapGenerator plainWorld = makeWorld(), cachedWorld = makeWorld();
+        WorldMapGenerator.DetailedBiomeMapper plainBiomes = new WorldMapGenerator.DetailedBiomeMapper(),
+                cachedBiomes = new WorldMapGenerator.DetailedBiomeMapper();
+        plainWorld.generate(1.0, 1.0, SEED);
+        plainBiomes.makeBiomes(plainWorld);
+        cachedWorld.generate(1.0, 1.0, SEED);
+        cachedBiomes.makeBiomes(cachedWorld);
+        WorldZoomCache cache = new WorldZoomCache(cachedWorld, cachedBiomes, 8);
+        cache.reset(SEED);
+
+        long plainNanos = 0, cachedNanos = 0;
+        for (int c = 0; c < CYCLES; c++) {
+            long plainCycle = 0, cachedCycle = 0;
+            for (int s = 0; s < CYCLE.length; s++) {
+                final int[] step = CYCLE[s].clone();
+                if (s == 1) step[0] += DRIFT * c;
+                long t = System.nanoTime();
+                if (step[2] > 0) plainWorld.zoomIn(1, step[0], step[1]);
+                else plainWorld.zoomOut(1, step[0], step[1]);
+                plainBiomes.makeBiomes(plainWorld);
+                plainCycle += System.nanoTime() - t;
+
+                t = System.nanoTime();
+                if (step[2] > 0) cache.zoomIn(step[0], step[1]);
+                else cache.zoomOut(step[0], step[1]);
+                cachedCycle += System.nanoTime() - t;
+
+                if (!Arrays.deepEquals(plainWorld.heightCodeData, cachedWorld.heightCodeData)
+                        || !sameHeightsOnMap(plainWorld, cachedWorld)
+                        || !Arrays.deepEquals(plainBiomes.biomeCodeData, cachedBiomes.biomeCodeData))
+                    throw new IllegalStateException("Cached view differs from a freshly generated one in cycle " + c
+                            + " at zoom " + cache.getZoom());
+            }
+            plainNanos += plainCycle;
+            cachedNanos += cachedCycle;
+            System.out.printf("cycle %d: plain %8.2f ms, cached %8.2f ms%n", c, plainCycle * 1E-6, cachedCycle * 1E-6);
+        }
+        System.out.printf("%d steps: plain %8.2f ms/step, cached %8.2f ms/step; %d hits, %d misses, %d views generated%n",
+                CYCLES * CYCLE.length, plainNanos * 1E-6 / (CYCLES * CYCLE.length),
+                cachedNanos * 1E-6 / (CYCLES * CYCLE.length), cache.getHits(), cache.getMisses(), cache.getGenerations());
+    }
+
+    private static boolean sameHeightsOnMap(WorldMapGenerator a, WorldMapGenerator b) {
+        for (int x = 0; x < WIDTH; x++) {
+            for (int y = 0; y < HEIGHT; y++) {
+                if (a.heightCodeData[x][y] != 1000 && a.heightData[x][y] != b.heightData[x][y])
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    private static WorldMapGenerator makeWorld() {
+        return new WorldMapGenerator.HyperellipticalMap(SEED, WIDTH, HEIGHT,
+                new FastNoise(1337, 2.25f, FastNoise.FOAM_FRACTAL, 2, 2.5f, 0.4f), 0.7);
+    }
+}
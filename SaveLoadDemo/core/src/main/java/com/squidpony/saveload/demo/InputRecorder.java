@@ -0,0 +1,189 @@
+package com.squidpony.saveload.demo;
+
+import com.badlogic.gdx.InputAdapter;
+import com.badlogic.gdx.InputProcessor;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/**
+ * Wraps the InputProcessor a game already uses, passing every event through to it unchanged while writing it to an
+ * {@link InputLog}. Call {@link #endTick(long)} once at the end of each render(), with a checksum of the game state
+ * when {@link #isChecksumTick()} is true.
+ * <br>
+ * Code that polls {@code Gdx.input.isKeyPressed()} sees the real keyboard, which a replay can't change, so this also
+ * tracks which keys are held from the events it is given; poll {@link #isKeyPressed(int)} and
+ * {@link #isKeyJustPressed(int)} here instead, and a replay will see the same keys held on the same ticks. In the same
+ * way, game logic that waits for something should time it with {@link #getMillis()}, which a replay advances by the
+ * recorded length of each tick, rather than with the clock or with animations that run on it.
+ * <br>
+ * An InputRecorder made without a seed tracks keys and time the same way, but doesn't log anything.
+ * <br>
+ * Scrolling is passed through without being logged, since the demo doesn't act on it.
+ */
+public class InputRecorder extends InputAdapter {
+    public final InputProcessor processor;
+    private final InputLog log;
+    private final int checksumInterval;
+    private int tick, elapsed = -1;
+    private long millis, lastMillis;
+    private final boolean[] pressed = new boolean[256], justPressed = new boolean[256];
+
+    /**
+     * @param processor the InputProcessor the game would use without recording; may be null
+     * @param seed the seed the game was started with, stored in the log
+     * @param checksumInterval how many ticks apart to record checksums
+     */
+    public InputRecorder(InputProcessor processor, long seed, int checksumInterval) {
+        this.processor = processor;
+        this.checksumInterval = Math.max(1, checksumInterval);
+        log = new InputLog(seed);
+        lastMillis = TimeUtils.millis();
+    }
+
+    /**
+     * Tracks held keys and time for the given processor without recording anything.
+     * @param processor the InputProcessor the game would use without recording; may be null
+     */
+    public InputRecorder(InputProcessor processor) {
+        this.processor = processor;
+        checksumInterval = 1;
+        log = null;
+        lastMillis = TimeUtils.millis();
+    }
+
+    /**
+     * @return the log being recorded, or null if this isn't recording
+     */
+    public InputLog getLog() {
+        return log;
+    }
+
+    /**
+     * @return how many times {@link #endTick(long)} has been called since the log started
+     */
+    public int getTick() {
+        return tick;
+    }
+
+    /**
+     * @return how many milliseconds all the ticks before this one took, as recorded
+     */
+    public long getMillis() {
+        return millis;
+    }
+
+    /**
+     * @return true if the checksum given to {@link #endTick(long)} this tick will be recorded
+     */
+    public boolean isChecksumTick() {
+        return log != null && tick % checksumInterval == checksumInterval - 1;
+    }
+
+    /**
+     * Sets how many milliseconds the current tick takes, instead of measuring it with the clock when
+     * {@link #endTick(long)} is called. {@link InputLog#replay(InputRecorder, InputLog.Replayable)} calls this before
+     * each tick with the length it was recorded with.
+     */
+    public void elapse(int millis) {
+        elapsed = Math.max(0, millis);
+    }
+
+    /**
+     * Ends the current tick, recording how long it took and the checksum if {@link #isChecksumTick()} is true.
+     * @param checksum a checksum of the game state, such as one built with {@link InputLog#mix(long, long)}; ignored
+     *                 on other ticks
+     */
+    public void endTick(long checksum) {
+        final long now = TimeUtils.millis();
+        final int length = elapsed >= 0 ? elapsed : (int) Math.min(Math.max(now - lastMillis, 0L), Integer.MAX_VALUE);
+        lastMillis = now;
+        elapsed = -1;
+        if (log != null) {
+            log.addElapsed(tick, length);
+            if (isChecksumTick())
+                log.addChecksum(tick, checksum);
+        }
+        millis += length;
+        tick++;
+        for (int i = 0; i < justPressed.length; i++) {
+            justPressed[i] = false;
+        }
+    }
+
+    /**
+     * Ends the log; it can still be read with {@link #getLog()}, but nothing more can be recorded.
+     * @return the finished log, or null if this isn't recording
+     */
+    public InputLog finish() {
+        if (log != null)
+            log.end(tick);
+        return log;
+    }
+
+    public boolean isKeyPressed(int keycode) {
+        return keycode >= 0 && keycode < pressed.length && pressed[keycode];
+    }
+
+    public boolean isKeyJustPressed(int keycode) {
+        return keycode >= 0 && keycode < justPressed.length && justPressed[keycode];
+    }
+
+    @Override
+    public boolean keyDown(int keycode) {
+        if (log != null)
+            log.add(tick, InputLog.KEY_DOWN, keycode, 0, 0, 0);
+        if (keycode >= 0 && keycode < pressed.length) {
+            pressed[keycode] = true;
+            justPressed[keycode] = true;
+        }
+        return processor != null && processor.keyDown(keycode);
+    }
+
+    @Override
+    public boolean keyUp(int keycode) {
+        if (log != null)
+            log.add(tick, InputLog.KEY_UP, keycode, 0, 0, 0);
+        if (keycode >= 0 && keycode < pressed.length)
+            pressed[keycode] = false;
+        return processor != null && processor.keyUp(keycode);
+    }
+
+    @Override
+    public boolean keyTyped(char character) {
+        if (log != null)
+            log.add(tick, InputLog.KEY_TYPED, character, 0, 0, 0);
+        return processor != null && processor.keyTyped(character);
+    }
+
+    @Override
+    public boolean touchDown(int screenX, int screenY, int pointer, int button) {
+        if (log != null)
+            log.add(tick, InputLog.TOUCH_DOWN, screenX, screenY, pointer, button);
+        return processor != null && processor.touchDown(screenX, screenY, pointer, button);
+    }
+
+    @Override
+    public boolean touchUp(int screenX, int screenY, int pointer, int button) {
+        if (log != null)
+            log.add(tick, InputLog.TOUCH_UP, screenX, screenY, pointer, button);
+        return processor != null && processor.touchUp(screenX, screenY, pointer, button);
+    }
+
+    @Override
+    public boolean touchDragged(int screenX, int screenY, int pointer) {
+        if (log != null)
+            log.add(tick, InputLog.TOUCH_DRAGGED, screenX, screenY, pointer, 0);
+        return processor != null && processor.touchDragged(screenX, screenY, pointer);
+    }
+
+    @Override
+    public boolean mouseMoved(int screenX, int screenY) {
+        if (log != null)
+            log.add(tick, InputLog.MOUSE_MOVED, screenX, screenY, 0, 0);
+        return processor != null && processor.mouseMoved(screenX, screenY);
+    }
+
+    @Override
+    public boolean scrolled(int amount) {
+        return processor != null && processor.scrolled(amount);
+    }
+}
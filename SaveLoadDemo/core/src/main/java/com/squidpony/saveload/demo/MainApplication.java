@@ -159,6 +159,12 @@ public class MainApplication extends ApplicationAdapter {
     
     private static final float DURATION = 0.15f;
     private transient SquidInput input;
+    /**
+     * If true, everything given to input is logged and saved to saveload.replay on exit, so a session can be replayed
+     * from the same start; see InputLog. The desktop launcher sets this when the "record" environment variable is set.
+     */
+    public transient boolean recordInput = false;
+    private transient InputRecorder recorder;
     private transient Color bgColor;
     private transient Stage stage;
 //    private Stage languageStage;
@@ -560,7 +566,13 @@ public class MainApplication extends ApplicationAdapter {
                     }
                 }));
         //Setting the InputProcessor is ABSOLUTELY NEEDED TO HANDLE INPUT
-        Gdx.input.setInputProcessor(new InputMultiplexer(stage, input));
+        if (recordInput) {
+            // the log starts with the RNG state the game started from, which came from the save if there was one.
+            recorder = new InputRecorder(input, (long) rng.getStateA() << 32 | (rng.getStateB() & 0xFFFFFFFFL), 30);
+            Gdx.input.setInputProcessor(new InputMultiplexer(stage, recorder));
+        } else {
+            Gdx.input.setInputProcessor(new InputMultiplexer(stage, input));
+        }
         //You might be able to get by with the next line instead of the above line, but the former is preferred.
         //Gdx.input.setInputProcessor(input);
         // and then add display, our one visual component, to the list of things that act in Stage.
@@ -735,6 +747,18 @@ public class MainApplication extends ApplicationAdapter {
         display.font.draw(batch, Gdx.graphics.getFramesPerSecond() + " FPS", screenPosition.x, screenPosition.y);
         batch.end();
         Gdx.graphics.setTitle("SparseLayers Demo running at FPS: " + Gdx.graphics.getFramesPerSecond());
+        if (recorder != null)
+            recorder.endTick(recorder.isChecksumTick() ? checksum() : 0L);
+    }
+
+    /**
+     * Mixes together the state a replay has to get the same: where the player is, the color filter's targets, and the
+     * RNG's state. Drawing and animation progress are left out.
+     */
+    public long checksum() {
+        long hash = InputLog.mix(data.player.hashCode(), (long) rng.getStateA() << 32 | (rng.getStateB() & 0xFFFFFFFFL));
+        hash = InputLog.mix(hash, Float.floatToIntBits(data.cb));
+        return InputLog.mix(hash, Float.floatToIntBits(data.cr));
     }
 
     @Override
@@ -759,4 +783,16 @@ public class MainApplication extends ApplicationAdapter {
         stage.getViewport().update(width, height, false);
 //        stage.getViewport().setScreenBounds(0, (int)languageDisplay.getHeight(), width, height - (int)languageDisplay.getHeight());
     }
+
+    /**
+     * Saves the input log from this session, if {@link #recordInput} is true and local files can be written here, so
+     * it can be replayed later. Loading a save partway through reads it from Preferences, so a replay of that session
+     * needs the same save there.
+     */
+    @Override
+    public void dispose() {
+        if (recorder != null && Gdx.files.isLocalStorageAvailable())
+            Gdx.files.local("saveload.replay").writeBytes(recorder.finish().toBytes(), false);
+        super.dispose();
+    }
 }
\ No newline at end of file
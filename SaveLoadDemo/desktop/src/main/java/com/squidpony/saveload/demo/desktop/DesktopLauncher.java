@@ -12,7 +12,10 @@ public class DesktopLauncher {
     }
 
     private static LwjglApplication createApplication() {
-        return new LwjglApplication(new MainApplication(), getDefaultConfiguration());
+        MainApplication app = new MainApplication();
+        // run with the environment variable "record" set to save this session's input to saveload.replay.
+        app.recordInput = System.getenv("record") != null;
+        return new LwjglApplication(app, getDefaultConfiguration());
     }
 
     private static LwjglApplicationConfiguration getDefaultConfiguration() {
@@ -142,6 +142,10 @@ public class DawnSquad extends ApplicationAdapter {
     private ObjectDeque<Coord> nextMovePositions;
     private String lang;
     private TextureAtlas.AtlasRegion solid;
+    /**
+     * Keeps the vertices for the map's tiles between frames, in chunks, and only draws chunks the camera can see.
+     */
+    private TileLayer tiles;
     private int health = 9;
 
     /**
@@ -400,6 +404,9 @@ public class DawnSquad extends ApplicationAdapter {
         charMapping.put('2', atlas.findRegion("red liquid spatter"));
         charMapping.put('s', atlas.findRegion("little shine", 1));
 
+        // doors and blood expect a floor drawn beneath them.
+        tiles = new TileLayer(placeWidth, placeHeight, 16, charMapping, solid, '.', "/+12");
+
         //Coord is the type we use as a general 2D point, usually in a dungeon.
         //Because we know dungeons won't be incredibly huge, Coord performs best for x and y values less than 256, but
         // by default it can also handle some negative x and y values (-3 is the lowest it can efficiently store). You
@@ -657,35 +664,21 @@ public class DawnSquad extends ApplicationAdapter {
 
         float[][] lightLevels = vision.lighting.fovResult;
 
-        for (int x = 0; x < placeWidth; x++) {
-            for (int y = 0; y < placeHeight; y++) {
-                char glyph = vision.prunedPlaceMap[x][y];
-                if (vision.seen.contains(x, y)) {
-                    // cells that were seen more than one frame ago, and aren't visible now, appear as a gray memory.
-                    batch.setPackedColor(DescriptiveColor.oklabIntToFloat(vision.backgroundColors[x][y]));
-                    if (glyph == '/' || glyph == '+' || glyph == '1' || glyph == '2') // doors expect a floor drawn beneath them
-                        batch.draw(charMapping.getOrDefault('.', solid), x, y, 1f, 1f);
-                    batch.draw(charMapping.getOrDefault(glyph, solid), x, y, 1f, 1f);
-                    // visual debugging; show all cells that were just taken out of view
-//                    if(vision.justHidden.contains(x, y)) batch.draw(charMapping.getOrDefault('s', solid), x, y, 1f, 1f);
-                }
-            }
-        }
+        // only the chunks of the map near the camera are touched here; their vertices are kept between frames.
+        tiles.update(vision.prunedPlaceMap, vision.seen, vision.backgroundColors, camera);
+        tiles.draw(batch);
         AnimatedGlidingSprite monster;
 
-        for (int i = 0; i < placeWidth; i++) {
-            for (int j = 0; j < placeHeight; j++) {
-                if (lightLevels[i][j] > 0.01) {
-                    if ((monster = monsters.get(Coord.get(i, j))) != null) {
-                        monster = monster.animate(time);
-                        monster.setPackedColor(DescriptiveColor.oklabIntToFloat(vision.getForegroundColor(i, j, change)));
-                        monster.draw(batch);
-                    }
-                } else if (vision.justHidden.contains(i, j) && (monster = monsters.get(Coord.get(i, j))) != null) {
-                    monster = monster.animate(time);
-                    monster.setPackedColor(DescriptiveColor.oklabIntToFloat(vision.getForegroundColor(i, j, change)));
-                    monster.draw(batch);
-                }
+        // there are far fewer monsters than cells, so we go through the monsters and check where each one is.
+        for (int i = 0, n = monsters.size(); i < n; i++) {
+            Coord c = monsters.keyAt(i);
+            if (!tiles.inView(c.x, c.y))
+                continue;
+            if ((lightLevels[c.x][c.y] > 0.01 || vision.justHidden.contains(c.x, c.y))
+                    && (monster = monsters.getAt(i)) != null) {
+                monster = monster.animate(time);
+                monster.setPackedColor(DescriptiveColor.oklabIntToFloat(vision.getForegroundColor(c.x, c.y, change)));
+                monster.draw(batch);
             }
         }
         batch.setPackedColor(Color.WHITE_FLOAT_BITS);
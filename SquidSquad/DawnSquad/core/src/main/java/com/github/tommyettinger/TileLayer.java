@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2022-2023 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.tommyettinger;
+
+import com.badlogic.gdx.graphics.Camera;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.github.tommyettinger.ds.IntObjectMap;
+import com.github.yellowstonegames.core.DescriptiveColor;
+import com.github.yellowstonegames.grid.Region;
+
+/**
+ * Draws the tiles of a place map in square chunks of cells, keeping the vertices for each chunk between frames.
+ * <br>
+ * Each chunk remembers which glyph it last drew in each seen cell. If no glyph changed and no cell became seen since
+ * the last frame, the chunk's vertices are reused and only their colors are rewritten from the background colors;
+ * otherwise just that chunk is rebuilt. Chunks that are entirely outside the camera aren't updated or drawn at all, so
+ * a large place costs about as much per frame as the part of it that is on screen.
+ * <br>
+ * Every region this uses must be on the same Texture, such as the single page of an atlas.
+ */
+public class TileLayer {
+    private static final int FLOATS_PER_QUAD = 20;
+
+    public final int width, height, chunkSize;
+    private final int chunksWide, chunksHigh;
+    private final IntObjectMap<? extends TextureRegion> mapping;
+    private final TextureRegion fallback;
+    private final char underlay;
+    private final String needsUnderlay;
+    private final Texture texture;
+    private final Chunk[] chunks;
+    private final Chunk[] visible;
+    private int visibleCount;
+    private float minX, minY, maxX, maxY;
+
+    private static final class Chunk {
+        final int startX, startY, endX, endY;
+        /**
+         * The glyph drawn in each cell of this chunk when it was last built, or 0 if that cell wasn't seen then.
+         * Indexed by {@code (x - startX) * chunkSize + y - startY}.
+         */
+        final char[] drawn;
+        float[] vertices = new float[FLOATS_PER_QUAD * 16];
+        int quads;
+        boolean built;
+
+        Chunk(int startX, int startY, int endX, int endY, int chunkSize) {
+            this.startX = startX;
+            this.startY = startY;
+            this.endX = endX;
+            this.endY = endY;
+            drawn = new char[chunkSize * chunkSize];
+        }
+    }
+
+    /**
+     * @param width the width of the place map, in cells
+     * @param height the height of the place map, in cells
+     * @param chunkSize how many cells wide and high each chunk is; 16 is a good default
+     * @param mapping maps glyphs (as ints) to the regions that draw them
+     * @param fallback drawn for any glyph that isn't in mapping
+     * @param underlay the glyph drawn beneath glyphs in needsUnderlay, usually {@code '.'} for a floor
+     * @param needsUnderlay glyphs that are drawn over an underlay, such as doors
+     */
+    public TileLayer(int width, int height, int chunkSize, IntObjectMap<? extends TextureRegion> mapping,
+                     TextureRegion fallback, char underlay, String needsUnderlay) {
+        this.width = width;
+        this.height = height;
+        this.chunkSize = chunkSize;
+        this.mapping = mapping;
+        this.fallback = fallback;
+        this.underlay = underlay;
+        this.needsUnderlay = needsUnderlay;
+        texture = fallback.getTexture();
+        for (TextureRegion region : mapping.values()) {
+            if (region.getTexture() != texture)
+                throw new IllegalArgumentException("All regions in a TileLayer must be on the same Texture.");
+        }
+        chunksWide = (width + chunkSize - 1) / chunkSize;
+        chunksHigh = (height + chunkSize - 1) / chunkSize;
+        chunks = new Chunk[chunksWide * chunksHigh];
+        for (int cx = 0, i = 0; cx < chunksWide; cx++) {
+            for (int cy = 0; cy < chunksHigh; cy++, i++) {
+                chunks[i] = new Chunk(cx * chunkSize, cy * chunkSize,
+                        Math.min(width, (cx + 1) * chunkSize), Math.min(height, (cy + 1) * chunkSize), chunkSize);
+            }
+        }
+        visible = new Chunk[chunks.length];
+    }
+
+    /**
+     * Finds which chunks the camera can see, rebuilds any of those whose glyphs or seen cells changed, and rewrites
+     * their colors. Call this once per frame, after the camera has been moved, and before {@link #draw(Batch)}.
+     * @param glyphs the place map, indexed by [x][y]; this can change between calls, as when doors open
+     * @param seen cells that have been seen at some point; only these are drawn
+     * @param oklabColors Oklab int colors for each cell, such as VisionFramework.backgroundColors
+     * @param camera an unrotated camera the place will be drawn with; cells are 1 world unit on a side
+     */
+    public void update(char[][] glyphs, Region seen, int[][] oklabColors, Camera camera) {
+        float halfWidth = camera.viewportWidth * 0.5f, halfHeight = camera.viewportHeight * 0.5f;
+        if (camera instanceof OrthographicCamera) {
+            halfWidth *= ((OrthographicCamera) camera).zoom;
+            halfHeight *= ((OrthographicCamera) camera).zoom;
+        }
+        update(glyphs, seen, oklabColors, camera.position.x - halfWidth, camera.position.y - halfHeight,
+                camera.position.x + halfWidth, camera.position.y + halfHeight);
+    }
+
+    /**
+     * Like {@link #update(char[][], Region, int[][], Camera)}, but takes the visible area in world units directly,
+     * which doesn't need a Camera (or native code to update one).
+     * @param glyphs the place map, indexed by [x][y]; this can change between calls, as when doors open
+     * @param seen cells that have been seen at some point; only these are drawn
+     * @param oklabColors Oklab int colors for each cell, such as VisionFramework.backgroundColors
+     * @param left the lowest visible x
+     * @param bottom the lowest visible y
+     * @param right the highest visible x
+     * @param top the highest visible y
+     */
+    public void update(char[][] glyphs, Region seen, int[][] oklabColors,
+                       float left, float bottom, float right, float top) {
+        minX = left;
+        minY = bottom;
+        maxX = right;
+        maxY = top;
+        final int lowX = Math.max(0, (int) Math.floor(minX) / chunkSize),
+                lowY = Math.max(0, (int) Math.floor(minY) / chunkSize),
+                highX = Math.min(chunksWide - 1, (int) Math.floor(maxX) / chunkSize),
+                highY = Math.min(chunksHigh - 1, (int) Math.floor(maxY) / chunkSize);
+        visibleCount = 0;
+        for (int cx = lowX; cx <= highX; cx++) {
+            for (int cy = lowY; cy <= highY; cy++) {
+                Chunk chunk = chunks[cx * chunksHigh + cy];
+                if (changed(chunk, glyphs, seen))
+                    build(chunk);
+                recolor(chunk, oklabColors);
+                if (chunk.quads > 0)
+                    visible[visibleCount++] = chunk;
+            }
+        }
+    }
+
+    /**
+     * Submits the vertices of every chunk found visible by the last update.
+     * The Batch's own color is not used; each cell has its own color already.
+     * @param batch a Batch that has already had begin() called
+     */
+    public void draw(Batch batch) {
+        for (int i = 0; i < visibleCount; i++) {
+            Chunk chunk = visible[i];
+            batch.draw(texture, chunk.vertices, 0, chunk.quads * FLOATS_PER_QUAD);
+        }
+    }
+
+    /**
+     * Checks whether a cell is within the area the camera could see at the last update, with a margin of one cell on
+     * each side so sprites still sliding in from just off-screen are included.
+     * @param x the x of a cell
+     * @param y the y of a cell
+     * @return true if something at x,y could be on screen
+     */
+    public boolean inView(float x, float y) {
+        return x >= minX - 2f && x <= maxX + 1f && y >= minY - 2f && y <= maxY + 1f;
+    }
+
+    /**
+     * @return how many vertices the last {@link #draw(Batch)} submitted, or the next one will submit
+     */
+    public int getVisibleVertexCount() {
+        int quads = 0;
+        for (int i = 0; i < visibleCount; i++) {
+            quads += visible[i].quads;
+        }
+        return quads * 4;
+    }
+
+    /**
+     * @return how many chunks the last update found visible and non-empty
+     */
+    public int getVisibleChunkCount() {
+        return visibleCount;
+    }
+
+    private boolean changed(Chunk chunk, char[][] glyphs, Region seen) {
+        boolean changed = !chunk.built;
+        for (int x = chunk.startX, i = 0; x < chunk.endX; x++, i += chunkSize) {
+            final char[] column = glyphs[x];
+            for (int y = chunk.startY, j = i; y < chunk.endY; y++, j++) {
+                final char g = seen.contains(x, y) ? column[y] : 0;
+                if (chunk.drawn[j] != g) {
+                    chunk.drawn[j] = g;
+                    changed = true;
+                }
+            }
+        }
+        return changed;
+    }
+
+    private void build(Chunk chunk) {
+        int quads = 0;
+        for (int x = chunk.startX, i = 0; x < chunk.endX; x++, i += chunkSize) {
+            for (int y = chunk.startY, j = i; y < chunk.endY; y++, j++) {
+                final char g = chunk.drawn[j];
+                if (g == 0)
+                    continue;
+                if (needsUnderlay.indexOf(g) >= 0)
+                    quads = quad(chunk, quads, region(underlay), x, y);
+                quads = quad(chunk, quads, region(g), x, y);
+            }
+        }
+        chunk.quads = quads;
+        chunk.built = true;
+    }
+
+    private TextureRegion region(char glyph) {
+        TextureRegion region = mapping.get(glyph);
+        return region == null ? fallback : region;
+    }
+
+    /**
+     * Writes one quad the same way SpriteBatch.draw(TextureRegion, x, y, 1, 1) would, leaving its color for later.
+     * @return the new number of quads in chunk
+     */
+    private static int quad(Chunk chunk, int quads, TextureRegion region, int x, int y) {
+        int idx = quads * FLOATS_PER_QUAD;
+        if (idx + FLOATS_PER_QUAD > chunk.vertices.length) {
+            float[] next = new float[chunk.vertices.length << 1];
+            System.arraycopy(chunk.vertices, 0, next, 0, idx);
+            chunk.vertices = next;
+        }
+        final float[] v = chunk.vertices;
+        final float u = region.getU(), v1 = region.getV2(), u2 = region.getU2(), v2 = region.getV(),
+                fx2 = x + 1f, fy2 = y + 1f;
+        v[idx] = x;
+        v[idx + 1] = y;
+        v[idx + 3] = u;
+        v[idx + 4] = v1;
+
+        v[idx + 5] = x;
+        v[idx + 6] = fy2;
+        v[idx + 8] = u;
+        v[idx + 9] = v2;
+
+        v[idx + 10] = fx2;
+        v[idx + 11] = fy2;
+        v[idx + 13] = u2;
+        v[idx + 14] = v2;
+
+        v[idx + 15] = fx2;
+        v[idx + 16] = y;
+        v[idx + 18] = u2;
+        v[idx + 19] = v1;
+        return quads + 1;
+    }
+
+    private void recolor(Chunk chunk, int[][] oklabColors) {
+        final float[] v = chunk.vertices;
+        int idx = 2;
+        for (int x = chunk.startX, i = 0; x < chunk.endX; x++, i += chunkSize) {
+            final int[] column = oklabColors[x];
+            for (int y = chunk.startY, j = i; y < chunk.endY; y++, j++) {
+                final char g = chunk.drawn[j];
+                if (g == 0)
+                    continue;
+                final float color = DescriptiveColor.oklabIntToFloat(column[y]);
+                for (int q = needsUnderlay.indexOf(g) >= 0 ? 2 : 1; q > 0; q--) {
+                    v[idx] = color;
+                    v[idx + 5] = color;
+                    v[idx + 10] = color;
+                    v[idx + 15] = color;
+                    idx += FLOATS_PER_QUAD;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.github.tommyettinger;
+
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.github.tommyettinger.ds.IntObjectMap;
+import com.github.tommyettinger.random.ChopRandom;
+import com.github.yellowstonegames.core.DescriptiveColor;
+import com.github.yellowstonegames.grid.Coord;
+import com.github.yellowstonegames.grid.CoordObjectOrderedMap;
+import com.github.yellowstonegames.grid.Region;
+
+/**
+ * Compares how many vertices are submitted per frame, and how long it takes to produce them, when drawing a place map
+ * the way {@link DawnSquad} used to (every seen cell, then a scan of every cell looking for monsters) against
+ * {@link TileLayer} (only chunks near the camera, with vertices kept between frames, then a loop over the monsters).
+ * Maps go up to 512x512 with every cell seen, which is the worst case for the old way; the view shows 32x24 cells,
+ * as in DawnSquad, and moves one cell each frame.
+ * <br>
+ * The old way is measured by writing the same 20 floats per quad that SpriteBatch writes, since a real Batch needs
+ * OpenGL; TileLayer's own work is all measured, and what it would hand to a Batch is only copied. This is a plain
+ * main() so it can be run from an IDE without any test framework or graphics.
+ */
+public class TileLayerBenchmark {
+    private static final int FRAMES = 200, MONSTERS = 100, SHOWN_WIDTH = 32, SHOWN_HEIGHT = 24;
+    private static final String GLYPHS = ".,~\"#+/12", UNDERLAY = "/+12";
+
+    public static void main(String[] args) {
+        ChopRandom rng = new ChopRandom(1L);
+        IntObjectMap<TextureRegion> mapping = new IntObjectMap<>(GLYPHS.length());
+        for (int i = 0; i < GLYPHS.length(); i++) {
+            mapping.put(GLYPHS.charAt(i), region(i / 16f, 0f, (i + 1) / 16f, 1f / 16f));
+        }
+        TextureRegion solid = region(0.5f, 0.5f, 0.5f, 0.5f);
+
+        for (int size : new int[]{64, 128, 256, 512}) {
+            Coord.expandPoolTo(size, size);
+            char[][] glyphs = new char[size][size];
+            int[][] colors = new int[size][size];
+            for (int x = 0; x < size; x++) {
+                for (int y = 0; y < size; y++) {
+                    glyphs[x][y] = GLYPHS.charAt(rng.nextInt(GLYPHS.length()));
+                    colors[x][y] = DescriptiveColor.oklab(rng.nextFloat(), 0.5f, 0.5f, 1f);
+                }
+            }
+            Region seen = new Region(size, size).not();
+            CoordObjectOrderedMap<Object> monsters = new CoordObjectOrderedMap<>(MONSTERS);
+            while (monsters.size() < MONSTERS) {
+                monsters.put(Coord.get(rng.nextInt(size), rng.nextInt(size)), "monster");
+            }
+            TileLayer tiles = new TileLayer(size, size, 16, mapping, solid, '.', UNDERLAY);
+            float[] vertices = new float[size * size * 2 * 20], submitted = new float[size * size * 2 * 20];
+
+            long sink = 0, oldVertices = 0, newVertices = 0;
+            for (int warm = 0; warm < 20; warm++) {
+                sink += everyCell(glyphs, seen, colors, mapping, solid, vertices);
+                sink += scanForMonsters(monsters, size);
+                frame(warm, size, tiles, glyphs, seen, colors);
+                sink += tiles.getVisibleVertexCount();
+            }
+
+            long start = System.nanoTime();
+            for (int f = 0; f < FRAMES; f++) {
+                // changing a few cells each frame, like light flickering, happens in both ways.
+                colors[f % size][(f * 7) % size] ^= 1;
+                final int quads = everyCell(glyphs, seen, colors, mapping, solid, vertices);
+                oldVertices = quads * 4L;
+                sink += quads + scanForMonsters(monsters, size);
+            }
+            final long oldNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int f = 0; f < FRAMES; f++) {
+                colors[f % size][(f * 7) % size] ^= 1;
+                // a door opening now and then makes one chunk rebuild.
+                if ((f & 31) == 0)
+                    glyphs[size / 2][size / 2] = glyphs[size / 2][size / 2] == '+' ? '/' : '+';
+                frame(f, size, tiles, glyphs, seen, colors);
+                newVertices = tiles.getVisibleVertexCount();
+                // what a Batch would do with the vertices: copy them into its own buffer.
+                System.arraycopy(vertices, 0, submitted, 0, (int) newVertices * 5);
+                for (int i = 0, n = monsters.size(); i < n; i++) {
+                    Coord c = monsters.keyAt(i);
+                    if (tiles.inView(c.x, c.y))
+                        sink += c.x;
+                }
+            }
+            final long newNanos = System.nanoTime() - start;
+            System.out.printf("%3dx%-3d every cell: %7d vertices, %8.3f ms/frame; TileLayer: %5d vertices in %2d " +
+                            "chunks, %7.3f ms/frame  [%d]%n", size, size, oldVertices, oldNanos * 1E-6 / FRAMES,
+                    newVertices, tiles.getVisibleChunkCount(), newNanos * 1E-6 / FRAMES, sink & 1);
+        }
+    }
+
+    /**
+     * A TextureRegion with texture coordinates but no Texture, since loading one needs OpenGL.
+     */
+    private static TextureRegion region(final float u, final float v, final float u2, final float v2) {
+        return new TextureRegion() {
+            @Override
+            public float getU() {
+                return u;
+            }
+
+            @Override
+            public float getV() {
+                return v;
+            }
+
+            @Override
+            public float getU2() {
+                return u2;
+            }
+
+            @Override
+            public float getV2() {
+                return v2;
+            }
+        };
+    }
+
+    /**
+     * Moves the view one cell along a diagonal walk that wraps around the map, then updates the tiles. This gives the
+     * visible area directly, because updating a Camera needs native code.
+     */
+    private static void frame(int f, int size, TileLayer tiles, char[][] glyphs, Region seen, int[][] colors) {
+        final float left = f % (size - SHOWN_WIDTH), bottom = f % (size - SHOWN_HEIGHT);
+        tiles.update(glyphs, seen, colors, left, bottom, left + SHOWN_WIDTH, bottom + SHOWN_HEIGHT);
+    }
+
+    /**
+     * Writes what DawnSquad's old putMap() loop would have sent to SpriteBatch for every seen cell.
+     * @return how many quads were written
+     */
+    private static int everyCell(char[][] glyphs, Region seen, int[][] colors, IntObjectMap<TextureRegion> mapping,
+                                 TextureRegion solid, float[] vertices) {
+        int idx = 0;
+        for (int x = 0; x < glyphs.length; x++) {
+            for (int y = 0; y < glyphs[x].length; y++) {
+                if (!seen.contains(x, y))
+                    continue;
+                final char glyph = glyphs[x][y];
+                final float color = DescriptiveColor.oklabIntToFloat(colors[x][y]);
+                if (UNDERLAY.indexOf(glyph) >= 0)
+                    idx = quad(vertices, idx, mapping.getOrDefault('.', solid), x, y, color);
+                idx = quad(vertices, idx, mapping.getOrDefault(glyph, solid), x, y, color);
+            }
+        }
+        return idx / 20;
+    }
+
+    private static int quad(float[] v, int idx, TextureRegion region, float x, float y, float color) {
+        final float u = region.getU(), v1 = region.getV2(), u2 = region.getU2(), v2 = region.getV();
+        v[idx] = x;
+        v[idx + 1] = y;
+        v[idx + 2] = color;
+        v[idx + 3] = u;
+        v[idx + 4] = v1;
+        v[idx + 5] = x;
+        v[idx + 6] = y + 1f;
+        v[idx + 7] = color;
+        v[idx + 8] = u;
+        v[idx + 9] = v2;
+        v[idx + 10] = x + 1f;
+        v[idx + 11] = y + 1f;
+        v[idx + 12] = color;
+        v[idx + 13] = u2;
+        v[idx + 14] = v2;
+        v[idx + 15] = x + 1f;
+        v[idx + 16] = y;
+        v[idx + 17] = color;
+        v[idx + 18] = u2;
+        v[idx + 19] = v1;
+        return idx + 20;
+    }
+
+    /**
+     * The old second pass, which looked up every cell in the monster map.
+     */
+    private static int scanForMonsters(CoordObjectOrderedMap<Object> monsters, int size) {
+        int found = 0;
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                if (monsters.get(Coord.get(i, j)) != null)
+                    found++;
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,286 @@
+package com.github.tommyettinger;
+
+import com.github.yellowstonegames.grid.Radius;
+import com.github.yellowstonegames.grid.Region;
+
+import java.util.Arrays;
+
+/**
+ * Shadowcasting that only answers "can this cell be seen," for AI and fog-of-war that don't need light levels. It sees
+ * exactly the cells that FOV.reuseFOV() gives a light level above 0, but writes them as bits in the same layout a
+ * {@link Region} uses, so {@link #visible()} is a Region with no pass over a float[][] to make it, and
+ * {@link #fillLight(float[][])} computes the falloff only for the cells that turned out to be visible.
+ * <br>
+ * Blocking cells (resistance 1 or more, as FOV treats them) are kept as bits twice, once by column like a Region and
+ * once by row. Each row of each octant is then handled as one interval: the cells between the current slopes, found
+ * with the same float math FOV uses for each cell, are marked visible 64 at a time, and only the walls inside that
+ * interval are visited, by scanning for set bits. Call {@link #setBlocking(int, int, boolean)} when a door opens or a
+ * wall is dug out.
+ */
+public class BitVision {
+    public final int width, height;
+    private final int ySections, xSections;
+    /** Blocking cells by column, as a Region stores them: x * ySections + (y >>> 6), bit y &amp; 63. */
+    private final long[] blockByColumn;
+    /** Blocking cells by row: y * xSections + (x >>> 6), bit x &amp; 63. */
+    private final long[] blockByRow;
+    private final long[] visible, lit;
+    private int startX, startY, minX, maxX, minY, maxY, litMinX = 0, litMaxX = -1, litMinY, litMaxY;
+    private float radius, decay;
+    private Radius radiusTechnique;
+
+    /**
+     * @param resistances a resistance map such as FOV.generateSimpleResistances() makes; cells at 1 or more block
+     */
+    public BitVision(float[][] resistances) {
+        width = resistances.length;
+        height = resistances[0].length;
+        ySections = height + 63 >>> 6;
+        xSections = width + 63 >>> 6;
+        blockByColumn = new long[width * ySections];
+        blockByRow = new long[height * xSections];
+        visible = new long[width * ySections];
+        lit = new long[width * ySections];
+        setResistances(resistances);
+    }
+
+    /**
+     * Replaces every blocking cell with the cells in resistances that are 1 or more.
+     */
+    public void setResistances(float[][] resistances) {
+        Arrays.fill(blockByColumn, 0L);
+        Arrays.fill(blockByRow, 0L);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                if (resistances[x][y] >= 1f)
+                    setBlocking(x, y, true);
+            }
+        }
+    }
+
+    public void setBlocking(int x, int y, boolean blocking) {
+        if (blocking) {
+            blockByColumn[x * ySections + (y >>> 6)] |= 1L << y;
+            blockByRow[y * xSections + (x >>> 6)] |= 1L << x;
+        } else {
+            blockByColumn[x * ySections + (y >>> 6)] &= ~(1L << y);
+            blockByRow[y * xSections + (x >>> 6)] &= ~(1L << x);
+        }
+    }
+
+    /**
+     * Finds every cell visible from startX,startY within the given radius, as FOV.reuseFOV() would find them with the
+     * same radius and Radius. The result replaces the last one, and can be read with {@link #isVisible(int, int)},
+     * {@link #visible()} or {@link #visibleBits()}.
+     */
+    public void calculate(int startX, int startY, float radius, Radius radiusTechnique) {
+        // only the words the last result could have touched need clearing
+        for (int x = minX; x <= maxX; x++) {
+            for (int s = x * ySections + (minY >>> 6), e = x * ySections + (maxY >>> 6); s <= e; s++) {
+                visible[s] = 0L;
+            }
+        }
+        this.startX = startX;
+        this.startY = startY;
+        this.radius = radius;
+        this.radiusTechnique = radiusTechnique;
+        decay = 1f / radius;
+        int reach = (int) Math.min(radius, width + height);
+        minX = Math.max(0, startX - reach);
+        maxX = Math.min(width - 1, startX + reach);
+        minY = Math.max(0, startY - reach);
+        maxY = Math.min(height - 1, startY + reach);
+        visible[startX * ySections + (startY >>> 6)] |= 1L << startY;
+        cast(1, 1f, 0f, 0, -1, -1, 0);
+        cast(1, 1f, 0f, -1, 0, 0, -1);
+        cast(1, 1f, 0f, 0, 1, -1, 0);
+        cast(1, 1f, 0f, 1, 0, 0, -1);
+        cast(1, 1f, 0f, 0, -1, 1, 0);
+        cast(1, 1f, 0f, -1, 0, 0, 1);
+        cast(1, 1f, 0f, 0, 1, 1, 0);
+        cast(1, 1f, 0f, 1, 0, 0, 1);
+    }
+
+    public boolean isVisible(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height && (visible[x * ySections + (y >>> 6)] & 1L << y) != 0L;
+    }
+
+    /**
+     * @return a new Region holding the cells the last {@link #calculate(int, int, float, Radius)} found visible
+     */
+    public Region visible() {
+        return new Region(visible, width, height);
+    }
+
+    /**
+     * @return the visible cells in the layout a Region's data uses; this is not a copy, so don't modify it
+     */
+    public long[] visibleBits() {
+        return visible;
+    }
+
+    /**
+     * Writes the light level FOV.reuseFOV() would give to each visible cell into light, and sets the cells the last
+     * call to this lit, that aren't visible now, back to 0. Pass the same array every time, all 0 before the first.
+     * @param light a float[][] as big as the map
+     * @return light, after modifications
+     */
+    public float[][] fillLight(float[][] light) {
+        for (int x = litMinX; x <= litMaxX; x++) {
+            for (int s = x * ySections + (litMinY >>> 6), e = x * ySections + (litMaxY >>> 6); s <= e; s++) {
+                for (long bits = lit[s]; bits != 0L; bits &= bits - 1L) {
+                    light[x][(s - x * ySections) << 6 | Long.numberOfTrailingZeros(bits)] = 0f;
+                }
+                lit[s] = 0L;
+            }
+        }
+        for (int x = minX; x <= maxX; x++) {
+            for (int s = x * ySections + (minY >>> 6), e = x * ySections + (maxY >>> 6); s <= e; s++) {
+                lit[s] = visible[s];
+                for (long bits = visible[s]; bits != 0L; bits &= bits - 1L) {
+                    int y = (s - x * ySections) << 6 | Long.numberOfTrailingZeros(bits);
+                    light[x][y] = 1f - decay * radiusTechnique.radius(x - startX, y - startY);
+                }
+            }
+        }
+        light[startX][startY] = Math.min(1f, radius);
+        litMinX = minX;
+        litMaxX = maxX;
+        litMinY = minY;
+        litMaxY = maxY;
+        return light;
+    }
+
+    private static float rightSlope(int deltaX, int deltaY) {
+        return (deltaX + 0.5f) / (deltaY - 0.5f);
+    }
+
+    private static float leftSlope(int deltaX, int deltaY) {
+        return (deltaX - 0.5f) / (deltaY + 0.5f);
+    }
+
+    /**
+     * One octant of shadowcasting, in the same form as FOV's, except that each row is one interval of cells. When xx is
+     * 0, a row is part of a column of the map; otherwise it is part of a row of the map.
+     */
+    private void cast(int row, float start, float end, int xx, int xy, int yx, int yy) {
+        if (start < end)
+            return;
+        final boolean byColumn = xx == 0;
+        final int step = byColumn ? yx : xx, base = byColumn ? startY : startX, length = byColumn ? height : width;
+        // the deltaX values whose cell is on the map
+        final int inLow = step > 0 ? -base : base - length + 1, inHigh = step > 0 ? length - 1 - base : base;
+        for (int distance = row; distance <= radius && distance < width + height; distance++) {
+            final int deltaY = -distance;
+            final int fixed = byColumn ? startX - distance * xy : startY - distance * yy;
+            if (fixed < 0 || fixed >= (byColumn ? width : height))
+                continue;
+            // FOV skips cells whose right slope is above start, and stops at the first whose left slope is below end;
+            // both slopes only go down as deltaX goes up, so each is one boundary, found with FOV's own float math.
+            int low = -distance, high = 0;
+            while (low < high) {
+                int mid = low + high >> 1;
+                if (rightSlope(mid, deltaY) <= start) high = mid;
+                else low = mid + 1;
+            }
+            final int first = Math.max(rightSlope(low, deltaY) <= start ? low : 1, inLow);
+            low = -distance - 1;
+            high = 0;
+            while (low < high) {
+                int mid = low + high + 1 >> 1;
+                if (leftSlope(mid, deltaY) >= end) low = mid;
+                else high = mid - 1;
+            }
+            final int last = Math.min(low, inHigh);
+            if (first > last)
+                continue;
+            // cells past the radius, or at it where their light would be 0, are reached but not lit
+            low = first;
+            high = last + 1;
+            while (low < high) {
+                int mid = low + high >> 1;
+                if (lights(mid, deltaY)) high = mid;
+                else low = mid + 1;
+            }
+            if (low <= last)
+                markVisible(byColumn, fixed, base + low * step, base + last * step);
+
+            final long[] blocking = byColumn ? blockByColumn : blockByRow;
+            final int offset = fixed * (byColumn ? ySections : xSections);
+            int deltaX = first;
+            boolean blocked = false;
+            while (deltaX <= last && distance < radius) {
+                int wall = find(blocking, offset, base + deltaX * step, base + last * step, step, true);
+                if (wall < 0)
+                    break;
+                wall = (wall - base) * step;
+                cast(distance + 1, start, leftSlope(wall, deltaY), xx, xy, yx, yy);
+                int open = find(blocking, offset, base + wall * step, base + last * step, step, false);
+                if (open < 0) {
+                    blocked = true;
+                    break;
+                }
+                open = (open - base) * step;
+                start = rightSlope(open - 1, deltaY);
+                deltaX = open;
+            }
+            if (blocked)
+                return;
+        }
+    }
+
+    private boolean lights(int deltaX, int deltaY) {
+        float deltaRadius = radiusTechnique.radius(deltaX, deltaY);
+        return deltaRadius <= radius && 1f - decay * deltaRadius > 0f;
+    }
+
+    private void markVisible(boolean byColumn, int fixed, int from, int to) {
+        if (from > to) {
+            int t = from;
+            from = to;
+            to = t;
+        }
+        if (byColumn) {
+            int offset = fixed * ySections;
+            for (int w = from >>> 6, e = to >>> 6; w <= e; w++) {
+                long mask = -1L;
+                if (w == from >>> 6) mask &= -1L << from;
+                if (w == e) mask &= -1L >>> 63 - (to & 63);
+                visible[offset + w] |= mask;
+            }
+        } else {
+            final long bit = 1L << fixed;
+            for (int x = from, s = from * ySections + (fixed >>> 6); x <= to; x++, s += ySections) {
+                visible[s] |= bit;
+            }
+        }
+    }
+
+    /**
+     * Finds the first position from {@code from} toward {@code to}, going up if step is positive or down otherwise,
+     * whose bit in the line starting at offset is set (or clear, if set is false); returns -1 if there is none.
+     */
+    private static int find(long[] bits, int offset, int from, int to, int step, boolean set) {
+        int w = from >>> 6;
+        long word = set ? bits[offset + w] : ~bits[offset + w];
+        if (step > 0) {
+            word &= -1L << from;
+            while (word == 0L) {
+                if (++w > to >>> 6)
+                    return -1;
+                word = set ? bits[offset + w] : ~bits[offset + w];
+            }
+            int found = w << 6 | Long.numberOfTrailingZeros(word);
+            return found <= to ? found : -1;
+        } else {
+            word &= -1L >>> 63 - (from & 63);
+            while (word == 0L) {
+                if (--w < to >>> 6)
+                    return -1;
+                word = set ? bits[offset + w] : ~bits[offset + w];
+            }
+            int found = w << 6 | 63 - Long.numberOfLeadingZeros(word);
+            return found >= to ? found : -1;
+        }
+    }
+}
@@ -47,7 +47,6 @@ import com.github.yellowstonegames.smooth.Director;
 import com.github.yellowstonegames.smooth.VectorSequenceGlider;
 import com.github.yellowstonegames.text.Language;
 
-import static com.badlogic.gdx.Gdx.input;
 import static com.badlogic.gdx.Input.Keys.*;
 import static com.github.tommyettinger.digital.BitConversion.intBitsToFloat;
 import static com.github.yellowstonegames.core.DescriptiveColor.*;
@@ -90,8 +89,6 @@ public class DaybreakDemo extends ApplicationAdapter {
      */
     private Coord player;
 
-    private final Coord[] playerArray = new Coord[1];
-
     private final Vector2 pos = new Vector2();
 
     /**
@@ -133,12 +130,21 @@ public class DaybreakDemo extends ApplicationAdapter {
     private AnimatedGlidingSprite playerSprite;
     private Director<AnimatedGlidingSprite> playerDirector;
     private Director<Coord> monsterDirector, directorSmall;
-    private DijkstraMap getToPlayer, playerToCursor;
+    private DijkstraMap playerToCursor;
+    private PlayerDistanceField getToPlayer;
     private Coord cursor;
     private ObjectDeque<Coord> toCursor;
     private ObjectDeque<Coord> awaitedMoves;
     private ObjectDeque<Coord> nextMovePositions;
     private String lang;
+    // passes input to the handler made in create(), and logs it if recordInput is set; see InputLog.
+    private InputRecorder recorder;
+    /**
+     * If true, all input is logged and saved to daybreak.replay on exit, so the session can be replayed with
+     * {@link InputLog#replay(InputRecorder, InputLog.Replayable)}. The desktop launcher sets this when the "record"
+     * environment variable is set.
+     */
+    public boolean recordInput = false;
     private TextureAtlas.AtlasRegion solid;
     private int health = 9;
 
@@ -321,7 +327,8 @@ public class DaybreakDemo extends ApplicationAdapter {
         //ones are clearly closer "as the crow flies." Alternatives are MANHATTAN, which means 4-way movement only, no
         //diagonals possible, and CHEBYSHEV, which allows 8 directions of movement at the same cost for all directions.
         playerToCursor = new DijkstraMap(barePlaceMap, Measurement.EUCLIDEAN);
-        getToPlayer = new DijkstraMap(barePlaceMap, Measurement.EUCLIDEAN);
+        // Monsters look ahead up to 7 cells to find the player; this scans once per turn and is shared by all monsters.
+        getToPlayer = new PlayerDistanceField(barePlaceMap, Measurement.EUCLIDEAN, 7);
         //These next two lines mark the player as something we want paths to go to or from, and get the distances to the
         // player from somewhat-nearby walkable cells in the dungeon.
         playerToCursor.setGoal(player);
@@ -620,7 +627,9 @@ public class DaybreakDemo extends ApplicationAdapter {
                 return false;
             }
         };
-        Gdx.input.setInputProcessor(input);
+        // checksums every 30 ticks are about two a second, which finds where a replay goes wrong without bloating the log.
+        recorder = recordInput ? new InputRecorder(input, seed, 30) : new InputRecorder(input);
+        Gdx.input.setInputProcessor(recorder);
     }
 
     /**
@@ -672,8 +681,6 @@ public class DaybreakDemo extends ApplicationAdapter {
 
     private void afterChange() {
         phase = Phase.MONSTER_ANIM;
-        // updates our mutable player array in-place, because a Coord like player is immutable.
-        playerArray[0] = player;
         int monCount = monsters.size();
         // handle monster turns
         float[][] lightLevels = vision.lighting.fovResult;
@@ -683,19 +690,20 @@ public class DaybreakDemo extends ApplicationAdapter {
             if (mon == null) continue;
             // monster values are used to store their aggression, 1 for actively stalking the player, 0 for not.
             if (lightLevels[pos.x][pos.y] > 0.01) {
-                // the player's position is set as a goal by findPath(), later.
-                getToPlayer.clearGoals();
+                // the distances to the player are only scanned by the first monster that needs them each turn; after
+                // that, this just checks that the player hasn't moved and the map hasn't changed.
+                getToPlayer.update(player);
                 // clear the buffer, we fill it next
                 nextMovePositions.clear();
-                // this gets the path from pos (the monster's starting position) to the player, and stores it in
-                // nextMovePositions. it only stores one cell of movement, but it looks ahead up to 7 cells.
-                // The keySet() from monsters is interesting here. it contains the current monster, but DijkstraMap
-                // ignores the starting cell's blocking-or-not status, so that isn't an issue. the keyset is cached in
-                // the CoordObjectOrderedMap, so it doesn't constantly allocate new sets (don't do this with a HashMap).
-                // again to reduce allocations, the target position (and there could be more than one in many games) is
-                // stored in a one-element array that gets modified, instead of using a new varargs every time (which
-                // silently creates an array each time it is called).
-                getToPlayer.findPath(nextMovePositions, 1, 7, monsters.keySet(), null, pos, playerArray);
+                // this gets one cell of movement from pos (the monster's starting position) toward the player, and
+                // stores it in nextMovePositions. it only looks at the cells next to pos, so it is very fast.
+                // The keySet() from monsters is interesting here. it contains the current monster, but the current
+                // monster's cell is never a candidate step, so that isn't an issue. the keyset is cached in the
+                // CoordObjectOrderedMap, so it doesn't constantly allocate new sets (don't do this with a HashMap).
+                // because monsters move during this loop, they are checked here instead of blocking the scan.
+                Coord step = getToPlayer.nextStep(pos, monsters.keySet());
+                if (step != null)
+                    nextMovePositions.add(step);
                 if (nextMovePositions.notEmpty()) {
                     Coord tmp = nextMovePositions.get(0);
                     if (tmp == null) continue;
@@ -794,23 +802,23 @@ public class DaybreakDemo extends ApplicationAdapter {
     public void handleHeldKeys() {
         float c = playerSprite.location.getChange();
         if (c != 0f && c != 1f) return;
-        if (input.isKeyPressed(A) || input.isKeyPressed(H) || input.isKeyPressed(LEFT) || input.isKeyPressed(NUMPAD_4))
+        if (recorder.isKeyPressed(A) || recorder.isKeyPressed(H) || recorder.isKeyPressed(LEFT) || recorder.isKeyPressed(NUMPAD_4))
             move(Direction.LEFT);
-        else if (input.isKeyPressed(S) || input.isKeyPressed(J) || input.isKeyPressed(DOWN) || input.isKeyPressed(NUMPAD_2))
+        else if (recorder.isKeyPressed(S) || recorder.isKeyPressed(J) || recorder.isKeyPressed(DOWN) || recorder.isKeyPressed(NUMPAD_2))
             move(Direction.DOWN);
-        else if (input.isKeyPressed(W) || input.isKeyPressed(K) || input.isKeyPressed(UP) || input.isKeyPressed(NUMPAD_8))
+        else if (recorder.isKeyPressed(W) || recorder.isKeyPressed(K) || recorder.isKeyPressed(UP) || recorder.isKeyPressed(NUMPAD_8))
             move(Direction.UP);
-        else if (input.isKeyPressed(D) || input.isKeyPressed(L) || input.isKeyPressed(RIGHT) || input.isKeyPressed(NUMPAD_6))
+        else if (recorder.isKeyPressed(D) || recorder.isKeyPressed(L) || recorder.isKeyPressed(RIGHT) || recorder.isKeyPressed(NUMPAD_6))
             move(Direction.RIGHT);
-        else if (input.isKeyPressed(Y) || input.isKeyPressed(NUMPAD_7))
+        else if (recorder.isKeyPressed(Y) || recorder.isKeyPressed(NUMPAD_7))
             move(Direction.UP_LEFT);
-        else if (input.isKeyPressed(U) || input.isKeyPressed(NUMPAD_9))
+        else if (recorder.isKeyPressed(U) || recorder.isKeyPressed(NUMPAD_9))
             move(Direction.UP_RIGHT);
-        else if (input.isKeyPressed(B) || input.isKeyPressed(NUMPAD_1))
+        else if (recorder.isKeyPressed(B) || recorder.isKeyPressed(NUMPAD_1))
             move(Direction.DOWN_LEFT);
-        else if (input.isKeyPressed(N) || input.isKeyPressed(NUMPAD_3))
+        else if (recorder.isKeyPressed(N) || recorder.isKeyPressed(NUMPAD_3))
             move(Direction.DOWN_RIGHT);
-        else if (input.isKeyPressed(PERIOD) || input.isKeyPressed(NUMPAD_5) || input.isKeyPressed(NUMPAD_DOT))
+        else if (recorder.isKeyPressed(PERIOD) || recorder.isKeyPressed(NUMPAD_5) || recorder.isKeyPressed(NUMPAD_DOT))
             move(Direction.NONE);
     }
 
@@ -822,7 +830,7 @@ public class DaybreakDemo extends ApplicationAdapter {
 
     @Override
     public void render() {
-        if (input.isKeyJustPressed(R))
+        if (recorder.isKeyJustPressed(R))
             restart(lang.hashCode());
 
         // standard clear the background routine for libGDX
@@ -854,8 +862,9 @@ public class DaybreakDemo extends ApplicationAdapter {
             font.draw(batch, "[GRAY]q to quit.", x, y - 2, wide, Align.center, true);
             font.draw(batch, "[YELLOW]r to restart.", x, y - 4, wide, Align.center, true);
             batch.end();
-            if (input.isKeyPressed(Q))
+            if (recorder.isKeyPressed(Q))
                 Gdx.app.exit();
+            recorder.endTick(recorder.isChecksumTick() ? checksum() : 0L);
             return;
         }
         playerDirector.step();
@@ -912,6 +921,22 @@ public class DaybreakDemo extends ApplicationAdapter {
         font.draw(batch, "[GRAY]Current Health: [RED]" + health + "[WHITE] at "
                 + Gdx.graphics.getFramesPerSecond() + " FPS", pos.x, pos.y);
         batch.end();
+        recorder.endTick(recorder.isChecksumTick() ? checksum() : 0L);
+    }
+
+    /**
+     * Mixes together the state a replay has to get the same: where the player and every monster are, the player's
+     * health, and the RNG's state. Drawing and animation progress are left out.
+     */
+    public long checksum() {
+        long hash = InputLog.mix(player.hashCode(), health);
+        for (int i = 0, n = monsters.size(); i < n; i++) {
+            hash = InputLog.mix(hash, monsters.keyAt(i).hashCode());
+        }
+        for (int i = 0, n = rng.getStateCount(); i < n; i++) {
+            hash = InputLog.mix(hash, rng.getSelectedState(i));
+        }
+        return hash;
     }
 
     @Override
@@ -919,4 +944,15 @@ public class DaybreakDemo extends ApplicationAdapter {
         super.resize(width, height);
         mainViewport.update(width, height, false);
     }
+
+    /**
+     * Saves the input log from this session, if recordInput is set and local files can be written here, so it can be
+     * replayed later.
+     */
+    @Override
+    public void dispose() {
+        if (recordInput && recorder != null && Gdx.files.isLocalStorageAvailable())
+            Gdx.files.local("daybreak.replay").writeBytes(recorder.finish().toBytes(), false);
+        super.dispose();
+    }
 }
@@ -0,0 +1,345 @@
+package com.github.tommyettinger;
+
+import com.badlogic.gdx.InputProcessor;
+
+/**
+ * A compact binary log of input events, each stamped with the tick it happened on, plus how many milliseconds each tick
+ * took and a checksum of the game state every few ticks. An {@link InputRecorder} fills one in while the game runs;
+ * {@link #replay(InputRecorder, Replayable)} feeds the same events and tick lengths back into a freshly started game as
+ * fast as it can step, and reports the first tick where the game's state stopped matching the recording.
+ * <br>
+ * A tick is whatever the game advances by between checksums, usually one call to render(). Each record is a variable-
+ * length tick delta, a one-byte type, and the event's arguments as variable-length ints, so a long session with a few
+ * events per second takes a few bytes per event, plus about 3 bytes per tick for its length. The log starts with the
+ * seed the game was started with, so a replay can start the same way. Nothing here uses java.io, so it works the same
+ * on GWT.
+ */
+public class InputLog {
+    public static final int KEY_DOWN = 1, KEY_UP = 2, KEY_TYPED = 3, TOUCH_DOWN = 4, TOUCH_UP = 5, TOUCH_DRAGGED = 6,
+            MOUSE_MOVED = 7, CHECKSUM = 8, END = 9, ELAPSED = 10;
+    private static final int MAGIC = 0x494C4F47, VERSION = 2;
+
+    /**
+     * A game that can be replayed headlessly. The log's events for a tick are given to the game's InputRecorder, and
+     * the tick's length to {@link InputRecorder#elapse(int)}, before {@link #step()} runs that tick; the checksum for a
+     * tick is checked after it.
+     */
+    public interface Replayable {
+        /**
+         * Runs one tick of the game, without drawing; like render(), this should end with
+         * {@link InputRecorder#endTick(long)}.
+         */
+        void step();
+
+        /**
+         * @return a checksum of the game state, as recorded by {@link InputRecorder#endTick(long)}
+         */
+        long checksum();
+    }
+
+    private byte[] data;
+    private int size, lastTick, ticks;
+    private final long seed;
+
+    /**
+     * Starts an empty log for a game started with the given seed.
+     */
+    public InputLog(long seed) {
+        this.seed = seed;
+        data = new byte[256];
+        writeInt(MAGIC);
+        data[size++] = VERSION;
+        writeLong(seed);
+    }
+
+    /**
+     * Reads a log from bytes made by {@link #toBytes()}.
+     * @throws IllegalArgumentException if the bytes aren't a log of this version
+     */
+    public InputLog(byte[] bytes) {
+        size = bytes.length;
+        data = new byte[size];
+        System.arraycopy(bytes, 0, data, 0, size);
+        if (size < 13 || readInt(0) != MAGIC || data[4] != VERSION)
+            throw new IllegalArgumentException("Not an input log of version " + VERSION);
+        seed = readLong(5);
+        lastTick = -1;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return how many ticks were recorded, once the log has been ended or read from bytes
+     */
+    public int getTicks() {
+        if (lastTick < 0)
+            scanTicks();
+        return ticks;
+    }
+
+    /**
+     * @return how many bytes {@link #toBytes()} will return
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds an event with up to four int arguments; which are written depends on the type.
+     * @param tick the tick the event happened on; must not be less than the tick of the last record
+     */
+    public void add(int tick, int type, int a, int b, int c, int d) {
+        startRecord(tick, type);
+        switch (type) {
+            case KEY_DOWN:
+            case KEY_UP:
+            case KEY_TYPED:
+                writeVarInt(a);
+                break;
+            case TOUCH_DOWN:
+            case TOUCH_UP:
+                writeVarInt(zigzag(a));
+                writeVarInt(zigzag(b));
+                writeVarInt(c);
+                writeVarInt(d);
+                break;
+            case TOUCH_DRAGGED:
+                writeVarInt(zigzag(a));
+                writeVarInt(zigzag(b));
+                writeVarInt(c);
+                break;
+            case MOUSE_MOVED:
+                writeVarInt(zigzag(a));
+                writeVarInt(zigzag(b));
+                break;
+            default:
+                throw new IllegalArgumentException("Not an event type: " + type);
+        }
+    }
+
+    /**
+     * Adds the checksum of the game state at the end of the given tick.
+     */
+    public void addChecksum(int tick, long checksum) {
+        startRecord(tick, CHECKSUM);
+        writeLong(checksum);
+    }
+
+    /**
+     * Adds how many milliseconds the given tick took.
+     */
+    public void addElapsed(int tick, int millis) {
+        startRecord(tick, ELAPSED);
+        writeVarInt(millis);
+    }
+
+    /**
+     * Marks how many ticks the session lasted; nothing can be added after this.
+     */
+    public void end(int ticks) {
+        startRecord(ticks, END);
+        this.ticks = ticks;
+    }
+
+    private void startRecord(int tick, int type) {
+        if (tick < lastTick)
+            throw new IllegalArgumentException("Tick " + tick + " is before the last recorded tick, " + lastTick);
+        writeVarInt(tick - lastTick);
+        ensure(1);
+        data[size++] = (byte) type;
+        lastTick = tick;
+    }
+
+    public byte[] toBytes() {
+        byte[] bytes = new byte[size];
+        System.arraycopy(data, 0, bytes, 0, size);
+        return bytes;
+    }
+
+    /**
+     * Feeds every event in this log to {@code target}, stepping {@code game} once per tick, and compares the game's
+     * checksum against each recorded one. Each tick is given the length it had when it was recorded, but this runs as
+     * fast as the game can step.
+     * @param target an InputRecorder wrapping the game's own InputProcessor, so held keys and time are tracked the same
+     *               way they were when recording
+     * @param game the game, freshly started with {@link #getSeed()}
+     * @return the first tick whose checksum didn't match, or -1 if every one matched
+     */
+    public int replay(InputRecorder target, Replayable game) {
+        int at = 13, tick = 0, stepped = 0;
+        int[] cursor = {0};
+        while (at < size) {
+            cursor[0] = at;
+            tick += readVarInt(cursor);
+            int type = data[cursor[0]++];
+            switch (type) {
+                case CHECKSUM:
+                    while (stepped <= tick) {
+                        game.step();
+                        stepped++;
+                    }
+                    if (game.checksum() != readLong(cursor[0]))
+                        return tick;
+                    cursor[0] += 8;
+                    break;
+                case ELAPSED:
+                    while (stepped < tick) {
+                        game.step();
+                        stepped++;
+                    }
+                    target.elapse(readVarInt(cursor));
+                    break;
+                case END:
+                    while (stepped < tick) {
+                        game.step();
+                        stepped++;
+                    }
+                    return -1;
+                default:
+                    while (stepped < tick) {
+                        game.step();
+                        stepped++;
+                    }
+                    dispatch(target, type, cursor);
+            }
+            at = cursor[0];
+        }
+        return -1;
+    }
+
+    private void dispatch(InputProcessor target, int type, int[] cursor) {
+        switch (type) {
+            case KEY_DOWN:
+                target.keyDown(readVarInt(cursor));
+                break;
+            case KEY_UP:
+                target.keyUp(readVarInt(cursor));
+                break;
+            case KEY_TYPED:
+                target.keyTyped((char) readVarInt(cursor));
+                break;
+            case TOUCH_DOWN: {
+                int x = unzigzag(readVarInt(cursor)), y = unzigzag(readVarInt(cursor));
+                target.touchDown(x, y, readVarInt(cursor), readVarInt(cursor));
+                break;
+            }
+            case TOUCH_UP: {
+                int x = unzigzag(readVarInt(cursor)), y = unzigzag(readVarInt(cursor));
+                target.touchUp(x, y, readVarInt(cursor), readVarInt(cursor));
+                break;
+            }
+            case TOUCH_DRAGGED: {
+                int x = unzigzag(readVarInt(cursor)), y = unzigzag(readVarInt(cursor));
+                target.touchDragged(x, y, readVarInt(cursor));
+                break;
+            }
+            case MOUSE_MOVED: {
+                int x = unzigzag(readVarInt(cursor)), y = unzigzag(readVarInt(cursor));
+                target.mouseMoved(x, y);
+                break;
+            }
+            default:
+                throw new IllegalStateException("Unknown record type " + type);
+        }
+    }
+
+    private void scanTicks() {
+        int at = 13, tick = 0;
+        int[] cursor = {0};
+        while (at < size) {
+            cursor[0] = at;
+            tick += readVarInt(cursor);
+            int type = data[cursor[0]++];
+            switch (type) {
+                case KEY_DOWN:
+                case KEY_UP:
+                case KEY_TYPED:
+                case ELAPSED:
+                    readVarInt(cursor);
+                    break;
+                case TOUCH_DOWN:
+                case TOUCH_UP:
+                    readVarInt(cursor);
+                    // fall through
+                case TOUCH_DRAGGED:
+                    readVarInt(cursor);
+                    // fall through
+                case MOUSE_MOVED:
+                    readVarInt(cursor);
+                    readVarInt(cursor);
+                    break;
+                case CHECKSUM:
+                    cursor[0] += 8;
+                    break;
+            }
+            at = cursor[0];
+        }
+        lastTick = ticks = tick;
+    }
+
+    /**
+     * Mixes value into a running checksum; start with any constant and call this once per piece of state.
+     */
+    public static long mix(long checksum, long value) {
+        checksum = (checksum ^ value) * 0xD1B54A32D192ED03L;
+        return checksum ^ checksum >>> 29;
+    }
+
+    private static int zigzag(int n) {
+        return n << 1 ^ n >> 31;
+    }
+
+    private static int unzigzag(int n) {
+        return n >>> 1 ^ -(n & 1);
+    }
+
+    private void ensure(int extra) {
+        if (size + extra > data.length) {
+            byte[] bigger = new byte[Math.max(data.length << 1, size + extra)];
+            System.arraycopy(data, 0, bigger, 0, size);
+            data = bigger;
+        }
+    }
+
+    private void writeVarInt(int n) {
+        ensure(5);
+        while ((n & ~0x7F) != 0) {
+            data[size++] = (byte) (n & 0x7F | 0x80);
+            n >>>= 7;
+        }
+        data[size++] = (byte) n;
+    }
+
+    private void writeInt(int n) {
+        ensure(4);
+        for (int i = 24; i >= 0; i -= 8) {
+            data[size++] = (byte) (n >>> i);
+        }
+    }
+
+    private void writeLong(long n) {
+        writeInt((int) (n >>> 32));
+        writeInt((int) n);
+    }
+
+    private int readVarInt(int[] cursor) {
+        int n = 0, shift = 0;
+        byte b;
+        do {
+            b = data[cursor[0]++];
+            n |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return n;
+    }
+
+    private int readInt(int at) {
+        return (data[at] & 0xFF) << 24 | (data[at + 1] & 0xFF) << 16 | (data[at + 2] & 0xFF) << 8 | (data[at + 3] & 0xFF);
+    }
+
+    private long readLong(int at) {
+        return (long) readInt(at) << 32 | (readInt(at + 4) & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,232 @@
+package com.github.tommyettinger;
+
+import com.github.yellowstonegames.core.DescriptiveColor;
+import com.github.yellowstonegames.grid.Coord;
+import com.github.yellowstonegames.grid.FOV;
+import com.github.yellowstonegames.grid.LightingManager;
+import com.github.yellowstonegames.grid.Radiance;
+
+import java.util.Arrays;
+
+/**
+ * Mixes the colored lights of a {@link LightingManager} the way its update() and draw(int[][]) do, but without
+ * unpacking and repacking an Oklab int for every cell of the map for every light. Strength and the L, A, B and alpha
+ * channels of the mixed color each live in their own flat int array, indexed by x * height + y, and all of it is fixed
+ * point: strength goes from 0 to {@link #ONE}, and L, A and B keep 8 fractional bits, so each goes from 0 to 255 << 8.
+ * Each light is blended into those arrays only within its range, in loops that mask every cell instead of branching on
+ * it, and colors are only packed into ints by {@link #getColor(int, int)} and, once per cell, at the end of
+ * {@link #draw(int[][], float[][], float[][], int)}.
+ * <br>
+ * A light is mixed in with the same rule as LightingManager.mixColoredLighting(float, int) in SquidSquad
+ * 4.0.0-alpha3, which this was checked against: only cells the viewer can see are lit, and a wall only where it touches
+ * a lit cell that isn't a wall. A cell whose color still has the lightness of {@link DescriptiveColor#WHITE}, as every
+ * cell has after clearing, holds no light yet, so the first light to reach it sets its color outright. After that, the
+ * color moves toward each light's color by an amount that depends on the light's level there, the strength already
+ * there, and the light's alpha. The packed path truncates every channel to a whole number after every light, and this
+ * keeps the fraction instead, so strengths and channels can differ from the manager's by a little, not exactly match.
+ */
+public class PlanarLighting {
+    /** The fixed-point strength of full light; {@link #strength} holds values from 0 to this. */
+    public static final int ONE = 1 << 12;
+    private static final int EMPTY = (DescriptiveColor.WHITE & 0xFF) << 8;
+
+    public final int width, height;
+    /** Light strength per cell, from 0 to {@link #ONE}, like LightingManager's lightingStrength times ONE. */
+    public final int[] strength;
+    /** L, A and B of the mixed light color per cell, each from 0 to 255 << 8, with 8 fractional bits. */
+    public final int[] lightness, greenRed, blueYellow;
+    /** Alpha of the mixed light color per cell, from 0 to 255 as in a packed Oklab int. */
+    public final int[] alpha;
+    private final float[][] lightFromFOV;
+    /*
+     * The rest are indexed by (x + 1) * (height + 2) + y + 1, with a border of 0 all around, so a cell's 8 neighbors
+     * can always be read. open and wall are -1 for cells in view that aren't or are walls, 0 elsewhere; level and reach
+     * hold one light's fixed-point levels and, as -1 or 0, whether it lights an open cell in view. Only the cells
+     * around a light are ever written to level and reach, and mixLight() sets them back to 0 when done.
+     */
+    private final int stride;
+    private final int[] open, wall, level, reach;
+
+    public PlanarLighting(int width, int height) {
+        this.width = width;
+        this.height = height;
+        int size = width * height;
+        strength = new int[size];
+        lightness = new int[size];
+        greenRed = new int[size];
+        blueYellow = new int[size];
+        alpha = new int[size];
+        lightFromFOV = new float[width][height];
+        stride = height + 2;
+        int padded = (width + 2) * stride;
+        open = new int[padded];
+        wall = new int[padded];
+        level = new int[padded];
+        reach = new int[padded];
+        clear();
+    }
+
+    /**
+     * Removes all light, so every cell has strength 0 and the color {@link DescriptiveColor#WHITE}, which means empty.
+     */
+    public void clear() {
+        Arrays.fill(strength, 0);
+        Arrays.fill(lightness, EMPTY);
+        Arrays.fill(greenRed, (DescriptiveColor.WHITE >>> 8 & 0xFF) << 8);
+        Arrays.fill(blueYellow, (DescriptiveColor.WHITE >>> 16 & 0xFF) << 8);
+        Arrays.fill(alpha, DescriptiveColor.WHITE >>> 24);
+    }
+
+    /**
+     * Notes which cells the viewer can see, and which of those are walls, for the lights mixed in after this. Cells
+     * where losResult is 0 stay unlit, and cells where resistances is 1 or more are walls, lit only next to a lit open
+     * cell. This should be called again whenever the viewer or a wall changes, before calling
+     * {@link #mixLight(float[][], int, int, float, float, int)}; {@link #update(LightingManager)} calls it itself.
+     * @param losResult the viewer's line of sight, usually LightingManager's losResult
+     * @param resistances the map's resistances, usually LightingManager's resistances
+     */
+    public void prepare(float[][] losResult, float[][] resistances) {
+        for (int x = 0; x < width; x++) {
+            final float[] los = losResult[x], res = resistances[x];
+            for (int y = 0, p = (x + 1) * stride + 1; y < height; y++, p++) {
+                open[p] = los[y] > 0f && res[y] < 1f ? -1 : 0;
+                wall[p] = los[y] > 0f && res[y] >= 1f ? -1 : 0;
+            }
+        }
+    }
+
+    /**
+     * Does what LightingManager's update() does, using its lights, resistances, Radius, noticeable cells and
+     * losResult, but mixes each light's FOV in here instead of into the manager's lightingStrength and colorLighting,
+     * which are not changed. The manager's calculateFOV() should have been called first, as for its own update().
+     */
+    public void update(LightingManager lighting) {
+        clear();
+        prepare(lighting.losResult, lighting.resistances);
+        for (int i = 0, sz = lighting.lights.size(); i < sz; i++) {
+            Coord pos = lighting.lights.keyAt(i);
+            if (!lighting.noticeable.contains(pos)) continue;
+            Radiance radiance = lighting.lights.getAt(i);
+            if (radiance == null) continue;
+            float range = radiance.currentRange();
+            FOV.reuseFOVSymmetrical(lighting.resistances, lightFromFOV, pos.x, pos.y, range, lighting.radiusStrategy);
+            mixLight(lightFromFOV, pos.x, pos.y, range, radiance.flare, radiance.color);
+        }
+    }
+
+    /**
+     * Mixes in one light, given the light levels an FOV found for it, into the cells the last call to
+     * {@link #prepare(float[][], float[][])} found in view. Only cells no more than range away from centerX,centerY on
+     * either axis are read, which is every cell any Radius can reach with that range.
+     * @param light light levels as FOV.reuseFOVSymmetrical() produces them, 0 where this light doesn't reach
+     * @param flare how much to brighten the light past its light levels, as in {@link Radiance#flare}
+     * @param color a packed Oklab int color, as DescriptiveColor uses
+     */
+    public void mixLight(float[][] light, int centerX, int centerY, float range, float flare, int color) {
+        final int reach = (int) Math.ceil(range);
+        final int startX = Math.max(0, centerX - reach), endX = Math.min(width - 1, centerX + reach),
+                startY = Math.max(0, centerY - reach), endY = Math.min(height - 1, centerY + reach);
+        // walls on the edge of the range look one cell further for lit open cells
+        final int outerStartX = Math.max(0, startX - 1), outerEndX = Math.min(width - 1, endX + 1),
+                outerStartY = Math.max(0, startY - 1), outerEndY = Math.min(height - 1, endY + 1);
+        final int[] level = this.level, lit = this.reach, open = this.open, wall = this.wall;
+        final int stride = this.stride;
+        for (int x = outerStartX; x <= outerEndX; x++) {
+            final float[] column = light[x];
+            for (int y = outerStartY, p = (x + 1) * stride + y + 1; y <= outerEndY; y++, p++) {
+                // any level above 0 is at least 1, so a light too faint for fixed point still lights the cell
+                final int o = (int) (column[y] * ONE) | -Float.floatToRawIntBits(column[y]) >>> 31;
+                level[p] = o;
+                lit[p] = -o >> 31 & open[p];
+            }
+        }
+
+        final int f = (int) ((flare + 1f) * ONE);
+        final int eL = (color & 0xFF) << 8, eA = (color >>> 8 & 0xFF) << 8, eB = (color >>> 16 & 0xFF) << 8,
+                eAlpha = color >>> 24;
+        final int fade = (int) ((color >>> 25) * 0.007874016f * ONE);
+        // a light with the lightness of white never blends into a color, only adds its full strength
+        final int white = eL == EMPTY ? -1 : 0;
+        final int[] strength = this.strength, lightness = this.lightness, greenRed = this.greenRed,
+                blueYellow = this.blueYellow, alpha = this.alpha;
+        for (int x = startX; x <= endX; x++) {
+            for (int y = startY, i = x * height + startY, p = (x + 1) * stride + y + 1; y <= endY; y++, i++, p++) {
+                final int near = lit[p - stride - 1] | lit[p - stride] | lit[p - stride + 1] | lit[p - 1]
+                        | lit[p + 1] | lit[p + stride - 1] | lit[p + stride] | lit[p + stride + 1];
+                final int o = level[p], mixed = lit[p] | (near & wall[p] & -o >> 31);
+                final int s = strength[i], l = lightness[i];
+                // empty cells take the light's color outright; others blend toward it
+                final int empty = ~(l - EMPTY >> 31) & mixed, blend = mixed & ~empty & ~white;
+                final int change = ((o - s >> 1) + (ONE >> 1)) * fade >> 12;
+                final int toColor = (change & blend) | (ONE & empty);
+                final int toStrength = toColor | (ONE & mixed & white);
+                strength[i] = Math.min(ONE, s + (((o & mixed) * toStrength >> 12) * f >> 12));
+                lightness[i] = l + (toColor * (eL - l) >> 12);
+                greenRed[i] += toColor * (eA - greenRed[i]) >> 12;
+                blueYellow[i] += toColor * (eB - blueYellow[i]) >> 12;
+                final int a = alpha[i] & ~(blend & 1);
+                alpha[i] = a ^ ((a ^ eAlpha) & empty);
+            }
+        }
+
+        for (int x = outerStartX; x <= outerEndX; x++) {
+            final int p = (x + 1) * stride + outerStartY + 1, q = p + outerEndY - outerStartY + 1;
+            Arrays.fill(level, p, q, 0);
+            Arrays.fill(lit, p, q, 0);
+        }
+    }
+
+    /**
+     * Gets the mixed light color at x,y as a packed Oklab int, like LightingManager's colorLighting holds; this is
+     * {@link DescriptiveColor#WHITE} where no light has been mixed in.
+     */
+    public int getColor(int x, int y) {
+        final int i = x * height + y;
+        return lightness[i] >>> 8 | greenRed[i] & 0xFF00 | (blueYellow[i] & 0xFF00) << 8 | alpha[i] << 24;
+    }
+
+    /**
+     * Gets the light strength at x,y, from 0 to 1, like LightingManager's lightingStrength holds.
+     */
+    public float getStrength(int x, int y) {
+        return strength[x * height + y] * (1f / ONE);
+    }
+
+    /**
+     * Blends the light into backgrounds wherever losResult and fovResult are both more than 0, as LightingManager's
+     * draw(int[][]) does: each such background moves toward the light's color by 0.4 times its strength, scaled by the
+     * light's alpha as DescriptiveColor.lerpColorsBlended() does, and is then converted to RGBA8888. The blend is done
+     * on the fixed-point channels, and each cell is packed and converted only once. A background of 0 is treated as
+     * backgroundColor.
+     * @param backgrounds packed Oklab int colors, replaced in place by RGBA8888 colors where drawn
+     * @param losResult the viewer's line of sight, usually LightingManager's losResult
+     * @param fovResult the viewer's FOV, usually LightingManager's fovResult
+     * @param backgroundColor the color to use in place of 0, usually LightingManager's backgroundColor
+     */
+    public void draw(int[][] backgrounds, float[][] losResult, float[][] fovResult, int backgroundColor) {
+        for (int x = 0; x < width; x++) {
+            final int[] column = backgrounds[x];
+            final float[] los = losResult[x], seen = fovResult[x];
+            for (int y = 0, i = x * height; y < height; y++, i++) {
+                if (los[y] <= 0f || seen[y] <= 0f) continue;
+                int current = column[y];
+                current ^= (current ^ backgroundColor) & ~((current | -current) >> 31);
+                // 0.4 times strength times alpha / 255, with 16 fractional bits; 1645 is 0.4 / 255 * (1 << 20)
+                final int t = strength[i] * alpha[i] * 1645 >> 16;
+                final int sL = current & 0xFF, sA = current >>> 8 & 0xFF, sB = current >>> 16 & 0xFF;
+                column[y] = DescriptiveColor.toRGBA8888(sL + (t * ((lightness[i] >>> 8) - sL) >> 16)
+                        | sA + (t * ((greenRed[i] >>> 8) - sA) >> 16) << 8
+                        | sB + (t * ((blueYellow[i] >>> 8) - sB) >> 16) << 16
+                        | current & 0xFF000000);
+            }
+        }
+    }
+
+    /**
+     * Calls {@link #draw(int[][], float[][], float[][], int)} with lighting's losResult, fovResult and
+     * backgroundColor.
+     */
+    public void draw(int[][] backgrounds, LightingManager lighting) {
+        draw(backgrounds, lighting.losResult, lighting.fovResult, lighting.backgroundColor);
+    }
+}
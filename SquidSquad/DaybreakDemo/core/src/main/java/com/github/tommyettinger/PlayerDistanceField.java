@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2022-2023 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.tommyettinger;
+
+import com.github.yellowstonegames.grid.Coord;
+import com.github.yellowstonegames.grid.Direction;
+import com.github.yellowstonegames.grid.Measurement;
+import com.github.yellowstonegames.path.DijkstraMap;
+
+import java.util.Collection;
+
+/**
+ * A distance field to the player that is shared by every monster taking its turn.
+ * <br>
+ * Calling {@link DijkstraMap#findPath} once per monster floods outward from the same player goal every time, so the
+ * cost of a monster turn grows with the number of monsters that can see the player. This instead scans once from the
+ * player (up to {@link #limit} distance), and only scans again when the player moves or {@link #invalidate()} is
+ * called because the map's walls or doors changed. Each monster then looks up its next step by checking only its own
+ * neighbors, which is constant-time.
+ * <br>
+ * Other monsters are not walls in the shared scan, because they move during the turn. Instead, they are treated as a
+ * dynamic cost when a step is chosen: a monster never steps into an occupied cell, takes the next-best downhill step if
+ * the best one is taken, and steps to the side (to a free cell just as far from the player) if every downhill step is
+ * taken. This is not quite what findPath() with the monsters as impassable cells did, which could route a monster
+ * the long way around a crowd; here a monster only ever looks at its own neighbors, and waits if all of them that
+ * aren't further from the player are taken.
+ */
+public class PlayerDistanceField {
+    /**
+     * The largest distance this will scan outward from the player; monsters further than this won't find a step.
+     */
+    public final int limit;
+    private final DijkstraMap dijkstra;
+    private final Direction[] directions;
+    private Coord scannedGoal = null;
+    private int blockageVersion = 0, scannedVersion = -1;
+
+    public PlayerDistanceField(char[][] map, int limit) {
+        this(map, Measurement.EUCLIDEAN, limit);
+    }
+
+    public PlayerDistanceField(char[][] map, Measurement measurement, int limit) {
+        this.limit = limit;
+        dijkstra = new DijkstraMap(map, measurement);
+        directions = measurement == Measurement.MANHATTAN ? Direction.CARDINALS : Direction.OUTWARDS;
+    }
+
+    /**
+     * Replaces the map this uses and invalidates any scanned distances.
+     * @param map a char[][] with '#' for walls, as passed to a {@link DijkstraMap}
+     */
+    public void initialize(char[][] map) {
+        dijkstra.initialize(map);
+        invalidate();
+    }
+
+    /**
+     * Marks the current distances as stale, so the next {@link #update(Coord)} will scan again even if the player
+     * hasn't moved. Call this whenever a cell of the map this was given changes between wall and floor; opening a door
+     * doesn't need this if, as with a bare map, doors were already floor here.
+     */
+    public void invalidate() {
+        ++blockageVersion;
+    }
+
+    /**
+     * Gets the blockage version counter, which is incremented by {@link #invalidate()}.
+     * @return the current blockage version
+     */
+    public int getBlockageVersion() {
+        return blockageVersion;
+    }
+
+    /**
+     * Makes sure the distances are scanned from {@code player}. This only does any real work if the player moved or the
+     * blockage version changed since the last scan.
+     * @param player the position of the player, which is the only goal
+     * @return true if this had to scan again, or false if the cached distances were still valid
+     */
+    public boolean update(Coord player) {
+        if (player == scannedGoal && scannedVersion == blockageVersion)
+            return false;
+        dijkstra.clearGoals();
+        dijkstra.resetMap();
+        dijkstra.setGoal(player);
+        dijkstra.partialScan(limit, null);
+        scannedGoal = player;
+        scannedVersion = blockageVersion;
+        return true;
+    }
+
+    /**
+     * Gets the scanned distance from the given cell to the player, or a value at least as high as
+     * {@link DijkstraMap#FLOOR} if that cell couldn't be reached within {@link #limit}.
+     * @param x x position of the cell to look up
+     * @param y y position of the cell to look up
+     * @return the distance to the player from x,y
+     */
+    public float distance(int x, int y) {
+        return dijkstra.gradientMap[x][y];
+    }
+
+    /**
+     * Finds the neighbor of {@code start} that gets closest to the player, skipping any cell in {@code occupied}. Steps
+     * that strictly decrease the distance are tried first, like {@link DijkstraMap#findPath} does; if all of those are
+     * occupied, a free neighbor exactly as far from the player as start is used instead, so a monster can sidestep
+     * another one that is in its way. A monster that would have to move further from the player gets null and should
+     * wait. The player's own cell is always a valid step (so a monster can attack), as long as it isn't in occupied.
+     * <br>
+     * You must call {@link #update(Coord)} before this, once per turn is enough.
+     * @param start where the monster is now
+     * @param occupied cells that currently hold other monsters; may contain start, and may be null
+     * @return the next cell to move into, or null if every step that doesn't get further away is occupied
+     */
+    public Coord nextStep(Coord start, Collection<Coord> occupied) {
+        final float[][] gradient = dijkstra.gradientMap;
+        final int width = gradient.length, height = gradient[0].length;
+        final float here = gradient[start.x][start.y];
+        if (here >= DijkstraMap.FLOOR)
+            return null;
+        float best = here;
+        Coord choice = null, sidestep = null;
+        for (int d = 0; d < directions.length; d++) {
+            final int x = start.x + directions[d].deltaX, y = start.y + directions[d].deltaY;
+            if (x < 0 || y < 0 || x >= width || y >= height || gradient[x][y] > best
+                    || (gradient[x][y] == best && (choice != null || sidestep != null)))
+                continue;
+            Coord pt = Coord.get(x, y);
+            if (occupied != null && occupied.contains(pt))
+                continue;
+            if (gradient[x][y] < best) {
+                best = gradient[x][y];
+                choice = pt;
+            } else {
+                sidestep = pt;
+            }
+        }
+        return choice != null ? choice : sidestep;
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2022-2023 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.tommyettinger;
+
+import com.github.yellowstonegames.grid.Coord;
+import com.github.yellowstonegames.grid.Region;
+
+import java.util.Arrays;
+
+/**
+ * Answers "can this cell see that one" for many pairs of cells, such as monsters checking each other or a noise, without
+ * running a field of view for each one.
+ * <br>
+ * The line between two cells is a Bresenham line, always drawn from the cell with the lower x (or the lower y, if the
+ * x is the same), so a can see b exactly when b can see a. Every such line up to {@link #maxRadius} cells long is
+ * worked out once, when this is made, as a list of the cells between the ends; a query then just checks those cells
+ * against the blocking Region, stopping at the first one that blocks. Answers are also kept in a small cache, which
+ * is dropped all at once when {@link #invalidate()} is called because a wall or door changed.
+ */
+public class SightLines {
+    /**
+     * The furthest apart, in cells along either axis, two cells can be and still see each other.
+     */
+    public final int maxRadius;
+    private final int side;
+    /**
+     * For the line to offset dx,dy (stored at (dx + maxRadius) * side + dy + maxRadius), the cells between the ends
+     * are {@link #stepX} and {@link #stepY} from lineStart[i] up to lineStart[i + 1].
+     */
+    private final int[] lineStart;
+    private final byte[] stepX, stepY;
+    private Region blocking;
+    private int blockageVersion = 0;
+    private final long[] cacheKeys;
+    private final int[] cacheStamps;
+    private final boolean[] cacheValues;
+    private final int cacheMask;
+    private long queries, walks;
+
+    /**
+     * @param blocking the cells that block sight, such as walls and closed doors; kept, not copied
+     * @param maxRadius the furthest apart two cells can be to see each other, up to 127
+     */
+    public SightLines(Region blocking, int maxRadius) {
+        this(blocking, maxRadius, 1 << 14);
+    }
+
+    /**
+     * @param blocking the cells that block sight, such as walls and closed doors; kept, not copied
+     * @param maxRadius the furthest apart two cells can be to see each other, up to 127
+     * @param cacheSize how many answers to keep; rounded up to a power of two
+     */
+    public SightLines(Region blocking, int maxRadius, int cacheSize) {
+        if (maxRadius < 0 || maxRadius > 127)
+            throw new IllegalArgumentException("maxRadius must be between 0 and 127, not " + maxRadius);
+        this.blocking = blocking;
+        this.maxRadius = maxRadius;
+        side = maxRadius * 2 + 1;
+        lineStart = new int[side * side + 1];
+        int total = 0;
+        for (int dx = -maxRadius; dx <= maxRadius; dx++) {
+            for (int dy = -maxRadius; dy <= maxRadius; dy++) {
+                if (dx > 0 || dx == 0 && dy > 0)
+                    total += Math.max(0, Math.max(Math.abs(dx), Math.abs(dy)) - 1);
+            }
+        }
+        stepX = new byte[total];
+        stepY = new byte[total];
+        int at = 0;
+        for (int dx = -maxRadius, i = 0; dx <= maxRadius; dx++) {
+            for (int dy = -maxRadius; dy <= maxRadius; dy++, i++) {
+                lineStart[i] = at;
+                if (dx > 0 || dx == 0 && dy > 0)
+                    at = trace(dx, dy, at);
+            }
+        }
+        lineStart[side * side] = at;
+        int size = Integer.highestOneBit(Math.max(16, cacheSize - 1) << 1);
+        cacheKeys = new long[size];
+        cacheStamps = new int[size];
+        cacheValues = new boolean[size];
+        cacheMask = size - 1;
+        Arrays.fill(cacheStamps, -1);
+    }
+
+    /**
+     * Stores the cells strictly between 0,0 and dx,dy on a Bresenham line, starting at index at.
+     * @return the index after the last cell stored
+     */
+    private int trace(int dx, int dy, int at) {
+        final int adx = Math.abs(dx), ady = Math.abs(dy), sx = Integer.signum(dx), sy = Integer.signum(dy);
+        int x = 0, y = 0, err = adx - ady;
+        while (true) {
+            int e2 = err << 1;
+            if (e2 > -ady) {
+                err -= ady;
+                x += sx;
+            }
+            if (e2 < adx) {
+                err += adx;
+                y += sy;
+            }
+            if (x == dx && y == dy)
+                return at;
+            stepX[at] = (byte) x;
+            stepY[at++] = (byte) y;
+        }
+    }
+
+    /**
+     * Uses a different Region for the cells that block sight, and drops all cached answers.
+     */
+    public void setBlocking(Region blocking) {
+        this.blocking = blocking;
+        invalidate();
+    }
+
+    /**
+     * Drops all cached answers. Call this whenever the blocking Region changes, such as when a door opens.
+     */
+    public void invalidate() {
+        ++blockageVersion;
+    }
+
+    /**
+     * Gets the blockage version counter, which is incremented by {@link #invalidate()}.
+     * @return the current blockage version
+     */
+    public int getBlockageVersion() {
+        return blockageVersion;
+    }
+
+    /**
+     * @return how many queries this has answered since it was made
+     */
+    public long getQueries() {
+        return queries;
+    }
+
+    /**
+     * @return how many of those queries weren't cached within range, and had to check cells on the line
+     */
+    public long getWalks() {
+        return walks;
+    }
+
+    /**
+     * Checks if there is a line of sight between two cells: they are no more than {@link #maxRadius} apart on either
+     * axis, and no cell between them on the line is blocking. The cells themselves may be blocking; a cell can always
+     * see itself.
+     */
+    public boolean canSee(int fromX, int fromY, int toX, int toY) {
+        ++queries;
+        if (toX < fromX || toX == fromX && toY < fromY) {
+            int t = fromX;
+            fromX = toX;
+            toX = t;
+            t = fromY;
+            fromY = toY;
+            toY = t;
+        }
+        final int dx = toX - fromX, dy = toY - fromY;
+        if (dx > maxRadius || dy > maxRadius || dy < -maxRadius)
+            return false;
+        final long key = (long) fromX << 48 | (long) (fromY & 0xFFFF) << 32 | (long) (toX & 0xFFFF) << 16 | (toY & 0xFFFF);
+        final int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & cacheMask;
+        if (cacheStamps[slot] == blockageVersion && cacheKeys[slot] == key)
+            return cacheValues[slot];
+        ++walks;
+        boolean clear = true;
+        final int line = (dx + maxRadius) * side + dy + maxRadius;
+        for (int i = lineStart[line], e = lineStart[line + 1]; i < e; i++) {
+            if (blocking.contains(fromX + stepX[i], fromY + stepY[i])) {
+                clear = false;
+                break;
+            }
+        }
+        cacheKeys[slot] = key;
+        cacheStamps[slot] = blockageVersion;
+        cacheValues[slot] = clear;
+        return clear;
+    }
+
+    public boolean canSee(Coord from, Coord to) {
+        return canSee(from.x, from.y, to.x, to.y);
+    }
+
+    /**
+     * Answers count queries at once: results[i] is set to whether froms[i] and tos[i] can see each other.
+     * @return how many of the pairs can see each other
+     */
+    public int canSee(Coord[] froms, Coord[] tos, int count, boolean[] results) {
+        int seen = 0;
+        for (int i = 0; i < count; i++) {
+            if (results[i] = canSee(froms[i].x, froms[i].y, tos[i].x, tos[i].y))
+                seen++;
+        }
+        return seen;
+    }
+
+    /**
+     * Finds which of the given targets can see from, such as which monsters can see a noise; results[i] is set for
+     * targets[i].
+     * @return how many of the targets can see from
+     */
+    public int canSee(Coord from, Coord[] targets, int count, boolean[] results) {
+        int seen = 0;
+        for (int i = 0; i < count; i++) {
+            if (results[i] = canSee(from.x, from.y, targets[i].x, targets[i].y))
+                seen++;
+        }
+        return seen;
+    }
+}
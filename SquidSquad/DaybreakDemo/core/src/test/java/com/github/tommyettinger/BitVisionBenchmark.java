@@ -0,0 +1,68 @@
+package com.github.tommyettinger;
+
+import com.github.tommyettinger.random.ChopRandom;
+import com.github.yellowstonegames.grid.Coord;
+import com.github.yellowstonegames.grid.FOV;
+import com.github.yellowstonegames.grid.Radius;
+import com.github.yellowstonegames.grid.Region;
+import com.github.yellowstonegames.place.DungeonProcessor;
+
+/**
+ * Times looking around a 256x256 dungeon from 1000 random floor cells at a few vision ranges, three ways: the float
+ * path VisionFramework takes (FOV.reuseFOV(), then a blockage Region refilled from the light levels and flipped to get
+ * the cells in view), {@link BitVision} alone with its {@link BitVision#visible()} Region, and BitVision plus
+ * {@link BitVision#fillLight(float[][])} for when the light levels are wanted too. Each way also ORs the cells in view
+ * into a seen Region, as fog-of-war does.
+ * <br>
+ * This is a plain main() so it can be run from an IDE without any test framework or graphics.
+ */
+public class BitVisionBenchmark {
+    private static final int SIZE = 256, LOOKS = 1000, ROUNDS = 5;
+    private static final float[] RANGES = {9f, 32f, SIZE * 2};
+
+    public static void main(String[] args) {
+        ChopRandom rng = new ChopRandom(42L);
+        DungeonProcessor dungeonGen = new DungeonProcessor(SIZE, SIZE, rng);
+        dungeonGen.generate();
+        char[][] bare = dungeonGen.getBarePlaceGrid();
+        float[][] resistances = FOV.generateSimpleResistances(bare);
+        Region floors = new Region(bare, '.');
+        int[] xs = new int[LOOKS], ys = new int[LOOKS];
+        for (int i = 0; i < LOOKS; i++) {
+            Coord c = floors.singleRandom(rng);
+            xs[i] = c.x;
+            ys[i] = c.y;
+        }
+        BitVision vision = new BitVision(resistances);
+        float[][] light = new float[SIZE][SIZE], bitLight = new float[SIZE][SIZE];
+        Region blockage = new Region(SIZE, SIZE), inView = new Region(SIZE, SIZE), seen = new Region(SIZE, SIZE);
+        for (float range : RANGES) {
+            long floatNanos = 0L, bitNanos = 0L, bitLightNanos = 0L;
+            for (int round = 0; round < ROUNDS; round++) {
+                long t = System.nanoTime();
+                for (int i = 0; i < LOOKS; i++) {
+                    FOV.reuseFOV(resistances, light, xs[i], ys[i], range, Radius.CIRCLE);
+                    blockage.refill(light, 0f);
+                    seen.or(inView.remake(blockage).not());
+                }
+                floatNanos += System.nanoTime() - t;
+                t = System.nanoTime();
+                for (int i = 0; i < LOOKS; i++) {
+                    vision.calculate(xs[i], ys[i], range, Radius.CIRCLE);
+                    seen.or(vision.visible());
+                }
+                bitNanos += System.nanoTime() - t;
+                t = System.nanoTime();
+                for (int i = 0; i < LOOKS; i++) {
+                    vision.calculate(xs[i], ys[i], range, Radius.CIRCLE);
+                    vision.fillLight(bitLight);
+                    seen.or(vision.visible());
+                }
+                bitLightNanos += System.nanoTime() - t;
+            }
+            System.out.printf("range %5.1f: float path %8.2f us/look, bits %8.2f us/look, bits + light %8.2f us/look%n",
+                    range, floatNanos * 1E-3 / (LOOKS * ROUNDS), bitNanos * 1E-3 / (LOOKS * ROUNDS),
+                    bitLightNanos * 1E-3 / (LOOKS * ROUNDS));
+        }
+    }
+}
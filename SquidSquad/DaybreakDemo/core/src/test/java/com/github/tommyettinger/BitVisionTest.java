@@ -0,0 +1,78 @@
+package com.github.tommyettinger;
+
+import com.github.tommyettinger.random.ChopRandom;
+import com.github.yellowstonegames.grid.Coord;
+import com.github.yellowstonegames.grid.FOV;
+import com.github.yellowstonegames.grid.Radius;
+import com.github.yellowstonegames.grid.Region;
+import com.github.yellowstonegames.place.DungeonProcessor;
+
+/**
+ * Looks around random dungeons from random cells, near the edges too, with {@link BitVision} and with FOV.reuseFOV(),
+ * and checks that BitVision sees exactly the cells FOV gives more than 0 light, and that its
+ * {@link BitVision#fillLight(float[][])} gives them exactly the same light, float for float. Radii include whole
+ * numbers, where cells right at the radius are reached but get no light, and radii bigger than the map. Some walls are
+ * also dug out or put back between looks, through {@link BitVision#setBlocking(int, int, boolean)}.
+ * <br>
+ * This is a plain main() so it can be run from an IDE without any test framework; it throws at the first mismatch.
+ */
+public class BitVisionTest {
+    private static final Radius[] RADII = {Radius.CIRCLE, Radius.SQUARE, Radius.DIAMOND};
+
+    public static void main(String[] args) {
+        ChopRandom rng = new ChopRandom(42L);
+        int looks = 0;
+        long seenCells = 0L;
+        for (int trial = 0; trial < 12; trial++) {
+            int width = 20 + rng.nextInt(trial < 8 ? 100 : 237), height = 20 + rng.nextInt(trial < 8 ? 60 : 237);
+            DungeonProcessor dungeonGen = new DungeonProcessor(width, height, rng);
+            dungeonGen.generate();
+            char[][] bare = dungeonGen.getBarePlaceGrid();
+            float[][] resistances = FOV.generateSimpleResistances(bare);
+            BitVision vision = new BitVision(resistances);
+            float[][] expected = new float[width][height], actual = new float[width][height];
+            for (int look = 0; look < 200; look++, looks++) {
+                if (look % 10 == 9) {
+                    for (int n = 0; n < 20; n++) {
+                        int x = rng.nextInt(width), y = rng.nextInt(height);
+                        resistances[x][y] = resistances[x][y] >= 1f ? 0f : 1f;
+                        vision.setBlocking(x, y, resistances[x][y] >= 1f);
+                    }
+                }
+                int x = rng.nextInt(width), y = rng.nextInt(height);
+                if (look % 4 == 0) {
+                    // hug an edge or corner
+                    x = rng.nextBoolean() ? rng.nextInt(2) : width - 1 - rng.nextInt(2);
+                    if (rng.nextBoolean()) y = rng.nextBoolean() ? 0 : height - 1;
+                }
+                Radius radius = RADII[look % 3];
+                float range;
+                switch (rng.nextInt(4)) {
+                    case 0: range = 1 + rng.nextInt(20); break;
+                    case 1: range = width + height; break;
+                    case 2: range = 0.5f + rng.nextFloat() * 2f; break;
+                    default: range = 1f + rng.nextFloat() * 40f;
+                }
+                FOV.reuseFOV(resistances, expected, x, y, range, radius);
+                vision.calculate(x, y, range, radius);
+                vision.fillLight(actual);
+                Region region = vision.visible();
+                for (int i = 0; i < width; i++) {
+                    for (int j = 0; j < height; j++) {
+                        boolean shouldSee = expected[i][j] > 0f;
+                        if (vision.isVisible(i, j) != shouldSee || region.contains(i, j) != shouldSee)
+                            throw new IllegalStateException("Trial " + trial + ", looking from " + Coord.get(x, y)
+                                    + " with " + radius + " radius " + range + ": " + i + "," + j + " should "
+                                    + (shouldSee ? "" : "not ") + "be visible; FOV gives it " + expected[i][j]);
+                        if (Float.floatToIntBits(expected[i][j]) != Float.floatToIntBits(actual[i][j]))
+                            throw new IllegalStateException("Trial " + trial + ", looking from " + Coord.get(x, y)
+                                    + " with " + radius + " radius " + range + ": " + i + "," + j + " has light "
+                                    + actual[i][j] + " instead of " + expected[i][j]);
+                        if (shouldSee) seenCells++;
+                    }
+                }
+            }
+        }
+        System.out.println("Compared " + looks + " looks (" + seenCells + " visible cells) with FOV.reuseFOV(); all were identical.");
+    }
+}
@@ -0,0 +1,399 @@
+package com.github.tommyettinger;
+
+import com.badlogic.gdx.InputAdapter;
+import com.badlogic.gdx.InputProcessor;
+import com.github.tommyettinger.ds.ObjectDeque;
+import com.github.tommyettinger.random.ChopRandom;
+import com.github.yellowstonegames.grid.Coord;
+import com.github.yellowstonegames.grid.Region;
+import com.github.yellowstonegames.place.DungeonProcessor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static com.badlogic.gdx.Input.Keys.*;
+
+/**
+ * Records sessions of a headless game with the same rules as {@link DaybreakDemo}'s turns, driven by random held keys,
+ * mouse moves and clicks, then replays each log on a clean start and checks that every checksum matches and that the
+ * replay records the exact same bytes. It also checks that a replay reports the right tick when the game goes wrong on
+ * purpose at a known tick, or starts from the wrong seed, and that every event type survives being written and read
+ * with extreme arguments. Last, it times replays at full speed.
+ * <br>
+ * DaybreakDemo itself can't run here, since its turns wait on sprite animations and it needs a GL context, so
+ * {@link Session} keeps just the parts a replay has to reproduce: the dungeon, the player, monsters and the RNG.
+ * <br>
+ * This is a plain main() so it can be run from an IDE without any test framework; it throws at the first mismatch.
+ */
+public class InputReplayTest {
+    private static final int TICKS = 5000, INTERVAL = 10, CELL = 32;
+
+    public static void main(String[] args) {
+        int events = 0, bytes = 0;
+        for (int trial = 0; trial < 6; trial++) {
+            long seed = 0x1234567L * (trial + 1);
+            Session recorded = new Session(seed, -1);
+            play(recorded, new ChopRandom(~seed));
+            InputLog log = recorded.recorder.finish();
+            byte[] data = log.toBytes();
+            events += recorded.events;
+            bytes += data.length;
+
+            InputLog read = new InputLog(data);
+            if (read.getSeed() != seed || read.getTicks() != TICKS)
+                throw new IllegalStateException("Trial " + trial + " read back seed " + read.getSeed() + " and "
+                        + read.getTicks() + " ticks.");
+            Session replayed = new Session(read.getSeed(), -1);
+            int diverged = read.replay(replayed.recorder, replayed);
+            if (diverged >= 0)
+                throw new IllegalStateException("Trial " + trial + " diverged at tick " + diverged + " on a clean replay.");
+            if (replayed.checksum() != recorded.checksum() || replayed.turns != recorded.turns)
+                throw new IllegalStateException("Trial " + trial + " ended in a different state after replaying.");
+            if (!Arrays.equals(replayed.recorder.finish().toBytes(), data))
+                throw new IllegalStateException("Trial " + trial + " recorded a different log while replaying.");
+
+            int breakAt = 100 + trial * 731;
+            Session broken = new Session(seed, breakAt);
+            diverged = read.replay(broken.recorder, broken);
+            int expected = breakAt + (INTERVAL - 1 - breakAt % INTERVAL);
+            if (diverged != expected)
+                throw new IllegalStateException("Trial " + trial + " went wrong at tick " + breakAt + ", but the replay reported "
+                        + diverged + " instead of " + expected + ".");
+
+            Session wrongSeed = new Session(seed + 1, -1);
+            diverged = read.replay(wrongSeed.recorder, wrongSeed);
+            if (diverged != INTERVAL - 1)
+                throw new IllegalStateException("Trial " + trial + " started from the wrong seed, but the replay reported "
+                        + diverged + " instead of " + (INTERVAL - 1) + ".");
+        }
+        checkEncoding();
+        System.out.printf("Replayed 6 sessions of %d ticks exactly; %d events took %d bytes, %.2f bytes per event with checksums.%n",
+                TICKS, events, bytes, bytes / (double) events);
+
+        byte[] data;
+        {
+            Session recorded = new Session(99L, -1);
+            play(recorded, new ChopRandom(98L));
+            data = recorded.recorder.finish().toBytes();
+        }
+        InputLog log = new InputLog(data);
+        for (int warm = 0; warm < 20; warm++) {
+            Session s = new Session(99L, -1);
+            log.replay(s.recorder, s);
+        }
+        long start = System.nanoTime();
+        int turns = 0;
+        for (int run = 0; run < 20; run++) {
+            Session s = new Session(99L, -1);
+            log.replay(s.recorder, s);
+            turns += s.turns;
+        }
+        double seconds = (System.nanoTime() - start) * 1E-9;
+        System.out.printf("Replayed at %.0f ticks per second (%d turns taken), including generating each dungeon.%n",
+                20 * TICKS / seconds, turns);
+    }
+
+    /**
+     * Plays TICKS ticks of a session with a random user holding movement keys, moving the mouse and clicking.
+     */
+    private static void play(Session session, ChopRandom user) {
+        final int[] keys = {W, A, S, D, PERIOD};
+        InputProcessor in = session.recorder;
+        int held = -1;
+        for (int t = 0; t < TICKS; t++) {
+            int roll = user.nextInt(100);
+            if (roll < 4) {
+                if (held >= 0)
+                    in.keyUp(held);
+                held = roll < 3 ? keys[user.nextInt(keys.length)] : -1;
+                if (held >= 0) {
+                    in.keyDown(held);
+                    in.keyTyped((char) ('a' + held % 26));
+                }
+            } else if (roll < 20) {
+                in.mouseMoved(user.nextInt(DaybreakDemo.placeWidth * CELL), user.nextInt(DaybreakDemo.placeHeight * CELL));
+            } else if (roll < 22) {
+                int x = user.nextInt(DaybreakDemo.placeWidth * CELL), y = user.nextInt(DaybreakDemo.placeHeight * CELL);
+                in.touchDown(x, y, 0, 0);
+                in.touchDragged(x + 3, y - 3, 0);
+                in.touchUp(x + 3, y - 3, 0, 0);
+            } else if (roll < 23) {
+                in.keyDown(R);
+                in.keyUp(R);
+            }
+            session.step();
+        }
+    }
+
+    /**
+     * Writes one of each event with extreme arguments, and checks that a replay gives a processor the same calls.
+     */
+    private static void checkEncoding() {
+        InputLog log = new InputLog(Long.MIN_VALUE);
+        final StringBuilder expected = new StringBuilder(), actual = new StringBuilder();
+        int[] values = {0, 1, -1, 63, -64, 64, 127, 128, Integer.MAX_VALUE, Integer.MIN_VALUE, 1 << 21, -(1 << 28)};
+        int tick = 0;
+        for (int i = 0; i < values.length; i++) {
+            int a = values[i], b = values[values.length - 1 - i];
+            tick += i * 1000;
+            log.add(tick, InputLog.KEY_DOWN, a & 0xFF, 0, 0, 0);
+            log.add(tick, InputLog.KEY_UP, a & 0xFF, 0, 0, 0);
+            log.add(tick, InputLog.KEY_TYPED, a & 0xFFFF, 0, 0, 0);
+            log.add(tick, InputLog.TOUCH_DOWN, a, b, i, 2);
+            log.add(tick, InputLog.TOUCH_DRAGGED, b, a, i, 0);
+            log.add(tick, InputLog.TOUCH_UP, a, b, i, 1);
+            log.add(tick, InputLog.MOUSE_MOVED, b, a, 0, 0);
+            log.addChecksum(tick, 0L);
+            expected.append(tick).append(" kd ").append(a & 0xFF).append(" ku ").append(a & 0xFF).append(" kt ").append(a & 0xFFFF)
+                    .append(" td ").append(a).append(',').append(b).append(',').append(i).append(",2 tg ").append(b).append(',')
+                    .append(a).append(',').append(i).append(" tu ").append(a).append(',').append(b).append(',').append(i)
+                    .append(",1 mm ").append(b).append(',').append(a).append('\n');
+        }
+        log.end(tick + 5);
+        final int[] ticks = {0};
+        InputLog read = new InputLog(log.toBytes());
+        if (read.getSeed() != Long.MIN_VALUE || read.getTicks() != tick + 5)
+            throw new IllegalStateException("The header or length didn't survive being read.");
+        final InputRecorder target = new InputRecorder(new InputAdapter() {
+            private boolean started;
+
+            private StringBuilder line() {
+                if (!started)
+                    actual.append(ticks[0]);
+                started = true;
+                return actual;
+            }
+
+            @Override
+            public boolean keyDown(int keycode) {
+                line().append(" kd ").append(keycode);
+                return true;
+            }
+
+            @Override
+            public boolean keyUp(int keycode) {
+                line().append(" ku ").append(keycode);
+                return true;
+            }
+
+            @Override
+            public boolean keyTyped(char character) {
+                line().append(" kt ").append((int) character);
+                return true;
+            }
+
+            @Override
+            public boolean touchDown(int screenX, int screenY, int pointer, int button) {
+                line().append(" td ").append(screenX).append(',').append(screenY).append(',').append(pointer).append(',').append(button);
+                return true;
+            }
+
+            @Override
+            public boolean touchDragged(int screenX, int screenY, int pointer) {
+                line().append(" tg ").append(screenX).append(',').append(screenY).append(',').append(pointer);
+                return true;
+            }
+
+            @Override
+            public boolean touchUp(int screenX, int screenY, int pointer, int button) {
+                line().append(" tu ").append(screenX).append(',').append(screenY).append(',').append(pointer).append(',').append(button);
+                return true;
+            }
+
+            @Override
+            public boolean mouseMoved(int screenX, int screenY) {
+                line().append(" mm ").append(screenX).append(',').append(screenY).append('\n');
+                started = false;
+                return true;
+            }
+        });
+        int diverged = read.replay(target, new InputLog.Replayable() {
+            @Override
+            public void step() {
+                ticks[0]++;
+                target.endTick(0L);
+            }
+
+            @Override
+            public long checksum() {
+                return 0L;
+            }
+        });
+        if (diverged >= 0 || ticks[0] != tick + 5)
+            throw new IllegalStateException("The encoding replay diverged at " + diverged + " after " + ticks[0] + " steps.");
+        if (!expected.toString().equals(actual.toString()))
+            throw new IllegalStateException("Events changed when written and read:\n" + expected + "became:\n" + actual);
+    }
+
+    /**
+     * DaybreakDemo's turn rules without drawing or animation: one player move per tick at most, from a clicked path or
+     * a held key, then every monster either closes in on the player or wanders, and attacks when next to them. R
+     * restarts with a seed taken from the game state, like DaybreakDemo restarting with its death message's hash.
+     */
+    static class Session extends InputAdapter implements InputLog.Replayable {
+        final InputRecorder recorder;
+        final ChopRandom rng;
+        final int breakAt;
+        char[][] map;
+        Region floors;
+        Coord player, cursor = Coord.get(0, 0);
+        final ArrayList<Coord> monsters = new ArrayList<>();
+        final ObjectDeque<Coord> awaitedMoves = new ObjectDeque<>();
+        int health, tick, turns, events;
+
+        /**
+         * @param breakAt a tick on which to make one extra RNG call, so the state goes wrong there; -1 to never do so
+         */
+        Session(long seed, int breakAt) {
+            this.breakAt = breakAt;
+            rng = new ChopRandom(seed);
+            recorder = new InputRecorder(this, seed, INTERVAL);
+            restart(seed);
+        }
+
+        void restart(long seed) {
+            rng.setSeed(seed);
+            DungeonProcessor dungeonGen = new DungeonProcessor(DaybreakDemo.placeWidth, DaybreakDemo.placeHeight, rng);
+            dungeonGen.generate();
+            map = dungeonGen.getBarePlaceGrid();
+            floors = new Region(map, '.');
+            player = floors.singleRandom(rng);
+            floors.remove(player);
+            monsters.clear();
+            for (int i = 0; i < 25; i++) {
+                Coord monPos = floors.singleRandom(rng);
+                floors.remove(monPos);
+                monsters.add(monPos);
+            }
+            awaitedMoves.clear();
+            health = 9;
+        }
+
+        @Override
+        public boolean keyDown(int keycode) {
+            events++;
+            return true;
+        }
+
+        @Override
+        public boolean keyUp(int keycode) {
+            events++;
+            return true;
+        }
+
+        @Override
+        public boolean keyTyped(char character) {
+            events++;
+            return true;
+        }
+
+        @Override
+        public boolean touchDown(int screenX, int screenY, int pointer, int button) {
+            events++;
+            return true;
+        }
+
+        @Override
+        public boolean touchUp(int screenX, int screenY, int pointer, int button) {
+            events++;
+            aim(screenX, screenY);
+            Coord at = player;
+            while (!at.equals(cursor) && awaitedMoves.size() < 20) {
+                at = Coord.get(at.x + Integer.signum(cursor.x - at.x), at.y + Integer.signum(cursor.y - at.y));
+                awaitedMoves.add(at);
+            }
+            return true;
+        }
+
+        @Override
+        public boolean touchDragged(int screenX, int screenY, int pointer) {
+            return mouseMoved(screenX, screenY);
+        }
+
+        @Override
+        public boolean mouseMoved(int screenX, int screenY) {
+            events++;
+            aim(screenX, screenY);
+            return false;
+        }
+
+        private void aim(int screenX, int screenY) {
+            if (awaitedMoves.isEmpty())
+                cursor = Coord.get(Math.min(screenX / CELL, map.length - 1), Math.min(screenY / CELL, map[0].length - 1));
+        }
+
+        /**
+         * Like DaybreakDemo's render(), this ends by ending the recorder's tick.
+         */
+        @Override
+        public void step() {
+            if (tick++ == breakAt)
+                rng.nextInt();
+            if (recorder.isKeyJustPressed(R))
+                restart(checksum());
+            else if (health > 0)
+                turn();
+            recorder.endTick(recorder.isChecksumTick() ? checksum() : 0L);
+        }
+
+        private void turn() {
+            if (!awaitedMoves.isEmpty())
+                move(awaitedMoves.removeFirst());
+            else if (recorder.isKeyPressed(A))
+                move(Coord.get(player.x - 1, player.y));
+            else if (recorder.isKeyPressed(S))
+                move(Coord.get(player.x, player.y + 1));
+            else if (recorder.isKeyPressed(W))
+                move(Coord.get(player.x, player.y - 1));
+            else if (recorder.isKeyPressed(D))
+                move(Coord.get(player.x + 1, player.y));
+            else if (recorder.isKeyPressed(PERIOD))
+                move(player);
+        }
+
+        private void move(Coord next) {
+            if (map[next.x][next.y] == '#') {
+                awaitedMoves.clear();
+                return;
+            }
+            int hit = monsters.indexOf(next);
+            if (hit >= 0) {
+                monsters.remove(hit);
+                if (rng.nextBoolean())
+                    map[next.x][next.y] = rng.next(2) != 0 ? '1' : '2';
+            } else {
+                player = next;
+            }
+            turns++;
+            for (int i = 0; i < monsters.size(); i++) {
+                Coord pos = monsters.get(i);
+                int dx = player.x - pos.x, dy = player.y - pos.y;
+                if (Math.abs(dx) <= 1 && Math.abs(dy) <= 1) {
+                    if (rng.nextInt(4) == 0)
+                        health--;
+                    continue;
+                }
+                Coord tmp = Math.abs(dx) + Math.abs(dy) < 12 && rng.nextInt(5) != 0
+                        ? Coord.get(pos.x + Integer.signum(dx), pos.y + Integer.signum(dy))
+                        : Coord.get(pos.x + rng.nextInt(3) - 1, pos.y + rng.nextInt(3) - 1);
+                if (map[tmp.x][tmp.y] != '#' && !monsters.contains(tmp))
+                    monsters.set(i, tmp);
+            }
+        }
+
+        /**
+         * The same state {@link DaybreakDemo#checksum()} covers: the player, health, monsters and the RNG's state.
+         */
+        @Override
+        public long checksum() {
+            long hash = InputLog.mix(player.hashCode(), health);
+            for (int i = 0, n = monsters.size(); i < n; i++) {
+                hash = InputLog.mix(hash, monsters.get(i).hashCode());
+            }
+            for (int i = 0, n = rng.getStateCount(); i < n; i++) {
+                hash = InputLog.mix(hash, rng.getSelectedState(i));
+            }
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.github.tommyettinger;
+
+import com.github.tommyettinger.digital.ArrayTools;
+import com.github.tommyettinger.random.ChopRandom;
+import com.github.yellowstonegames.core.DescriptiveColor;
+import com.github.yellowstonegames.grid.*;
+import com.github.yellowstonegames.place.ConnectingMapGenerator;
+import com.github.yellowstonegames.place.DungeonProcessor;
+import com.github.yellowstonegames.place.DungeonTools;
+
+/**
+ * Times mixing colored lights and drawing them onto remembered colors, on the 64x48 map {@link DaybreakDemo} uses with
+ * its 101 lights, and on 256x256 and 1024x1024 maps with more; the largest map is made of ConnectingMapGenerator's
+ * rooms instead of DungeonProcessor's. The packed path is LightingManager's own mixColoredLighting() for each light and
+ * then draw(int[][]); the planar path is {@link PlanarLighting#prepare}, {@link PlanarLighting#mixLight} and
+ * {@link PlanarLighting#draw(int[][], LightingManager)}. Each light's FOV is found once per frame, outside the timing,
+ * and both paths mix the same light levels, so only the mixing and drawing are compared. Every cell counts as in view,
+ * so every cell a light reaches is mixed.
+ * <br>
+ * This is a plain main() so it can be run from an IDE without any test framework or graphics.
+ */
+public class PlanarLightingBenchmark {
+    public static void main(String[] args) {
+        run(DaybreakDemo.placeWidth, DaybreakDemo.placeHeight, 101, 100);
+        run(256, 256, 800, 8);
+        run(1024, 1024, 2000, 2);
+    }
+
+    private static void run(int width, int height, int lightCount, int frames) {
+        ChopRandom rng = new ChopRandom(1L);
+        char[][] bare;
+        if (width * height <= 256 * 256) {
+            DungeonProcessor dungeonGen = new DungeonProcessor(width, height, rng);
+            dungeonGen.generate();
+            bare = dungeonGen.getBarePlaceGrid();
+        } else {
+            // DungeonProcessor needs several GB to find the rooms in a map this big, so this uses simpler rooms.
+            bare = DungeonTools.simplifyDungeon(new ConnectingMapGenerator(width, height, rng).generate());
+        }
+        Region floors = new Region(bare, '.');
+        int background = DescriptiveColor.oklab(0.3f, 0.5f, 0.5f, 1f);
+        LightingManager lighting = new LightingManager(FOV.generateSimpleResistances(bare), background, Radius.CIRCLE,
+                width + height);
+        PlanarLighting planar = new PlanarLighting(width, height);
+        for (int i = 0; i < lightCount; i++) {
+            lighting.addLight(floors.singleRandom(rng), new Radiance(rng.nextFloat(3f) + 2f,
+                    DescriptiveColor.oklab(rng.nextFloat(0.5f, 0.9f), rng.nextFloat(0.4f, 0.6f), rng.nextFloat(0.4f, 0.6f), 1f),
+                    0f, 0f));
+        }
+        int[][] remembered = new int[width][height], packed = new int[width][height], planarDrawn = new int[width][height];
+        ArrayTools.fill(remembered, DescriptiveColor.oklab(0.4f, 0.5f, 0.5f, 1f));
+        lighting.calculateFOV(floors.singleRandom(rng));
+        // as if the viewer could see everything, so every cell a light reaches is mixed and drawn
+        ArrayTools.fill(lighting.losResult, 1f);
+        ArrayTools.fill(lighting.fovResult, 1f);
+        lightCount = lighting.lights.size();
+        long packedMix = 0L, planarMix = 0L, packedDraw = 0L, planarDraw = 0L;
+        for (int frame = 0; frame < frames; frame++) {
+            long t = System.nanoTime();
+            ArrayTools.fill(lighting.lightingStrength, 0f);
+            ArrayTools.fill(lighting.colorLighting, DescriptiveColor.WHITE);
+            packedMix += System.nanoTime() - t;
+            t = System.nanoTime();
+            planar.clear();
+            planar.prepare(lighting.losResult, lighting.resistances);
+            planarMix += System.nanoTime() - t;
+            for (int i = 0; i < lightCount; i++) {
+                Coord pos = lighting.lights.keyAt(i);
+                Radiance radiance = lighting.lights.getAt(i);
+                float range = radiance.range;
+                FOV.reuseFOVSymmetrical(lighting.resistances, lighting.lightFromFOV, pos.x, pos.y, range, Radius.CIRCLE);
+                t = System.nanoTime();
+                lighting.mixColoredLighting(radiance.flare, radiance.color);
+                packedMix += System.nanoTime() - t;
+                t = System.nanoTime();
+                planar.mixLight(lighting.lightFromFOV, pos.x, pos.y, range, radiance.flare, radiance.color);
+                planarMix += System.nanoTime() - t;
+            }
+            for (int x = 0; x < width; x++) {
+                System.arraycopy(remembered[x], 0, packed[x], 0, height);
+                System.arraycopy(remembered[x], 0, planarDrawn[x], 0, height);
+            }
+            t = System.nanoTime();
+            lighting.draw(packed);
+            packedDraw += System.nanoTime() - t;
+            t = System.nanoTime();
+            planar.draw(planarDrawn, lighting);
+            planarDraw += System.nanoTime() - t;
+        }
+        System.out.printf("%dx%d, %d lights: packed mix %9.3f ms/frame, draw %7.3f ms; planar mix %9.3f ms/frame, draw %7.3f ms%n",
+                width, height, lightCount, packedMix * 1E-6 / frames, packedDraw * 1E-6 / frames,
+                planarMix * 1E-6 / frames, planarDraw * 1E-6 / frames);
+    }
+}
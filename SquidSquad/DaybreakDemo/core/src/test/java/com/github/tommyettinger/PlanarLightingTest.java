@@ -0,0 +1,111 @@
+package com.github.tommyettinger;
+
+import com.github.tommyettinger.random.ChopRandom;
+import com.github.yellowstonegames.core.DescriptiveColor;
+import com.github.yellowstonegames.grid.*;
+import com.github.yellowstonegames.place.DungeonProcessor;
+
+/**
+ * Lights random dungeons with a plain LightingManager and with {@link PlanarLighting}, using the same lights, and
+ * compares them. PlanarLighting keeps strength and channels in fixed point and doesn't truncate channels to whole
+ * numbers after each light as the packed path does, so every cell's light strength must be within {@link #STRENGTH} of
+ * the manager's, each channel of its mixed light color and of every background each path draws (converted back to
+ * Oklab) within {@link #CHANNEL}, and the alpha of the mixed light must be the same.
+ * Lights are many and overlap, have random colors, ranges, flare and alpha (including some with the lightness of
+ * white, which only add strength), and between frames some lights move and the viewer moves.
+ * <br>
+ * This is a plain main() so it can be run from an IDE without any test framework; it throws at the first mismatch.
+ */
+public class PlanarLightingTest {
+    private static final float STRENGTH = 0.01f;
+    private static final int CHANNEL = 3;
+    private static final Radius[] RADII = {Radius.CIRCLE, Radius.SQUARE, Radius.DIAMOND};
+
+    public static void main(String[] args) {
+        ChopRandom rng = new ChopRandom(77L);
+        long litCells = 0L, drawnCells = 0L;
+        float worstStrength = 0f;
+        int worstMixed = 0, worstDrawn = 0;
+        for (int trial = 0; trial < 8; trial++) {
+            int width = 40 + rng.nextInt(90), height = 30 + rng.nextInt(60);
+            DungeonProcessor dungeonGen = new DungeonProcessor(width, height, rng);
+            dungeonGen.generate();
+            char[][] bare = dungeonGen.getBarePlaceGrid();
+            Region floors = new Region(bare, '.');
+            int background = DescriptiveColor.oklab(0.3f, 0.5f, 0.5f, 1f);
+            LightingManager lighting = new LightingManager(FOV.generateSimpleResistances(bare), background,
+                    RADII[trial % RADII.length], 9f);
+            PlanarLighting planar = new PlanarLighting(width, height);
+            int lightCount = 20 + rng.nextInt(200);
+            for (int i = 0; i < lightCount; i++) {
+                int color = rng.nextInt(12) == 0
+                        ? DescriptiveColor.oklab(1f, rng.nextFloat(0.4f, 0.6f), rng.nextFloat(0.4f, 0.6f), rng.nextFloat(0.3f, 1f))
+                        : DescriptiveColor.oklab(rng.nextFloat(0.95f), rng.nextFloat(0.4f, 0.6f), rng.nextFloat(0.4f, 0.6f), rng.nextFloat(0.3f, 1f));
+                Radiance radiance = new Radiance(rng.nextFloat(8f) + 1f, color, 0f, 0f);
+                radiance.flare = rng.nextInt(3) == 0 ? rng.nextFloat(0.5f) : 0f;
+                lighting.addLight(floors.singleRandom(rng), radiance);
+            }
+            int[][] expected = new int[width][height], actual = new int[width][height];
+            for (int frame = 0; frame < 10; frame++) {
+                for (int n = 0; n < 10; n++) {
+                    Coord from = lighting.lights.keyAt(rng.nextInt(lighting.lights.size())), to = floors.singleRandom(rng);
+                    if (!lighting.lights.containsKey(to))
+                        lighting.moveLight(from, to);
+                }
+                lighting.calculateFOV(floors.singleRandom(rng));
+                lighting.update();
+                planar.update(lighting);
+                for (int x = 0; x < width; x++) {
+                    for (int y = 0; y < height; y++) {
+                        // remembered colors, and sometimes none
+                        expected[x][y] = actual[x][y] = rng.nextInt(5) == 0 ? 0
+                                : DescriptiveColor.oklab(rng.nextFloat(), rng.nextFloat(0.4f, 0.6f), rng.nextFloat(0.4f, 0.6f), 1f);
+                    }
+                }
+                lighting.draw(expected);
+                planar.draw(actual, lighting);
+                for (int x = 0; x < width; x++) {
+                    for (int y = 0; y < height; y++) {
+                        String where = "Trial " + trial + ", frame " + frame + ": " + x + "," + y;
+                        float strength = lighting.lightingStrength[x][y];
+                        worstStrength = Math.max(worstStrength, Math.abs(strength - planar.getStrength(x, y)));
+                        if (worstStrength > STRENGTH)
+                            throw new IllegalStateException(where + " has strength " + planar.getStrength(x, y)
+                                    + " instead of " + strength);
+                        int mixed = lighting.colorLighting[x][y], planarMixed = planar.getColor(x, y);
+                        worstMixed = Math.max(worstMixed, channelDistance(mixed, planarMixed, 0xFFFFFF));
+                        if (worstMixed > CHANNEL || mixed >>> 24 != planarMixed >>> 24)
+                            throw new IllegalStateException(where + " mixed light " + Integer.toHexString(planarMixed)
+                                    + " instead of " + Integer.toHexString(mixed));
+                        // compared as Oklab again, because toRGBA8888() clips colors outside RGB, and a channel that
+                        // is 1 off in Oklab can be many more off in RGB there
+                        worstDrawn = Math.max(worstDrawn, channelDistance(DescriptiveColor.fromRGBA8888(expected[x][y]),
+                                DescriptiveColor.fromRGBA8888(actual[x][y]), -1));
+                        if (worstDrawn > CHANNEL)
+                            throw new IllegalStateException(where + " drew " + Integer.toHexString(actual[x][y])
+                                    + " instead of " + Integer.toHexString(expected[x][y]));
+                        if (strength > 0f)
+                            litCells++;
+                        if (lighting.losResult[x][y] > 0f && lighting.fovResult[x][y] > 0f)
+                            drawnCells++;
+                    }
+                }
+            }
+        }
+        System.out.printf("Compared %d lit cells and %d drawn cells with LightingManager; strength was at most %.5f off, "
+                + "mixed light channels at most %d, drawn channels at most %d.%n",
+                litCells, drawnCells, worstStrength, worstMixed, worstDrawn);
+    }
+
+    /**
+     * The largest difference between any one byte of a and the same byte of b, looking only at bytes in mask.
+     */
+    private static int channelDistance(int a, int b, int mask) {
+        int worst = 0;
+        for (int shift = 0; shift < 32; shift += 8) {
+            if ((mask >>> shift & 0xFF) != 0)
+                worst = Math.max(worst, Math.abs((a >>> shift & 0xFF) - (b >>> shift & 0xFF)));
+        }
+        return worst;
+    }
+}
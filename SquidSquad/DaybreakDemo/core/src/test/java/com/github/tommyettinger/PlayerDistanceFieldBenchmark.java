@@ -0,0 +1,112 @@
+package com.github.tommyettinger;
+
+import com.github.tommyettinger.ds.ObjectDeque;
+import com.github.tommyettinger.random.ChopRandom;
+import com.github.yellowstonegames.grid.Coord;
+import com.github.yellowstonegames.grid.CoordObjectOrderedMap;
+import com.github.yellowstonegames.grid.Measurement;
+import com.github.yellowstonegames.grid.Region;
+import com.github.yellowstonegames.path.DijkstraMap;
+import com.github.yellowstonegames.place.DungeonProcessor;
+
+/**
+ * Checks that {@link PlayerDistanceField} picks steps as good as {@link DijkstraMap#findPath} does, then times a full
+ * monster turn both ways on the same 64x48 map that {@link DaybreakDemo} uses, with hundreds of monsters.
+ * <br>
+ * This is a plain main() so it can be run from an IDE without any test framework.
+ */
+public class PlayerDistanceFieldBenchmark {
+    private static final int LOOK_AHEAD = 7;
+
+    public static void main(String[] args) {
+        ChopRandom rng = new ChopRandom(1L);
+        DungeonProcessor dungeonGen = new DungeonProcessor(DaybreakDemo.placeWidth, DaybreakDemo.placeHeight, rng);
+        dungeonGen.generate();
+        char[][] bare = dungeonGen.getBarePlaceGrid();
+        Region floors = new Region(bare, '.');
+
+        DijkstraMap perMonster = new DijkstraMap(bare, Measurement.EUCLIDEAN);
+        PlayerDistanceField shared = new PlayerDistanceField(bare, Measurement.EUCLIDEAN, LOOK_AHEAD);
+        ObjectDeque<Coord> buffer = new ObjectDeque<>(8);
+        Coord[] goal = new Coord[1];
+
+        // Equivalence: with no other monsters in the way, a step from the shared field must be exactly as close to the
+        // player as the step findPath() chooses (the two can differ only in how they break ties).
+        int compared = 0;
+        for (int trial = 0; trial < 200; trial++) {
+            Coord player = floors.singleRandom(rng);
+            goal[0] = player;
+            shared.update(player);
+            for (Coord start : floors) {
+                if (start == player) continue;
+                perMonster.clearGoals();
+                buffer.clear();
+                perMonster.findPath(buffer, 1, LOOK_AHEAD, null, null, start, goal);
+                Coord expected = buffer.isEmpty() ? null : buffer.get(0);
+                Coord actual = shared.nextStep(start, null);
+                if ((expected == null) != (actual == null))
+                    throw new IllegalStateException("Mismatch from " + start + " to " + player + ": findPath gave "
+                            + expected + " but the shared field gave " + actual);
+                if (expected != null && Math.abs(shared.distance(expected.x, expected.y) - shared.distance(actual.x, actual.y)) > 0.001f)
+                    throw new IllegalStateException("Suboptimal step from " + start + " to " + player + ": findPath gave "
+                            + expected + " but the shared field gave " + actual);
+                compared++;
+            }
+        }
+        System.out.println("Compared " + compared + " steps with findPath(); all were equally short.");
+
+        for (int count : new int[]{100, 200, 400, 800}) {
+            rng.setSeed(count);
+            Region open = floors.copy();
+            Coord player = open.singleRandom(rng);
+            open.remove(player);
+            CoordObjectOrderedMap<Integer> monsters = new CoordObjectOrderedMap<>(count);
+            for (int i = 0; i < count && !open.isEmpty(); i++) {
+                Coord monPos = open.singleRandom(rng);
+                open.remove(monPos);
+                monsters.put(monPos, i);
+            }
+            int turns = 200;
+            // warm up both paths before timing them
+            runFindPath(perMonster, monsters, player, buffer, goal, turns);
+            runShared(shared, monsters, player, turns);
+            long startFind = System.nanoTime();
+            int movedFind = runFindPath(perMonster, monsters, player, buffer, goal, turns);
+            long findNanos = System.nanoTime() - startFind;
+            long startShared = System.nanoTime();
+            int movedShared = runShared(shared, monsters, player, turns);
+            long sharedNanos = System.nanoTime() - startShared;
+            System.out.printf("%4d monsters: findPath %8.3f ms/turn (%d steps), shared field %8.3f ms/turn (%d steps)%n",
+                    monsters.size(), findNanos * 1E-6 / turns, movedFind, sharedNanos * 1E-6 / turns, movedShared);
+        }
+    }
+
+    private static int runFindPath(DijkstraMap dijkstra, CoordObjectOrderedMap<Integer> monsters, Coord player,
+                                   ObjectDeque<Coord> buffer, Coord[] goal, int turns) {
+        int moved = 0;
+        goal[0] = player;
+        for (int t = 0; t < turns; t++) {
+            for (int i = 0, n = monsters.size(); i < n; i++) {
+                dijkstra.clearGoals();
+                buffer.clear();
+                dijkstra.findPath(buffer, 1, LOOK_AHEAD, monsters.keySet(), null, monsters.keyAt(i), goal);
+                if (buffer.notEmpty()) moved++;
+            }
+        }
+        return moved;
+    }
+
+    private static int runShared(PlayerDistanceField field, CoordObjectOrderedMap<Integer> monsters, Coord player,
+                                 int turns) {
+        int moved = 0;
+        for (int t = 0; t < turns; t++) {
+            // each turn starts with the cached field invalidated, like it would be after the player moves.
+            field.invalidate();
+            field.update(player);
+            for (int i = 0, n = monsters.size(); i < n; i++) {
+                if (field.nextStep(monsters.keyAt(i), monsters.keySet()) != null) moved++;
+            }
+        }
+        return moved;
+    }
+}
@@ -0,0 +1,103 @@
+package com.github.tommyettinger;
+
+import com.github.tommyettinger.ds.ObjectSet;
+import com.github.tommyettinger.random.ChopRandom;
+import com.github.yellowstonegames.grid.Coord;
+import com.github.yellowstonegames.grid.Direction;
+import com.github.yellowstonegames.grid.Measurement;
+import com.github.yellowstonegames.grid.Region;
+import com.github.yellowstonegames.path.DijkstraMap;
+import com.github.yellowstonegames.place.DungeonProcessor;
+
+/**
+ * Checks the steps {@link PlayerDistanceField#nextStep(Coord, java.util.Collection)} picks when other monsters are in
+ * the way, on the 64x48 map {@link DaybreakDemo} uses. For random players and random crowds of monsters, every step
+ * must be to a free neighbor; it must be downhill and as short as any free downhill neighbor if there is one, and
+ * otherwise to a free neighbor exactly as far from the player; and it can only be null if every neighbor that isn't
+ * further from the player is taken. A monster hemmed in near the corner of a small room checks the sidestep by hand.
+ * <br>
+ * This is a plain main() so it can be run from an IDE without any test framework; it throws at the first mismatch.
+ */
+public class PlayerDistanceFieldTest {
+    public static void main(String[] args) {
+        ChopRandom rng = new ChopRandom(26L);
+        DungeonProcessor dungeonGen = new DungeonProcessor(DaybreakDemo.placeWidth, DaybreakDemo.placeHeight, rng);
+        dungeonGen.generate();
+        char[][] bare = dungeonGen.getBarePlaceGrid();
+        Region floors = new Region(bare, '.');
+        PlayerDistanceField field = new PlayerDistanceField(bare, Measurement.EUCLIDEAN, 7);
+        ObjectSet<Coord> occupied = new ObjectSet<>(256);
+        int downhill = 0, sidesteps = 0, waits = 0;
+        for (int trial = 0; trial < 300; trial++) {
+            Coord player = floors.singleRandom(rng);
+            field.update(player);
+            occupied.clear();
+            // from a few monsters to a crowd that fills a third of the floor
+            int crowd = 1 + rng.nextInt(floors.size() / 3);
+            for (int i = 0; i < crowd; i++)
+                occupied.add(floors.singleRandom(rng));
+            occupied.remove(player);
+            for (Coord start : floors) {
+                if (start == player) continue;
+                float here = field.distance(start.x, start.y);
+                Coord step = field.nextStep(start, occupied);
+                float bestFree = Float.POSITIVE_INFINITY;
+                boolean sameFree = false;
+                for (Direction dir : Direction.OUTWARDS) {
+                    Coord pt = start.translate(dir);
+                    if (!pt.isWithin(bare.length, bare[0].length) || occupied.contains(pt)) continue;
+                    float d = field.distance(pt.x, pt.y);
+                    if (d < here) bestFree = Math.min(bestFree, d);
+                    else if (d == here) sameFree = true;
+                }
+                String where = "Trial " + trial + ": from " + start + " to " + player;
+                if (here >= DijkstraMap.FLOOR) {
+                    if (step != null)
+                        throw new IllegalStateException(where + " is out of reach but stepped to " + step);
+                    continue;
+                }
+                if (step != null && (occupied.contains(step) || Math.abs(step.x - start.x) > 1
+                        || Math.abs(step.y - start.y) > 1 || step == start))
+                    throw new IllegalStateException(where + " stepped to " + step + ", which isn't a free neighbor");
+                if (bestFree < here) {
+                    if (step == null || field.distance(step.x, step.y) != bestFree)
+                        throw new IllegalStateException(where + " stepped to " + step + " instead of a free cell at "
+                                + bestFree);
+                    downhill++;
+                } else if (sameFree) {
+                    if (step == null || field.distance(step.x, step.y) != here)
+                        throw new IllegalStateException(where + " stepped to " + step + " instead of sidestepping");
+                    sidesteps++;
+                } else {
+                    if (step != null)
+                        throw new IllegalStateException(where + " stepped to " + step + " but should have waited");
+                    waits++;
+                }
+            }
+        }
+
+        // An open room with the player in a corner at 1,1. A monster at 3,2 is 1 + sqrt(2) away, and so is 2,3. With
+        // every cell closer to the player around 3,2 taken, that monster steps aside to 2,3; with 2,3 taken too, it
+        // can only get further away, so it waits.
+        char[][] room = new char[8][8];
+        for (int x = 0; x < room.length; x++) {
+            for (int y = 0; y < room[x].length; y++) {
+                room[x][y] = x == 0 || y == 0 || x == room.length - 1 || y == room[x].length - 1 ? '#' : '.';
+            }
+        }
+        PlayerDistanceField corner = new PlayerDistanceField(room, Measurement.EUCLIDEAN, 7);
+        Coord player = Coord.get(1, 1), monster = Coord.get(3, 2), aside = Coord.get(2, 3);
+        corner.update(player);
+        ObjectSet<Coord> crowd = ObjectSet.with(monster, Coord.get(2, 1), Coord.get(2, 2), Coord.get(3, 1));
+        if (corner.nextStep(monster, crowd) != aside)
+            throw new IllegalStateException("The monster at 3,2 should step aside to 2,3, not "
+                    + corner.nextStep(monster, crowd));
+        crowd.add(aside);
+        if (corner.nextStep(monster, crowd) != null)
+            throw new IllegalStateException("The monster at 3,2 should wait, not step to "
+                    + corner.nextStep(monster, crowd));
+
+        System.out.println("Checked " + downhill + " downhill steps, " + sidesteps + " sidesteps and " + waits
+                + " waits next to other monsters; all were as expected.");
+    }
+}
@@ -0,0 +1,88 @@
+package com.github.tommyettinger;
+
+import com.github.tommyettinger.random.ChopRandom;
+import com.github.yellowstonegames.grid.Coord;
+import com.github.yellowstonegames.grid.FOV;
+import com.github.yellowstonegames.grid.Radius;
+import com.github.yellowstonegames.grid.Region;
+import com.github.yellowstonegames.place.DungeonProcessor;
+
+/**
+ * Times monster perception on the 64x48 map {@link DaybreakDemo} uses and on a 256x256 one: every turn, each of 100
+ * monsters checks whether it can see the player, every other monster, and a few noises, all within 12 cells. This is
+ * timed three ways, and each prints queries per second:
+ * <ul>
+ *     <li>one FOV.reuseFOV() per monster, reading the targets' light levels from it, which is what the demo would need
+ *     to do today;</li>
+ *     <li>{@link SightLines} with its cache dropped before every turn, as if a door opened each turn;</li>
+ *     <li>SightLines with the walls unchanged, where a few monsters move each turn and the rest hit the cache.</li>
+ * </ul>
+ * This is a plain main() so it can be run from an IDE without any test framework.
+ */
+public class SightLinesBenchmark {
+    private static final int MONSTERS = 100, NOISES = 5, TURNS = 200, RADIUS = 12;
+
+    public static void main(String[] args) {
+        run(DaybreakDemo.placeWidth, DaybreakDemo.placeHeight);
+        run(256, 256);
+    }
+
+    private static void run(int width, int height) {
+        ChopRandom rng = new ChopRandom(1L);
+        DungeonProcessor dungeonGen = new DungeonProcessor(width, height, rng);
+        dungeonGen.generate();
+        char[][] bare = dungeonGen.getBarePlaceGrid();
+        Region floors = new Region(bare, '.'), walls = new Region(bare, '#');
+        float[][] resistances = FOV.generateSimpleResistances(bare), light = new float[width][height];
+        Coord[] monsters = new Coord[MONSTERS], targets = new Coord[MONSTERS + NOISES];
+        for (int i = 0; i < MONSTERS; i++) {
+            monsters[i] = floors.singleRandom(rng);
+        }
+        int perTurn = MONSTERS * targets.length;
+        Coord[] froms = new Coord[perTurn], tos = new Coord[perTurn];
+        boolean[] results = new boolean[perTurn];
+        SightLines cold = new SightLines(walls, RADIUS), warm = new SightLines(walls, RADIUS);
+        long fovNanos = 0L, coldNanos = 0L, warmNanos = 0L, fovSeen = 0L, linesSeen = 0L;
+        for (int turn = 0; turn < TURNS; turn++) {
+            for (int n = 0; n < 5; n++) {
+                monsters[rng.nextInt(MONSTERS)] = floors.singleRandom(rng);
+            }
+            System.arraycopy(monsters, 0, targets, 0, MONSTERS);
+            // the player stands in for the first monster as a target, and moves every turn
+            targets[0] = floors.singleRandom(rng);
+            for (int n = MONSTERS; n < targets.length; n++) {
+                targets[n] = floors.singleRandom(rng);
+            }
+            for (int m = 0, i = 0; m < MONSTERS; m++) {
+                for (Coord target : targets) {
+                    froms[i] = monsters[m];
+                    tos[i++] = target;
+                }
+            }
+
+            long t = System.nanoTime();
+            for (int m = 0; m < MONSTERS; m++) {
+                Coord mon = monsters[m];
+                FOV.reuseFOV(resistances, light, mon.x, mon.y, RADIUS + 1f, Radius.SQUARE);
+                for (Coord target : targets) {
+                    if (light[target.x][target.y] > 0f) fovSeen++;
+                }
+            }
+            fovNanos += System.nanoTime() - t;
+
+            t = System.nanoTime();
+            cold.invalidate();
+            linesSeen += cold.canSee(froms, tos, perTurn, results);
+            coldNanos += System.nanoTime() - t;
+
+            t = System.nanoTime();
+            warm.canSee(froms, tos, perTurn, results);
+            warmNanos += System.nanoTime() - t;
+        }
+        long queries = (long) TURNS * perTurn;
+        System.out.printf("%dx%d: FOV per monster %,12.0f queries/s; SightLines cold %,12.0f queries/s, warm %,12.0f queries/s (%.1f%% walked)%n",
+                width, height, queries * 1E9 / fovNanos, queries * 1E9 / coldNanos, queries * 1E9 / warmNanos,
+                warm.getWalks() * 100.0 / warm.getQueries());
+        System.out.printf("  %d pairs were in a monster's FOV, and %d had a clear sight line%n", fovSeen, linesSeen);
+    }
+}
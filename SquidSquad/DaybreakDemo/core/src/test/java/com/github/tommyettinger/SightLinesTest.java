@@ -0,0 +1,98 @@
+package com.github.tommyettinger;
+
+import com.github.tommyettinger.random.ChopRandom;
+import com.github.yellowstonegames.grid.Coord;
+import com.github.yellowstonegames.grid.Region;
+import com.github.yellowstonegames.place.DungeonProcessor;
+
+/**
+ * Asks a {@link SightLines} about random pairs of cells on random dungeons, one at a time and in batches, and checks
+ * every answer against a plain Bresenham walk from the lower cell to the other that gives up at the first wall. Pairs
+ * are mostly close together, some are right at {@link SightLines#maxRadius} or past it, and many are asked again to
+ * exercise the cache. Walls are dug out and put back between rounds, with {@link SightLines#invalidate()}, so a stale
+ * cached answer would be caught. Every answer must also be the same both ways.
+ * <br>
+ * This is a plain main() so it can be run from an IDE without any test framework; it throws at the first mismatch.
+ */
+public class SightLinesTest {
+    public static void main(String[] args) {
+        ChopRandom rng = new ChopRandom(42L);
+        long checked = 0L, visible = 0L;
+        for (int trial = 0; trial < 10; trial++) {
+            int width = 30 + rng.nextInt(100), height = 30 + rng.nextInt(80), radius = 1 + rng.nextInt(trial < 8 ? 20 : 127);
+            DungeonProcessor dungeonGen = new DungeonProcessor(width, height, rng);
+            dungeonGen.generate();
+            char[][] bare = dungeonGen.getBarePlaceGrid();
+            Region walls = new Region(bare, '#');
+            SightLines sight = new SightLines(walls, radius, 256 << (trial & 3));
+            Coord[] froms = new Coord[500], tos = new Coord[500];
+            boolean[] results = new boolean[500];
+            for (int round = 0; round < 40; round++) {
+                if (round > 0) {
+                    for (int n = 0; n < 30; n++) {
+                        int x = rng.nextInt(width), y = rng.nextInt(height);
+                        if (walls.contains(x, y)) walls.remove(Coord.get(x, y));
+                        else walls.insert(x, y);
+                    }
+                    sight.invalidate();
+                }
+                for (int i = 0; i < froms.length; i++) {
+                    if (i > 0 && rng.nextInt(3) == 0) {
+                        // ask about an earlier pair again, sometimes the other way around
+                        int j = rng.nextInt(i);
+                        froms[i] = rng.nextBoolean() ? froms[j] : tos[j];
+                        tos[i] = froms[i] == froms[j] ? tos[j] : froms[j];
+                        continue;
+                    }
+                    froms[i] = Coord.get(rng.nextInt(width), rng.nextInt(height));
+                    int reach = rng.nextInt(8) == 0 ? radius + 2 : radius;
+                    tos[i] = Coord.get(Math.min(width - 1, Math.max(0, froms[i].x + rng.nextInt(reach * 2 + 1) - reach)),
+                            Math.min(height - 1, Math.max(0, froms[i].y + rng.nextInt(reach * 2 + 1) - reach)));
+                }
+                int count = sight.canSee(froms, tos, froms.length, results), expectedCount = 0;
+                for (int i = 0; i < froms.length; i++) {
+                    boolean expected = bresenham(walls, radius, froms[i].x, froms[i].y, tos[i].x, tos[i].y);
+                    if (expected) expectedCount++;
+                    if (results[i] != expected || sight.canSee(tos[i], froms[i]) != expected)
+                        throw new IllegalStateException("Trial " + trial + ", round " + round + ": " + froms[i] + " and "
+                                + tos[i] + " should " + (expected ? "" : "not ") + "see each other (radius " + radius + ")");
+                    checked++;
+                }
+                if (count != expectedCount)
+                    throw new IllegalStateException("Trial " + trial + ", round " + round + " counted " + count
+                            + " visible pairs instead of " + expectedCount);
+                visible += count;
+            }
+        }
+        System.out.println("Checked " + checked + " sight lines (" + visible + " clear) against Bresenham walks; all matched.");
+    }
+
+    /**
+     * The reference: walks the whole line from the cell with the lower x (then lower y), checking each cell between.
+     */
+    private static boolean bresenham(Region walls, int radius, int x0, int y0, int x1, int y1) {
+        if (Math.abs(x1 - x0) > radius || Math.abs(y1 - y0) > radius)
+            return false;
+        if (x0 == x1 && y0 == y1)
+            return true;
+        if (x1 < x0 || x1 == x0 && y1 < y0)
+            return bresenham(walls, radius, x1, y1, x0, y0);
+        int dx = x1 - x0, dy = Math.abs(y1 - y0), sy = y0 < y1 ? 1 : -1, err = dx - dy;
+        int x = x0, y = y0;
+        while (true) {
+            int e2 = 2 * err;
+            if (e2 > -dy) {
+                err -= dy;
+                x++;
+            }
+            if (e2 < dx) {
+                err += dx;
+                y += sy;
+            }
+            if (x == x1 && y == y1)
+                return true;
+            if (walls.contains(x, y))
+                return false;
+        }
+    }
+}
@@ -49,6 +49,9 @@ public class Lwjgl3Launcher {
 		long seed;
 		if(env == null) seed = System.currentTimeMillis();
 		else seed = Long.parseLong(env);
-		return new Lwjgl3Application(new DaybreakDemo(seed), configuration);
+		DaybreakDemo app = new DaybreakDemo(seed);
+		// run with the environment variable "record" set to save this session's input to daybreak.replay.
+		app.recordInput = System.getenv("record") != null;
+		return new Lwjgl3Application(app, configuration);
 	}
 }
\ No newline at end of file
@@ -30,6 +30,10 @@ public class TsarGame extends ApplicationAdapter {
     private static class Monster {
         public AnimatedEntity entity;
         public int state;
+        // this monster's slot in the scheduler
+        public int turn;
+        // the SimulationLod turn this monster last acted on
+        public int acted;
 
         public Monster(AnimatedEntity ae, int state)
         {
@@ -84,6 +88,10 @@ public class TsarGame extends ApplicationAdapter {
     private int health = 7;
     private Color bgColor;
     private OrderedMap<Coord, Monster> monsters;
+    // holds each monster's position; a monster is awake once it has seen the player, and only awake ones take turns
+    private TurnScheduler<Coord> scheduler;
+    // lets awake monsters far from the player move room-to-room every few turns instead of pathfinding every turn
+    private SimulationLod lod;
     private DijkstraMap getToPlayer, playerToCursor;
     private Stage stage;
     private int framesWithoutAnimation = 0;
@@ -174,17 +182,21 @@ public class TsarGame extends ApplicationAdapter {
         placement.remove(playerPos);
         int numMonsters = 25;
         monsters = new OrderedMap<Coord, Monster>(numMonsters);
+        scheduler = new TurnScheduler<Coord>(numMonsters);
         for (int i = 0; i < numMonsters; i++) {
             Coord monPos = placement.singleRandom(rng);
             placement.remove(monPos);
-            monsters.put(monPos, new Monster(display.animateActor(monPos.x, monPos.y, 'Я',
-                    SColor.CRIMSON), 0));
+            Monster monster = new Monster(display.animateActor(monPos.x, monPos.y, 'Я',
+                    SColor.CRIMSON), 0);
+            monster.turn = scheduler.add(monPos, TurnScheduler.NORMAL);
+            monsters.put(monPos, monster);
         }
         // your choice of FOV matters here.
         fov = new FOV(FOV.RIPPLE_TIGHT);
         res = DungeonUtility.generateResistances(decoDungeon);
         fovmap = fov.calculateFOV(res, playerPos.x, playerPos.y, fovRange, Radius.SQUARE);
         getToPlayer = new DijkstraMap(decoDungeon, DijkstraMap.Measurement.CHEBYSHEV);
+        lod = new SimulationLod(bareDungeon, 8, fovRange + 2, fovRange * 3);
         getToPlayer.rng = rng;
         // just showing off a little here; we can use smoothly changing colors for the special AnimatedEntity values we
         // use for the player and monsters
@@ -381,8 +393,10 @@ public class TsarGame extends ApplicationAdapter {
                 fovmap = fov.calculateFOV(res, newX, newY, fovRange, Radius.SQUARE);
                 display.slide(player, newX, newY);
                 // if a monster was at the position we moved into, and so was successfully removed...
-                if(monsters.remove(Coord.get(newX, newY)) != null)
+                Monster dead = monsters.remove(Coord.get(newX, newY));
+                if(dead != null)
                 {
+                    scheduler.remove(dead.turn);
                     // ...then we make a little blood burst effect.
                     display.getForegroundLayer().burst(
                             // the position
@@ -403,56 +417,71 @@ public class TsarGame extends ApplicationAdapter {
     {
         phase = Phase.MONSTER_ANIM;
         Coord[] playerArray = {Coord.get(player.gridX, player.gridY)};
-        // in some cases you can use keySet() to get a Set of keys, but that makes a read-only view, and we want
-        // a copy of the key set that we can edit (so monsters don't move into each others' spaces)
-        OrderedSet<Coord> monplaces = monsters.keysAsOrderedSet();
-        int monCount = monplaces.size();
 
         // recalculate FOV, store it in fovmap for the render to use.
         fovmap = fov.calculateFOV(res, player.gridX, player.gridY, fovRange, Radius.SQUARE);
-        // handle monster turns
+        // wake any monster that can see the player; nothing past fovRange can be lit, so only that square is checked,
+        // and monsters that are still asleep cost nothing below.
+        for (int x = Math.max(0, player.gridX - fovRange); x <= Math.min(width - 1, player.gridX + fovRange); x++) {
+            for (int y = Math.max(0, player.gridY - fovRange); y <= Math.min(height - 1, player.gridY + fovRange); y++) {
+                Monster mon;
+                if (fovmap[x][y] > 0.1 && (mon = monsters.get(Coord.get(x, y))) != null && !scheduler.isAwake(mon.turn)) {
+                    if (mon.state == 0) {
+                        messages.appendMessage("The AЯMED GUAЯD shouts at you, \"" +
+                                FakeLanguageGen.RUSSIAN_AUTHENTIC.sentence(rng, 1, 3,
+                                        new String[]{",", ",", ",", " -"}, new String[]{"!"}, 0.25) + "\"");
+                    }
+                    scheduler.wake(mon.turn);
+                }
+            }
+        }
+        // handle monster turns, for only the monsters that are awake
+        lod.update(player.gridX, player.gridY);
         ArrayList<Coord> nextMovePositions;
-        for(int ci = 0; ci < monCount; ci++)
+        final long end = scheduler.getTime() + TurnScheduler.NORMAL;
+        for (int slot = scheduler.next(end); slot >= 0; slot = scheduler.next(end))
         {
-            Coord pos = monplaces.removeFirst();
-            Monster mon = monsters.get(pos);
-            // monster values are used to store their aggression, 1 for actively stalking the player, 0 for not.
-            if (mon.state > 0 || fovmap[pos.x][pos.y] > 0.1) {
-                if (mon.state == 0) {
-                    messages.appendMessage("The AЯMED GUAЯD shouts at you, \"" +
-                            FakeLanguageGen.RUSSIAN_AUTHENTIC.sentence(rng, 1, 3,
-                                    new String[]{",", ",", ",", " -"}, new String[]{"!"}, 0.25) + "\"");
-                }
-                getToPlayer.clearGoals();
-                nextMovePositions = getToPlayer.findPath(1, monplaces, null, pos, playerArray);
-                if (nextMovePositions != null && !nextMovePositions.isEmpty()) {
-                    Coord tmp = nextMovePositions.get(0);
-                    // if we would move into the player, instead damage the player and give newMons the current
-                    // position of this monster.
-                    if (tmp.x == player.gridX && tmp.y == player.gridY) {
-                        display.tint(player.gridX, player.gridY, SColor.PURE_CRIMSON, 0, 0.415f);
-                        health--;
-                        // make sure the monster is still actively stalking/chasing the player
-                        mon.change(1);
-                        monplaces.add(pos);
-                    }
-                    // otherwise store the new position in newMons.
-                    else {
-                        // make the monster actively stalk/chase the player
-                        mon.change(1);
-                        // alter is a method on OrderedMap and OrderedSet that changes a key in-place
+            Coord pos = scheduler.get(slot);
+            int tier = lod.tierOf(pos.x, pos.y, fovmap[pos.x][pos.y] > 0.0);
+            // monsters far from the player only move room-to-room every few turns, always onto a free floor cell, so
+            // nothing changes when they get close again.
+            if (tier != SimulationLod.FULL) {
+                Monster mon = monsters.get(pos);
+                int steps = lod.stepsDue(tier, mon.acted);
+                if (steps > 0) {
+                    Coord tmp = lod.coarseStep(pos.x, pos.y, steps, monsters.keySet());
+                    mon.acted = lod.getTurn();
+                    if (tmp.x != pos.x || tmp.y != pos.y) {
                         monsters.alter(pos, tmp);
                         display.slide(mon.entity, tmp.x, tmp.y);
-                        monplaces.add(tmp);
+                        scheduler.set(slot, tmp);
                     }
-                } else {
-                    mon.change(1);
-                    monplaces.add(pos);
                 }
+                continue;
             }
-            else
-            {
-                monplaces.add(pos);
+            // taken out while it finds a path, so it doesn't block itself; put back below
+            Monster mon = monsters.remove(pos);
+            // make the monster actively stalk/chase the player
+            mon.change(1);
+            mon.acted = lod.getTurn();
+            getToPlayer.clearGoals();
+            nextMovePositions = getToPlayer.findPath(1, monsters.keySet(), null, pos, playerArray);
+            if (nextMovePositions != null && !nextMovePositions.isEmpty()) {
+                Coord tmp = nextMovePositions.get(0);
+                // if we would move into the player, instead damage the player and stay in place.
+                if (tmp.x == player.gridX && tmp.y == player.gridY) {
+                    display.tint(player.gridX, player.gridY, SColor.PURE_CRIMSON, 0, 0.415f);
+                    health--;
+                    monsters.put(pos, mon);
+                }
+                // otherwise move to the new position.
+                else {
+                    display.slide(mon.entity, tmp.x, tmp.y);
+                    monsters.put(tmp, mon);
+                    scheduler.set(slot, tmp);
+                }
+            } else {
+                monsters.put(pos, mon);
             }
         }
 
@@ -83,6 +83,9 @@ public class TsarDemo extends ApplicationAdapter {
     private TextCellFactory font;
     private Stage stage, messageStage;
     private OrderedMap<Coord, TextCellFactory.Glyph> monsters;
+    // holds each monster's position; a monster's glyph holds its slot here as its user object, and a monster is awake
+    // once it has seen the player
+    private TurnScheduler<Coord> scheduler;
     private DijkstraMap getToPlayer, playerToCursor;
     private Coord cursor;
     private List<Coord> toCursor;
@@ -302,10 +305,12 @@ public class TsarDemo extends ApplicationAdapter {
         floors.remove(player);
         int numMonsters = 50;
         monsters = new OrderedMap<>(numMonsters);
+        scheduler = new TurnScheduler<>(numMonsters);
         for (int i = 0; i < numMonsters; i++) {
             Coord monPos = floors.singleRandom(rng);
             floors.remove(monPos);
             TextCellFactory.Glyph monster = display.glyph('Я', SColor.CRIMSON, monPos.x, monPos.y);
+            monster.setUserObject(scheduler.add(monPos, TurnScheduler.NORMAL));
             monsters.put(monPos, monster);
         }
         //This is used to allow clicks or taps to take the player to the desired area.
@@ -521,7 +526,9 @@ public class TsarDemo extends ApplicationAdapter {
                 // if a monster was at the position we moved into, and so was successfully removed...
                 if(monsters.containsKey(player))
                 {
-                    display.removeGlyph(monsters.remove(player));
+                    TextCellFactory.Glyph dead = monsters.remove(player);
+                    scheduler.remove((Integer) dead.getUserObject());
+                    display.removeGlyph(dead);
                     // ...then we make a little blood burst effect.
                     display.burst(
                             // the position
@@ -543,57 +550,55 @@ public class TsarDemo extends ApplicationAdapter {
     {
         phase = Phase.MONSTER_ANIM;
         Coord[] playerArray = {player};
-        // in some cases you can use keySet() to get a Set of keys, but that makes a read-only view, and we want
-        // a copy of the key set that we can edit (so monsters don't move into each others' spaces)
-        OrderedSet<Coord> monplaces = monsters.keysAsOrderedSet();
-        int monCount = monplaces.size();
 
         // recalculate FOV, store it in fovmap for the render to use.
         FOV.reuseFOV(resistance, visible, player.x, player.y, fovRange, Radius.CIRCLE);
         blockage.refill(visible, 0.0);
         seen.or(blockage.not());
         blockage.fringe8way();
-        // handle monster turns
+        // wake any monster that can see the player; nothing past fovRange can be lit, so only that square is checked,
+        // and monsters that are still asleep cost nothing below.
+        for (int x = Math.max(0, player.x - fovRange); x <= Math.min(bigWidth - 1, player.x + fovRange); x++) {
+            for (int y = Math.max(0, player.y - fovRange); y <= Math.min(bigHeight - 1, player.y + fovRange); y++) {
+                TextCellFactory.Glyph mon;
+                if (visible[x][y] > 0.1 && (mon = monsters.get(Coord.get(x, y))) != null) {
+                    int slot = (Integer) mon.getUserObject();
+                    if (!scheduler.isAwake(slot)) {
+                        messageDisplay.appendMessage("The AЯMED GUAЯD shouts at you, \"" +
+                                FakeLanguageGen.RUSSIAN_AUTHENTIC.sentence(rng, 1, 3,
+                                        new String[]{",", ",", ",", " -"}, new String[]{"!"}, 0.2) + "\"");
+                        scheduler.wake(slot);
+                    }
+                }
+            }
+        }
+        // handle monster turns, for only the monsters that are awake
         ArrayList<Coord> nextMovePositions;
-        for(int ci = 0; ci < monCount; ci++)
+        final long end = scheduler.getTime() + TurnScheduler.NORMAL;
+        for (int slot = scheduler.next(end); slot >= 0; slot = scheduler.next(end))
         {
-            Coord pos = monplaces.removeFirst();
-            TextCellFactory.Glyph mon = monsters.get(pos);
-            // monster values are used to store their aggression, 1 for actively stalking the player, 0 for not.
-            if (mon.getUserObject() != null || visible[pos.x][pos.y] > 0.1) {
-                if (mon.getUserObject() == null) {
-                    messageDisplay.appendMessage("The AЯMED GUAЯD shouts at you, \"" +
-                            FakeLanguageGen.RUSSIAN_AUTHENTIC.sentence(rng, 1, 3,
-                                    new String[]{",", ",", ",", " -"}, new String[]{"!"}, 0.2) + "\"");
-                    mon.setUserObject(true);
+            Coord pos = scheduler.get(slot);
+            // taken out while it finds a path, so it doesn't block itself; put back below
+            TextCellFactory.Glyph mon = monsters.remove(pos);
+            getToPlayer.clearGoals();
+            nextMovePositions = getToPlayer.findPath(1, monsters.keySet(), null, pos, playerArray);
+            if (nextMovePositions != null && !nextMovePositions.isEmpty()) {
+                Coord tmp = nextMovePositions.get(0);
+                // if we would move into the player, instead damage the player and stay in place.
+                if (tmp.x == player.x && tmp.y == player.y) {
+                    // the complicated number below is SColor.PURE_CRIMSON.toFloatBits()
+                    display.tint(0f, player.x, player.y, -0x1.564f86p125F, 0.415f, null);
+                    health--;
+                    monsters.put(pos, mon);
                 }
-                getToPlayer.clearGoals();
-                nextMovePositions = getToPlayer.findPath(1, monplaces, null, pos, playerArray);
-                if (nextMovePositions != null && !nextMovePositions.isEmpty()) {
-                    Coord tmp = nextMovePositions.get(0);
-                    // if we would move into the player, instead damage the player and give newMons the current
-                    // position of this monster.
-                    if (tmp.x == player.x && tmp.y == player.y) {
-                        // the complicated number below is SColor.PURE_CRIMSON.toFloatBits()
-                        display.tint(0f, player.x, player.y, -0x1.564f86p125F, 0.415f, null);
-                        health--;
-                        // make sure the monster is still actively stalking/chasing the player
-                        monplaces.add(pos);
-                    }
-                    // otherwise store the new position in newMons.
-                    else {
-                        // alter is a method on OrderedMap and OrderedSet that changes a key in-place
-                        monsters.alter(pos, tmp);
-                        display.slide(mon, pos.x, pos.y, tmp.x, tmp.y, 0.125f, null);
-                        monplaces.add(tmp);
-                    }
-                } else {
-                    monplaces.add(pos);
+                // otherwise move to the new position.
+                else {
+                    display.slide(mon, pos.x, pos.y, tmp.x, tmp.y, 0.125f, null);
+                    monsters.put(tmp, mon);
+                    scheduler.set(slot, tmp);
                 }
-            }
-            else
-            {
-                monplaces.add(pos);
+            } else {
+                monsters.put(pos, mon);
             }
         }
 